@@ -0,0 +1,238 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Generates the CSV input files used by the benchmarks. Files are written once per size into 
+ * {@code java.io.tmpdir/spring-utils-jmh} and reused by later runs, so the 1 GB file is only paid 
+ * for the first time
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ *
+ */
+public final class BenchmarkFiles
+{
+	public static final String DIRECTORY_NAME = "spring-utils-jmh";
+	
+	private static final Map<String, FileInfo> FILES = new ConcurrentHashMap<>();
+	
+	private BenchmarkFiles()
+	{
+	}
+	
+	/**
+	 * Gets the benchmark CSV file of the given size, generating it if it does not exist yet
+	 * 
+	 * @param fileSize The size as a number followed by KB, MB or GB, e.g. 100MB
+	 * 
+	 * @return The file and the number of lines in it
+	 * 
+	 * @throws IOException If the file could not be written or read
+	 */
+	public static FileInfo getCsvFile(String fileSize) throws IOException
+	{
+		FileInfo info = FILES.get(fileSize);
+		
+		if(info == null)
+		{
+			synchronized(FILES)
+			{
+				info = FILES.get(fileSize);
+				
+				if(info == null)
+				{
+					info = createCsvFile(fileSize);
+					FILES.put(fileSize, info);
+				}
+			}
+		}
+		
+		return info;
+	}
+	
+	/**
+	 * Parses a size such as 1KB, 10MB or 1GB into bytes
+	 * 
+	 * @param fileSize The size string
+	 * 
+	 * @return The number of bytes
+	 */
+	public static long parseSize(String fileSize)
+	{
+		String size = fileSize.trim().toUpperCase(Locale.ROOT);
+		long multiplier = 1;
+		
+		if(size.endsWith("KB"))
+		{
+			multiplier = 1024L;
+		}
+		else if(size.endsWith("MB"))
+		{
+			multiplier = 1024L * 1024L;
+		}
+		else if(size.endsWith("GB"))
+		{
+			multiplier = 1024L * 1024L * 1024L;
+		}
+		
+		if(multiplier > 1)
+		{
+			size = size.substring(0, size.length() - 2);
+		}
+		
+		return Long.parseLong(size.trim()) * multiplier;
+	}
+	
+	/**
+	 * Creates an empty scratch file for benchmarks that write, deleted when the JVM exits
+	 * 
+	 * @param prefix The file name prefix
+	 * 
+	 * @return The scratch file
+	 * 
+	 * @throws IOException If the file could not be created
+	 */
+	public static File createOutputFile(String prefix) throws IOException
+	{
+		File file = Files.createTempFile(getDirectory(), prefix, ".csv").toFile();
+		file.deleteOnExit();
+		
+		return file;
+	}
+	
+	private static FileInfo createCsvFile(String fileSize) throws IOException
+	{
+		long targetBytes = parseSize(fileSize);
+		Path file = getDirectory().resolve("players-" + fileSize.trim().toUpperCase(Locale.ROOT) + ".csv");
+		
+		if(!Files.exists(file))
+		{
+			// Write to a temp file first so an interrupted run never leaves a short file to be reused
+			Path temp = Files.createTempFile(getDirectory(), "players-", ".tmp");
+			
+			try(BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8))
+			{
+				String header = "id,name,team,season,games,average,salary,notes";
+				writer.write(header);
+				writer.newLine();
+				
+				long written = header.length() + 1;
+				
+				for(int row = 0; written < targetBytes; row++)
+				{
+					String line = createLine(row);
+					writer.write(line);
+					writer.newLine();
+					written += line.length() + 1;
+				}
+			}
+			
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		
+		return new FileInfo(file.toFile(), countLines(file));
+	}
+	
+	private static String createLine(int row)
+	{
+		StringBuilder line = new StringBuilder(96);
+		line.append(row).append(',');
+		line.append("Player ").append(row % 9973).append(',');
+		line.append("TEAM").append(row % 30).append(',');
+		line.append(1990 + row % 35).append(',');
+		line.append(row % 163).append(',');
+		line.append('.').append(200 + row % 150).append(',');
+		line.append(500_000L + (row * 7919L) % 30_000_000L).append(',');
+		
+		// Every tenth row carries a quoted field with an embedded delimiter and escaped quote
+		if(row % 10 == 0)
+		{
+			line.append("\"Traded, then \"\"re-signed\"\"\"");
+		}
+		
+		return line.toString();
+	}
+	
+	private static long countLines(Path file) throws IOException
+	{
+		try(Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8))
+		{
+			return lines.count();
+		}
+	}
+	
+	private static Path getDirectory() throws IOException
+	{
+		return Files.createDirectories(Path.of(System.getProperty("java.io.tmpdir"), DIRECTORY_NAME));
+	}
+	
+	/**
+	 * A generated benchmark file and the number of lines it contains
+	 */
+	public static final class FileInfo
+	{
+		private final File file;
+		
+		private final long lines;
+		
+		private FileInfo(File file, long lines)
+		{
+			this.file = file;
+			this.lines = lines;
+		}
+		
+		/**
+		 * Gets the generated file
+		 * 
+		 * @return The generated file
+		 */
+		public File getFile()
+		{
+			return file;
+		}
+		
+		/**
+		 * Gets the number of lines in the file, including the header
+		 * 
+		 * @return The number of lines
+		 */
+		public long getLines()
+		{
+			return lines;
+		}
+		
+		/**
+		 * Gets the size of the file in bytes
+		 * 
+		 * @return The size of the file in bytes
+		 */
+		public long getBytes()
+		{
+			return file.length();
+		}
+	}
+}
@@ -0,0 +1,61 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.sobetech.common.service.spring.benchmark.BenchmarkFiles.FileInfo;
+
+/**
+ * Secondary benchmark results counting the bytes and lines handled. JMH normalizes these the same 
+ * way as the primary result, so in throughput mode {@code bytes} is bytes per second (divide by 
+ * 1,000,000 for MB/s) and {@code lines} is lines per second
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ *
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class FileThroughput
+{
+	public long bytes;
+	
+	public long lines;
+	
+	/**
+	 * Clear the counters at the start of every iteration
+	 */
+	@Setup(Level.Iteration)
+	public void reset()
+	{
+		bytes = 0;
+		lines = 0;
+	}
+	
+	/**
+	 * Record one pass over a file
+	 * 
+	 * @param info The file that was read or written
+	 */
+	public void add(FileInfo info)
+	{
+		bytes += info.getBytes();
+		lines += info.getLines();
+	}
+}
@@ -0,0 +1,118 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sobetech.common.service.spring.benchmark.BenchmarkFiles.FileInfo;
+import com.sobetech.common.service.spring.io.FileUtil;
+
+/**
+ * Throughput of reading and writing whole files through FileUtil. The write benchmarks save the 
+ * lines of the input file, so the bytes written match the input size
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx16g"})
+public class FileUtilBenchmark
+{
+	@Param({"1KB", "1MB", "100MB", "1GB"})
+	public String fileSize;
+	
+	private final FileUtil fileUtil = new FileUtil();
+	
+	private FileInfo info;
+	
+	private List<String> lines;
+	
+	private String outputPath;
+	
+	/**
+	 * Generate, or reuse, the input file and load its lines for the write benchmarks
+	 * 
+	 * @throws IOException If the files could not be created
+	 */
+	@Setup(Level.Trial)
+	public void createFiles() throws IOException
+	{
+		info = BenchmarkFiles.getCsvFile(fileSize);
+		lines = fileUtil.openFile(info.getFile().getAbsolutePath());
+		
+		File output = BenchmarkFiles.createOutputFile("save-");
+		outputPath = output.getAbsolutePath();
+	}
+	
+	@Benchmark
+	public List<String> openFile(FileThroughput throughput)
+	{
+		List<String> contents = fileUtil.openFile(info.getFile().getAbsolutePath());
+		throughput.add(info);
+		
+		return contents;
+	}
+	
+	@Benchmark
+	public long streamFile(FileThroughput throughput) throws IOException
+	{
+		try(Stream<String> stream = fileUtil.streamFile(info.getFile().getAbsolutePath()))
+		{
+			long count = stream.count();
+			throughput.add(info);
+			
+			return count;
+		}
+	}
+	
+	@Benchmark
+	public boolean saveFileCollection(FileThroughput throughput)
+	{
+		boolean saved = fileUtil.saveFile(outputPath, lines);
+		throughput.add(info);
+		
+		return saved;
+	}
+	
+	@Benchmark
+	public boolean saveFileStream(FileThroughput throughput)
+	{
+		boolean saved = fileUtil.saveFile(outputPath, lines.stream());
+		throughput.add(info);
+		
+		return saved;
+	}
+}
@@ -0,0 +1,215 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.sobetech.common.service.spring.benchmark.BenchmarkFiles.FileInfo;
+import com.sobetech.common.service.spring.io.parser.file.LineReader;
+import com.sobetech.common.service.spring.io.parser.file.LineTerminator;
+import com.sobetech.common.service.spring.io.parser.file.MappedFileLineReader;
+import com.sobetech.common.service.spring.io.parser.file.StringLineFileParser;
+
+/**
+ * Raw line reading with no parsing, comparing the Scanner the parsers used to read with against 
+ * BufferedReader and the LineReader and MappedFileLineReader that replaced it. The 
+ * <code>WithCleanup</code> benchmarks add the whitespace and blank line cleanup the parsers do by 
+ * default, comparing the regular expressions the parsers used with Scanner against the character
+ * scan they use now with LineReader
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx4g"})
+public class LineReaderBenchmark
+{
+	@Param({"1KB", "1MB", "100MB", "1GB"})
+	public String fileSize;
+	
+	private FileInfo info;
+	
+	private LineCleaner cleaner;
+	
+	/**
+	 * Generate, or reuse, the input file for this size
+	 * 
+	 * @throws IOException If the file could not be created
+	 */
+	@Setup(Level.Trial)
+	public void createFile() throws IOException
+	{
+		info = BenchmarkFiles.getCsvFile(fileSize);
+		cleaner = new LineCleaner(info.getFile());
+	}
+	
+	@Benchmark
+	public void scanner(FileThroughput throughput, Blackhole blackhole) throws IOException
+	{
+		try(Scanner scanner = new Scanner(info.getFile(), StandardCharsets.UTF_8))
+		{
+			while(scanner.hasNextLine())
+			{
+				blackhole.consume(scanner.nextLine());
+			}
+		}
+		
+		throughput.add(info);
+	}
+	
+	/**
+	 * Read and clean lines the way the parsers did before LineReader replaced Scanner
+	 */
+	@Benchmark
+	public void scannerWithCleanup(FileThroughput throughput, Blackhole blackhole) throws IOException
+	{
+		try(Scanner scanner = new Scanner(info.getFile(), StandardCharsets.UTF_8))
+		{
+			while(scanner.hasNextLine())
+			{
+				String fileLine = scanner.nextLine();
+				fileLine = fileLine.replaceAll("^\\s", "");
+				fileLine = fileLine.replaceAll("\\s+$", "");
+				
+				if(fileLine.isBlank())
+				{
+					continue;
+				}
+				
+				blackhole.consume(fileLine);
+			}
+		}
+		
+		throughput.add(info);
+	}
+	
+	@Benchmark
+	public void bufferedReader(FileThroughput throughput, Blackhole blackhole) throws IOException
+	{
+		try(BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(info.getFile()), 
+				StandardCharsets.UTF_8)))
+		{
+			String line;
+			
+			while((line = reader.readLine()) != null)
+			{
+				blackhole.consume(line);
+			}
+		}
+		
+		throughput.add(info);
+	}
+	
+	@Benchmark
+	public void lineReader(FileThroughput throughput, Blackhole blackhole) throws IOException
+	{
+		try(LineReader reader = new LineReader(new InputStreamReader(new FileInputStream(info.getFile()), 
+				StandardCharsets.UTF_8)))
+		{
+			String line;
+			
+			while((line = reader.readLine()) != null)
+			{
+				blackhole.consume(line);
+			}
+		}
+		
+		throughput.add(info);
+	}
+	
+	/**
+	 * Read and clean lines the way the parsers do now
+	 */
+	@Benchmark
+	public void lineReaderWithCleanup(FileThroughput throughput, Blackhole blackhole) throws IOException
+	{
+		try(LineReader reader = new LineReader(new InputStreamReader(new FileInputStream(info.getFile()), 
+				StandardCharsets.UTF_8)))
+		{
+			String line;
+			
+			while((line = reader.readLine()) != null)
+			{
+				String cleanedLine = cleaner.clean(line);
+				
+				if(cleanedLine != null)
+				{
+					blackhole.consume(cleanedLine);
+				}
+			}
+		}
+		
+		throughput.add(info);
+	}
+	
+	@Benchmark
+	public void mappedFileLineReader(FileThroughput throughput, Blackhole blackhole) throws IOException
+	{
+		try(MappedFileLineReader reader = new MappedFileLineReader(info.getFile(), StandardCharsets.UTF_8, 
+				LineTerminator.ANY))
+		{
+			String line;
+			
+			while((line = reader.readLine()) != null)
+			{
+				blackhole.consume(line);
+			}
+		}
+		
+		throughput.add(info);
+	}
+	
+	/**
+	 * Exposes the line cleanup of a parser with its default settings
+	 */
+	private static class LineCleaner extends StringLineFileParser
+	{
+		private LineCleaner(File file) throws FileNotFoundException
+		{
+			super(file);
+		}
+		
+		private String clean(String line)
+		{
+			return cleanLine(line);
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.sobetech.common.service.spring.benchmark.BenchmarkFiles.FileInfo;
+import com.sobetech.common.service.spring.io.parser.file.AbstractTextFileParser;
+import com.sobetech.common.service.spring.io.parser.file.CSVFileParser;
+import com.sobetech.common.service.spring.io.parser.file.DataLineFileParser;
+import com.sobetech.common.service.spring.io.parser.file.FileReadMode;
+import com.sobetech.common.service.spring.io.parser.file.StringLineFileParser;
+import com.sobetech.common.service.spring.io.parser.file.TextFileParser;
+
+/**
+ * Throughput of the text file parsers over generated CSV files from 1 KB to 1 GB. Each operation 
+ * parses the whole file, so ops/s is files per second; the {@link FileThroughput} counters give 
+ * bytes and lines per second. Run with {@code -prof gc} for the allocation per operation
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx16g"})
+public class ParserBenchmark
+{
+	@Param({"1KB", "1MB", "100MB", "1GB"})
+	public String fileSize;
+	
+	@Param({"STREAM", "MEMORY_MAPPED"})
+	public FileReadMode readMode;
+	
+	private FileInfo info;
+	
+	/**
+	 * Generate, or reuse, the input file for this size
+	 * 
+	 * @throws IOException If the file could not be created
+	 */
+	@Setup(Level.Trial)
+	public void createFile() throws IOException
+	{
+		info = BenchmarkFiles.getCsvFile(fileSize);
+	}
+	
+	@Benchmark
+	public Object csvFileParser(FileThroughput throughput) throws IOException
+	{
+		return parse(new CSVFileParser(info.getFile()), throughput);
+	}
+	
+	@Benchmark
+	public void csvTokenizer(FileThroughput throughput, Blackhole blackhole) throws IOException
+	{
+		CSVFileParser parser = configure(new CSVFileParser(info.getFile()));
+		parser.tokenizeFile(tokenizer -> blackhole.consume(tokenizer.getLong(6)));
+		throughput.add(info);
+	}
+	
+	@Benchmark
+	public Object textFileParser(FileThroughput throughput) throws IOException
+	{
+		return parse(new TextFileParser(info.getFile()), throughput);
+	}
+	
+	@Benchmark
+	public Object dataLineFileParser(FileThroughput throughput) throws IOException
+	{
+		return parse(new DataLineFileParser(info.getFile()), throughput);
+	}
+	
+	@Benchmark
+	public Object stringLineFileParser(FileThroughput throughput) throws IOException
+	{
+		return parse(new StringLineFileParser(info.getFile()), throughput);
+	}
+	
+	@Benchmark
+	public void stringLineFileParserStreaming(FileThroughput throughput, Blackhole blackhole) throws IOException
+	{
+		configure(new StringLineFileParser(info.getFile())).parseFile(blackhole::consume);
+		throughput.add(info);
+	}
+	
+	private Object parse(AbstractTextFileParser<?> parser, FileThroughput throughput) throws IOException
+	{
+		Object contents = configure(parser).parseFile();
+		throughput.add(info);
+		
+		return contents;
+	}
+	
+	private <P extends AbstractTextFileParser<?>> P configure(P parser)
+	{
+		parser.setReadMode(readMode);
+		parser.setHeaderLinesToIgnore(1);
+		
+		return parser;
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.exception;
+
+/**
+ * An ApiRuntimeException for when a file being parsed in tolerant mode has more rejected lines than
+ * its limits allow, so the parse is stopped instead of finishing a file that will be discarded
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public class TooManyRejectsException extends ApiRuntimeException
+{
+	private static final long serialVersionUID = -4168672620544154995L;
+
+	private final long rejectedLines;
+	
+	private final long linesProcessed;
+	
+	/**
+	 * Create a TooManyRejectsException
+	 * 
+	 * @param message The message to include with this exception
+	 * @param rejectedLines The number of lines rejected when the parse stopped
+	 * @param linesProcessed The number of lines either kept or rejected when the parse stopped
+	 */
+	public TooManyRejectsException(String message, long rejectedLines, long linesProcessed)
+	{
+		super(message, ErrorCode.INVALID_FORMAT);
+		this.rejectedLines = rejectedLines;
+		this.linesProcessed = linesProcessed;
+	}
+
+	/**
+	 * The number of lines rejected when the parse stopped
+	 *
+	 * @return the rejectedLines
+	 */
+	public long getRejectedLines()
+	{
+		return this.rejectedLines;
+	}
+
+	/**
+	 * The number of lines either kept or rejected when the parse stopped
+	 *
+	 * @return the linesProcessed
+	 */
+	public long getLinesProcessed()
+	{
+		return this.linesProcessed;
+	}
+}
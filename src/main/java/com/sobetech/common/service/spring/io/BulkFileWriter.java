@@ -0,0 +1,666 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Writes large numbers of objects to a file, one line per object. The text of each object is 
+ * encoded into a small set of large buffers that are reused for the whole write. Full buffers are
+ * written to the file on a background thread while the next buffer is filled. When the background 
+ * thread falls behind, the caller waits for a buffer to be freed, so memory use stays bounded no 
+ * matter how many objects are written.
+ * 
+ * Set the options before calling one of the write methods. Each write opens the file, writes every
+ * object and closes the file again.
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public class BulkFileWriter
+{
+	/**
+	 * The default number of bytes held in each write buffer
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+	
+	/**
+	 * The default number of full buffers that can wait to be written before the caller is held up
+	 */
+	public static final int DEFAULT_QUEUE_DEPTH = 4;
+	
+	private static final int CHAR_BUFFER_SIZE = 64 * 1024;
+	
+	private final Path path;
+	
+	private Charset charset = Charset.defaultCharset();
+	
+	private String lineSeparator = System.lineSeparator();
+	
+	private boolean append = false;
+	
+	private boolean atomic = false;
+	
+	private int bufferSize = DEFAULT_BUFFER_SIZE;
+	
+	private int queueDepth = DEFAULT_QUEUE_DEPTH;
+
+	/**
+	 * Create a BulkFileWriter
+	 * 
+	 * @param filePath The fully qualified path of the file to be written
+	 */
+	public BulkFileWriter(String filePath)
+	{
+		this(Path.of(filePath));
+	}
+
+	/**
+	 * Create a BulkFileWriter
+	 * 
+	 * @param path The path of the file to be written
+	 */
+	public BulkFileWriter(Path path)
+	{
+		this.path = path;
+	}
+	
+	/**
+	 * Write each object as its own line, using its toString method
+	 * 
+	 * @param objects The objects to write
+	 * @return How much was written and how long it took
+	 * @throws IOException If the file could not be written
+	 */
+	public BulkWriteStatistics write(Iterable<?> objects) throws IOException
+	{
+		return write(objects.iterator());
+	}
+	
+	/**
+	 * Write each object of a stream as its own line, using its toString method. The stream is 
+	 * consumed but not closed
+	 * 
+	 * @param objects The objects to write
+	 * @return How much was written and how long it took
+	 * @throws IOException If the file could not be written
+	 */
+	public BulkWriteStatistics write(Stream<?> objects) throws IOException
+	{
+		return write(objects.iterator());
+	}
+	
+	/**
+	 * Write each object as its own line, using its toString method. If the write fails part way 
+	 * through an atomic write, the file is left as it was
+	 * 
+	 * @param objects The objects to write
+	 * @return How much was written and how long it took
+	 * @throws IOException If the file could not be written
+	 */
+	public BulkWriteStatistics write(Iterator<?> objects) throws IOException
+	{
+		long startTime = System.nanoTime();
+		Path target = this.path.toAbsolutePath();
+		Path output = isAtomic() ? createTempFile(target) : target;
+		boolean complete = false;
+		
+		try
+		{
+			long objectsWritten;
+			long bytesWritten;
+			
+			try(FileChannel channel = FileChannel.open(output, getOpenOptions(output != target)))
+			{
+				BufferFlusher flusher = new BufferFlusher(channel, getQueueDepth(), getBufferSize());
+				
+				try
+				{
+					objectsWritten = encode(objects, flusher);
+				}
+				catch(Throwable t)
+				{
+					flusher.abort();
+					throw t;
+				}
+				
+				bytesWritten = flusher.finish();
+				
+				if(isAtomic())
+				{
+					channel.force(false);
+				}
+			}
+			
+			if(output != target)
+			{
+				moveIntoPlace(output, target);
+			}
+			
+			complete = true;
+			return new BulkWriteStatistics(objectsWritten, bytesWritten, System.nanoTime() - startTime);
+		}
+		finally
+		{
+			if(!complete && output != target)
+			{
+				deleteQuietly(output);
+			}
+		}
+	}
+	
+	/**
+	 * Encode the text of every object into the buffers of the flusher
+	 */
+	private long encode(Iterator<?> objects, BufferFlusher flusher) throws IOException
+	{
+		CharsetEncoder encoder = getCharset().newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+		ByteBuffer bytes = flusher.takeFreeBuffer();
+		long objectCount = 0;
+		
+		while(objects.hasNext())
+		{
+			String text = String.valueOf(objects.next());
+			bytes = appendText(text, chars, encoder, bytes, flusher);
+			bytes = appendText(this.lineSeparator, chars, encoder, bytes, flusher);
+			objectCount++;
+		}
+		
+		bytes = encodeChars(chars, encoder, true, bytes, flusher);
+		while(encoder.flush(bytes).isOverflow())
+		{
+			bytes = flusher.submit(bytes);
+		}
+		
+		flusher.submitLast(bytes);
+		
+		return objectCount;
+	}
+	
+	/**
+	 * Copy text into the char buffer, encoding it whenever the char buffer fills up
+	 */
+	private static ByteBuffer appendText(String text, CharBuffer chars, CharsetEncoder encoder, ByteBuffer bytes, 
+			BufferFlusher flusher) throws IOException
+	{
+		int offset = 0;
+		
+		while(offset < text.length())
+		{
+			int count = Math.min(chars.remaining(), text.length() - offset);
+			text.getChars(offset, offset + count, chars.array(), chars.arrayOffset() + chars.position());
+			chars.position(chars.position() + count);
+			offset += count;
+			
+			if(!chars.hasRemaining())
+			{
+				bytes = encodeChars(chars, encoder, false, bytes, flusher);
+			}
+		}
+		
+		return bytes;
+	}
+	
+	/**
+	 * Encode the chars waiting in the char buffer, handing byte buffers to the flusher as they fill.
+	 * Chars that the encoder needs more input for, such as half of a surrogate pair, are kept for
+	 * the next call
+	 */
+	private static ByteBuffer encodeChars(CharBuffer chars, CharsetEncoder encoder, boolean endOfInput, 
+			ByteBuffer bytes, BufferFlusher flusher) throws IOException
+	{
+		chars.flip();
+		
+		while(true)
+		{
+			CoderResult result = encoder.encode(chars, bytes, endOfInput);
+			
+			if(result.isOverflow())
+			{
+				bytes = flusher.submit(bytes);
+			}
+			else
+			{
+				if(result.isError())
+				{
+					result.throwException();
+				}
+				
+				break;
+			}
+		}
+		
+		chars.compact();
+		return bytes;
+	}
+	
+	private OpenOption[] getOpenOptions(boolean tempFile)
+	{
+		if(tempFile)
+		{
+			return new OpenOption[] {StandardOpenOption.WRITE, StandardOpenOption.APPEND};
+		}
+		
+		return new OpenOption[] {StandardOpenOption.CREATE, StandardOpenOption.WRITE, 
+				isAppend() ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING};
+	}
+	
+	/**
+	 * Create the temp file for an atomic write in the same directory as the target, so it can be
+	 * renamed over the target. An append starts from a copy of the current file. The temp file takes 
+	 * the permissions of the target if it exists, otherwise it is created with the default umask 
+	 * like any new file, rather than the owner only permissions of a temporary file
+	 */
+	private Path createTempFile(Path target) throws IOException
+	{
+		Path tempFile = createUniqueFile(target);
+		
+		try
+		{
+			if(Files.exists(target))
+			{
+				if(isAppend())
+				{
+					Files.copy(target, tempFile, StandardCopyOption.REPLACE_EXISTING);
+				}
+				
+				if(target.getFileSystem().supportedFileAttributeViews().contains("posix"))
+				{
+					Files.setPosixFilePermissions(tempFile, Files.getPosixFilePermissions(target));
+				}
+			}
+		}
+		catch(IOException e)
+		{
+			deleteQuietly(tempFile);
+			throw e;
+		}
+		
+		return tempFile;
+	}
+	
+	/**
+	 * Create a new empty file next to the target with a name no other file has
+	 */
+	private static Path createUniqueFile(Path target) throws IOException
+	{
+		Path directory = target.toAbsolutePath().getParent();
+		String prefix = "." + target.getFileName() + ".";
+		
+		while(true)
+		{
+			try
+			{
+				return Files.createFile(directory.resolve(prefix + Long.toHexString(ThreadLocalRandom.current().nextLong()) 
+						+ ".tmp"));
+			}
+			catch(FileAlreadyExistsException e)
+			{
+				//Try another name
+			}
+		}
+	}
+	
+	private static void moveIntoPlace(Path tempFile, Path target) throws IOException
+	{
+		try
+		{
+			Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch(AtomicMoveNotSupportedException e)
+		{
+			Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+	
+	private static void deleteQuietly(Path file)
+	{
+		try
+		{
+			Files.deleteIfExists(file);
+		}
+		catch(IOException e)
+		{
+			//The original error is more useful than this one
+		}
+	}
+	
+	/**
+	 * Writes full buffers to the file on a background thread and hands them back once they are empty
+	 */
+	private static class BufferFlusher implements Runnable
+	{
+		private static final ByteBuffer END_OF_WRITE = ByteBuffer.allocate(0);
+		
+		private final FileChannel channel;
+		
+		private final BlockingQueue<ByteBuffer> fullBuffers;
+		
+		private final BlockingQueue<ByteBuffer> freeBuffers;
+		
+		private final Thread thread;
+		
+		private volatile IOException failure;
+		
+		private long bytesWritten = 0;
+		
+		private BufferFlusher(FileChannel channel, int queueDepth, int bufferSize)
+		{
+			this.channel = channel;
+			
+			//One buffer is being filled while the rest wait to be written. Heap buffers are used because 
+			//the charset encoders only take their fast array path when both buffers are backed by arrays
+			this.fullBuffers = new ArrayBlockingQueue<>(queueDepth + 2);
+			this.freeBuffers = new ArrayBlockingQueue<>(queueDepth + 1);
+			for(int index = 0; index <= queueDepth; index++)
+			{
+				this.freeBuffers.add(ByteBuffer.allocate(bufferSize));
+			}
+			
+			this.thread = Thread.ofPlatform().name("bulk-file-writer").daemon().start(this);
+		}
+
+		@Override
+		public void run()
+		{
+			try
+			{
+				ByteBuffer buffer;
+				while((buffer = this.fullBuffers.take()) != END_OF_WRITE)
+				{
+					//After a failure keep handing buffers back so the caller is never left waiting
+					if(this.failure == null)
+					{
+						try
+						{
+							while(buffer.hasRemaining())
+							{
+								this.bytesWritten += this.channel.write(buffer);
+							}
+						}
+						catch(IOException e)
+						{
+							this.failure = e;
+						}
+					}
+					
+					buffer.clear();
+					this.freeBuffers.put(buffer);
+				}
+			}
+			catch(InterruptedException e)
+			{
+				//The write was aborted
+			}
+		}
+		
+		/**
+		 * Wait for an empty buffer
+		 */
+		private ByteBuffer takeFreeBuffer() throws IOException
+		{
+			checkFailure();
+			
+			try
+			{
+				return this.freeBuffers.take();
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for a write buffer");
+			}
+		}
+		
+		/**
+		 * Queue a full buffer to be written and wait for an empty one
+		 */
+		private ByteBuffer submit(ByteBuffer buffer) throws IOException
+		{
+			submitLast(buffer);
+			return takeFreeBuffer();
+		}
+		
+		/**
+		 * Queue the last buffer of the write
+		 */
+		private void submitLast(ByteBuffer buffer) throws IOException
+		{
+			buffer.flip();
+			
+			try
+			{
+				this.fullBuffers.put(buffer);
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while queueing a write buffer");
+			}
+		}
+		
+		/**
+		 * Wait for every queued buffer to be written
+		 * 
+		 * @return The number of bytes written
+		 */
+		private long finish() throws IOException
+		{
+			try
+			{
+				this.fullBuffers.put(END_OF_WRITE);
+				this.thread.join();
+			}
+			catch(InterruptedException e)
+			{
+				abort();
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for the file to be written");
+			}
+			
+			checkFailure();
+			return this.bytesWritten;
+		}
+		
+		/**
+		 * Stop the background thread without waiting for queued buffers to be written
+		 */
+		private void abort()
+		{
+			this.thread.interrupt();
+			
+			boolean interrupted = false;
+			while(this.thread.isAlive())
+			{
+				try
+				{
+					this.thread.join();
+				}
+				catch(InterruptedException e)
+				{
+					interrupted = true;
+				}
+			}
+			
+			if(interrupted)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		private void checkFailure() throws IOException
+		{
+			if(this.failure != null)
+			{
+				throw this.failure;
+			}
+		}
+	}
+	
+	/**
+	 * The path of the file being written
+	 * 
+	 * @return the path
+	 */
+	public Path getPath()
+	{
+		return this.path;
+	}
+
+	/**
+	 * The charset used to encode each line
+	 * 
+	 * @return the charset
+	 */
+	public Charset getCharset()
+	{
+		return this.charset;
+	}
+
+	/**
+	 * Set the charset used to encode each line. By default this is the platform charset
+	 *
+	 * @param charset the charset to set
+	 */
+	public void setCharset(Charset charset)
+	{
+		this.charset = charset == null ? Charset.defaultCharset() : charset;
+	}
+
+	/**
+	 * The text written after each object
+	 * 
+	 * @return the lineSeparator
+	 */
+	public String getLineSeparator()
+	{
+		return this.lineSeparator;
+	}
+
+	/**
+	 * Set the text written after each object. By default this is the platform line separator
+	 *
+	 * @param lineSeparator the lineSeparator to set
+	 */
+	public void setLineSeparator(String lineSeparator)
+	{
+		this.lineSeparator = lineSeparator == null ? System.lineSeparator() : lineSeparator;
+	}
+
+	/**
+	 * Are lines added to the end of an existing file
+	 * 
+	 * @return <code>true</code> if lines are appended
+	 */
+	public boolean isAppend()
+	{
+		return this.append;
+	}
+
+	/**
+	 * Set whether lines are added to the end of an existing file instead of replacing it
+	 *
+	 * @param append the append to set
+	 */
+	public void setAppend(boolean append)
+	{
+		this.append = append;
+	}
+
+	/**
+	 * Is the file written to a temp file and renamed into place
+	 * 
+	 * @return <code>true</code> if the write is atomic
+	 */
+	public boolean isAtomic()
+	{
+		return this.atomic;
+	}
+
+	/**
+	 * Set whether the file is written to a temp file in the same directory and renamed into place 
+	 * once every line has been written, so readers never see a partly written file. An atomic append
+	 * copies the existing file first
+	 *
+	 * @param atomic the atomic to set
+	 */
+	public void setAtomic(boolean atomic)
+	{
+		this.atomic = atomic;
+	}
+
+	/**
+	 * The number of bytes held in each write buffer
+	 * 
+	 * @return the bufferSize
+	 */
+	public int getBufferSize()
+	{
+		return this.bufferSize;
+	}
+
+	/**
+	 * Set the number of bytes held in each write buffer
+	 *
+	 * @param bufferSize the bufferSize to set, which must be at least 16
+	 */
+	public void setBufferSize(int bufferSize)
+	{
+		this.bufferSize = Math.max(bufferSize, 16);
+	}
+
+	/**
+	 * The number of full buffers that can wait to be written before the caller is held up
+	 * 
+	 * @return the queueDepth
+	 */
+	public int getQueueDepth()
+	{
+		return this.queueDepth;
+	}
+
+	/**
+	 * Set the number of full buffers that can wait to be written before the caller is held up. The 
+	 * memory used by a write is about (queueDepth + 1) * bufferSize
+	 *
+	 * @param queueDepth the queueDepth to set, which must be at least 1
+	 */
+	public void setQueueDepth(int queueDepth)
+	{
+		this.queueDepth = Math.max(queueDepth, 1);
+	}
+}
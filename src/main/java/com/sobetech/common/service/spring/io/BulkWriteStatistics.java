@@ -0,0 +1,102 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io;
+
+/**
+ * How much a {@link BulkFileWriter} wrote and how long it took
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public class BulkWriteStatistics
+{
+	private static final double NANOS_PER_SECOND = 1_000_000_000d;
+	
+	private final long objectsWritten;
+	
+	private final long bytesWritten;
+	
+	private final long elapsedNanos;
+
+	/**
+	 * Create a BulkWriteStatistics
+	 * 
+	 * @param objectsWritten The number of objects written as lines
+	 * @param bytesWritten The number of bytes written to the file
+	 * @param elapsedNanos The time the write took in nanoseconds
+	 */
+	public BulkWriteStatistics(long objectsWritten, long bytesWritten, long elapsedNanos)
+	{
+		this.objectsWritten = objectsWritten;
+		this.bytesWritten = bytesWritten;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * The number of objects written as lines
+	 * 
+	 * @return the objectsWritten
+	 */
+	public long getObjectsWritten()
+	{
+		return this.objectsWritten;
+	}
+
+	/**
+	 * The number of bytes written to the file
+	 * 
+	 * @return the bytesWritten
+	 */
+	public long getBytesWritten()
+	{
+		return this.bytesWritten;
+	}
+
+	/**
+	 * The time the write took in nanoseconds, from opening the file to closing or renaming it
+	 * 
+	 * @return the elapsedNanos
+	 */
+	public long getElapsedNanos()
+	{
+		return this.elapsedNanos;
+	}
+	
+	/**
+	 * The average number of bytes written per second
+	 * 
+	 * @return The bytes per second or 0 if no time was recorded
+	 */
+	public double getBytesPerSecond()
+	{
+		return this.elapsedNanos == 0 ? 0 : this.bytesWritten * NANOS_PER_SECOND / this.elapsedNanos;
+	}
+	
+	/**
+	 * The average number of objects written per second
+	 * 
+	 * @return The objects per second or 0 if no time was recorded
+	 */
+	public double getObjectsPerSecond()
+	{
+		return this.elapsedNanos == 0 ? 0 : this.objectsWritten * NANOS_PER_SECOND / this.elapsedNanos;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%d objects, %d bytes in %.3f s (%.1f MB/s)", this.objectsWritten, this.bytesWritten, 
+				this.elapsedNanos / NANOS_PER_SECOND, getBytesPerSecond() / (1024 * 1024));
+	}
+}
@@ -12,16 +12,23 @@
 package com.sobetech.common.service.spring.io;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,6 +48,8 @@ public class FileUtil
 {
 	protected final Logger LOG = LoggerFactory.getLogger(this.getClass());
 	
+	private static final Executor VIRTUAL_THREAD_EXECUTOR = runnable -> Thread.ofVirtual().name("file-util").start(runnable);
+	
 	/**
 	 * Gets the file path string for the resources directory of a codebase
 	 * 
@@ -73,26 +82,61 @@ public class FileUtil
 	 */
 	public boolean saveFile(String filePath, Collection<? extends Object> objectsToWriteToFile)
 	{
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) 
-        {
-            // Iterate over the list and write each object's data fields separated by pipes
-            for (Object objectsToWrite : objectsToWriteToFile) 
-            {
-                writer.write(objectsToWrite.toString());
-                writer.newLine(); // Move to the next line
-            }
-        } 
-        catch (IOException e) 
-        {
-            LOG.error("File could not be saved", e);
-            return false;
-        }
-        
-        return true;
+		return saveFile(filePath, objectsToWriteToFile.iterator());
+	}
+	
+	/**
+	 * Save a Stream of Objects into a File without collecting them first. Each Object will converted 
+	 * into a String by its toString method and written as its own line
+	 * 
+	 * @param filePath The fully qualified path of the file to be saved
+	 * @param objectsToWriteToFile The Objects to be saved in the file
+	 * @return <code>true</code> if the file has been saved successfully
+	 */
+	public boolean saveFile(String filePath, Stream<? extends Object> objectsToWriteToFile)
+	{
+		return saveFile(filePath, objectsToWriteToFile.iterator());
+	}
+	
+	/**
+	 * Save Objects into a File as they are iterated. Each Object will converted into a String by its 
+	 * toString method and written as its own line
+	 * 
+	 * @param filePath The fully qualified path of the file to be saved
+	 * @param objectsToWriteToFile The Objects to be saved in the file
+	 * @return <code>true</code> if the file has been saved successfully
+	 */
+	public boolean saveFile(String filePath, Iterator<? extends Object> objectsToWriteToFile)
+	{
+		try
+		{
+			BulkWriteStatistics statistics = createBulkFileWriter(filePath).write(objectsToWriteToFile);
+			LOG.debug("Saved {}: {}", filePath, statistics);
+		}
+		catch(IOException e)
+		{
+			LOG.error("File could not be saved", e);
+			return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Create a writer for large files. Set the charset, append or atomic options on the writer before 
+	 * writing to it
+	 * 
+	 * @param filePath The fully qualified path of the file to be saved
+	 * @return A BulkFileWriter for the file
+	 */
+	public BulkFileWriter createBulkFileWriter(String filePath)
+	{
+		return new BulkFileWriter(filePath);
 	}
 	
 	/**
-	 * Open a file and convert each line to a String
+	 * Open a file and convert each line to a String. Errors are logged and an empty or partial List 
+	 * is returned, use {@link #streamFile(String)} when errors need to reach the caller
 	 * 
 	 * @param filePath The fully qualified path of the file to be saved 
 	 * @return The contents of the file as a List of Strings
@@ -100,24 +144,111 @@ public class FileUtil
 	public List<String> openFile(String filePath)
 	{
 		List<String> lines = new ArrayList<>();
-        try
+		
+		try(Stream<String> fileLines = streamFile(filePath))
 		{
-			BufferedReader reader = new BufferedReader(new FileReader(filePath));
-			String line;
-			while ((line = reader.readLine()) != null) 
-			{
-			    lines.add(line);
-			}
-			reader.close();
+			fileLines.forEach(lines::add);
 		}
 		catch(FileNotFoundException e)
 		{
 			LOG.error("File {} could not be found", filePath);
 		}
-		catch(IOException e)
+		catch(UncheckedIOException e)
 		{
-			LOG.error("Error in reading file", e);
+			LOG.error("Error in reading file", e.getCause());
 		}
-        return lines;
+		
+		return lines;
+	}
+	
+	/**
+	 * Open a file as a lazy Stream of its lines, read with the platform charset. Lines are only read 
+	 * as the Stream is consumed, so processing can start before the whole file has been read. The 
+	 * Stream holds the file open and must be closed, ideally with try-with-resources
+	 * 
+	 * @param filePath The fully qualified path of the file to be read
+	 * @return The lines of the file. An error while reading is thrown as an UncheckedIOException
+	 * @throws FileNotFoundException If the file could not be opened
+	 */
+	public Stream<String> streamFile(String filePath) throws FileNotFoundException
+	{
+		return streamFile(filePath, Charset.defaultCharset());
+	}
+	
+	/**
+	 * Open a file as a lazy Stream of its lines. Lines are only read as the Stream is consumed, so 
+	 * processing can start before the whole file has been read. The Stream holds the file open and 
+	 * must be closed, ideally with try-with-resources
+	 * 
+	 * @param filePath The fully qualified path of the file to be read
+	 * @param charset The charset the file was written in
+	 * @return The lines of the file. An error while reading is thrown as an UncheckedIOException
+	 * @throws FileNotFoundException If the file could not be opened
+	 */
+	public Stream<String> streamFile(String filePath, Charset charset) throws FileNotFoundException
+	{
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(filePath), charset));
+		
+		return reader.lines().onClose(() -> {
+			try
+			{
+				reader.close();
+			}
+			catch(IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+	
+	/**
+	 * Read a file on a virtual thread, handing each line to the consumer as soon as it is read
+	 * 
+	 * @param filePath The fully qualified path of the file to be read
+	 * @param lineConsumer Receives each line of the file in order
+	 * @return A future that completes once every line has been consumed, or completes exceptionally
+	 * with the error that stopped the read
+	 */
+	public CompletableFuture<Void> processFileAsync(String filePath, Consumer<String> lineConsumer)
+	{
+		return processFileAsync(filePath, Charset.defaultCharset(), lineConsumer, VIRTUAL_THREAD_EXECUTOR);
+	}
+	
+	/**
+	 * Read a file on the executor, handing each line to the consumer as soon as it is read
+	 * 
+	 * @param filePath The fully qualified path of the file to be read
+	 * @param charset The charset the file was written in
+	 * @param lineConsumer Receives each line of the file in order
+	 * @param executor The executor the file is read on
+	 * @return A future that completes once every line has been consumed, or completes exceptionally
+	 * with the error that stopped the read
+	 */
+	public CompletableFuture<Void> processFileAsync(String filePath, Charset charset, Consumer<String> lineConsumer, 
+			Executor executor)
+	{
+		return CompletableFuture.runAsync(() -> {
+			try(Stream<String> fileLines = streamFile(filePath, charset))
+			{
+				fileLines.forEach(lineConsumer);
+			}
+			catch(FileNotFoundException e)
+			{
+				throw new CompletionException(e);
+			}
+		}, executor);
+	}
+	
+	/**
+	 * Read every line of a file on a virtual thread
+	 * 
+	 * @param filePath The fully qualified path of the file to be read
+	 * @return A future of the lines of the file, which completes exceptionally if the file could not 
+	 * be read
+	 */
+	public CompletableFuture<List<String>> openFileAsync(String filePath)
+	{
+		List<String> lines = new ArrayList<>();
+		return processFileAsync(filePath, lines::add).thenApply(done -> lines);
 	}
-} 
\ No newline at end of file
+}
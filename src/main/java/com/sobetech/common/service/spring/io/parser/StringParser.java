@@ -11,11 +11,13 @@
  */
 package com.sobetech.common.service.spring.io.parser;
 
+import java.util.Arrays;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
- * Abstract class for a String parsers
+ * Abstract class for a String parsers. The numeric extraction methods scan the characters directly,
+ * keep no shared state and are safe to call from any number of threads
  * 
  * @author John Murray
  *
@@ -24,17 +26,412 @@ import java.util.regex.Pattern;
  */
 public abstract class StringParser
 {
+    /**
+     * @deprecated Shared by every thread, use the scanning methods of this class instead
+     */
+    @Deprecated
     protected static Pattern intPattern = Pattern.compile("[-]?\\d+");
     
+    /**
+     * @deprecated A single Matcher shared by every thread is not thread safe, use the scanning 
+     * methods of this class instead
+     */
+    @Deprecated
     protected static Matcher intMatcher = intPattern.matcher("");
     
+    private static final int INITIAL_ALL_CAPACITY = 8;
+    
+    /**
+     * The most digits that can be collected into a long mantissa without overflowing
+     */
+    private static final int MAX_MANTISSA_DIGITS = 18;
+    
+    /**
+     * The largest mantissa that a double holds exactly
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    
+    /**
+     * The powers of ten that a double holds exactly
+     */
+    private static final double[] EXACT_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    
     protected int getIntFromString(String inputString)
     {
-        intMatcher.reset(inputString);
-        if(intMatcher.find())
+        return findInt(inputString);
+    }
+    
+    /**
+     * Find the first whole number in some text, such as 42 in "Week 42". A minus sign directly in 
+     * front of the digits makes the number negative
+     * 
+     * @param text The text to search
+     * @return The first whole number in the text
+     * @throws IllegalArgumentException If the text has no whole number
+     * @throws NumberFormatException If the number does not fit in an int
+     */
+    public static int findInt(CharSequence text)
+    {
+        return findInt(text, 0, text.length());
+    }
+    
+    /**
+     * Find the first whole number in part of some text
+     * 
+     * @param text The text to search
+     * @param start The index of the first character to search
+     * @param end The index after the last character to search
+     * @return The first whole number in the range
+     * @throws IllegalArgumentException If the range has no whole number
+     * @throws NumberFormatException If the number does not fit in an int
+     */
+    public static int findInt(CharSequence text, int start, int end)
+    {
+        long value = findLong(text, start, end);
+        
+        if(value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+        {
+            throw new NumberFormatException(value + " does not fit in an int");
+        }
+        
+        return (int)value;
+    }
+    
+    /**
+     * Find the first whole number in some text
+     * 
+     * @param text The text to search
+     * @return The first whole number in the text
+     * @throws IllegalArgumentException If the text has no whole number
+     * @throws NumberFormatException If the number does not fit in a long
+     */
+    public static long findLong(CharSequence text)
+    {
+        return findLong(text, 0, text.length());
+    }
+    
+    /**
+     * Find the first whole number in part of some text
+     * 
+     * @param text The text to search
+     * @param start The index of the first character to search
+     * @param end The index after the last character to search
+     * @return The first whole number in the range
+     * @throws IllegalArgumentException If the range has no whole number
+     * @throws NumberFormatException If the number does not fit in a long
+     */
+    public static long findLong(CharSequence text, int start, int end)
+    {
+        int digitStart = findDigit(text, start, end);
+        
+        if(digitStart < 0)
+        {
+            throw new IllegalArgumentException("An int could not be found in " + text);
+        }
+        
+        return parseLong(text, digitStart, skipDigits(text, digitStart, end), isNegative(text, start, digitStart));
+    }
+    
+    /**
+     * Find the first decimal number in some text, such as 4.5 in "Yards per carry 4.5". An exponent
+     * such as 1.2e-3 is included
+     * 
+     * @param text The text to search
+     * @return The first decimal number in the text
+     * @throws IllegalArgumentException If the text has no number
+     */
+    public static double findDouble(CharSequence text)
+    {
+        return findDouble(text, 0, text.length());
+    }
+    
+    /**
+     * Find the first decimal number in part of some text. Up to 18 significant digits are collected 
+     * into a long, and when that mantissa is no more than 2^53 and the power of ten is no more than 
+     * 10^22 the number is built directly from the characters, anything else is handed to 
+     * {@link Double#parseDouble(String)} so the result is always correctly rounded
+     * 
+     * @param text The text to search
+     * @param start The index of the first character to search
+     * @param end The index after the last character to search
+     * @return The first decimal number in the range
+     * @throws IllegalArgumentException If the range has no number
+     */
+    public static double findDouble(CharSequence text, int start, int end)
+    {
+        int numberStart = start;
+        
+        //A number starts at a digit or at a decimal point followed by a digit
+        while(numberStart < end && !isDigit(text.charAt(numberStart)) 
+                && !(text.charAt(numberStart) == '.' && numberStart + 1 < end && isDigit(text.charAt(numberStart + 1))))
+        {
+            numberStart++;
+        }
+        
+        if(numberStart == end)
+        {
+            throw new IllegalArgumentException("A number could not be found in " + text);
+        }
+        
+        boolean negative = isNegative(text, start, numberStart);
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        int index = numberStart;
+        
+        for(; index < end && isDigit(text.charAt(index)); index++)
+        {
+            if(mantissa != 0 || text.charAt(index) != '0')
+            {
+                if(significantDigits < MAX_MANTISSA_DIGITS)
+                {
+                    mantissa = mantissa * 10 + (text.charAt(index) - '0');
+                }
+                else
+                {
+                    exponent++;
+                }
+                
+                significantDigits++;
+            }
+        }
+        
+        if(index < end && text.charAt(index) == '.')
+        {
+            for(index++; index < end && isDigit(text.charAt(index)); index++)
+            {
+                if(mantissa != 0 || text.charAt(index) != '0')
+                {
+                    if(significantDigits < MAX_MANTISSA_DIGITS)
+                    {
+                        mantissa = mantissa * 10 + (text.charAt(index) - '0');
+                        exponent--;
+                    }
+                    
+                    significantDigits++;
+                }
+                else
+                {
+                    exponent--;
+                }
+            }
+        }
+        
+        int numberEnd = index;
+        
+        if(index + 1 < end && (text.charAt(index) == 'e' || text.charAt(index) == 'E'))
+        {
+            int exponentIndex = index + 1;
+            boolean negativeExponent = text.charAt(exponentIndex) == '-';
+            
+            if(negativeExponent || text.charAt(exponentIndex) == '+')
+            {
+                exponentIndex++;
+            }
+            
+            int exponentEnd = skipDigits(text, exponentIndex, end);
+            
+            if(exponentEnd > exponentIndex)
+            {
+                numberEnd = exponentEnd;
+                
+                //Anything this long is out of range and left to the slow path
+                if(exponentEnd - exponentIndex > 6)
+                {
+                    significantDigits = Integer.MAX_VALUE;
+                }
+                else
+                {
+                    int writtenExponent = (int)parseLong(text, exponentIndex, exponentEnd, false);
+                    exponent += negativeExponent ? -writtenExponent : writtenExponent;
+                }
+            }
+        }
+        
+        double value;
+        
+        if(mantissa == 0)
+        {
+            value = 0;
+        }
+        else if(significantDigits <= MAX_MANTISSA_DIGITS && mantissa <= MAX_EXACT_MANTISSA 
+                && Math.abs(exponent) < EXACT_POWERS_OF_TEN.length)
+        {
+            //Both numbers are exact, so one multiply or divide gives the correctly rounded result
+            value = exponent < 0 ? mantissa / EXACT_POWERS_OF_TEN[-exponent] : mantissa * EXACT_POWERS_OF_TEN[exponent];
+        }
+        else
+        {
+            return Double.parseDouble(text.subSequence(negative ? numberStart - 1 : numberStart, numberEnd).toString());
+        }
+        
+        return negative ? -value : value;
+    }
+    
+    /**
+     * Find every whole number in some text, such as 3, 10 and 2024 in "3rd and 10, 2024"
+     * 
+     * @param text The text to search
+     * @return The whole numbers in the order they appear, which is empty if there are none
+     * @throws NumberFormatException If a number does not fit in an int
+     */
+    public static int[] getAllIntsFromString(CharSequence text)
+    {
+        int[] values = new int[INITIAL_ALL_CAPACITY];
+        int count = 0;
+        int index = 0;
+        int end = text.length();
+        
+        while((index = findDigit(text, index, end)) >= 0)
+        {
+            int digitEnd = skipDigits(text, index, end);
+            
+            if(count == values.length)
+            {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            
+            values[count++] = toInt(parseLong(text, index, digitEnd, isNegative(text, 0, index)));
+            index = digitEnd;
+        }
+        
+        return Arrays.copyOf(values, count);
+    }
+    
+    /**
+     * Find whole numbers in some text, filling an array the caller reuses so that no memory is 
+     * allocated. Numbers past the length of the array are not read
+     * 
+     * @param text The text to search
+     * @param values The array to fill
+     * @return The number of values written into the array
+     * @throws NumberFormatException If a number does not fit in an int
+     */
+    public static int getAllIntsFromString(CharSequence text, int[] values)
+    {
+        int count = 0;
+        int index = 0;
+        int end = text.length();
+        
+        while(count < values.length && (index = findDigit(text, index, end)) >= 0)
+        {
+            int digitEnd = skipDigits(text, index, end);
+            values[count++] = toInt(parseLong(text, index, digitEnd, isNegative(text, 0, index)));
+            index = digitEnd;
+        }
+        
+        return count;
+    }
+    
+    /**
+     * Find every whole number in some text
+     * 
+     * @param text The text to search
+     * @return The whole numbers in the order they appear, which is empty if there are none
+     * @throws NumberFormatException If a number does not fit in a long
+     */
+    public static long[] getAllLongsFromString(CharSequence text)
+    {
+        long[] values = new long[INITIAL_ALL_CAPACITY];
+        int count = 0;
+        int index = 0;
+        int end = text.length();
+        
+        while((index = findDigit(text, index, end)) >= 0)
+        {
+            int digitEnd = skipDigits(text, index, end);
+            
+            if(count == values.length)
+            {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            
+            values[count++] = parseLong(text, index, digitEnd, isNegative(text, 0, index));
+            index = digitEnd;
+        }
+        
+        return Arrays.copyOf(values, count);
+    }
+    
+    private static boolean isDigit(char character)
+    {
+        return character >= '0' && character <= '9';
+    }
+    
+    private static int findDigit(CharSequence text, int start, int end)
+    {
+        for(int index = start; index < end; index++)
+        {
+            if(isDigit(text.charAt(index)))
+            {
+                return index;
+            }
+        }
+        
+        return -1;
+    }
+    
+    private static int skipDigits(CharSequence text, int start, int end)
+    {
+        int index = start;
+        
+        while(index < end && isDigit(text.charAt(index)))
+        {
+            index++;
+        }
+        
+        return index;
+    }
+    
+    /**
+     * Is the number that starts at an index directly preceded by a minus sign inside the range
+     */
+    private static boolean isNegative(CharSequence text, int start, int numberStart)
+    {
+        return numberStart > start && text.charAt(numberStart - 1) == '-';
+    }
+    
+    /**
+     * Parse a run of digits, accumulating negatively so that Long.MIN_VALUE can be read
+     */
+    private static long parseLong(CharSequence text, int start, int end, boolean negative)
+    {
+        long value = 0;
+        
+        for(int index = start; index < end; index++)
+        {
+            int digit = text.charAt(index) - '0';
+            
+            if(value < (Long.MIN_VALUE + digit) / 10)
+            {
+                throw new NumberFormatException(text.subSequence(start, end) + " does not fit in a long");
+            }
+            
+            value = value * 10 - digit;
+        }
+        
+        if(!negative)
+        {
+            if(value == Long.MIN_VALUE)
+            {
+                throw new NumberFormatException(text.subSequence(start, end) + " does not fit in a long");
+            }
+            
+            return -value;
+        }
+        
+        return value;
+    }
+    
+    private static int toInt(long value)
+    {
+        if(value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
         {
-            return Integer.parseInt(intMatcher.group());
+            throw new NumberFormatException(value + " does not fit in an int");
         }
-        throw new IllegalArgumentException("An int could not be found in " + inputString);
+        
+        return (int)value;
     }
 }
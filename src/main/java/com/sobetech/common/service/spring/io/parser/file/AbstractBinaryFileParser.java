@@ -0,0 +1,411 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.sobetech.common.exception.ApiRuntimeException;
+
+/**
+ * An instance of AbstractFileParser for files of binary records. The records are either all the
+ * same size or each starts with its length, as set by a BinaryRecordFormat, and each one is turned
+ * into an object by a BinaryRecordCodec.
+ * 
+ * In the default STREAM read mode the file is read through a FileChannel into a single direct 
+ * buffer that is reused for every record. In MEMORY_MAPPED mode the records are decoded straight 
+ * from mapped segments of the file. Compressed files are always streamed
+ *
+ * @param <R> The type of each record
+ * @param <O> The type of the parsed contents
+ * 
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public abstract class AbstractBinaryFileParser<R extends Object, O extends Object> extends AbstractFileParser<O>
+{
+	/**
+	 * The default number of bytes read from the file at a time
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+	
+	private final BinaryRecordCodec<R> codec;
+	
+	private final BinaryRecordFormat format;
+	
+	private int bufferSize = DEFAULT_BUFFER_SIZE;
+	
+	/**
+	 * Create a parser from a fully qualified file name
+	 * 
+	 * @param fileName The fully qualified file name
+	 * @param format How the records are laid out
+	 * @param codec Decodes each record
+	 * @throws FileNotFoundException If the file could not be found
+	 */
+	protected AbstractBinaryFileParser(String fileName, BinaryRecordFormat format, BinaryRecordCodec<R> codec) 
+			throws FileNotFoundException
+	{
+		super(fileName);
+		this.format = format;
+		this.codec = codec;
+	}
+	
+	/**
+	 * Create a parser from a directory and a file name
+	 * 
+	 * @param directory The directory the file is located
+	 * @param fileName The name of the file
+	 * @param format How the records are laid out
+	 * @param codec Decodes each record
+	 * @throws FileNotFoundException If the file could not be found
+	 */
+	protected AbstractBinaryFileParser(String directory, String fileName, BinaryRecordFormat format, 
+			BinaryRecordCodec<R> codec) throws FileNotFoundException
+	{
+		super(directory, fileName);
+		this.format = format;
+		this.codec = codec;
+	}
+	
+	/**
+	 * Create a parser from a File object
+	 * 
+	 * @param file The File to be parsed
+	 * @param format How the records are laid out
+	 * @param codec Decodes each record
+	 * @throws FileNotFoundException If the file could not be found
+	 */
+	protected AbstractBinaryFileParser(File file, BinaryRecordFormat format, BinaryRecordCodec<R> codec) 
+			throws FileNotFoundException
+	{
+		super(file);
+		this.format = format;
+		this.codec = codec;
+	}
+	
+	/**
+	 * Convert the decoded records into an Object
+	 * 
+	 * @param records The records of the file in order
+	 * @return The resultant Object
+	 */
+	protected abstract O convertRecordsToFile(List<R> records);
+
+	/**
+	 * Parse every record of the file. This will also clear out any previous file contents in the 
+	 * parser and replace it with the records of the file
+	 * 
+	 * @return The contents of the file
+	 * @throws FileNotFoundException If the file is not correctly initialized in this parser
+	 */
+	@Override
+	public O parseFile() throws FileNotFoundException
+	{
+		List<R> records = new ArrayList<>();
+		parseFile(records::add);
+		setFileContents(convertRecordsToFile(records));
+		return getFileContents();
+	}
+	
+	/**
+	 * Parse the file one record at a time, handing each record to the consumer as soon as it is 
+	 * decoded. The memory used does not grow with the size of the file and the file contents of 
+	 * this parser are left untouched
+	 * 
+	 * @param recordConsumer The consumer that will receive each record of the file in order
+	 * @throws FileNotFoundException If the file is not correctly initialized in this parser
+	 */
+	public void parseFile(Consumer<R> recordConsumer) throws FileNotFoundException
+	{
+		try
+		{
+			if(getReadMode() == FileReadMode.MEMORY_MAPPED && resolveCompression() == CompressionType.NONE)
+			{
+				readMappedRecords(recordConsumer);
+			}
+			else
+			{
+				readStreamedRecords(recordConsumer);
+			}
+		}
+		catch(FileNotFoundException | NoSuchFileException e)
+		{
+			throw new FileNotFoundException(getFile().getPath() + " could not be found");
+		}
+		catch(IOException e)
+		{
+			throw new ApiRuntimeException("Error in reading file " + getFile().getName(), e);
+		}
+	}
+	
+	/**
+	 * Read the records through a reusable direct buffer, growing it only for a record larger than 
+	 * the buffer
+	 */
+	private void readStreamedRecords(Consumer<R> recordConsumer) throws IOException
+	{
+		ReadableByteChannel channel = resolveCompression() == CompressionType.NONE 
+				? FileChannel.open(getFile().toPath(), StandardOpenOption.READ) 
+				: Channels.newChannel(openInputStream());
+		
+		try(channel)
+		{
+			ByteBuffer buffer = ByteBuffer.allocateDirect(getBufferSize()).order(this.format.getByteOrder());
+			buffer.flip();
+			long recordIndex = 0;
+			
+			while(true)
+			{
+				int recordLength = this.format.getRecordSize();
+				ByteBuffer filled;
+				
+				if(this.format.isLengthPrefixed())
+				{
+					filled = fill(channel, buffer, BinaryRecordFormat.LENGTH_PREFIX_BYTES, recordIndex);
+					
+					if(filled == null)
+					{
+						return;
+					}
+					
+					recordLength = filled.getInt();
+					checkRecordLength(recordLength, recordIndex);
+					filled = fill(channel, filled, recordLength, recordIndex);
+					
+					if(filled == null)
+					{
+						throw truncated(recordIndex);
+					}
+				}
+				else
+				{
+					filled = fill(channel, buffer, recordLength, recordIndex);
+					
+					if(filled == null)
+					{
+						return;
+					}
+				}
+				
+				buffer = filled;
+				recordConsumer.accept(decode(buffer, buffer.position(), recordLength));
+				recordIndex++;
+			}
+		}
+	}
+	
+	/**
+	 * Make sure the buffer holds at least the given number of unread bytes, compacting it, growing
+	 * it and reading from the channel as needed
+	 * 
+	 * @return The buffer holding the bytes, or <code>null</code> if the file ended cleanly before any 
+	 * of them were read
+	 */
+	private ByteBuffer fill(ReadableByteChannel channel, ByteBuffer buffer, int byteCount, long recordIndex) throws IOException
+	{
+		if(buffer.remaining() >= byteCount)
+		{
+			return buffer;
+		}
+		
+		if(buffer.capacity() < byteCount)
+		{
+			ByteBuffer larger = ByteBuffer.allocateDirect(byteCount).order(buffer.order());
+			larger.put(buffer);
+			buffer = larger;
+		}
+		else
+		{
+			buffer.compact();
+		}
+		
+		while(buffer.position() < byteCount)
+		{
+			if(channel.read(buffer) < 0)
+			{
+				if(buffer.position() == 0)
+				{
+					buffer.flip();
+					return null;
+				}
+				
+				throw truncated(recordIndex);
+			}
+		}
+		
+		buffer.flip();
+		return buffer;
+	}
+	
+	/**
+	 * Decode the records straight from mapped segments of the file. A record that runs past the end 
+	 * of a segment starts the next segment
+	 */
+	private void readMappedRecords(Consumer<R> recordConsumer) throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(getFile().toPath(), StandardOpenOption.READ))
+		{
+			long fileSize = channel.size();
+			long position = 0;
+			long segmentStart = 0;
+			ByteBuffer segment = ByteBuffer.allocate(0);
+			long recordIndex = 0;
+			
+			while(position < fileSize)
+			{
+				int recordLength = this.format.getRecordSize();
+				
+				if(this.format.isLengthPrefixed())
+				{
+					if(position + BinaryRecordFormat.LENGTH_PREFIX_BYTES > fileSize)
+					{
+						throw truncated(recordIndex);
+					}
+					
+					if(position + BinaryRecordFormat.LENGTH_PREFIX_BYTES > segmentStart + segment.limit())
+					{
+						segment = map(channel, position, BinaryRecordFormat.LENGTH_PREFIX_BYTES, fileSize);
+						segmentStart = position;
+					}
+					
+					recordLength = segment.getInt((int)(position - segmentStart));
+					checkRecordLength(recordLength, recordIndex);
+					position += BinaryRecordFormat.LENGTH_PREFIX_BYTES;
+				}
+				
+				if(position + recordLength > fileSize)
+				{
+					throw truncated(recordIndex);
+				}
+				
+				if(position + recordLength > segmentStart + segment.limit())
+				{
+					segment = map(channel, position, recordLength, fileSize);
+					segmentStart = position;
+				}
+				
+				recordConsumer.accept(decode(segment, (int)(position - segmentStart), recordLength));
+				position += recordLength;
+				recordIndex++;
+			}
+		}
+	}
+	
+	/**
+	 * Map the next segment of the file, making it at least large enough for the next record
+	 */
+	private ByteBuffer map(FileChannel channel, long position, int minimumLength, long fileSize) throws IOException
+	{
+		long length = Math.min(Math.max(MappedFileLineReader.DEFAULT_SEGMENT_SIZE, minimumLength), fileSize - position);
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, length).order(this.format.getByteOrder());
+	}
+	
+	/**
+	 * Hand the codec exactly the bytes of one record, then move the buffer past them
+	 */
+	private R decode(ByteBuffer buffer, int start, int recordLength)
+	{
+		int limit = buffer.limit();
+		buffer.limit(start + recordLength).position(start);
+		
+		try
+		{
+			return this.codec.decode(buffer);
+		}
+		finally
+		{
+			buffer.limit(limit).position(start + recordLength);
+		}
+	}
+	
+	private void checkRecordLength(int recordLength, long recordIndex)
+	{
+		try
+		{
+			this.format.checkRecordLength(recordLength);
+		}
+		catch(IllegalArgumentException e)
+		{
+			throw new ApiRuntimeException("Record " + recordIndex + " of " + getFile().getName() + " is corrupt", e);
+		}
+	}
+	
+	private ApiRuntimeException truncated(long recordIndex)
+	{
+		return new ApiRuntimeException(getFile().getName() + " ends part way through record " + recordIndex);
+	}
+	
+	/**
+	 * The settings of this parser that change what it returns. The format can be changed after it is 
+	 * set, so its settings are copied instead of keeping the format itself
+	 */
+	@Override
+	protected List<Object> getParseSettings()
+	{
+		return List.of(this.format.isLengthPrefixed(), this.format.getRecordSize(), this.format.getByteOrder(), 
+				this.format.getMaximumRecordSize(), getCompression(), this.codec);
+	}
+
+	/**
+	 * Decodes each record
+	 * 
+	 * @return the codec
+	 */
+	public BinaryRecordCodec<R> getCodec()
+	{
+		return this.codec;
+	}
+
+	/**
+	 * How the records are laid out
+	 * 
+	 * @return the format
+	 */
+	public BinaryRecordFormat getFormat()
+	{
+		return this.format;
+	}
+
+	/**
+	 * The number of bytes read from the file at a time
+	 * 
+	 * @return the bufferSize
+	 */
+	public int getBufferSize()
+	{
+		return this.bufferSize;
+	}
+
+	/**
+	 * Set the number of bytes read from the file at a time when streaming. The buffer grows for any 
+	 * record larger than this
+	 *
+	 * @param bufferSize the bufferSize to set
+	 */
+	public void setBufferSize(int bufferSize)
+	{
+		this.bufferSize = Math.max(bufferSize, BinaryRecordFormat.LENGTH_PREFIX_BYTES);
+	}
+}
@@ -12,7 +12,17 @@
 package com.sobetech.common.service.spring.io.parser.file;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
  * Abstract class containing the scaffolding to create any type of file parser
@@ -28,9 +38,18 @@ import java.io.FileNotFoundException;
  */
 public abstract class AbstractFileParser<O extends Object>
 {
+	/**
+	 * The number of compressed bytes read at a time when a file is decompressed
+	 */
+	public static final int DECOMPRESSION_BUFFER_SIZE = 256 * 1024;
+	
 	private File file;
 	
 	private O fileContents;
+	
+	private FileReadMode readMode = FileReadMode.STREAM;
+	
+	private CompressionType compression = CompressionType.AUTO;
 
 	/**
 	 * Load the file contents into the parser
@@ -94,6 +113,110 @@ public abstract class AbstractFileParser<O extends Object>
 		setFile(file);
 	}
 
+	/**
+	 * Work out how the file is compressed. When the compression is AUTO the first bytes of the file
+	 * are checked
+	 * 
+	 * @return NONE, GZIP or ZIP
+	 * @throws IOException If the file could not be read
+	 */
+	protected CompressionType resolveCompression() throws IOException
+	{
+		if(getCompression() != CompressionType.AUTO)
+		{
+			return getCompression();
+		}
+		
+		return CompressionType.detect(getFile());
+	}
+	
+	/**
+	 * Open the bytes of the file, decompressing them on the fly if the file is compressed. The file 
+	 * entries of a zip archive are joined one after another into a single stream
+	 * 
+	 * @return A stream of the uncompressed bytes of the file
+	 * @throws IOException If the file could not be opened
+	 */
+	protected InputStream openInputStream() throws IOException
+	{
+		switch(resolveCompression())
+		{
+			case GZIP:
+				return new GZIPInputStream(new FileInputStream(getFile()), DECOMPRESSION_BUFFER_SIZE);
+				
+			case ZIP:
+				ZipFile zipFile = new ZipFile(getFile());
+				Enumeration<? extends ZipEntry> entries = zipFile.entries();
+				
+				return new SequenceInputStream(new Enumeration<InputStream>()
+				{
+					private ZipEntry nextEntry = ZipFileLineSource.nextFileEntry(entries);
+					
+					@Override
+					public boolean hasMoreElements()
+					{
+						return this.nextEntry != null;
+					}
+
+					@Override
+					public InputStream nextElement()
+					{
+						try
+						{
+							InputStream entryStream = zipFile.getInputStream(this.nextEntry);
+							this.nextEntry = ZipFileLineSource.nextFileEntry(entries);
+							return entryStream;
+						}
+						catch(IOException e)
+						{
+							throw new UncheckedIOException(e);
+						}
+					}
+				})
+				{
+					@Override
+					public void close() throws IOException
+					{
+						try
+						{
+							super.close();
+						}
+						finally
+						{
+							zipFile.close();
+						}
+					}
+				};
+				
+			default:
+				return new FileInputStream(getFile());
+		}
+	}
+	
+	/**
+	 * The settings of this parser that change what {@link #parseFile()} returns for the same file. 
+	 * Two parsers of the same class with equal settings produce equal contents, which is what allows
+	 * the result to be shared through a ParsedFileCache
+	 * 
+	 * @return The settings that affect the parsed contents
+	 */
+	protected List<Object> getParseSettings()
+	{
+		return List.of();
+	}
+	
+	/**
+	 * Whether the result of {@link #parseFile()} can be shared through a ParsedFileCache. A parser 
+	 * that has to see every line of the file on every parse, such as one reporting lines it rejects,
+	 * is parsed directly each time
+	 * 
+	 * @return <code>true</code> unless a parse has effects beyond its result
+	 */
+	protected boolean isCacheable()
+	{
+		return true;
+	}
+
 	/**
 	 * The file being parsed
 	 * 
@@ -145,4 +268,46 @@ public abstract class AbstractFileParser<O extends Object>
 	{
 		this.fileContents = fileContents;
 	}
+
+	/**
+	 * How the bytes of the file are brought into memory
+	 * 
+	 * @return the readMode
+	 */
+	public FileReadMode getReadMode()
+	{
+		return this.readMode;
+	}
+
+	/**
+	 * Set how the bytes of the file are brought into memory. Parsers that cannot use the requested 
+	 * mode for a file will fall back to {@link FileReadMode#STREAM}
+	 *
+	 * @param readMode the readMode to set
+	 */
+	public void setReadMode(FileReadMode readMode)
+	{
+		this.readMode = readMode == null ? FileReadMode.STREAM : readMode;
+	}
+
+	/**
+	 * How the file is compressed
+	 * 
+	 * @return the compression
+	 */
+	public CompressionType getCompression()
+	{
+		return this.compression;
+	}
+
+	/**
+	 * Set how the file is compressed. By default this is AUTO, which checks the first bytes of the 
+	 * file every time it is parsed
+	 *
+	 * @param compression the compression to set
+	 */
+	public void setCompression(CompressionType compression)
+	{
+		this.compression = compression == null ? CompressionType.AUTO : compression;
+	}
 }
@@ -12,11 +12,31 @@
 package com.sobetech.common.service.spring.io.parser.file;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
 import java.util.List;
 import java.util.ListIterator;
-import java.util.Scanner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.sobetech.common.exception.ApiRuntimeException;
+import com.sobetech.common.exception.TooManyRejectsException;
 
 /**
  * Abstract class containing all of the items common to all parsers of text files. These kind of 
@@ -43,103 +63,1098 @@ public abstract class AbstractTextFileParser<O extends Object> extends AbstractF
 	
 	private boolean removeTrailingWhitespace = true;
 	
+	private Charset charset = Charset.defaultCharset();
+	
+	private LineTerminator lineTerminator = LineTerminator.ANY;
+	
+	private int readBufferSize = LineReader.DEFAULT_BUFFER_SIZE;
+	
+	private int parallelism = 1;
+	
+	private FileCheckpoint checkpoint;
+	
+	private boolean fullReparse = false;
+	
+	private final List<LineStage> lineStages = new ArrayList<>();
+	
+	private ParserMetrics metrics;
+	
+	private RejectSink rejectSink;
+	
+	private long maxRejects = Long.MAX_VALUE;
+	
+	private double maxRejectRatio = 1;
+	
+	private long rejectRatioMinimumLines = DEFAULT_REJECT_RATIO_MINIMUM_LINES;
+	
+	private long rejectedLineCount = 0;
+	
+	/**
+	 * The measurements of the parse in progress, only set while a parser with metrics is parsing
+	 */
+	private ParseStatistics statistics;
+	
+	/**
+	 * The smallest number of bytes worth handing to a separate thread during a parallel parse
+	 */
+	private static final long MINIMUM_PARALLEL_CHUNK_SIZE = 1024 * 1024;
+	
+	/**
+	 * The number of chunks created for each thread during a parallel parse so that a slow chunk does
+	 * not hold up the whole parse
+	 */
+	private static final int CHUNKS_PER_THREAD = 4;
+	
+	/**
+	 * Whether each parser class overrides the deprecated list version of adjustForEscapedContent, 
+	 * worked out once per class instead of on every parse
+	 */
+	private static final ClassValue<Boolean> LIST_ADJUSTMENT_OVERRIDDEN = new ClassValue<>()
+	{
+		@Override
+		protected Boolean computeValue(Class<?> parserClass)
+		{
+			for(Class<?> type = parserClass; type != AbstractTextFileParser.class; type = type.getSuperclass())
+			{
+				try
+				{
+					type.getDeclaredMethod("adjustForEscapedContent", List.class);
+					return true;
+				}
+				catch(NoSuchMethodException e)
+				{
+					//Keep looking up the hierarchy
+				}
+			}
+			
+			return false;
+		}
+	};
+	
+	/**
+	 * The default number of lines that have to be kept or rejected before the reject ratio is checked
+	 */
+	public static final long DEFAULT_REJECT_RATIO_MINIMUM_LINES = 1000;
+	
+	/**
+	 * Create a parser from a File object
+	 * 
+	 * @param file The File to be parsed
+	 * @throws FileNotFoundException If the file could not be found
+	 */
+	protected AbstractTextFileParser(File file) throws FileNotFoundException
+	{
+		super(file);
+	}
+
+	/**
+	 * Create a parser from a directory and a file name
+	 * 
+	 * @param directory The directory the file is located
+	 * @param fileName The name of the file
+	 * @throws FileNotFoundException If the file could not be found
+	 */
+	protected AbstractTextFileParser(String directory, String fileName) throws FileNotFoundException
+	{
+		super(directory, fileName);
+	}
+
+	/**
+	 * Create a parser from a fully qualified file name
+	 * @param fileName The fully qualified file name
+	 * @throws FileNotFoundException FileNotFoundException If the file could not be found
+	 */
+	protected AbstractTextFileParser(String fileName) throws FileNotFoundException
+	{
+		super(fileName);
+	}
+	
+	/**
+	 * Convert a list of line Strings into an Object
+	 * 
+	 * @param stringLines The list of Strings to turn into an Object
+	 * @return The resultant Object
+	 */
+	protected abstract O convertLinesToFile(List<String> stringLines);
+	
+	/**
+	 * Parse the current file into a list of lines. The file will be separated into lines based 
+	 * on the line terminator of this parser. This will also clear out any previous file contents in the parser
+	 * and replace it with contents of the file that you have requested to be loaded
+	 * 
+	 * @return The current file into a list of Strings for each line
+	 * @throws FileNotFoundException If the file is not correctly initialized in this parser
+	 */
+	@Override
+	public O parseFile() throws FileNotFoundException
+	{
+		long measureStart = startMeasuring();
+		
+		try
+		{
+			List<String> fileLines;
+			resetLineStages();
+			
+			if(isParallelParse())
+			{
+				fileLines = scanFileLinesInParallel();
+			}
+			else if(isListAdjustmentOverridden())
+			{
+				fileLines = scanFileLines();
+				
+				long adjustStart = this.statistics == null ? 0 : System.nanoTime();
+				adjustForEscapedContent(fileLines);
+				
+				if(this.statistics != null)
+				{
+					this.statistics.addStageNanos(ParseStage.ADJUST, System.nanoTime() - adjustStart);
+				}
+			}
+			else
+			{
+				//Each line is adjusted as it is read instead of in a second pass over the list
+				ParseStatistics adjustStatistics = this.statistics;
+				List<String> adjustedLines = new ArrayList<>();
+				scanFileLines(line -> adjustedLines.add(prepareLine(line, adjustStatistics)));
+				fileLines = adjustedLines;
+			}
+			
+			setFileContents(convertLinesToFile(fileLines, this.statistics));
+			publishMeasurements(measureStart);
+			return getFileContents();
+		}
+		finally
+		{
+			stopMeasuring(measureStart);
+		}
+	}
+	
+	/**
+	 * Parse the current file one line at a time. Each line goes through the same cleaning, header,
+	 * footer and escaped content handling as {@link #parseFile()}, but is handed to the consumer as
+	 * soon as it is ready instead of being collected. The memory used does not grow with the size of
+	 * the file and the file contents of this parser are left untouched
+	 * 
+	 * @param lineConsumer The consumer that will receive each line of the file in order
+	 * @throws FileNotFoundException If the file is not correctly initialized in this parser
+	 */
+	public void parseFile(Consumer<String> lineConsumer) throws FileNotFoundException
+	{
+		long measureStart = startMeasuring();
+		
+		try
+		{
+			ParseStatistics adjustStatistics = this.statistics;
+			resetLineStages();
+			scanFileLines(line -> lineConsumer.accept(prepareLine(line, adjustStatistics)));
+			publishMeasurements(measureStart);
+		}
+		finally
+		{
+			stopMeasuring(measureStart);
+		}
+	}
+	
+	/**
+	 * Parse only the lines that have been added to the end of the file since the last call, using the
+	 * checkpoint of this parser to know where the last call stopped. The file contents of this parser
+	 * are replaced by the new lines. 
+	 * 
+	 * @return The lines added to the file since the last call
+	 * @throws FileNotFoundException If the file is not correctly initialized in this parser
+	 * 
+	 * @see #parseAppendedLines(Consumer)
+	 */
+	public O parseAppendedLines() throws FileNotFoundException
+	{
+		long measureStart = startMeasuring();
+		
+		try
+		{
+			List<String> fileLines = new ArrayList<>();
+			parseAppendedLines(fileLines::add);
+			setFileContents(convertLinesToFile(fileLines, this.statistics));
+			publishMeasurements(measureStart);
+			return getFileContents();
+		}
+		finally
+		{
+			stopMeasuring(measureStart);
+		}
+	}
+	
+	/**
+	 * Parse only the lines that have been added to the end of the file since the last call. Only 
+	 * complete lines are consumed, so a line that is still being written is picked up by the next 
+	 * call once its line terminator is there. Header lines are skipped once at the start of the file
+	 * and footer lines are never skipped, since a growing file has no footer yet.
+	 * 
+	 * If there is no checkpoint, or the file has been truncated or replaced since the checkpoint was
+	 * taken, the whole file is parsed again and {@link #isFullReparse()} will return 
+	 * <code>true</code>. That is also the case for charsets where line terminators cannot be found in 
+	 * the raw bytes of the file, and for compressed files
+	 * 
+	 * @param lineConsumer The consumer that will receive each new line of the file in order
+	 * @throws FileNotFoundException If the file is not correctly initialized in this parser
+	 */
+	public void parseAppendedLines(Consumer<String> lineConsumer) throws FileNotFoundException
+	{
+		if(!ByteLineReader.supportsCharset(getCharset()) || resolveCompressionQuietly() != CompressionType.NONE)
+		{
+			this.fullReparse = true;
+			this.checkpoint = null;
+			parseFile(lineConsumer);
+			return;
+		}
+		
+		long measureStart = startMeasuring();
+		ParseStatistics statistics = this.statistics;
+		RejectTracker rejects = startRejecting(statistics);
+		
+		try
+		{
+			BasicFileAttributes attributes = Files.readAttributes(getFile().toPath(), BasicFileAttributes.class);
+			FileCheckpoint previous = this.checkpoint;
+			boolean resume = previous != null && previous.isValidFor(getFile(), attributes);
+			
+			long start = resume ? previous.getPosition() : 0;
+			
+			if(!resume)
+			{
+				resetLineStages();
+			}
+			
+			int headerLinesRemaining = resume ? previous.getHeaderLinesRemaining() : this.getHeaderLinesToIgnore();
+			long end = start;
+			
+			if(!resume || previous.isChanged(attributes))
+			{
+				end = MappedFileLineReader.findLastLineEnd(getFile(), getLineTerminator(), start, attributes.size());
+			}
+			
+			if(end > start)
+			{
+				int headerLinesBefore = headerLinesRemaining;
+				
+				try(LineSource lineSource = measure(new MappedFileLineReader(getFile(), getCharset(), getLineTerminator(), 
+						start, end, MappedFileLineReader.DEFAULT_SEGMENT_SIZE), statistics))
+				{
+					String fileLine;
+					long lineNumber = 0;
+					
+					while((fileLine = lineSource.readLine()) != null)
+					{
+						lineNumber++;
+						String cleanedLine;
+						
+						try
+						{
+							cleanedLine = cleanLine(fileLine, statistics);
+						}
+						catch(RuntimeException e)
+						{
+							reject(rejects, e, lineNumber, lineSource.getLineOffset(), fileLine);
+							continue;
+						}
+						
+						if(cleanedLine == null)
+						{
+							continue;
+						}
+						
+						if(headerLinesRemaining > 0)
+						{
+							headerLinesRemaining--;
+							continue;
+						}
+						
+						acceptLine(line -> lineConsumer.accept(prepareLine(line, statistics)), cleanedLine, rejects, 
+								lineNumber, rejects == null ? -1 : lineSource.getLineOffset());
+					}
+				}
+				
+				if(rejects != null)
+				{
+					rejects.finish();
+				}
+				
+				if(statistics != null)
+				{
+					statistics.addHeaderLines(Math.max(headerLinesBefore - headerLinesRemaining, 0));
+					statistics.addBytesRead(end - start);
+				}
+			}
+			
+			this.checkpoint = FileCheckpoint.create(getFile(), attributes, end, headerLinesRemaining);
+			this.fullReparse = !resume;
+			publishMeasurements(measureStart);
+		}
+		catch(NoSuchFileException e)
+		{
+			throw new FileNotFoundException(getFile().getPath() + " could not be found");
+		}
+		catch(IOException e)
+		{
+			throw new ApiRuntimeException("Error in reading file " + getFile().getName(), e);
+		}
+		finally
+		{
+			stopMeasuring(measureStart);
+		}
+	}
+	
+	/**
+	 * Open the file and covert into a List of Strings
+	 * 
+	 * @return A List of Strings that was in the file being parsed
+	 * @throws FileNotFoundException If the file to be parsed was not found
+	 */
+	protected List<String> scanFileLines() throws FileNotFoundException
+	{
+		List<String> stringLines = new ArrayList<>();
+		scanFileLines(stringLines::add);
+		return stringLines;
+	}
+	
+	/**
+	 * Open the file and pass each cleaned line to a consumer. Header lines are dropped as they are
+	 * read and footer lines are held back in a ring buffer the size of the footer, so only that many
+	 * lines are ever held in memory at once
+	 * 
+	 * @param lineConsumer The consumer that will receive each line of the file in order
+	 * @throws FileNotFoundException If the file to be parsed was not found
+	 */
+	protected void scanFileLines(Consumer<String> lineConsumer) throws FileNotFoundException
+	{
+		ParseStatistics statistics = this.statistics;
+		RejectTracker rejects = startRejecting(statistics);
+		int headerLinesRemaining = this.getHeaderLinesToIgnore();
+		String[] footerLines = new String[Math.max(this.getFooterLinesToIgnore(), 0)];
+		long[] footerLineNumbers = new long[footerLines.length];
+		long[] footerLineOffsets = new long[footerLines.length];
+		int footerIndex = 0;
+		int footerCount = 0;
+		long lineNumber = 0;
+		
+		try(LineSource lineSource = measure(openLineSource(), statistics))
+		{
+			String fileLine;
+			while((fileLine = lineSource.readLine()) != null)
+			{
+				lineNumber++;
+				String cleanedLine;
+				
+				try
+				{
+					cleanedLine = cleanLine(fileLine, statistics);
+				}
+				catch(RuntimeException e)
+				{
+					reject(rejects, e, lineNumber, lineSource.getLineOffset(), fileLine);
+					continue;
+				}
+				
+				if(cleanedLine == null)
+				{
+					continue;
+				}
+				
+				if(headerLinesRemaining > 0)
+				{
+					headerLinesRemaining--;
+					continue;
+				}
+				
+				long lineOffset = rejects == null ? -1 : lineSource.getLineOffset();
+				
+				if(footerLines.length == 0)
+				{
+					acceptLine(lineConsumer, cleanedLine, rejects, lineNumber, lineOffset);
+					continue;
+				}
+				
+				//Once the footer buffer is full the oldest line can no longer be part of the footer
+				if(footerCount == footerLines.length)
+				{
+					acceptLine(lineConsumer, footerLines[footerIndex], rejects, footerLineNumbers[footerIndex], 
+							footerLineOffsets[footerIndex]);
+				}
+				else
+				{
+					footerCount++;
+				}
+				
+				footerLines[footerIndex] = cleanedLine;
+				footerLineNumbers[footerIndex] = lineNumber;
+				footerLineOffsets[footerIndex] = lineOffset;
+				footerIndex = (footerIndex + 1) % footerLines.length;
+			}
+			
+			if(statistics != null)
+			{
+				statistics.addHeaderLines(Math.max(this.getHeaderLinesToIgnore() - headerLinesRemaining, 0));
+				statistics.addFooterLines(footerCount);
+				statistics.addBytesRead(getFile().length());
+			}
+			
+			if(rejects != null)
+			{
+				rejects.finish();
+			}
+		}
+		catch(FileNotFoundException rethrow)
+		{
+			throw rethrow;
+		}
+		catch(IOException e)
+		{
+			throw new ApiRuntimeException("Error in reading file " + getFile().getName(), e);
+		}
+	}
+	
+	@Override
+	protected List<Object> getParseSettings()
+	{
+		return List.of(getHeaderLinesToIgnore(), getFooterLinesToIgnore(), removeBlankLines(), 
+				removeLeadingWhitespace(), removeTrailingWhitespace(), getCharset(), getLineTerminator(), getCompression(), 
+				List.copyOf(this.lineStages));
+	}
+	
+	/**
+	 * A tolerant parse is never cached, so that each parse reports its rejected lines to the sink and
+	 * applies its own reject limits
+	 */
+	@Override
+	protected boolean isCacheable()
+	{
+		return this.rejectSink == null;
+	}
+	
+	/**
+	 * Will {@link #parseFile()} split the file across threads
+	 * 
+	 * @return <code>true</code> if the parallelism is more than one, the parser is not in tolerant 
+	 * mode, every line stage is stateless, the deprecated list version of adjustForEscapedContent is 
+	 * not overridden and either the file is a zip archive or it is uncompressed and line terminators 
+	 * can be found in the raw bytes of the charset
+	 */
+	protected boolean isParallelParse()
+	{
+		if(getParallelism() <= 1 || this.rejectSink != null || isListAdjustmentOverridden() 
+				|| this.lineStages.stream().anyMatch(stage -> !stage.isStateless()))
+		{
+			return false;
+		}
+		
+		return switch(resolveCompressionQuietly())
+		{
+			case NONE -> ByteLineReader.supportsCharset(getCharset());
+			case ZIP -> true;
+			default -> false;
+		};
+	}
+	
+	/**
+	 * Work out the compression of the file, treating a file that cannot be read as uncompressed so the
+	 * read that follows reports the error
+	 */
+	private CompressionType resolveCompressionQuietly()
+	{
+		try
+		{
+			return resolveCompression();
+		}
+		catch(IOException e)
+		{
+			return CompressionType.NONE;
+		}
+	}
+	
+	/**
+	 * Split the file into ranges of bytes that start on line boundaries and read, clean and adjust 
+	 * each range for escaped content on its own thread. A zip archive is split by entry instead, 
+	 * with the entries joined in archive order. Header and footer lines are counted across 
+	 * the whole file, exactly as {@link #scanFileLines()} does, and the lines are returned in file 
+	 * order.
+	 * 
+	 * Each line is adjusted with {@link #adjustForEscapedContent(String)}, which is why 
+	 * {@link #isParallelParse()} is false for a parser that overrides 
+	 * {@link #adjustForEscapedContent(List)}
+	 * 
+	 * @return The lines of the file, already adjusted for escaped content
+	 * @throws FileNotFoundException If the file to be parsed was not found
+	 */
+	protected List<String> scanFileLinesInParallel() throws FileNotFoundException
+	{
+		if(!getFile().isFile())
+		{
+			throw new FileNotFoundException(getFile().getPath() + " could not be found");
+		}
+		
+		ParseStatistics statistics = this.statistics;
+		ExecutorService executor = new ForkJoinPool(getParallelism());
+		
+		try
+		{
+			List<List<String>> chunks = resolveCompression() == CompressionType.ZIP 
+					? scanZipEntriesInParallel(executor, statistics) : scanFileChunksInParallel(executor, statistics);
+			
+			int totalLines = 0;
+			for(List<String> chunk : chunks)
+			{
+				totalLines += chunk.size();
+			}
+			
+			//Header and footer lines are counted against the whole file, not each chunk
+			int keepFrom = this.getHeaderLinesToIgnore();
+			int keepTo = totalLines - this.getFooterLinesToIgnore();
+			
+			List<Callable<List<String>>> adjustTasks = new ArrayList<>();
+			int chunkStart = 0;
+			for(List<String> chunk : chunks)
+			{
+				int from = Math.max(keepFrom - chunkStart, 0);
+				int to = Math.min(keepTo - chunkStart, chunk.size());
+				chunkStart += chunk.size();
+				
+				if(from < to)
+				{
+					adjustTasks.add(() -> {
+						ParseStatistics chunkStatistics = statistics == null ? null : new ParseStatistics();
+						List<String> keptLines = chunk.subList(from, to);
+						keptLines.replaceAll(line -> adjustForEscapedContent(line, chunkStatistics));
+						
+						if(statistics != null)
+						{
+							statistics.add(chunkStatistics);
+						}
+						
+						return keptLines;
+					});
+				}
+			}
+			
+			List<String> fileLines = new ArrayList<>(Math.max(keepTo - keepFrom, 0));
+			for(List<String> keptLines : getAll(executor.invokeAll(adjustTasks)))
+			{
+				fileLines.addAll(keptLines);
+			}
+			
+			if(statistics != null)
+			{
+				long headerLines = Math.min(Math.max(keepFrom, 0), totalLines);
+				statistics.addHeaderLines(headerLines);
+				statistics.addFooterLines(totalLines - headerLines - fileLines.size());
+				statistics.addBytesRead(getFile().length());
+			}
+			
+			return fileLines;
+		}
+		catch(IOException e)
+		{
+			throw new ApiRuntimeException("Error in reading file " + getFile().getName(), e);
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new ApiRuntimeException("Parsing of " + getFile().getName() + " was interrupted", e);
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+	
+	/**
+	 * Read and clean each range of bytes of an uncompressed file on the executor
+	 */
+	private List<List<String>> scanFileChunksInParallel(ExecutorService executor, ParseStatistics statistics) 
+			throws IOException, InterruptedException
+	{
+		long chunkCount = Math.min((long)getParallelism() * CHUNKS_PER_THREAD, 
+				getFile().length() / MINIMUM_PARALLEL_CHUNK_SIZE);
+		long[] boundaries = MappedFileLineReader.findChunkBoundaries(getFile(), getLineTerminator(), 
+				(int)Math.max(chunkCount, 1));
+		
+		List<Callable<List<String>>> readTasks = new ArrayList<>();
+		for(int index = 0; index < boundaries.length - 1; index++)
+		{
+			long start = boundaries[index];
+			long end = boundaries[index + 1];
+			readTasks.add(() -> scanChunk(new MappedFileLineReader(getFile(), getCharset(), getLineTerminator(), 
+					start, end, MappedFileLineReader.DEFAULT_SEGMENT_SIZE), statistics));
+		}
+		
+		return getAll(executor.invokeAll(readTasks));
+	}
+	
+	/**
+	 * Read and clean each file entry of a zip archive on the executor
+	 */
+	private List<List<String>> scanZipEntriesInParallel(ExecutorService executor, ParseStatistics statistics) 
+			throws IOException, InterruptedException
+	{
+		try(ZipFile zipFile = new ZipFile(getFile()))
+		{
+			List<Callable<List<String>>> readTasks = new ArrayList<>();
+			Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			
+			ZipEntry entry;
+			while((entry = ZipFileLineSource.nextFileEntry(entries)) != null)
+			{
+				ZipEntry fileEntry = entry;
+				readTasks.add(() -> scanChunk(ZipFileLineSource.openEntry(zipFile, fileEntry, getCharset(), 
+						getLineTerminator(), getReadBufferSize()), statistics));
+			}
+			
+			return getAll(executor.invokeAll(readTasks));
+		}
+	}
+	
+	/**
+	 * Read and clean every line of one chunk of the file, closing the source when done. The chunk is
+	 * measured on its own and added to the statistics of the parse at the end
+	 */
+	private List<String> scanChunk(LineSource chunkSource, ParseStatistics statistics) throws IOException
+	{
+		List<String> chunkLines = new ArrayList<>();
+		ParseStatistics chunkStatistics = statistics == null ? null : new ParseStatistics();
+		
+		try(LineSource lineSource = measure(chunkSource, chunkStatistics))
+		{
+			String fileLine;
+			while((fileLine = lineSource.readLine()) != null)
+			{
+				fileLine = cleanLine(fileLine, chunkStatistics);
+				
+				if(fileLine != null)
+				{
+					chunkLines.add(fileLine);
+				}
+			}
+		}
+		
+		if(statistics != null)
+		{
+			statistics.add(chunkStatistics);
+		}
+		
+		return chunkLines;
+	}
+	
+	/**
+	 * Wait for every task to finish and collect the results in order
+	 */
+	private static <T> List<T> getAll(List<Future<T>> futures) throws IOException, InterruptedException
+	{
+		List<T> results = new ArrayList<>(futures.size());
+		
+		for(Future<T> future : futures)
+		{
+			try
+			{
+				results.add(future.get());
+			}
+			catch(ExecutionException e)
+			{
+				Throwable cause = e.getCause();
+				
+				if(cause instanceof IOException ioException)
+				{
+					throw ioException;
+				}
+				
+				if(cause instanceof RuntimeException runtimeException)
+				{
+					throw runtimeException;
+				}
+				
+				throw new ApiRuntimeException(cause);
+			}
+		}
+		
+		return results;
+	}
+	
+	/**
+	 * Open a source of lines over the file using the read mode, charset, line terminator and buffer 
+	 * size of this parser. Compressed files are decompressed as they are streamed. When line 
+	 * terminators can be found in the raw bytes of the charset, as they can for ASCII and UTF-8, the
+	 * file is scanned a byte at a time, either memory mapped or streamed through a 
+	 * {@link ChannelLineReader}, and only the bytes of each line are decoded. Any other charset is 
+	 * streamed through a Reader
+	 * 
+	 * @return A LineSource positioned at the start of the file
+	 * @throws IOException If the file to be parsed could not be opened
+	 */
+	protected LineSource openLineSource() throws IOException
+	{
+		switch(resolveCompression())
+		{
+			case GZIP:
+				if(ByteLineReader.supportsCharset(getCharset()))
+				{
+					return new ChannelLineReader(Channels.newChannel(openInputStream()), getCharset(), 
+							getLineTerminator(), getReadBufferSize());
+				}
+				
+				return new LineReader(new InputStreamReader(openInputStream(), getCharset()), getLineTerminator(), 
+						getReadBufferSize());
+				
+			case ZIP:
+				return new ZipFileLineSource(getFile(), getCharset(), getLineTerminator(), getReadBufferSize());
+				
+			default:
+				break;
+		}
+		
+		if(ByteLineReader.supportsCharset(getCharset()))
+		{
+			try
+			{
+				if(getReadMode() == FileReadMode.MEMORY_MAPPED)
+				{
+					return new MappedFileLineReader(getFile(), getCharset(), getLineTerminator());
+				}
+				
+				return new ChannelLineReader(getFile(), getCharset(), getLineTerminator(), getReadBufferSize());
+			}
+			catch(NoSuchFileException e)
+			{
+				throw new FileNotFoundException(getFile().getPath() + " could not be found");
+			}
+		}
+		
+		InputStreamReader reader = new InputStreamReader(new FileInputStream(getFile()), getCharset());
+		return new LineReader(reader, getLineTerminator(), getReadBufferSize());
+	}
+	
+	/**
+	 * Apply the whitespace and blank line rules of this parser to a single line of the file, followed
+	 * by each of the line stages in the order they were added
+	 * 
+	 * @param fileLine The line as it was read from the file
+	 * @return The cleaned line or <code>null</code> if the line should be dropped
+	 */
+	protected String cleanLine(String fileLine)
+	{
+		int start = 0;
+		int end = fileLine.length();
+		
+		//Remove all leading whitespace
+		if(removeLeadingWhitespace())
+		{
+			while(start < end && isWhitespace(fileLine.charAt(start)))
+			{
+				start++;
+			}
+		}
+		
+		//Remove all trailing whitespace
+		if(removeTrailingWhitespace())
+		{
+			while(end > start && isWhitespace(fileLine.charAt(end - 1)))
+			{
+				end--;
+			}
+		}
+		
+		if(removeBlankLines() && isBlank(fileLine, start, end))
+		{
+			return null;
+		}
+		
+		String cleanedLine = fileLine.substring(start, end);
+		
+		for(int index = 0; index < this.lineStages.size() && cleanedLine != null; index++)
+		{
+			cleanedLine = this.lineStages.get(index).apply(cleanedLine);
+		}
+		
+		return cleanedLine;
+	}
+	
+	private void resetLineStages()
+	{
+		for(LineStage stage : this.lineStages)
+		{
+			stage.reset();
+		}
+	}
+	
+	/**
+	 * Clean a line, timing it and counting a dropped line when the parse is being measured
+	 */
+	private String cleanLine(String fileLine, ParseStatistics statistics)
+	{
+		if(statistics == null)
+		{
+			return cleanLine(fileLine);
+		}
+		
+		String cleanedLine;
+		
+		if(statistics.isSampled(ParseStage.CLEAN))
+		{
+			long start = System.nanoTime();
+			cleanedLine = cleanLine(fileLine);
+			statistics.addSampledNanos(ParseStage.CLEAN, System.nanoTime() - start);
+		}
+		else
+		{
+			cleanedLine = cleanLine(fileLine);
+		}
+		
+		if(cleanedLine == null)
+		{
+			if(removeBlankLines() && fileLine.isBlank())
+			{
+				statistics.addBlankLine();
+			}
+			else
+			{
+				statistics.addFilteredLine();
+			}
+		}
+		
+		return cleanedLine;
+	}
+	
+	/**
+	 * Adjust a line for escaped content, timing it when the parse is being measured
+	 */
+	private String adjustForEscapedContent(String line, ParseStatistics statistics)
+	{
+		if(statistics == null || !statistics.isSampled(ParseStage.ADJUST))
+		{
+			return adjustForEscapedContent(line);
+		}
+		
+		long start = System.nanoTime();
+		String adjustedLine = adjustForEscapedContent(line);
+		statistics.addSampledNanos(ParseStage.ADJUST, System.nanoTime() - start);
+		return adjustedLine;
+	}
+	
+	/**
+	 * Adjust a kept line for escaped content and, in tolerant mode, check it
+	 */
+	private String prepareLine(String line, ParseStatistics statistics)
+	{
+		String adjustedLine = adjustForEscapedContent(line, statistics);
+		
+		if(this.rejectSink != null)
+		{
+			checkLine(adjustedLine);
+		}
+		
+		return adjustedLine;
+	}
+	
+	/**
+	 * Hand a kept line to the consumer. In tolerant mode a failure of the consumer rejects the line
+	 * instead of stopping the parse
+	 */
+	private void acceptLine(Consumer<String> lineConsumer, String line, RejectTracker rejects, long lineNumber, 
+			long lineOffset)
+	{
+		if(rejects == null)
+		{
+			lineConsumer.accept(line);
+			return;
+		}
+		
+		try
+		{
+			lineConsumer.accept(line);
+			rejects.lineKept();
+		}
+		catch(TooManyRejectsException abort)
+		{
+			throw abort;
+		}
+		catch(RuntimeException e)
+		{
+			rejects.reject(lineNumber, lineOffset, line, e);
+		}
+	}
+	
+	/**
+	 * Reject a line in tolerant mode, otherwise let the failure stop the parse as before
+	 */
+	private void reject(RejectTracker rejects, RuntimeException cause, long lineNumber, long lineOffset, 
+			String line)
+	{
+		if(rejects == null)
+		{
+			throw cause;
+		}
+		
+		rejects.reject(lineNumber, lineOffset, line, cause);
+	}
+	
+	/**
+	 * Start counting the rejected lines of a parse if this parser is in tolerant mode
+	 * 
+	 * @return The tracker for the parse or <code>null</code> if the parser is not tolerant
+	 */
+	private RejectTracker startRejecting(ParseStatistics statistics)
+	{
+		this.rejectedLineCount = 0;
+		return this.rejectSink == null ? null : new RejectTracker(statistics);
+	}
+	
+	/**
+	 * Convert the lines into the file contents, timing it when the parse is being measured
+	 */
+	private O convertLinesToFile(List<String> fileLines, ParseStatistics statistics)
+	{
+		if(statistics == null)
+		{
+			return convertLinesToFile(fileLines);
+		}
+		
+		long start = System.nanoTime();
+		O contents = convertLinesToFile(fileLines);
+		statistics.addStageNanos(ParseStage.CONVERT, System.nanoTime() - start);
+		return contents;
+	}
+	
+	/**
+	 * Time the lines read from a source and count them when the parse is being measured
+	 */
+	private static LineSource measure(LineSource lineSource, ParseStatistics statistics)
+	{
+		if(statistics == null)
+		{
+			return lineSource;
+		}
+		
+		return new LineSource()
+		{
+			@Override
+			public String readLine() throws IOException
+			{
+				String line;
+				
+				if(statistics.isSampled(ParseStage.READ))
+				{
+					long start = System.nanoTime();
+					line = lineSource.readLine();
+					statistics.addSampledNanos(ParseStage.READ, System.nanoTime() - start);
+				}
+				else
+				{
+					line = lineSource.readLine();
+				}
+				
+				if(line != null)
+				{
+					statistics.addLineRead();
+				}
+				
+				return line;
+			}
+
+			@Override
+			public long getLineOffset()
+			{
+				return lineSource.getLineOffset();
+			}
+
+			@Override
+			public void close() throws IOException
+			{
+				lineSource.close();
+			}
+		};
+	}
+	
 	/**
-	 * Create a parser from a File object
+	 * Start measuring a parse if this parser has metrics. A parse started inside another parse, such
+	 * as the full reparse of tail mode, is measured as part of the outer one
 	 * 
-	 * @param file The File to be parsed
-	 * @throws FileNotFoundException If the file could not be found
+	 * @return The time the parse started or -1 if this call is not measuring
 	 */
-	protected AbstractTextFileParser(File file) throws FileNotFoundException
+	private long startMeasuring()
 	{
-		super(file);
+		if(this.metrics == null || this.statistics != null)
+		{
+			return -1;
+		}
+		
+		this.statistics = new ParseStatistics();
+		return System.nanoTime();
 	}
-
+	
 	/**
-	 * Create a parser from a directory and a file name
-	 * 
-	 * @param directory The directory the file is located
-	 * @param fileName The name of the file
-	 * @throws FileNotFoundException If the file could not be found
+	 * Hand the measurements of a finished parse to the metrics of this parser
 	 */
-	protected AbstractTextFileParser(String directory, String fileName) throws FileNotFoundException
+	private void publishMeasurements(long measureStart)
 	{
-		super(directory, fileName);
+		if(measureStart < 0)
+		{
+			return;
+		}
+		
+		ParseStatistics completed = this.statistics;
+		this.statistics = null;
+		completed.setElapsedNanos(System.nanoTime() - measureStart);
+		this.metrics.parseCompleted(this, completed);
 	}
-
+	
 	/**
-	 * Create a parser from a fully qualified file name
-	 * @param fileName The fully qualified file name
-	 * @throws FileNotFoundException FileNotFoundException If the file could not be found
+	 * Stop measuring a parse, whether or not it finished
 	 */
-	protected AbstractTextFileParser(String fileName) throws FileNotFoundException
+	private void stopMeasuring(long measureStart)
 	{
-		super(fileName);
+		if(measureStart >= 0)
+		{
+			this.statistics = null;
+		}
 	}
 	
 	/**
-	 * Convert a list of line Strings into an Object
-	 * 
-	 * @param stringLines The list of Strings to turn into an Object
-	 * @return The resultant Object
+	 * Has a subclass overridden the deprecated list version of adjustForEscapedContent, in which case
+	 * it is still called after the whole file has been read
 	 */
-	protected abstract O convertLinesToFile(List<String> stringLines);
+	private boolean isListAdjustmentOverridden()
+	{
+		return LIST_ADJUSTMENT_OVERRIDDEN.get(getClass());
+	}
 	
 	/**
-	 * Parse the current file into a list of lines. The file will be separated into lines based 
-	 * on the Scanner class. This will also clear out any previous file contents in the parser
-	 * and replace it with contents of the file that you have requested to be loaded
+	 * Is this character whitespace in the same sense as the <code>\s</code> regular expression class
 	 * 
-	 * @return The current file into a list of Strings for each line
-	 * @throws FileNotFoundException If the file is not correctly initialized in this parser
+	 * @param character The character to test
+	 * @return <code>true</code> if the character is a space, tab, line feed, vertical tab, form feed 
+	 * or carriage return
 	 */
-	@Override
-	public O parseFile() throws FileNotFoundException
+	private static boolean isWhitespace(char character)
 	{
-		List<String> fileLines = scanFileLines();
-		adjustForEscapedContent(fileLines);
-		setFileContents(convertLinesToFile(fileLines));
-		return getFileContents();
+		return character == ' ' || (character >= '\t' && character <= '\r');
 	}
 	
 	/**
-	 * Open the file and covert into a List of Strings
+	 * Is a section of a String blank in the same sense as String.isBlank
 	 * 
-	 * @return A List of Strings that was in the file being parsed
-	 * @throws FileNotFoundException If the file to be parsed was not found
+	 * @param string The String to test
+	 * @param start The first index to test
+	 * @param end The index after the last index to test
+	 * @return <code>true</code> if the section is empty or only whitespace
 	 */
-	protected List<String> scanFileLines() throws FileNotFoundException
+	private static boolean isBlank(String string, int start, int end)
 	{
-		Scanner scanner = new Scanner(getFile());
-		List<String> stringLines = new ArrayList<>();
-		while(scanner.hasNextLine())
+		for(int index = start; index < end; index++)
 		{
-			String fileLine = scanner.nextLine();
-			
-			//Remove all leading whitespace
-			if(removeLeadingWhitespace())
-			{
-				fileLine = fileLine.replaceAll("^\\s", "");
-			}
-			
-			//Remove all trailing whitespace
-			if(removeTrailingWhitespace())
-			{
-				fileLine = fileLine.replaceAll("\\s+$", "");
-			}
-			
-			if(removeBlankLines() && fileLine.isBlank())
+			if(!Character.isWhitespace(string.charAt(index)))
 			{
-				continue;
+				return false;
 			}
-			
-			stringLines.add(fileLine);
 		}
-		scanner.close();
 		
-		int fromIndex = this.getHeaderLinesToIgnore();
-		int toIndex = stringLines.size() - this.getFooterLinesToIgnore();
-		
-		return stringLines.subList(fromIndex, toIndex);
+		return true;
 	}
 	
 	/**
@@ -151,7 +1166,12 @@ public abstract class AbstractTextFileParser<O extends Object> extends AbstractF
 	 * will not do any processing
 	 * 
 	 * @param fileLines A list of file line Strings that need to be adjusted
+	 * 
+	 * @deprecated Needs a second pass over every line of the file. Override 
+	 * {@link #adjustForEscapedContent(String)} or add a {@link LineStage} instead, which are applied
+	 * as each line is read
 	 */
+	@Deprecated
 	protected void adjustForEscapedContent(List<String> fileLines)
 	{
 		ListIterator<String> iterator = fileLines.listIterator();
@@ -178,6 +1198,55 @@ public abstract class AbstractTextFileParser<O extends Object> extends AbstractF
 	{
 		return lineString;
 	}
+	
+	/**
+	 * Check that a line can be parsed before it is kept. This is only called in tolerant mode, after 
+	 * the line has been cleaned and adjusted for escaped content, and a line that fails the check is
+	 * sent to the reject sink. {@link #convertLinesToFile(List)} is given the kept lines all at once, 
+	 * so a failure there stops the whole parse. A subclass whose conversion of a line can fail should 
+	 * check for that here. The code in this class will not do any checking
+	 * 
+	 * @param line The line to check
+	 * @throws RuntimeException If the line cannot be parsed, with a message saying why
+	 * 
+	 * @see #setRejectSink(RejectSink)
+	 */
+	protected void checkLine(String line)
+	{
+		//Every line is valid unless a subclass knows better
+	}
+
+	/**
+	 * Add a stage to the end of the line cleaning pipeline. Stages run on each line in the order they
+	 * were added, after the whitespace and blank line rules and before header and footer lines are 
+	 * counted, so a dropped line never counts as a header or footer line
+	 * 
+	 * @param lineStage The stage to add
+	 * 
+	 * @see LineStages
+	 */
+	public void addLineStage(LineStage lineStage)
+	{
+		this.lineStages.add(lineStage);
+	}
+	
+	/**
+	 * The stages of the line cleaning pipeline in the order they run
+	 * 
+	 * @return An unmodifiable view of the lineStages
+	 */
+	public List<LineStage> getLineStages()
+	{
+		return Collections.unmodifiableList(this.lineStages);
+	}
+	
+	/**
+	 * Remove every stage from the line cleaning pipeline
+	 */
+	public void clearLineStages()
+	{
+		this.lineStages.clear();
+	}
 
 	/**
 	 * The number of header lines to ignore
@@ -278,4 +1347,322 @@ public abstract class AbstractTextFileParser<O extends Object> extends AbstractF
 	{
 		this.removeTrailingWhitespace = removeTrailingWhitespace;
 	}
+
+	/**
+	 * The charset used to decode the file
+	 * 
+	 * @return the charset
+	 */
+	public Charset getCharset()
+	{
+		return this.charset;
+	}
+
+	/**
+	 * Set the charset used to decode the file. The platform default charset is used if this is 
+	 * never set
+	 * 
+	 * @param charset the charset to set
+	 */
+	public void setCharset(Charset charset)
+	{
+		this.charset = charset == null ? Charset.defaultCharset() : charset;
+	}
+
+	/**
+	 * The characters that end a line in the file
+	 * 
+	 * @return the lineTerminator
+	 */
+	public LineTerminator getLineTerminator()
+	{
+		return this.lineTerminator;
+	}
+
+	/**
+	 * Set the characters that end a line in the file
+	 * 
+	 * @param lineTerminator the lineTerminator to set
+	 */
+	public void setLineTerminator(LineTerminator lineTerminator)
+	{
+		this.lineTerminator = lineTerminator == null ? LineTerminator.ANY : lineTerminator;
+	}
+
+	/**
+	 * The number of characters read from the file at a time, or bytes when the file is streamed a
+	 * byte at a time
+	 * 
+	 * @return the readBufferSize
+	 */
+	public int getReadBufferSize()
+	{
+		return this.readBufferSize;
+	}
+
+	/**
+	 * Set the number of characters read from the file at a time, or bytes when the file is streamed
+	 * a byte at a time
+	 * 
+	 * @param readBufferSize the readBufferSize to set
+	 */
+	public void setReadBufferSize(int readBufferSize)
+	{
+		this.readBufferSize = readBufferSize;
+	}
+
+	/**
+	 * The number of threads used by {@link #parseFile()}
+	 * 
+	 * @return the parallelism
+	 */
+	public int getParallelism()
+	{
+		return this.parallelism;
+	}
+
+	/**
+	 * Set the number of threads used by {@link #parseFile()}. With more than one thread the file is 
+	 * split into ranges of bytes that are read, cleaned and adjusted for escaped content at the same
+	 * time and then put back together in order. Small files are read as a single range, and charsets 
+	 * where line terminators cannot be found in the raw bytes, are still parsed on a single thread.
+	 * {@link #parseFile(Consumer)} is always single threaded
+	 * 
+	 * @param parallelism the parallelism to set
+	 */
+	public void setParallelism(int parallelism)
+	{
+		this.parallelism = Math.max(parallelism, 1);
+	}
+
+	/**
+	 * How far the file has been parsed by {@link #parseAppendedLines()}
+	 * 
+	 * @return the checkpoint or <code>null</code> if the file has not been parsed in tail mode
+	 */
+	public FileCheckpoint getCheckpoint()
+	{
+		return this.checkpoint;
+	}
+
+	/**
+	 * Set how far the file has been parsed, such as a checkpoint saved by a previous run. The next 
+	 * call to {@link #parseAppendedLines()} will resume from it if it still matches the file
+	 * 
+	 * @param checkpoint the checkpoint to set or <code>null</code> to parse the whole file next time
+	 */
+	public void setCheckpoint(FileCheckpoint checkpoint)
+	{
+		this.checkpoint = checkpoint;
+	}
+
+	/**
+	 * Did the last call to {@link #parseAppendedLines()} have to parse the whole file
+	 * 
+	 * @return <code>true</code> if there was no valid checkpoint to resume from
+	 */
+	public boolean isFullReparse()
+	{
+		return this.fullReparse;
+	}
+
+	/**
+	 * Where the measurements of each parse are sent
+	 * 
+	 * @return the metrics or <code>null</code> if parses are not measured
+	 */
+	public ParserMetrics getMetrics()
+	{
+		return this.metrics;
+	}
+
+	/**
+	 * Set where the measurements of each parse are sent. Each parse is timed by stage, sampling the
+	 * per line stages, and its lines and bytes are counted. Without metrics nothing is measured
+	 * 
+	 * @param metrics the metrics to set or <code>null</code> to stop measuring
+	 */
+	public void setMetrics(ParserMetrics metrics)
+	{
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Where lines that cannot be parsed are sent in tolerant mode
+	 * 
+	 * @return the rejectSink or <code>null</code> if the parser is not tolerant
+	 */
+	public RejectSink getRejectSink()
+	{
+		return this.rejectSink;
+	}
+
+	/**
+	 * Put the parser in tolerant mode by setting where lines that cannot be parsed are sent. A line 
+	 * is rejected when a line stage, {@link #adjustForEscapedContent(String)} or 
+	 * {@link #checkLine(String)} throws a RuntimeException for it, or when the consumer of a 
+	 * streaming parse does, and the parse carries on with the next line. Lines are not rejected by 
+	 * {@link #convertLinesToFile(List)}, which converts every kept line at once. A tolerant parse is 
+	 * always single threaded and never cached, and a subclass that still overrides the deprecated 
+	 * list version of adjustForEscapedContent does not have its lines checked
+	 * 
+	 * @param rejectSink the rejectSink to set or <code>null</code> to let the first failure stop the 
+	 * parse
+	 * 
+	 * @see #setMaxRejects(long)
+	 * @see #setMaxRejectRatio(double)
+	 */
+	public void setRejectSink(RejectSink rejectSink)
+	{
+		this.rejectSink = rejectSink;
+	}
+
+	/**
+	 * The most lines that can be rejected before a tolerant parse is stopped
+	 * 
+	 * @return the maxRejects
+	 */
+	public long getMaxRejects()
+	{
+		return this.maxRejects;
+	}
+
+	/**
+	 * Set the most lines that can be rejected before a tolerant parse is stopped with a 
+	 * TooManyRejectsException. There is no limit if this is never set
+	 * 
+	 * @param maxRejects the maxRejects to set
+	 */
+	public void setMaxRejects(long maxRejects)
+	{
+		this.maxRejects = Math.max(maxRejects, 0);
+	}
+
+	/**
+	 * The largest share of lines that can be rejected before a tolerant parse is stopped
+	 * 
+	 * @return the maxRejectRatio
+	 */
+	public double getMaxRejectRatio()
+	{
+		return this.maxRejectRatio;
+	}
+
+	/**
+	 * Set the largest share of the kept and rejected lines, from 0 to 1, that can be rejected before
+	 * a tolerant parse is stopped with a TooManyRejectsException. The ratio is checked as each line
+	 * is rejected once {@link #getRejectRatioMinimumLines()} lines have been seen, so a bad file is 
+	 * abandoned early, and again at the end of the file. There is no limit if this is never set
+	 * 
+	 * @param maxRejectRatio the maxRejectRatio to set
+	 */
+	public void setMaxRejectRatio(double maxRejectRatio)
+	{
+		this.maxRejectRatio = Math.min(Math.max(maxRejectRatio, 0), 1);
+	}
+
+	/**
+	 * The number of lines that have to be kept or rejected before the reject ratio is checked
+	 * during a parse
+	 * 
+	 * @return the rejectRatioMinimumLines
+	 */
+	public long getRejectRatioMinimumLines()
+	{
+		return this.rejectRatioMinimumLines;
+	}
+
+	/**
+	 * Set the number of lines that have to be kept or rejected before the reject ratio is checked
+	 * during a parse, so a few bad lines at the start of a file do not stop it
+	 * 
+	 * @param rejectRatioMinimumLines the rejectRatioMinimumLines to set
+	 */
+	public void setRejectRatioMinimumLines(long rejectRatioMinimumLines)
+	{
+		this.rejectRatioMinimumLines = Math.max(rejectRatioMinimumLines, 1);
+	}
+
+	/**
+	 * The number of lines rejected by the last tolerant parse, including one that was stopped
+	 * 
+	 * @return the rejectedLineCount
+	 */
+	public long getRejectedLineCount()
+	{
+		return this.rejectedLineCount;
+	}
+	
+	/**
+	 * Counts the kept and rejected lines of one tolerant parse and stops the parse when the limits of
+	 * the parser are passed
+	 */
+	private final class RejectTracker
+	{
+		private final ParseStatistics statistics;
+		
+		private long keptLines = 0;
+		
+		private long rejectedLines = 0;
+		
+		private RejectTracker(ParseStatistics statistics)
+		{
+			this.statistics = statistics;
+		}
+		
+		private void lineKept()
+		{
+			this.keptLines++;
+		}
+		
+		private void reject(long lineNumber, long lineOffset, String line, RuntimeException cause)
+		{
+			this.rejectedLines++;
+			rejectedLineCount = this.rejectedLines;
+			
+			if(this.statistics != null)
+			{
+				this.statistics.addRejectedLine();
+			}
+			
+			getRejectSink().reject(new RejectedLine(lineNumber, lineOffset, line, cause));
+			
+			if(this.rejectedLines > getMaxRejects())
+			{
+				throw new TooManyRejectsException("Parsing of " + getFile().getName() + " stopped after " 
+						+ this.rejectedLines + " rejected lines, more than the limit of " + getMaxRejects(), 
+						this.rejectedLines, getLinesProcessed());
+			}
+			
+			if(getLinesProcessed() >= getRejectRatioMinimumLines())
+			{
+				checkRatio();
+			}
+		}
+		
+		/**
+		 * Check the ratio once more now that the whole file has been seen
+		 */
+		private void finish()
+		{
+			checkRatio();
+		}
+		
+		private void checkRatio()
+		{
+			long linesProcessed = getLinesProcessed();
+			
+			if(linesProcessed > 0 && this.rejectedLines > getMaxRejectRatio() * linesProcessed)
+			{
+				throw new TooManyRejectsException(String.format("Parsing of %s stopped after %d of %d lines were "
+						+ "rejected, more than the limit of %.2f%%", getFile().getName(), this.rejectedLines, 
+						linesProcessed, getMaxRejectRatio() * 100), this.rejectedLines, linesProcessed);
+			}
+		}
+		
+		private long getLinesProcessed()
+		{
+			return this.keptLines + this.rejectedLines;
+		}
+	}
 }
@@ -0,0 +1,38 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Turns the bytes of one binary record into an object. Records are written with a 
+ * {@link BinaryRecordEncoder}, which a class can implement alongside this to do both
+ *
+ * @param <R> The type of each record
+ * 
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public interface BinaryRecordCodec<R extends Object>
+{
+	/**
+	 * Decode one record. The bytes of the record run from the position to the limit of the buffer, 
+	 * which is already set to the byte order of the record format. The buffer is reused for the 
+	 * next record, so it must not be kept
+	 * 
+	 * @param recordBytes The bytes of the record
+	 * @return The decoded record
+	 */
+	public R decode(ByteBuffer recordBytes);
+}
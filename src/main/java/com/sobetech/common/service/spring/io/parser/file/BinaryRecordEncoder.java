@@ -0,0 +1,38 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Turns an object into the bytes of one binary record for a {@link BinaryRecordFileWriter}
+ *
+ * @param <R> The type of each record
+ * 
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public interface BinaryRecordEncoder<R extends Object>
+{
+	/**
+	 * Encode one record at the position of the buffer, moving the position past the bytes written.
+	 * The buffer is already set to the byte order of the record format
+	 * 
+	 * @param record The record to encode
+	 * @param recordBytes The buffer to write the record into
+	 * @throws java.nio.BufferOverflowException If the buffer does not have room for the record, in 
+	 * which case the writer tries again with more room
+	 */
+	public void encode(R record, ByteBuffer recordBytes);
+}
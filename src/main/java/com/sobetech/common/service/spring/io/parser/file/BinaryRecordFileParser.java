@@ -0,0 +1,78 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.List;
+
+/**
+ * An instance of AbstractBinaryFileParser that returns the records of a binary file as a List
+ *
+ * @param <R> The type of each record
+ * 
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public class BinaryRecordFileParser<R extends Object> extends AbstractBinaryFileParser<R, List<R>>
+{
+	/**
+	 * Create a BinaryRecordFileParser from a File object
+	 * 
+	 * @param file The File object to parse
+	 * @param format How the records are laid out
+	 * @param codec Decodes each record
+	 * @throws FileNotFoundException If the file is not found
+	 */
+	public BinaryRecordFileParser(File file, BinaryRecordFormat format, BinaryRecordCodec<R> codec) 
+			throws FileNotFoundException
+	{
+		super(file, format, codec);
+	}
+
+	/**
+	 * Create a BinaryRecordFileParser from a directory and file name
+	 * 
+	 * @param directory The directory of the file
+	 * @param fileName The name of the file in the directory
+	 * @param format How the records are laid out
+	 * @param codec Decodes each record
+	 * @throws FileNotFoundException If the file is not found
+	 */
+	public BinaryRecordFileParser(String directory, String fileName, BinaryRecordFormat format, 
+			BinaryRecordCodec<R> codec) throws FileNotFoundException
+	{
+		super(directory, fileName, format, codec);
+	}
+
+	/**
+	 * Create a BinaryRecordFileParser from a fully qualified file name
+	 * 
+	 * @param fileName A fully qualified file name
+	 * @param format How the records are laid out
+	 * @param codec Decodes each record
+	 * @throws FileNotFoundException If the file is not found
+	 */
+	public BinaryRecordFileParser(String fileName, BinaryRecordFormat format, BinaryRecordCodec<R> codec) 
+			throws FileNotFoundException
+	{
+		super(fileName, format, codec);
+	}
+
+	@Override
+	protected List<R> convertRecordsToFile(List<R> records)
+	{
+		return records;
+	}
+}
@@ -0,0 +1,223 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes records in a BinaryRecordFormat so they can be read back by a BinaryRecordFileParser. 
+ * Records are encoded into a reusable direct buffer that is written to the file whenever it fills
+ *
+ * @param <R> The type of each record
+ * 
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public class BinaryRecordFileWriter<R extends Object> implements Closeable
+{
+	private final FileChannel channel;
+	
+	private final BinaryRecordFormat format;
+	
+	private final BinaryRecordEncoder<? super R> encoder;
+	
+	private ByteBuffer buffer;
+	
+	private long recordCount = 0;
+
+	/**
+	 * Create a BinaryRecordFileWriter, replacing the file if it exists
+	 * 
+	 * @param file The file to write
+	 * @param format How the records are laid out
+	 * @param encoder Encodes each record
+	 * @throws IOException If the file could not be opened
+	 */
+	public BinaryRecordFileWriter(File file, BinaryRecordFormat format, BinaryRecordEncoder<? super R> encoder) 
+			throws IOException
+	{
+		this(file, format, encoder, false);
+	}
+
+	/**
+	 * Create a BinaryRecordFileWriter
+	 * 
+	 * @param file The file to write
+	 * @param format How the records are laid out
+	 * @param encoder Encodes each record
+	 * @param append <code>true</code> to add records to the end of an existing file
+	 * @throws IOException If the file could not be opened
+	 */
+	public BinaryRecordFileWriter(File file, BinaryRecordFormat format, BinaryRecordEncoder<? super R> encoder, 
+			boolean append) throws IOException
+	{
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, 
+				append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+		this.format = format;
+		this.encoder = encoder;
+		this.buffer = ByteBuffer.allocateDirect(Math.max(AbstractBinaryFileParser.DEFAULT_BUFFER_SIZE, 
+				format.getRecordSize())).order(format.getByteOrder());
+	}
+	
+	/**
+	 * Encode and write one record
+	 * 
+	 * @param record The record to write
+	 * @throws IOException If the file could not be written
+	 * @throws IllegalArgumentException If the record does not match the size of a fixed size format,
+	 * or is larger than the maximum of a length prefixed format
+	 */
+	public void write(R record) throws IOException
+	{
+		int prefixBytes = this.format.isLengthPrefixed() ? BinaryRecordFormat.LENGTH_PREFIX_BYTES : 0;
+		
+		while(true)
+		{
+			int start = this.buffer.position();
+			
+			try
+			{
+				if(this.buffer.remaining() < prefixBytes)
+				{
+					throw new BufferOverflowException();
+				}
+				
+				this.buffer.position(start + prefixBytes);
+				this.encoder.encode(record, this.buffer);
+			}
+			catch(BufferOverflowException e)
+			{
+				this.buffer.position(start);
+				makeRoom(start);
+				continue;
+			}
+			catch(RuntimeException e)
+			{
+				//Drop the part of the record that was encoded so it is never written
+				this.buffer.position(start);
+				throw e;
+			}
+			
+			int recordLength = this.buffer.position() - start - prefixBytes;
+			
+			if(this.format.isLengthPrefixed())
+			{
+				try
+				{
+					this.format.checkRecordLength(recordLength);
+				}
+				catch(IllegalArgumentException e)
+				{
+					this.buffer.position(start);
+					throw e;
+				}
+				
+				this.buffer.putInt(start, recordLength);
+			}
+			else if(recordLength != this.format.getRecordSize())
+			{
+				this.buffer.position(start);
+				throw new IllegalArgumentException("Record encoded to " + recordLength + " bytes instead of " 
+						+ this.format.getRecordSize());
+			}
+			
+			this.recordCount++;
+			return;
+		}
+	}
+	
+	/**
+	 * Encode and write every record
+	 * 
+	 * @param records The records to write in order
+	 * @throws IOException If the file could not be written
+	 */
+	public void writeAll(Iterable<? extends R> records) throws IOException
+	{
+		for(R record : records)
+		{
+			write(record);
+		}
+	}
+	
+	/**
+	 * Write the buffered records to the file
+	 * 
+	 * @throws IOException If the file could not be written
+	 */
+	public void flush() throws IOException
+	{
+		this.buffer.flip();
+		
+		while(this.buffer.hasRemaining())
+		{
+			this.channel.write(this.buffer);
+		}
+		
+		this.buffer.clear();
+	}
+	
+	/**
+	 * Flush the buffer if it holds records, otherwise a single record is larger than the buffer so
+	 * the buffer grows
+	 */
+	private void makeRoom(int bufferedBytes) throws IOException
+	{
+		if(bufferedBytes > 0)
+		{
+			flush();
+			return;
+		}
+		
+		long largestBuffer = (long)this.format.getMaximumRecordSize() + BinaryRecordFormat.LENGTH_PREFIX_BYTES;
+		
+		if(this.buffer.capacity() >= largestBuffer)
+		{
+			throw new IllegalArgumentException("Record is larger than the maximum record size of " 
+					+ this.format.getMaximumRecordSize());
+		}
+		
+		this.buffer = ByteBuffer.allocateDirect((int)Math.min((long)this.buffer.capacity() * 2, largestBuffer))
+				.order(this.format.getByteOrder());
+	}
+	
+	/**
+	 * The number of records written
+	 * 
+	 * @return the recordCount
+	 */
+	public long getRecordCount()
+	{
+		return this.recordCount;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			flush();
+		}
+		finally
+		{
+			this.channel.close();
+		}
+	}
+}
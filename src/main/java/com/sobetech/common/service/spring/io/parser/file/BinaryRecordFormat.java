@@ -0,0 +1,157 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.nio.ByteOrder;
+
+/**
+ * How the records of a binary file are laid out. Either every record is the same number of bytes, 
+ * or each record starts with a four byte length
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public class BinaryRecordFormat
+{
+	/**
+	 * The number of bytes in the length in front of each record of a length prefixed format
+	 */
+	public static final int LENGTH_PREFIX_BYTES = Integer.BYTES;
+	
+	/**
+	 * The default largest record a length prefixed format accepts, which guards against reading a 
+	 * corrupt length
+	 */
+	public static final int DEFAULT_MAXIMUM_RECORD_SIZE = 64 * 1024 * 1024;
+	
+	private final int recordSize;
+	
+	private ByteOrder byteOrder = ByteOrder.BIG_ENDIAN;
+	
+	private int maximumRecordSize = DEFAULT_MAXIMUM_RECORD_SIZE;
+	
+	private BinaryRecordFormat(int recordSize)
+	{
+		this.recordSize = recordSize;
+	}
+	
+	/**
+	 * A format where every record is the same number of bytes
+	 * 
+	 * @param recordSize The number of bytes in each record
+	 * @return The format
+	 */
+	public static BinaryRecordFormat fixedSize(int recordSize)
+	{
+		if(recordSize <= 0)
+		{
+			throw new IllegalArgumentException("A fixed record size must be positive");
+		}
+		
+		return new BinaryRecordFormat(recordSize);
+	}
+	
+	/**
+	 * A format where each record starts with a four byte length, which does not include the length 
+	 * itself
+	 * 
+	 * @return The format
+	 */
+	public static BinaryRecordFormat lengthPrefixed()
+	{
+		return new BinaryRecordFormat(0);
+	}
+	
+	/**
+	 * Does each record start with its length
+	 * 
+	 * @return <code>true</code> for a length prefixed format
+	 */
+	public boolean isLengthPrefixed()
+	{
+		return this.recordSize == 0;
+	}
+	
+	/**
+	 * The number of bytes in each record of a fixed size format
+	 * 
+	 * @return the recordSize, or 0 for a length prefixed format
+	 */
+	public int getRecordSize()
+	{
+		return this.recordSize;
+	}
+
+	/**
+	 * The byte order of the length prefix and of the buffer handed to the codec
+	 * 
+	 * @return the byteOrder
+	 */
+	public ByteOrder getByteOrder()
+	{
+		return this.byteOrder;
+	}
+
+	/**
+	 * Set the byte order of the length prefix and of the buffer handed to the codec. By default 
+	 * this is big endian
+	 *
+	 * @param byteOrder the byteOrder to set
+	 */
+	public void setByteOrder(ByteOrder byteOrder)
+	{
+		this.byteOrder = byteOrder == null ? ByteOrder.BIG_ENDIAN : byteOrder;
+	}
+
+	/**
+	 * The largest record a length prefixed format accepts
+	 * 
+	 * @return the maximumRecordSize
+	 */
+	public int getMaximumRecordSize()
+	{
+		return this.maximumRecordSize;
+	}
+
+	/**
+	 * Set the largest record a length prefixed format accepts. A longer length is treated as a 
+	 * corrupt file rather than an attempt to read that many bytes
+	 *
+	 * @param maximumRecordSize the maximumRecordSize to set
+	 */
+	public void setMaximumRecordSize(int maximumRecordSize)
+	{
+		this.maximumRecordSize = Math.max(maximumRecordSize, 1);
+	}
+	
+	/**
+	 * Check the length of a record against this format
+	 * 
+	 * @param recordLength The length of the record
+	 * @throws IllegalArgumentException If the length is negative or larger than the maximum
+	 */
+	public void checkRecordLength(int recordLength)
+	{
+		if(recordLength < 0 || recordLength > this.maximumRecordSize)
+		{
+			throw new IllegalArgumentException("Record length " + recordLength + " is outside 0 to " + this.maximumRecordSize);
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return (isLengthPrefixed() ? "length prefixed" : "fixed size " + this.recordSize) + ", " + this.byteOrder;
+	}
+}
@@ -0,0 +1,394 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Reads lines of text by finding the line terminators in the raw bytes of a file and only decoding 
+ * the bytes of each complete line. The bytes are supplied in chunks by the subclass, and a line that
+ * spans two chunks is carried over in a small reusable array.
+ * 
+ * This only works for charsets where a carriage return and a line feed are always encoded as the 
+ * single bytes 0x0D and 0x0A, such as UTF-8, US-ASCII and ISO-8859-1
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ * 
+ * @see #supportsCharset(Charset)
+ *
+ */
+public abstract class ByteLineReader implements LineSource
+{
+	private static final byte LINE_FEED = '\n';
+	
+	private static final byte CARRIAGE_RETURN = '\r';
+	
+	private static final long LINE_FEEDS = 0x0A0A0A0A0A0A0A0AL;
+	
+	private static final long CARRIAGE_RETURNS = 0x0D0D0D0D0D0D0D0DL;
+	
+	private static final long LOW_SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+	
+	private final Charset charset;
+	
+	private final LineTerminator lineTerminator;
+	
+	private final long startOffset;
+	
+	private ByteBuffer chunk;
+	
+	private int chunkStart;
+	
+	private long bytesBeforeChunk = 0;
+	
+	private long lineOffset = -1;
+	
+	private byte[] lineBytes = new byte[256];
+	
+	private int lineLength = 0;
+	
+	private boolean skipLineFeed = false;
+	
+	private boolean pendingCarriageReturn = false;
+	
+	/**
+	 * Create a ByteLineReader
+	 * 
+	 * @param charset The charset used to decode each line
+	 * @param lineTerminator The characters that end a line
+	 */
+	protected ByteLineReader(Charset charset, LineTerminator lineTerminator)
+	{
+		this(charset, lineTerminator, 0);
+	}
+	
+	/**
+	 * Create a ByteLineReader whose first byte is not at the start of the file
+	 * 
+	 * @param charset The charset used to decode each line
+	 * @param lineTerminator The characters that end a line
+	 * @param startOffset The position in the file of the first byte that will be read
+	 */
+	protected ByteLineReader(Charset charset, LineTerminator lineTerminator, long startOffset)
+	{
+		if(!supportsCharset(charset))
+		{
+			throw new IllegalArgumentException(charset + " cannot be read a byte at a time");
+		}
+		
+		this.charset = charset;
+		this.lineTerminator = lineTerminator == null ? LineTerminator.ANY : lineTerminator;
+		this.startOffset = startOffset;
+	}
+	
+	/**
+	 * Can line terminators be found in the raw bytes of text in this charset
+	 * 
+	 * @param charset The charset to test
+	 * @return <code>true</code> if carriage returns and line feeds are encoded as single bytes that
+	 * cannot appear inside any other character
+	 */
+	public static boolean supportsCharset(Charset charset)
+	{
+		if(charset == null || !charset.canEncode())
+		{
+			return false;
+		}
+		
+		return Arrays.equals("\r\n".getBytes(charset), new byte[] { CARRIAGE_RETURN, LINE_FEED }) 
+				&& "a".getBytes(charset).length == 1;
+	}
+	
+	/**
+	 * Get the next chunk of bytes to scan for lines
+	 * 
+	 * @return A buffer positioned at the next unread byte or <code>null</code> if there are no more
+	 * bytes
+	 * @throws IOException If the underlying input could not be read
+	 */
+	protected abstract ByteBuffer nextChunk() throws IOException;
+	
+	@Override
+	public String readLine() throws IOException
+	{
+		this.lineLength = 0;
+		this.lineOffset = this.startOffset + this.bytesBeforeChunk 
+				+ (this.chunk == null ? 0 : this.chunk.position() - this.chunkStart);
+		
+		while(true)
+		{
+			if((this.chunk == null || !this.chunk.hasRemaining()) && !advance())
+			{
+				//A lone carriage return at the very end of the input is content when only CRLF ends a line
+				if(this.pendingCarriageReturn)
+				{
+					this.pendingCarriageReturn = false;
+					appendByte(CARRIAGE_RETURN);
+				}
+				
+				return this.lineLength == 0 ? null : decodeLine();
+			}
+			
+			int start = this.chunk.position();
+			int limit = this.chunk.limit();
+			
+			if(this.pendingCarriageReturn)
+			{
+				this.pendingCarriageReturn = false;
+				
+				if(this.chunk.get(start) == LINE_FEED)
+				{
+					this.chunk.position(start + 1);
+					return decodeLine();
+				}
+				
+				appendByte(CARRIAGE_RETURN);
+			}
+			
+			if(this.skipLineFeed)
+			{
+				this.skipLineFeed = false;
+				
+				if(this.chunk.get(start) == LINE_FEED)
+				{
+					//The line feed ended the previous line, so this line starts after it
+					this.chunk.position(start + 1);
+					this.lineOffset++;
+					continue;
+				}
+			}
+			
+			for(int index = findLineByte(start, limit); index < limit; index = findLineByte(index + 1, limit))
+			{
+				byte value = this.chunk.get(index);
+				int next = -1;
+				
+				switch(this.lineTerminator)
+				{
+					case LF:
+						if(value == LINE_FEED)
+						{
+							next = index + 1;
+						}
+						break;
+						
+					case CR:
+						if(value == CARRIAGE_RETURN)
+						{
+							next = index + 1;
+						}
+						break;
+						
+					case CRLF:
+						if(value == CARRIAGE_RETURN)
+						{
+							if(index + 1 == limit)
+							{
+								//The line feed, if there is one, is in the next chunk
+								appendBytes(start, index);
+								this.chunk.position(limit);
+								this.pendingCarriageReturn = true;
+								break;
+							}
+							
+							if(this.chunk.get(index + 1) == LINE_FEED)
+							{
+								next = index + 2;
+							}
+						}
+						break;
+						
+					default:
+						next = index + 1;
+						
+						if(value == CARRIAGE_RETURN)
+						{
+							if(index + 1 == limit)
+							{
+								this.skipLineFeed = true;
+							}
+							else if(this.chunk.get(index + 1) == LINE_FEED)
+							{
+								next = index + 2;
+							}
+						}
+				}
+				
+				if(this.pendingCarriageReturn)
+				{
+					break;
+				}
+				
+				if(next >= 0)
+				{
+					String line = completeLine(start, index);
+					this.chunk.position(next);
+					return line;
+				}
+			}
+			
+			if(!this.pendingCarriageReturn)
+			{
+				appendBytes(start, limit);
+				this.chunk.position(limit);
+			}
+		}
+	}
+	
+	@Override
+	public long getLineOffset()
+	{
+		return this.lineOffset;
+	}
+	
+	/**
+	 * The charset used to decode each line
+	 * 
+	 * @return the charset
+	 */
+	public Charset getCharset()
+	{
+		return this.charset;
+	}
+	
+	/**
+	 * The characters that end a line
+	 * 
+	 * @return the lineTerminator
+	 */
+	public LineTerminator getLineTerminator()
+	{
+		return this.lineTerminator;
+	}
+	
+	private boolean advance() throws IOException
+	{
+		ByteBuffer nextChunk;
+		
+		if(this.chunk != null)
+		{
+			this.bytesBeforeChunk += this.chunk.limit() - this.chunkStart;
+		}
+		
+		do
+		{
+			nextChunk = nextChunk();
+		}
+		while(nextChunk != null && !nextChunk.hasRemaining());
+		
+		this.chunk = nextChunk;
+		this.chunkStart = nextChunk == null ? 0 : nextChunk.position();
+		return nextChunk != null;
+	}
+	
+	/**
+	 * Find the next line feed or carriage return in the current chunk. Eight bytes are tested at a 
+	 * time, which is where most of the time of reading a line goes when lines are long
+	 * 
+	 * @param from The first index to test
+	 * @param limit The index after the last index to test
+	 * @return The index of the byte or the limit if there is none
+	 */
+	private int findLineByte(int from, int limit)
+	{
+		ByteBuffer bytes = this.chunk;
+		int index = from;
+		
+		if(limit - index >= Long.BYTES)
+		{
+			boolean littleEndian = bytes.order() == ByteOrder.LITTLE_ENDIAN;
+			
+			for(; index <= limit - Long.BYTES; index += Long.BYTES)
+			{
+				long word = bytes.getLong(index);
+				long matches = zeroBytes(word ^ LINE_FEEDS) | zeroBytes(word ^ CARRIAGE_RETURNS);
+				
+				if(matches != 0)
+				{
+					int bit = littleEndian ? Long.numberOfTrailingZeros(matches) : Long.numberOfLeadingZeros(matches);
+					return index + bit / Byte.SIZE;
+				}
+			}
+		}
+		
+		for(; index < limit; index++)
+		{
+			byte value = bytes.get(index);
+			
+			if(value == LINE_FEED || value == CARRIAGE_RETURN)
+			{
+				return index;
+			}
+		}
+		
+		return limit;
+	}
+	
+	/**
+	 * Set the high bit of every byte of a word that is zero and clear all of the other bits. Unlike
+	 * the usual subtraction trick this never marks a byte next to a zero byte
+	 */
+	private static long zeroBytes(long word)
+	{
+		return ~(((word & LOW_SEVEN_BITS) + LOW_SEVEN_BITS) | word | LOW_SEVEN_BITS);
+	}
+	
+	private void appendBytes(int start, int end)
+	{
+		int length = end - start;
+		ensureCapacity(length);
+		this.chunk.get(start, this.lineBytes, this.lineLength, length);
+		this.lineLength += length;
+	}
+	
+	private void appendByte(byte value)
+	{
+		ensureCapacity(1);
+		this.lineBytes[this.lineLength++] = value;
+	}
+	
+	private void ensureCapacity(int additionalBytes)
+	{
+		int required = this.lineLength + additionalBytes;
+		
+		if(required > this.lineBytes.length)
+		{
+			this.lineBytes = Arrays.copyOf(this.lineBytes, Math.max(required, this.lineBytes.length * 2));
+		}
+	}
+	
+	/**
+	 * Decode the line that ends at a position in the current chunk. A line that is wholly inside a 
+	 * chunk backed by an array is decoded straight from the chunk without being copied first
+	 */
+	private String completeLine(int start, int end)
+	{
+		if(this.lineLength == 0 && this.chunk.hasArray())
+		{
+			return new String(this.chunk.array(), this.chunk.arrayOffset() + start, end - start, this.charset);
+		}
+		
+		appendBytes(start, end);
+		return decodeLine();
+	}
+	
+	private String decodeLine()
+	{
+		return new String(this.lineBytes, 0, this.lineLength, this.charset);
+	}
+}
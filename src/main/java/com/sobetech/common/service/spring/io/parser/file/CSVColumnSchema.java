@@ -0,0 +1,231 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The columns to load from a CSV file into a ColumnarCSVFile. Each column names a field of the 
+ * line by its index and the type it should be parsed as. Fields that are not in the schema are 
+ * skipped without being read
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public class CSVColumnSchema
+{
+	private final List<Column> columns = new ArrayList<>();
+	
+	/**
+	 * Add a column of int values
+	 * 
+	 * @param name The name of the column
+	 * @param fieldIndex The index of the field in each line
+	 * @return This schema
+	 */
+	public CSVColumnSchema addIntColumn(String name, int fieldIndex)
+	{
+		return addColumn(name, fieldIndex, CSVColumnType.INT, null);
+	}
+	
+	/**
+	 * Add a column of long values
+	 * 
+	 * @param name The name of the column
+	 * @param fieldIndex The index of the field in each line
+	 * @return This schema
+	 */
+	public CSVColumnSchema addLongColumn(String name, int fieldIndex)
+	{
+		return addColumn(name, fieldIndex, CSVColumnType.LONG, null);
+	}
+	
+	/**
+	 * Add a column of double values
+	 * 
+	 * @param name The name of the column
+	 * @param fieldIndex The index of the field in each line
+	 * @return This schema
+	 */
+	public CSVColumnSchema addDoubleColumn(String name, int fieldIndex)
+	{
+		return addColumn(name, fieldIndex, CSVColumnType.DOUBLE, null);
+	}
+	
+	/**
+	 * Add a column of dates in the ISO yyyy-MM-dd format
+	 * 
+	 * @param name The name of the column
+	 * @param fieldIndex The index of the field in each line
+	 * @return This schema
+	 */
+	public CSVColumnSchema addDateColumn(String name, int fieldIndex)
+	{
+		return addColumn(name, fieldIndex, CSVColumnType.DATE, DateTimeFormatter.ISO_LOCAL_DATE);
+	}
+	
+	/**
+	 * Add a column of dates
+	 * 
+	 * @param name The name of the column
+	 * @param fieldIndex The index of the field in each line
+	 * @param dateFormat The format of the dates in the file
+	 * @return This schema
+	 */
+	public CSVColumnSchema addDateColumn(String name, int fieldIndex, DateTimeFormatter dateFormat)
+	{
+		return addColumn(name, fieldIndex, CSVColumnType.DATE, dateFormat);
+	}
+	
+	/**
+	 * Add a column of Strings. Each distinct String is only stored once
+	 * 
+	 * @param name The name of the column
+	 * @param fieldIndex The index of the field in each line
+	 * @return This schema
+	 */
+	public CSVColumnSchema addStringColumn(String name, int fieldIndex)
+	{
+		return addColumn(name, fieldIndex, CSVColumnType.STRING, null);
+	}
+	
+	/**
+	 * The columns in this schema in the order they were added
+	 * 
+	 * @return An unmodifiable list of the columns
+	 */
+	public List<Column> getColumns()
+	{
+		return Collections.unmodifiableList(this.columns);
+	}
+	
+	/**
+	 * The number of columns in this schema
+	 * 
+	 * @return The number of columns
+	 */
+	public int size()
+	{
+		return this.columns.size();
+	}
+	
+	/**
+	 * Find the position of a column in this schema
+	 * 
+	 * @param name The name of the column
+	 * @return The position of the column
+	 * @throws IllegalArgumentException If there is no column with this name
+	 */
+	public int getColumnIndex(String name)
+	{
+		for(int index = 0; index < this.columns.size(); index++)
+		{
+			if(this.columns.get(index).getName().equals(name))
+			{
+				return index;
+			}
+		}
+		
+		throw new IllegalArgumentException("There is no column named " + name);
+	}
+	
+	private CSVColumnSchema addColumn(String name, int fieldIndex, CSVColumnType type, DateTimeFormatter dateFormat)
+	{
+		if(name == null || name.isBlank())
+		{
+			throw new IllegalArgumentException("A column must have a name");
+		}
+		
+		if(fieldIndex < 0)
+		{
+			throw new IllegalArgumentException("The field index of " + name + " cannot be negative");
+		}
+		
+		for(Column column : this.columns)
+		{
+			if(column.getName().equals(name))
+			{
+				throw new IllegalArgumentException("There is already a column named " + name);
+			}
+		}
+		
+		this.columns.add(new Column(name, fieldIndex, type, dateFormat));
+		return this;
+	}
+	
+	/**
+	 * A single column in a CSVColumnSchema
+	 */
+	public static class Column
+	{
+		private final String name;
+		
+		private final int fieldIndex;
+		
+		private final CSVColumnType type;
+		
+		private final DateTimeFormatter dateFormat;
+		
+		private Column(String name, int fieldIndex, CSVColumnType type, DateTimeFormatter dateFormat)
+		{
+			this.name = name;
+			this.fieldIndex = fieldIndex;
+			this.type = type;
+			this.dateFormat = dateFormat;
+		}
+
+		/**
+		 * The name of the column
+		 * 
+		 * @return the name
+		 */
+		public String getName()
+		{
+			return this.name;
+		}
+
+		/**
+		 * The index of the field in each line
+		 * 
+		 * @return the fieldIndex
+		 */
+		public int getFieldIndex()
+		{
+			return this.fieldIndex;
+		}
+
+		/**
+		 * The type of the values in the column
+		 * 
+		 * @return the type
+		 */
+		public CSVColumnType getType()
+		{
+			return this.type;
+		}
+
+		/**
+		 * The format of the dates in a DATE column
+		 * 
+		 * @return the dateFormat or <code>null</code> if this is not a DATE column
+		 */
+		public DateTimeFormatter getDateFormat()
+		{
+			return this.dateFormat;
+		}
+	}
+}
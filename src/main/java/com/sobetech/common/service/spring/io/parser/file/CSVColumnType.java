@@ -0,0 +1,66 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+/**
+ * The type of values held in a column of a columnar CSV load
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ * @see CSVColumnSchema
+ */
+public enum CSVColumnType
+{
+	/**
+	 * Values are stored in an int[]
+	 */
+	INT(Integer.BYTES),
+	
+	/**
+	 * Values are stored in a long[]
+	 */
+	LONG(Long.BYTES),
+	
+	/**
+	 * Values are stored in a double[]
+	 */
+	DOUBLE(Double.BYTES),
+	
+	/**
+	 * Values are stored in an int[] as the number of days since the epoch
+	 */
+	DATE(Integer.BYTES),
+	
+	/**
+	 * Values are stored in an int[] of codes into a dictionary of the distinct Strings in the column
+	 */
+	STRING(Integer.BYTES);
+	
+	private final int bytesPerValue;
+	
+	private CSVColumnType(int bytesPerValue)
+	{
+		this.bytesPerValue = bytesPerValue;
+	}
+
+	/**
+	 * The number of bytes used by each value in the column array
+	 * 
+	 * @return the bytesPerValue
+	 */
+	public int getBytesPerValue()
+	{
+		return this.bytesPerValue;
+	}
+}
@@ -13,7 +13,9 @@ package com.sobetech.common.service.spring.io.parser.file;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.sobetech.common.model.io.CSVFile;
 import com.sobetech.common.model.string.CSVLine;
@@ -28,6 +30,10 @@ import com.sobetech.common.model.string.CSVLine;
  */
 public class CSVFileParser extends AbstractTextFileParser<CSVFile>
 {
+	private int expectedFieldCount = 0;
+	
+	private CSVTokenizer checkTokenizer;
+	
 	/**
 	 * Create a CSVFileParser from a File object
 	 * 
@@ -62,6 +68,101 @@ public class CSVFileParser extends AbstractTextFileParser<CSVFile>
 		super(fileName);
 	}
 
+	/**
+	 * Stream the file one line at a time through a comma delimited CSVTokenizer. No CSVLine or field
+	 * Strings are created, so only the fields that are read from the tokenizer cost an allocation
+	 * 
+	 * @param lineConsumer The consumer that will receive the tokenizer once for each line in order
+	 * @throws FileNotFoundException If the file is not correctly initialized in this parser
+	 */
+	public void tokenizeFile(Consumer<CSVTokenizer> lineConsumer) throws FileNotFoundException
+	{
+		tokenizeFile(new CSVTokenizer(), lineConsumer);
+	}
+	
+	/**
+	 * Stream the file one line at a time through a CSVTokenizer. The same tokenizer is handed to the 
+	 * consumer for every line, so values that need to be kept should be copied out of it
+	 * 
+	 * @param tokenizer The tokenizer used to split each line
+	 * @param lineConsumer The consumer that will receive the tokenizer once for each line in order
+	 * @throws FileNotFoundException If the file is not correctly initialized in this parser
+	 */
+	public void tokenizeFile(CSVTokenizer tokenizer, Consumer<CSVTokenizer> lineConsumer) throws FileNotFoundException
+	{
+		parseFile(line -> lineConsumer.accept(tokenizer.tokenize(line)));
+	}
+
+	/**
+	 * Load the file column by column into primitive arrays instead of CSVLine objects. Only the fields
+	 * named in the schema are read, and the file is streamed so no more than one line is held at a 
+	 * time
+	 * 
+	 * @param schema The columns to load
+	 * @return The loaded columns
+	 * @throws FileNotFoundException If the file is not correctly initialized in this parser
+	 * @throws IllegalArgumentException If a line is missing a field or a field cannot be parsed as 
+	 * the type of its column
+	 */
+	public ColumnarCSVFile parseColumns(CSVColumnSchema schema) throws FileNotFoundException
+	{
+		ColumnarCSVFile columnarFile = new ColumnarCSVFile(schema);
+		tokenizeFile(columnarFile::addRow);
+		columnarFile.trimToSize();
+		return columnarFile;
+	}
+
+	/**
+	 * The number of fields every line must have to be kept in tolerant mode
+	 * 
+	 * @return the expectedFieldCount or 0 if any number of fields is accepted
+	 */
+	public int getExpectedFieldCount()
+	{
+		return this.expectedFieldCount;
+	}
+
+	/**
+	 * Set the number of fields every line must have to be kept in tolerant mode. Lines with 
+	 * unclosed quotes are rejected whether this is set or not
+	 * 
+	 * @param expectedFieldCount the expectedFieldCount to set or 0 to accept any number of fields
+	 * 
+	 * @see #setRejectSink(RejectSink)
+	 */
+	public void setExpectedFieldCount(int expectedFieldCount)
+	{
+		this.expectedFieldCount = Math.max(expectedFieldCount, 0);
+	}
+	
+	@Override
+	protected List<Object> getParseSettings()
+	{
+		List<Object> settings = new ArrayList<>(super.getParseSettings());
+		settings.add(this.expectedFieldCount);
+		return List.copyOf(settings);
+	}
+
+	/**
+	 * Reject lines that cannot be tokenized or do not have the expected number of fields
+	 */
+	@Override
+	protected void checkLine(String line)
+	{
+		if(this.checkTokenizer == null)
+		{
+			this.checkTokenizer = new CSVTokenizer();
+		}
+		
+		int fieldCount = this.checkTokenizer.tokenize(line).getFieldCount();
+		
+		if(this.expectedFieldCount > 0 && fieldCount != this.expectedFieldCount)
+		{
+			throw new IllegalArgumentException("Expected " + this.expectedFieldCount + " fields but found " 
+					+ fieldCount);
+		}
+	}
+
 	@Override
 	protected CSVFile convertLinesToFile(List<String> stringLines)
 	{
@@ -0,0 +1,398 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+import com.sobetech.common.service.spring.io.parser.StringParser;
+
+/**
+ * Splits a line of CSV into fields without copying it. Each field is recorded as an offset and a 
+ * length into the line, and a String is only created when one of the getters that returns a String
+ * is called. Numeric fields can be parsed straight out of the line.
+ * 
+ * Fields may be wrapped in quotes, in which case they can contain the delimiter and a quote is 
+ * escaped by doubling it. The offsets of a quoted field do not include the surrounding quotes.
+ * 
+ * A tokenizer is meant to be reused for every line of a file and is not thread safe
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public class CSVTokenizer
+{
+	private static final byte QUOTED = 1;
+	
+	private static final byte ESCAPED_QUOTES = 2;
+	
+	private final char delimiter;
+	
+	private final char quote;
+	
+	private CharSequence line = "";
+	
+	private int fieldCount = 0;
+	
+	private int[] fieldStarts = new int[16];
+	
+	private int[] fieldEnds = new int[16];
+	
+	private byte[] fieldFlags = new byte[16];
+	
+	/**
+	 * Create a tokenizer for comma delimited fields quoted with double quotes
+	 */
+	public CSVTokenizer()
+	{
+		this(',', '"');
+	}
+	
+	/**
+	 * Create a tokenizer
+	 * 
+	 * @param delimiter The character separating each field
+	 * @param quote The character that can wrap a field
+	 */
+	public CSVTokenizer(char delimiter, char quote)
+	{
+		if(delimiter == quote)
+		{
+			throw new IllegalArgumentException("The delimiter and the quote cannot be the same character");
+		}
+		
+		this.delimiter = delimiter;
+		this.quote = quote;
+	}
+	
+	/**
+	 * Find the fields in a line. This replaces the fields of any previous line
+	 * 
+	 * @param line The line to split. The tokenizer keeps a reference to it rather than a copy
+	 * @return This tokenizer
+	 * @throws IllegalArgumentException If a quoted field is not closed or is followed by anything but
+	 * a delimiter
+	 */
+	public CSVTokenizer tokenize(CharSequence line)
+	{
+		this.line = line == null ? "" : line;
+		this.fieldCount = 0;
+		
+		int length = this.line.length();
+		int position = 0;
+		
+		while(true)
+		{
+			if(position < length && this.line.charAt(position) == this.quote)
+			{
+				int start = position + 1;
+				int index = start;
+				byte flags = QUOTED;
+				
+				while(true)
+				{
+					if(index >= length)
+					{
+						throw new IllegalArgumentException("The quoted field starting at " + position + " is not closed");
+					}
+					
+					if(this.line.charAt(index) == this.quote)
+					{
+						if(index + 1 < length && this.line.charAt(index + 1) == this.quote)
+						{
+							flags |= ESCAPED_QUOTES;
+							index += 2;
+							continue;
+						}
+						
+						break;
+					}
+					
+					index++;
+				}
+				
+				addField(start, index, flags);
+				position = index + 1;
+				
+				if(position == length)
+				{
+					return this;
+				}
+				
+				if(this.line.charAt(position) != this.delimiter)
+				{
+					throw new IllegalArgumentException("Unexpected character after the quoted field at " + position);
+				}
+				
+				position++;
+			}
+			else
+			{
+				int index = position;
+				while(index < length && this.line.charAt(index) != this.delimiter)
+				{
+					index++;
+				}
+				
+				addField(position, index, (byte)0);
+				
+				if(index == length)
+				{
+					return this;
+				}
+				
+				position = index + 1;
+			}
+		}
+	}
+	
+	/**
+	 * The line that was last tokenized
+	 * 
+	 * @return the line
+	 */
+	public CharSequence getLine()
+	{
+		return this.line;
+	}
+	
+	/**
+	 * The number of fields in the line
+	 * 
+	 * @return the fieldCount
+	 */
+	public int getFieldCount()
+	{
+		return this.fieldCount;
+	}
+	
+	/**
+	 * The offset in the line where a field starts, after any opening quote
+	 * 
+	 * @param field The index of the field
+	 * @return The offset of the first character of the field
+	 */
+	public int getFieldStart(int field)
+	{
+		checkField(field);
+		return this.fieldStarts[field];
+	}
+	
+	/**
+	 * The number of characters in a field as it appears in the line, not counting surrounding quotes.
+	 * Escaped quotes are counted as two characters
+	 * 
+	 * @param field The index of the field
+	 * @return The length of the field in the line
+	 */
+	public int getFieldLength(int field)
+	{
+		checkField(field);
+		return this.fieldEnds[field] - this.fieldStarts[field];
+	}
+	
+	/**
+	 * Was a field wrapped in quotes
+	 * 
+	 * @param field The index of the field
+	 * @return <code>true</code> if the field was quoted
+	 */
+	public boolean isQuoted(int field)
+	{
+		checkField(field);
+		return (this.fieldFlags[field] & QUOTED) != 0;
+	}
+	
+	/**
+	 * Does a quoted field contain escaped quotes, in which case its view in the line is not the same
+	 * as its value
+	 * 
+	 * @param field The index of the field
+	 * @return <code>true</code> if the field contains doubled quotes
+	 */
+	public boolean hasEscapedQuotes(int field)
+	{
+		checkField(field);
+		return (this.fieldFlags[field] & ESCAPED_QUOTES) != 0;
+	}
+	
+	/**
+	 * Is a field empty
+	 * 
+	 * @param field The index of the field
+	 * @return <code>true</code> if the field has no characters
+	 */
+	public boolean isEmpty(int field)
+	{
+		return getFieldLength(field) == 0;
+	}
+	
+	/**
+	 * A view of a field that shares the characters of the line. Escaped quotes are left doubled
+	 * 
+	 * @param field The index of the field
+	 * @return A CharSequence over the field in the line
+	 */
+	public CharSequence getFieldView(int field)
+	{
+		checkField(field);
+		return CharBuffer.wrap(this.line, this.fieldStarts[field], this.fieldEnds[field]);
+	}
+	
+	/**
+	 * Create a String for a field with any escaped quotes turned back into single quotes
+	 * 
+	 * @param field The index of the field
+	 * @return The value of the field
+	 */
+	public String getString(int field)
+	{
+		checkField(field);
+		int start = this.fieldStarts[field];
+		int end = this.fieldEnds[field];
+		
+		if((this.fieldFlags[field] & ESCAPED_QUOTES) == 0)
+		{
+			return this.line.subSequence(start, end).toString();
+		}
+		
+		StringBuilder value = new StringBuilder(end - start);
+		for(int index = start; index < end; index++)
+		{
+			char character = this.line.charAt(index);
+			value.append(character);
+			
+			//Skip the second quote of each escaped pair
+			if(character == this.quote)
+			{
+				index++;
+			}
+		}
+		
+		return value.toString();
+	}
+	
+	/**
+	 * Parse a field as an int without creating a String
+	 * 
+	 * @param field The index of the field
+	 * @return The value of the field as an int
+	 * @throws NumberFormatException If the field is not an int
+	 */
+	public int getInt(int field)
+	{
+		checkField(field);
+		return Integer.parseInt(this.line, this.fieldStarts[field], this.fieldEnds[field], 10);
+	}
+	
+	/**
+	 * Parse a field as a long without creating a String
+	 * 
+	 * @param field The index of the field
+	 * @return The value of the field as a long
+	 * @throws NumberFormatException If the field is not a long
+	 */
+	public long getLong(int field)
+	{
+		checkField(field);
+		return Long.parseLong(this.line, this.fieldStarts[field], this.fieldEnds[field], 10);
+	}
+	
+	/**
+	 * Parse a field as a double. A plain decimal number is parsed straight out of the line, anything 
+	 * else, such as NaN, Infinity or a field with surrounding spaces, is handed to 
+	 * {@link Double#parseDouble(String)} so the same fields are accepted
+	 * 
+	 * @param field The index of the field
+	 * @return The value of the field as a double
+	 * @throws NumberFormatException If the field is not a double
+	 */
+	public double getDouble(int field)
+	{
+		checkField(field);
+		int start = this.fieldStarts[field];
+		int end = this.fieldEnds[field];
+		
+		if(FixedWidthRecord.isDecimal(this.line, start, end))
+		{
+			return StringParser.findDouble(this.line, this.line.charAt(start) == '+' ? start + 1 : start, end);
+		}
+		
+		return Double.parseDouble(getString(field));
+	}
+	
+	/**
+	 * Compare a field to a value without creating a String
+	 * 
+	 * @param field The index of the field
+	 * @param value The value to compare to
+	 * @return <code>true</code> if the field, with escaped quotes removed, equals the value
+	 */
+	public boolean fieldEquals(int field, CharSequence value)
+	{
+		checkField(field);
+		
+		if(value == null)
+		{
+			return false;
+		}
+		
+		if((this.fieldFlags[field] & ESCAPED_QUOTES) != 0)
+		{
+			return getString(field).contentEquals(value);
+		}
+		
+		int start = this.fieldStarts[field];
+		int length = this.fieldEnds[field] - start;
+		
+		if(length != value.length())
+		{
+			return false;
+		}
+		
+		for(int index = 0; index < length; index++)
+		{
+			if(this.line.charAt(start + index) != value.charAt(index))
+			{
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	private void addField(int start, int end, byte flags)
+	{
+		if(this.fieldCount == this.fieldStarts.length)
+		{
+			int capacity = this.fieldCount * 2;
+			this.fieldStarts = Arrays.copyOf(this.fieldStarts, capacity);
+			this.fieldEnds = Arrays.copyOf(this.fieldEnds, capacity);
+			this.fieldFlags = Arrays.copyOf(this.fieldFlags, capacity);
+		}
+		
+		this.fieldStarts[this.fieldCount] = start;
+		this.fieldEnds[this.fieldCount] = end;
+		this.fieldFlags[this.fieldCount] = flags;
+		this.fieldCount++;
+	}
+	
+	private void checkField(int field)
+	{
+		if(field < 0 || field >= this.fieldCount)
+		{
+			throw new IndexOutOfBoundsException("Field " + field + " does not exist in a line of " + this.fieldCount + " fields");
+		}
+	}
+}
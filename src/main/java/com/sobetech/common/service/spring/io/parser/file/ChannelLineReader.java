@@ -0,0 +1,135 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads lines of text by streaming the bytes of a file, or any other channel, into one reusable 
+ * buffer. Line terminators are found in the raw bytes and only the bytes of each line are decoded,
+ * straight into the String of the line, so no Reader or char buffer sits between the file and the
+ * line. For ASCII and UTF-8 text this skips the CharsetDecoder entirely.
+ * 
+ * This is the default for a streamed read of an uncompressed file when the charset is supported
+ * by {@link ByteLineReader#supportsCharset(Charset)}
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public class ChannelLineReader extends ByteLineReader
+{
+	/**
+	 * The default number of bytes read from the file at a time
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+	
+	private final ReadableByteChannel channel;
+	
+	private final ByteBuffer buffer;
+	
+	private boolean endOfFile = false;
+
+	/**
+	 * Create a ChannelLineReader that reads the default buffer size at a time
+	 * 
+	 * @param file The file to read
+	 * @param charset The charset used to decode each line
+	 * @param lineTerminator The characters that end a line
+	 * @throws IOException If the file could not be opened
+	 */
+	public ChannelLineReader(File file, Charset charset, LineTerminator lineTerminator) throws IOException
+	{
+		this(file, charset, lineTerminator, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Create a ChannelLineReader
+	 * 
+	 * @param file The file to read
+	 * @param charset The charset used to decode each line
+	 * @param lineTerminator The characters that end a line
+	 * @param bufferSize The number of bytes read from the file at a time
+	 * @throws IOException If the file could not be opened
+	 */
+	public ChannelLineReader(File file, Charset charset, LineTerminator lineTerminator, int bufferSize) 
+			throws IOException
+	{
+		super(charset, lineTerminator);
+		this.buffer = allocateBuffer(bufferSize);
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+	}
+
+	/**
+	 * Create a ChannelLineReader over an open channel, such as one wrapping a decompressing stream 
+	 * with Channels.newChannel. The channel is closed when this reader is closed
+	 * 
+	 * @param channel The channel to read
+	 * @param charset The charset used to decode each line
+	 * @param lineTerminator The characters that end a line
+	 * @param bufferSize The number of bytes read from the channel at a time
+	 */
+	public ChannelLineReader(ReadableByteChannel channel, Charset charset, LineTerminator lineTerminator, int bufferSize)
+	{
+		super(charset, lineTerminator);
+		this.buffer = allocateBuffer(bufferSize);
+		this.channel = channel;
+	}
+
+	@Override
+	protected ByteBuffer nextChunk() throws IOException
+	{
+		if(this.endOfFile)
+		{
+			return null;
+		}
+		
+		//ByteLineReader has copied out any partial line before asking for the next chunk
+		this.buffer.clear();
+		
+		//Channels over streams only hand back a few KB at a time, so fill the whole buffer
+		while(this.buffer.hasRemaining())
+		{
+			if(this.channel.read(this.buffer) < 0)
+			{
+				this.endOfFile = true;
+				break;
+			}
+		}
+		
+		this.buffer.flip();
+		return this.buffer.hasRemaining() ? this.buffer : null;
+	}
+	
+	private static ByteBuffer allocateBuffer(int bufferSize)
+	{
+		if(bufferSize <= 0)
+		{
+			throw new IllegalArgumentException("The buffer size must be more than 0");
+		}
+		
+		return ByteBuffer.allocate(bufferSize);
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		this.channel.close();
+	}
+}
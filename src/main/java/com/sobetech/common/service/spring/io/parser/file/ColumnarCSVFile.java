@@ -0,0 +1,535 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The contents of a CSV file loaded column by column into primitive arrays. Numbers are never 
+ * boxed, dates are held as the number of days since the epoch and Strings are dictionary encoded so 
+ * each distinct value is only stored once. The arrays returned by the column getters are the arrays
+ * held by this object and can be handed straight to Statistics and NumberUtil.
+ * 
+ * An empty field is recorded as missing and stored as zero, or NaN in a DOUBLE column
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ * @see CSVFileParser#parseColumns(CSVColumnSchema)
+ */
+public class ColumnarCSVFile
+{
+	/**
+	 * The estimated size of an object header
+	 */
+	static final int OBJECT_HEADER_BYTES = 16;
+	
+	/**
+	 * The estimated size of a reference
+	 */
+	static final int REFERENCE_BYTES = 4;
+	
+	/**
+	 * The estimated size of a String and its backing array, not counting the characters
+	 */
+	static final int STRING_OVERHEAD_BYTES = 24 + 16;
+	
+	private static final int INITIAL_CAPACITY = 1024;
+	
+	private final CSVColumnSchema schema;
+	
+	private final List<CSVColumnSchema.Column> columns;
+	
+	private final Object[] columnValues;
+	
+	private final BitSet[] missingValues;
+	
+	private final StringDictionary[] dictionaries;
+	
+	/**
+	 * The parsed values of the row being added, held until every field of the row has been parsed.
+	 * DOUBLE values are held as their raw bits
+	 */
+	private final long[] rowValues;
+	
+	private final boolean[] rowMissing;
+	
+	private int rowCount = 0;
+	
+	private long rowModelBytes = 0;
+	
+	/**
+	 * Create an empty file for a schema
+	 * 
+	 * @param schema The columns to load
+	 */
+	public ColumnarCSVFile(CSVColumnSchema schema)
+	{
+		if(schema == null || schema.size() == 0)
+		{
+			throw new IllegalArgumentException("A columnar file needs at least one column");
+		}
+		
+		this.schema = schema;
+		this.columns = schema.getColumns();
+		this.columnValues = new Object[this.columns.size()];
+		this.missingValues = new BitSet[this.columns.size()];
+		this.dictionaries = new StringDictionary[this.columns.size()];
+		this.rowValues = new long[this.columns.size()];
+		this.rowMissing = new boolean[this.columns.size()];
+		
+		for(int column = 0; column < this.columns.size(); column++)
+		{
+			this.missingValues[column] = new BitSet();
+			
+			switch(this.columns.get(column).getType())
+			{
+				case LONG:
+					this.columnValues[column] = new long[INITIAL_CAPACITY];
+					break;
+					
+				case DOUBLE:
+					this.columnValues[column] = new double[INITIAL_CAPACITY];
+					break;
+					
+				case STRING:
+					this.dictionaries[column] = new StringDictionary();
+					this.columnValues[column] = new int[INITIAL_CAPACITY];
+					break;
+					
+				default:
+					this.columnValues[column] = new int[INITIAL_CAPACITY];
+			}
+		}
+	}
+	
+	/**
+	 * Add the fields of the line held by a tokenizer as a new row. Every field is parsed before any of
+	 * them is stored, so a row that fails leaves this file as it was
+	 * 
+	 * @param tokenizer A tokenizer holding the line to add
+	 * @throws IllegalArgumentException If a field is missing from the line or cannot be parsed as the 
+	 * type of its column
+	 */
+	public void addRow(CSVTokenizer tokenizer)
+	{
+		int row = this.rowCount;
+		
+		for(int column = 0; column < this.columns.size(); column++)
+		{
+			parseField(tokenizer, row, column);
+		}
+		
+		ensureCapacity(row + 1);
+		
+		for(int column = 0; column < this.columns.size(); column++)
+		{
+			CSVColumnSchema.Column definition = this.columns.get(column);
+			
+			if(this.rowMissing[column])
+			{
+				this.missingValues[column].set(row);
+			}
+			
+			switch(definition.getType())
+			{
+				case LONG:
+					((long[])this.columnValues[column])[row] = this.rowValues[column];
+					break;
+					
+				case DOUBLE:
+					((double[])this.columnValues[column])[row] = Double.longBitsToDouble(this.rowValues[column]);
+					break;
+					
+				case STRING:
+					((int[])this.columnValues[column])[row] = this.dictionaries[column].encode(tokenizer, 
+							definition.getFieldIndex());
+					break;
+					
+				default:
+					((int[])this.columnValues[column])[row] = (int)this.rowValues[column];
+			}
+		}
+		
+		this.rowModelBytes += estimateRowModelBytes(tokenizer);
+		this.rowCount++;
+	}
+	
+	/**
+	 * Parse one field of the row being added into the row values. STRING fields are only checked to
+	 * be present, they are encoded once the whole row has been parsed
+	 */
+	private void parseField(CSVTokenizer tokenizer, int row, int column)
+	{
+		CSVColumnSchema.Column definition = this.columns.get(column);
+		int field = definition.getFieldIndex();
+		
+		if(field >= tokenizer.getFieldCount())
+		{
+			throw new IllegalArgumentException("Row " + row + " does not have a field " + field + " for " + definition.getName());
+		}
+		
+		this.rowMissing[column] = false;
+		this.rowValues[column] = 0;
+		
+		if(tokenizer.isEmpty(field) && definition.getType() != CSVColumnType.STRING)
+		{
+			this.rowMissing[column] = true;
+			
+			if(definition.getType() == CSVColumnType.DOUBLE)
+			{
+				this.rowValues[column] = Double.doubleToRawLongBits(Double.NaN);
+			}
+			return;
+		}
+		
+		try
+		{
+			switch(definition.getType())
+			{
+				case INT:
+					this.rowValues[column] = tokenizer.getInt(field);
+					break;
+					
+				case LONG:
+					this.rowValues[column] = tokenizer.getLong(field);
+					break;
+					
+				case DOUBLE:
+					this.rowValues[column] = Double.doubleToRawLongBits(tokenizer.getDouble(field));
+					break;
+					
+				case DATE:
+					this.rowValues[column] = parseEpochDay(tokenizer, field, definition.getDateFormat());
+					break;
+					
+				case STRING:
+					break;
+			}
+		}
+		catch(RuntimeException e)
+		{
+			throw new IllegalArgumentException("Field " + field + " of row " + row + " is not a valid " 
+					+ definition.getType() + " for " + definition.getName(), e);
+		}
+	}
+	
+	/**
+	 * Shrink every column array to the number of rows so the arrays can be used directly
+	 */
+	public void trimToSize()
+	{
+		for(int column = 0; column < this.columnValues.length; column++)
+		{
+			this.columnValues[column] = resize(this.columnValues[column], this.rowCount);
+		}
+	}
+	
+	/**
+	 * The schema this file was loaded with
+	 * 
+	 * @return the schema
+	 */
+	public CSVColumnSchema getSchema()
+	{
+		return this.schema;
+	}
+	
+	/**
+	 * The number of rows that were loaded
+	 * 
+	 * @return the rowCount
+	 */
+	public int getRowCount()
+	{
+		return this.rowCount;
+	}
+	
+	/**
+	 * The values of an INT column
+	 * 
+	 * @param name The name of the column
+	 * @return The array of values
+	 */
+	public int[] getIntColumn(String name)
+	{
+		return (int[])getColumn(name, CSVColumnType.INT);
+	}
+	
+	/**
+	 * The values of a LONG column
+	 * 
+	 * @param name The name of the column
+	 * @return The array of values
+	 */
+	public long[] getLongColumn(String name)
+	{
+		return (long[])getColumn(name, CSVColumnType.LONG);
+	}
+	
+	/**
+	 * The values of a DOUBLE column
+	 * 
+	 * @param name The name of the column
+	 * @return The array of values
+	 */
+	public double[] getDoubleColumn(String name)
+	{
+		return (double[])getColumn(name, CSVColumnType.DOUBLE);
+	}
+	
+	/**
+	 * The values of a DATE column as the number of days since the epoch
+	 * 
+	 * @param name The name of the column
+	 * @return The array of values
+	 */
+	public int[] getEpochDayColumn(String name)
+	{
+		return (int[])getColumn(name, CSVColumnType.DATE);
+	}
+	
+	/**
+	 * The date in a row of a DATE column
+	 * 
+	 * @param name The name of the column
+	 * @param row The index of the row
+	 * @return The date or <code>null</code> if the field was empty
+	 */
+	public LocalDate getDate(String name, int row)
+	{
+		int column = this.schema.getColumnIndex(name);
+		
+		if(isMissing(column, row))
+		{
+			return null;
+		}
+		
+		return LocalDate.ofEpochDay(getEpochDayColumn(name)[row]);
+	}
+	
+	/**
+	 * The dictionary codes of a STRING column
+	 * 
+	 * @param name The name of the column
+	 * @return The array of codes
+	 * 
+	 * @see #getStringDictionary(String)
+	 */
+	public int[] getStringCodeColumn(String name)
+	{
+		return (int[])getColumn(name, CSVColumnType.STRING);
+	}
+	
+	/**
+	 * The distinct values of a STRING column in the order of their codes
+	 * 
+	 * @param name The name of the column
+	 * @return An unmodifiable list of values
+	 */
+	public List<String> getStringDictionary(String name)
+	{
+		getColumn(name, CSVColumnType.STRING);
+		return this.dictionaries[this.schema.getColumnIndex(name)].getValues();
+	}
+	
+	/**
+	 * The String in a row of a STRING column
+	 * 
+	 * @param name The name of the column
+	 * @param row The index of the row
+	 * @return The value of the field
+	 */
+	public String getString(String name, int row)
+	{
+		int column = this.schema.getColumnIndex(name);
+		return this.dictionaries[column].decode(getStringCodeColumn(name)[row]);
+	}
+	
+	/**
+	 * Was a field empty in the file
+	 * 
+	 * @param name The name of the column
+	 * @param row The index of the row
+	 * @return <code>true</code> if the field was empty
+	 */
+	public boolean isMissing(String name, int row)
+	{
+		return isMissing(this.schema.getColumnIndex(name), row);
+	}
+	
+	/**
+	 * An estimate of the heap used by the column arrays, missing value flags and String dictionaries
+	 * 
+	 * @return The estimated number of bytes
+	 */
+	public long getEstimatedBytes()
+	{
+		long bytes = 0;
+		
+		for(int column = 0; column < this.columns.size(); column++)
+		{
+			bytes += OBJECT_HEADER_BYTES + (long)arrayLength(this.columnValues[column]) 
+					* this.columns.get(column).getType().getBytesPerValue();
+			bytes += OBJECT_HEADER_BYTES + this.missingValues[column].size() / 8;
+			
+			if(this.dictionaries[column] != null)
+			{
+				bytes += this.dictionaries[column].getEstimatedBytes();
+			}
+		}
+		
+		return bytes;
+	}
+	
+	/**
+	 * An estimate of the heap the same rows would use if they were loaded into a CSVFile. Each row
+	 * is counted as a CSVLine holding the line, a String for every field once the line is split and 
+	 * a reference to the CSVLine in the file
+	 * 
+	 * @return The estimated number of bytes
+	 */
+	public long getEstimatedRowModelBytes()
+	{
+		return this.rowModelBytes;
+	}
+	
+	/**
+	 * A summary of the memory used by this file compared to the CSVFile row model
+	 * 
+	 * @return The summary
+	 */
+	public String getMemoryFootprintSummary()
+	{
+		long columnar = getEstimatedBytes();
+		long rowModel = getEstimatedRowModelBytes();
+		double ratio = columnar == 0 ? 0 : (double)rowModel / columnar;
+		return String.format("%d rows: ~%d bytes columnar, ~%d bytes as a CSVFile (%.1fx)", 
+				this.rowCount, columnar, rowModel, ratio);
+	}
+	
+	private boolean isMissing(int column, int row)
+	{
+		if(row < 0 || row >= this.rowCount)
+		{
+			throw new IndexOutOfBoundsException("Row " + row + " does not exist in a file of " + this.rowCount + " rows");
+		}
+		
+		return this.missingValues[column].get(row);
+	}
+	
+	private Object getColumn(String name, CSVColumnType type)
+	{
+		int column = this.schema.getColumnIndex(name);
+		
+		if(this.columns.get(column).getType() != type)
+		{
+			throw new IllegalArgumentException(name + " is a " + this.columns.get(column).getType() + " column, not " + type);
+		}
+		
+		trimToSize();
+		return this.columnValues[column];
+	}
+	
+	private void ensureCapacity(int capacity)
+	{
+		int currentCapacity = arrayLength(this.columnValues[0]);
+		
+		if(capacity <= currentCapacity)
+		{
+			return;
+		}
+		
+		int newCapacity = Math.max(capacity, currentCapacity + (currentCapacity >> 1));
+		for(int column = 0; column < this.columnValues.length; column++)
+		{
+			this.columnValues[column] = resize(this.columnValues[column], newCapacity);
+		}
+	}
+	
+	private static Object resize(Object values, int length)
+	{
+		if(arrayLength(values) == length)
+		{
+			return values;
+		}
+		
+		if(values instanceof long[] longValues)
+		{
+			return Arrays.copyOf(longValues, length);
+		}
+		
+		if(values instanceof double[] doubleValues)
+		{
+			return Arrays.copyOf(doubleValues, length);
+		}
+		
+		return Arrays.copyOf((int[])values, length);
+	}
+	
+	private static int arrayLength(Object values)
+	{
+		if(values instanceof long[] longValues)
+		{
+			return longValues.length;
+		}
+		
+		if(values instanceof double[] doubleValues)
+		{
+			return doubleValues.length;
+		}
+		
+		return ((int[])values).length;
+	}
+	
+	/**
+	 * Parse a date without creating a String when it is in the ISO yyyy-MM-dd format
+	 */
+	private static int parseEpochDay(CSVTokenizer tokenizer, int field, DateTimeFormatter dateFormat)
+	{
+		if(dateFormat == DateTimeFormatter.ISO_LOCAL_DATE && tokenizer.getFieldLength(field) == 10)
+		{
+			CharSequence line = tokenizer.getLine();
+			int start = tokenizer.getFieldStart(field);
+			
+			if(line.charAt(start + 4) == '-' && line.charAt(start + 7) == '-')
+			{
+				int year = Integer.parseInt(line, start, start + 4, 10);
+				int month = Integer.parseInt(line, start + 5, start + 7, 10);
+				int day = Integer.parseInt(line, start + 8, start + 10, 10);
+				return (int)LocalDate.of(year, month, day).toEpochDay();
+			}
+		}
+		
+		return (int)LocalDate.parse(tokenizer.getFieldView(field), dateFormat).toEpochDay();
+	}
+	
+	private static long estimateRowModelBytes(CSVTokenizer tokenizer)
+	{
+		//The CSVLine and its reference in the file, the line itself and a String per field
+		long bytes = OBJECT_HEADER_BYTES + REFERENCE_BYTES * 2L;
+		bytes += STRING_OVERHEAD_BYTES + tokenizer.getLine().length();
+		bytes += OBJECT_HEADER_BYTES + (long)tokenizer.getFieldCount() * REFERENCE_BYTES;
+		
+		for(int field = 0; field < tokenizer.getFieldCount(); field++)
+		{
+			bytes += STRING_OVERHEAD_BYTES + tokenizer.getFieldLength(field);
+		}
+		
+		return bytes;
+	}
+}
@@ -0,0 +1,86 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * How the bytes of a file are compressed
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public enum CompressionType
+{
+	/**
+	 * Work out the compression from the first bytes of the file
+	 */
+	AUTO,
+	
+	/**
+	 * The file is not compressed
+	 */
+	NONE,
+	
+	/**
+	 * The file is a gzip stream
+	 */
+	GZIP,
+	
+	/**
+	 * The file is a zip archive. The entries of the archive are read one after another in the order
+	 * they appear in the archive
+	 */
+	ZIP;
+	
+	/**
+	 * Work out how a file is compressed from its magic bytes. The file extension is not used, since a
+	 * file named .gz that does not start with the gzip magic bytes cannot be read as gzip anyway
+	 * 
+	 * @param file The file to check
+	 * @return GZIP, ZIP or NONE
+	 * @throws IOException If the file could not be read
+	 */
+	public static CompressionType detect(File file) throws IOException
+	{
+		byte[] magic = new byte[4];
+		int length = 0;
+		
+		try(InputStream inputStream = new FileInputStream(file))
+		{
+			int bytesRead;
+			while(length < magic.length && (bytesRead = inputStream.read(magic, length, magic.length - length)) > 0)
+			{
+				length += bytesRead;
+			}
+		}
+		
+		if(length >= 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B)
+		{
+			return GZIP;
+		}
+		
+		//Local file header, or the end of central directory record of an empty archive
+		if(length == 4 && magic[0] == 'P' && magic[1] == 'K' 
+				&& ((magic[2] == 3 && magic[3] == 4) || (magic[2] == 5 && magic[3] == 6)))
+		{
+			return ZIP;
+		}
+		
+		return NONE;
+	}
+}
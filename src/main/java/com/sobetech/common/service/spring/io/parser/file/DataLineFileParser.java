@@ -64,6 +64,16 @@ public class DataLineFileParser extends AbstractTextFileParser<List<DataLine>>
 		super(file);
 	}
 
+	/**
+	 * Reject lines that a DataLine cannot be made from, since a failure in 
+	 * {@link #convertLinesToFile(List)} would stop the whole parse
+	 */
+	@Override
+	protected void checkLine(String line)
+	{
+		new DataLine(line);
+	}
+
 	@Override
 	protected List<DataLine> convertLinesToFile(List<String> stringLines)
 	{
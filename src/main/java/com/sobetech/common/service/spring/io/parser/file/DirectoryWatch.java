@@ -0,0 +1,362 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A running watch of a directory started by {@link FileIngestionService#watch}. New and rewritten
+ * files that match the glob are parsed once their size and last modified time have stopped changing
+ * for the settle time. Closing the watch stops new files being picked up, files already being 
+ * parsed are allowed to finish
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public class DirectoryWatch implements Closeable
+{
+	protected final Logger LOG = LoggerFactory.getLogger(this.getClass());
+	
+	private static final long MINIMUM_POLL_MILLIS = 10;
+	
+	private final Path directory;
+	
+	private final PathMatcher matcher;
+	
+	private final long settleMillis;
+	
+	private final ExecutorService executor;
+	
+	private final IngestionProgress progress;
+	
+	private final Consumer<File> fileIngester;
+	
+	private final WatchService watchService;
+	
+	private final Thread watchThread;
+	
+	/**
+	 * Files that have changed but not settled yet, with the last state seen
+	 */
+	private final Map<Path, FileState> pendingFiles = new HashMap<>();
+	
+	/**
+	 * The state of each file still in the directory when it was last handed to a worker
+	 */
+	private final Map<Path, FileState> ingestedFiles = new HashMap<>();
+	
+	private volatile boolean open = true;
+
+	/**
+	 * Start watching a directory. The files already in the directory are treated as new
+	 * 
+	 * @param directory The directory to watch
+	 * @param matcher Matches the names of the files to parse
+	 * @param settleMillis The time a file must go unchanged before it is parsed
+	 * @param executor The workers that parse each file, shut down when the watch is closed
+	 * @param progress The counts of the files found by this watch
+	 * @param fileIngester Parses a single file
+	 * @throws IOException If the directory could not be watched
+	 */
+	protected DirectoryWatch(Path directory, PathMatcher matcher, long settleMillis, ExecutorService executor, 
+			IngestionProgress progress, Consumer<File> fileIngester) throws IOException
+	{
+		this.directory = directory;
+		this.matcher = matcher;
+		this.settleMillis = settleMillis;
+		this.executor = executor;
+		this.progress = progress;
+		this.fileIngester = fileIngester;
+		
+		this.watchService = directory.getFileSystem().newWatchService();
+		
+		try
+		{
+			directory.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE, 
+					StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+			scanDirectory();
+		}
+		catch(IOException e)
+		{
+			this.watchService.close();
+			executor.shutdownNow();
+			throw e;
+		}
+		
+		this.watchThread = Thread.ofPlatform().name("file-ingestion-watch").daemon().start(this::watchDirectory);
+	}
+	
+	/**
+	 * Wait for file events and hand settled files to the workers until the watch is closed
+	 */
+	private void watchDirectory()
+	{
+		long pollMillis = Math.max(this.settleMillis / 4, MINIMUM_POLL_MILLIS);
+		
+		try
+		{
+			while(this.open)
+			{
+				WatchKey key = this.watchService.poll(pollMillis, TimeUnit.MILLISECONDS);
+				
+				if(key != null)
+				{
+					for(WatchEvent<?> event : key.pollEvents())
+					{
+						if(event.kind() == StandardWatchEventKinds.OVERFLOW)
+						{
+							//Events were lost, so look at every file again
+							scanDirectory();
+						}
+						else if(event.context() instanceof Path fileName && this.matcher.matches(fileName))
+						{
+							Path path = this.directory.resolve(fileName);
+							
+							if(event.kind() == StandardWatchEventKinds.ENTRY_DELETE)
+							{
+								//Deleted or moved out of the directory, so it no longer needs to be remembered
+								this.pendingFiles.remove(path);
+								this.ingestedFiles.remove(path);
+							}
+							else
+							{
+								this.pendingFiles.putIfAbsent(path, null);
+							}
+						}
+					}
+					
+					if(!key.reset())
+					{
+						LOG.warn("Directory {} can no longer be watched", this.directory);
+						break;
+					}
+				}
+				
+				submitSettledFiles();
+			}
+		}
+		catch(ClosedWatchServiceException | InterruptedException e)
+		{
+			//The watch was closed
+		}
+		catch(IOException | RuntimeException e)
+		{
+			LOG.error("Watch of directory {} stopped", this.directory, e);
+		}
+		finally
+		{
+			this.open = false;
+			this.executor.shutdown();
+		}
+	}
+	
+	/**
+	 * Mark every matching file in the directory as changed and forget the files that are gone
+	 */
+	private void scanDirectory() throws IOException
+	{
+		Set<Path> existingFiles = new HashSet<>();
+		
+		try(DirectoryStream<Path> paths = Files.newDirectoryStream(this.directory))
+		{
+			for(Path path : paths)
+			{
+				if(this.matcher.matches(path.getFileName()))
+				{
+					this.pendingFiles.putIfAbsent(path, null);
+					existingFiles.add(path);
+				}
+			}
+		}
+		
+		this.ingestedFiles.keySet().retainAll(existingFiles);
+	}
+	
+	/**
+	 * Hand each pending file whose size and last modified time have not changed for the settle time
+	 * to the workers
+	 */
+	private void submitSettledFiles() throws IOException
+	{
+		long now = System.nanoTime();
+		Iterator<Map.Entry<Path, FileState>> pending = this.pendingFiles.entrySet().iterator();
+		
+		while(pending.hasNext())
+		{
+			Map.Entry<Path, FileState> entry = pending.next();
+			Path path = entry.getKey();
+			BasicFileAttributes attributes;
+			
+			try
+			{
+				attributes = Files.readAttributes(path, BasicFileAttributes.class);
+			}
+			catch(NoSuchFileException e)
+			{
+				pending.remove();
+				this.ingestedFiles.remove(path);
+				continue;
+			}
+			
+			if(!attributes.isRegularFile())
+			{
+				pending.remove();
+				this.ingestedFiles.remove(path);
+				continue;
+			}
+			
+			FileState current = new FileState(attributes.size(), attributes.lastModifiedTime().toMillis(), now);
+			FileState previous = entry.getValue();
+			
+			if(previous == null || !previous.isSameAs(current))
+			{
+				entry.setValue(current);
+				continue;
+			}
+			
+			if(now - previous.observedAt < TimeUnit.MILLISECONDS.toNanos(this.settleMillis))
+			{
+				continue;
+			}
+			
+			pending.remove();
+			
+			//A modify event with no real change, such as a touch of a file already parsed
+			if(previous.isSameAs(this.ingestedFiles.get(path)))
+			{
+				continue;
+			}
+			
+			this.ingestedFiles.put(path, previous);
+			this.progress.addFiles(1);
+			
+			try
+			{
+				File file = path.toFile();
+				this.executor.execute(() -> this.fileIngester.accept(file));
+			}
+			catch(RejectedExecutionException e)
+			{
+				//The watch is being closed
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Stop watching the directory. Files already handed to the workers are allowed to finish
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		this.open = false;
+		this.watchService.close();
+		this.executor.shutdown();
+	}
+	
+	/**
+	 * Stop watching and wait for the files already handed to the workers to finish
+	 * 
+	 * @param timeout The longest time to wait
+	 * @param unit The unit of the timeout
+	 * @return <code>true</code> if every file finished in time
+	 * @throws IOException If the watch could not be closed
+	 * @throws InterruptedException If the thread was interrupted while waiting
+	 */
+	public boolean close(long timeout, TimeUnit unit) throws IOException, InterruptedException
+	{
+		close();
+		this.watchThread.join(unit.toMillis(timeout));
+		return this.executor.awaitTermination(timeout, unit);
+	}
+	
+	/**
+	 * Is the directory still being watched
+	 * 
+	 * @return <code>true</code> until the watch is closed or the directory can no longer be watched
+	 */
+	public boolean isOpen()
+	{
+		return this.open;
+	}
+	
+	/**
+	 * The directory being watched
+	 * 
+	 * @return the directory
+	 */
+	public Path getDirectory()
+	{
+		return this.directory;
+	}
+
+	/**
+	 * The counts of the files found by this watch
+	 * 
+	 * @return the progress
+	 */
+	public IngestionProgress getProgress()
+	{
+		return this.progress;
+	}
+	
+	/**
+	 * The size and last modified time of a file when it was seen
+	 */
+	private static class FileState
+	{
+		private final long size;
+		
+		private final long lastModified;
+		
+		private final long observedAt;
+		
+		private FileState(long size, long lastModified, long observedAt)
+		{
+			this.size = size;
+			this.lastModified = lastModified;
+			this.observedAt = observedAt;
+		}
+		
+		private boolean isSameAs(FileState other)
+		{
+			return other != null && this.size == other.size && this.lastModified == other.lastModified;
+		}
+	}
+}
@@ -0,0 +1,220 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * How far a growing file has been parsed. Along with the number of bytes consumed it records enough
+ * about the file to tell whether the file on disk is still the same file, so a parse can resume from 
+ * where the last one stopped. The file is treated as a different file if its file key (the inode on 
+ * most systems) has changed, if it is now smaller than the consumed position or if the first bytes 
+ * of the file no longer match
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ * @see AbstractTextFileParser#parseAppendedLines()
+ */
+public class FileCheckpoint
+{
+	/**
+	 * The number of bytes at the start of the file used to recognize it
+	 */
+	public static final int CHECKSUM_LENGTH = 4 * 1024;
+	
+	private final long position;
+	
+	private final String fileKey;
+	
+	private final long size;
+	
+	private final long lastModified;
+	
+	private final long checksum;
+	
+	private final int headerLinesRemaining;
+
+	/**
+	 * Recreate a checkpoint that was saved from a previous run
+	 * 
+	 * @param position The number of bytes of the file that have been consumed
+	 * @param fileKey The file key of the file or <code>null</code> if the file system has none
+	 * @param size The size of the file when it was last parsed
+	 * @param lastModified The last modified time of the file in milliseconds when it was last parsed
+	 * @param checksum The CRC32 of the first bytes of the file, up to the consumed position
+	 * @param headerLinesRemaining The number of header lines still to be skipped
+	 */
+	public FileCheckpoint(long position, String fileKey, long size, long lastModified, long checksum, 
+			int headerLinesRemaining)
+	{
+		this.position = position;
+		this.fileKey = fileKey;
+		this.size = size;
+		this.lastModified = lastModified;
+		this.checksum = checksum;
+		this.headerLinesRemaining = headerLinesRemaining;
+	}
+	
+	/**
+	 * Create a checkpoint for a file that has been consumed up to a position
+	 * 
+	 * @param file The file that was parsed
+	 * @param attributes The attributes of the file when it was parsed
+	 * @param position The number of bytes of the file that have been consumed
+	 * @param headerLinesRemaining The number of header lines still to be skipped
+	 * @return The checkpoint
+	 * @throws IOException If the file could not be read
+	 */
+	public static FileCheckpoint create(File file, BasicFileAttributes attributes, long position, 
+			int headerLinesRemaining) throws IOException
+	{
+		return new FileCheckpoint(position, toFileKey(attributes), attributes.size(), 
+				attributes.lastModifiedTime().toMillis(), checksum(file, position), headerLinesRemaining);
+	}
+	
+	/**
+	 * Is the file on disk still the file this checkpoint was taken from
+	 * 
+	 * @param file The file on disk
+	 * @param attributes The current attributes of the file
+	 * @return <code>true</code> if parsing can resume from this checkpoint
+	 * @throws IOException If the file could not be read
+	 */
+	public boolean isValidFor(File file, BasicFileAttributes attributes) throws IOException
+	{
+		String currentFileKey = toFileKey(attributes);
+		
+		if(this.fileKey != null && currentFileKey != null && !this.fileKey.equals(currentFileKey))
+		{
+			return false;
+		}
+		
+		if(attributes.size() < this.position)
+		{
+			return false;
+		}
+		
+		return checksum(file, this.position) == this.checksum;
+	}
+	
+	/**
+	 * Has the file changed since this checkpoint was taken
+	 * 
+	 * @param attributes The current attributes of the file
+	 * @return <code>true</code> if the size or the last modified time of the file is different
+	 */
+	public boolean isChanged(BasicFileAttributes attributes)
+	{
+		return attributes.size() != this.size || attributes.lastModifiedTime().toMillis() != this.lastModified;
+	}
+
+	/**
+	 * The number of bytes of the file that have been consumed
+	 * 
+	 * @return the position
+	 */
+	public long getPosition()
+	{
+		return this.position;
+	}
+
+	/**
+	 * The file key of the file
+	 * 
+	 * @return the fileKey or <code>null</code> if the file system has none
+	 */
+	public String getFileKey()
+	{
+		return this.fileKey;
+	}
+
+	/**
+	 * The size of the file when it was last parsed
+	 * 
+	 * @return the size
+	 */
+	public long getSize()
+	{
+		return this.size;
+	}
+
+	/**
+	 * The last modified time of the file in milliseconds when it was last parsed
+	 * 
+	 * @return the lastModified
+	 */
+	public long getLastModified()
+	{
+		return this.lastModified;
+	}
+
+	/**
+	 * The CRC32 of the first bytes of the file, up to the consumed position
+	 * 
+	 * @return the checksum
+	 */
+	public long getChecksum()
+	{
+		return this.checksum;
+	}
+
+	/**
+	 * The number of header lines still to be skipped
+	 * 
+	 * @return the headerLinesRemaining
+	 */
+	public int getHeaderLinesRemaining()
+	{
+		return this.headerLinesRemaining;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "FileCheckpoint [position=" + this.position + ", fileKey=" + this.fileKey + ", size=" + this.size 
+				+ ", lastModified=" + this.lastModified + ", checksum=" + this.checksum 
+				+ ", headerLinesRemaining=" + this.headerLinesRemaining + "]";
+	}
+	
+	private static String toFileKey(BasicFileAttributes attributes)
+	{
+		return Objects.toString(attributes.fileKey(), null);
+	}
+	
+	private static long checksum(File file, long position) throws IOException
+	{
+		int length = (int)Math.min(position, CHECKSUM_LENGTH);
+		ByteBuffer bytes = ByteBuffer.allocate(length);
+		
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			while(bytes.hasRemaining() && channel.read(bytes) >= 0)
+			{
+				//Keep reading until the buffer is full or the file ends
+			}
+		}
+		
+		CRC32 crc = new CRC32();
+		bytes.flip();
+		crc.update(bytes);
+		return crc.getValue();
+	}
+}
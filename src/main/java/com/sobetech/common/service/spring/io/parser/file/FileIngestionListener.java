@@ -0,0 +1,59 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.io.File;
+
+/**
+ * Receives the progress of each file ingested by the {@link FileIngestionService}. The methods are 
+ * called from the worker threads, so an implementation must be thread safe. An exception thrown by
+ * a listener is logged and does not stop the other files
+ *
+ * @param <O> The type of the parsed contents
+ * 
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public interface FileIngestionListener<O extends Object>
+{
+	/**
+	 * Called when a worker starts to parse a file
+	 * 
+	 * @param file The file being parsed
+	 * @param progress The counts of the whole batch
+	 */
+	public default void onFileStarted(File file, IngestionProgress progress)
+	{
+	}
+	
+	/**
+	 * Called when a file has been parsed
+	 * 
+	 * @param ingestedFile The file and its parsed contents
+	 * @param progress The counts of the whole batch
+	 */
+	public default void onFileParsed(IngestedFile<O> ingestedFile, IngestionProgress progress)
+	{
+	}
+	
+	/**
+	 * Called when a file could not be parsed. The rest of the batch carries on
+	 * 
+	 * @param ingestedFile The file and the error that stopped it
+	 * @param progress The counts of the whole batch
+	 */
+	public default void onFileFailed(IngestedFile<O> ingestedFile, IngestionProgress progress)
+	{
+	}
+}
@@ -0,0 +1,407 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.sobetech.common.exception.ApiRuntimeException;
+
+/**
+ * Parses every file in a directory that matches a glob, spread across a fixed number of worker 
+ * threads. Each file gets its own parser from a {@link FileParserFactory}, and a file that fails to
+ * parse is reported without stopping the rest of the batch.
+ * 
+ * Results can be received per file through a {@link FileIngestionListener}, or as one Stream in the 
+ * order the files finish. A directory can also be watched so that new files are parsed as they land
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+@Service
+public class FileIngestionService
+{
+	protected final Logger LOG = LoggerFactory.getLogger(this.getClass());
+	
+	/**
+	 * The default time a new file must go unchanged before a watch parses it, in milliseconds
+	 */
+	public static final long DEFAULT_SETTLE_MILLIS = 1000;
+	
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+	
+	private long settleMillis = DEFAULT_SETTLE_MILLIS;
+	
+	/**
+	 * Find the files directly inside a directory whose names match a glob, sorted by name
+	 * 
+	 * @param directory The directory to search
+	 * @param glob A glob such as <code>*.csv</code> matched against the file name. A null or blank
+	 * glob matches every file
+	 * @return The matching files
+	 * @throws IOException If the directory could not be read
+	 */
+	public List<File> findFiles(Path directory, String glob) throws IOException
+	{
+		PathMatcher matcher = createMatcher(glob);
+		List<File> files = new ArrayList<>();
+		
+		try(DirectoryStream<Path> paths = Files.newDirectoryStream(directory))
+		{
+			for(Path path : paths)
+			{
+				if(Files.isRegularFile(path) && matcher.matches(path.getFileName()))
+				{
+					files.add(path.toFile());
+				}
+			}
+		}
+		
+		files.sort(Comparator.comparing(File::getName));
+		return files;
+	}
+	
+	/**
+	 * Parse every matching file in a directory and wait for all of them to finish
+	 * 
+	 * @param <O> The type of the parsed contents
+	 * @param directory The directory to search
+	 * @param glob A glob matched against the file name, or null for every file
+	 * @param parserFactory Creates the parser for each file
+	 * @param listener Receives the result of each file as it finishes
+	 * @return The final counts of the batch
+	 * @throws IOException If the directory could not be read
+	 */
+	public <O> IngestionProgress ingest(Path directory, String glob, FileParserFactory<O> parserFactory, 
+			FileIngestionListener<O> listener) throws IOException
+	{
+		return ingest(findFiles(directory, glob), parserFactory, listener);
+	}
+	
+	/**
+	 * Parse every file in a list and wait for all of them to finish
+	 * 
+	 * @param <O> The type of the parsed contents
+	 * @param files The files to parse
+	 * @param parserFactory Creates the parser for each file
+	 * @param listener Receives the result of each file as it finishes
+	 * @return The final counts of the batch
+	 */
+	public <O> IngestionProgress ingest(List<File> files, FileParserFactory<O> parserFactory, 
+			FileIngestionListener<O> listener)
+	{
+		IngestionProgress progress = new IngestionProgress();
+		progress.addFiles(files.size());
+		
+		ExecutorService executor = createExecutor();
+		
+		try
+		{
+			List<Future<IngestedFile<O>>> futures = new ArrayList<>(files.size());
+			for(File file : files)
+			{
+				futures.add(executor.submit(() -> ingestFile(file, parserFactory, listener, progress)));
+			}
+			
+			executor.shutdown();
+			
+			for(Future<IngestedFile<O>> future : futures)
+			{
+				future.get();
+			}
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new ApiRuntimeException("File ingestion was interrupted", e);
+		}
+		catch(ExecutionException e)
+		{
+			throw new ApiRuntimeException("File ingestion failed", e.getCause());
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+		
+		return progress;
+	}
+	
+	/**
+	 * Parse every matching file in a directory and return the results as they finish. Files are 
+	 * parsed in the background while the Stream is consumed. When the consumer falls behind the 
+	 * workers wait, so only a few parsed files are held at a time. Closing the Stream early stops 
+	 * the files that have not been parsed yet.
+	 * <p>
+	 * The Stream must always be closed, ideally with try-with-resources. A Stream that is abandoned 
+	 * without being read to the end leaves the workers blocked waiting for room for their results, 
+	 * and their threads are never released.
+	 * 
+	 * @param <O> The type of the parsed contents
+	 * @param directory The directory to search
+	 * @param glob A glob matched against the file name, or null for every file
+	 * @param parserFactory Creates the parser for each file
+	 * @return The result of every file, in the order they finish, which must be closed
+	 * @throws IOException If the directory could not be read
+	 */
+	public <O> Stream<IngestedFile<O>> ingestAsStream(Path directory, String glob, FileParserFactory<O> parserFactory) 
+			throws IOException
+	{
+		List<File> files = findFiles(directory, glob);
+		FileIngestionListener<O> listener = new FileIngestionListener<>() {};
+		IngestionProgress progress = new IngestionProgress();
+		progress.addFiles(files.size());
+		
+		BlockingQueue<IngestedFile<O>> results = new ArrayBlockingQueue<>(Math.max(getParallelism() * 2, 1));
+		ExecutorService executor = createExecutor();
+		
+		for(File file : files)
+		{
+			executor.execute(() -> {
+				IngestedFile<O> ingestedFile = null;
+				Error error = null;
+				
+				try
+				{
+					ingestedFile = ingestFile(file, parserFactory, listener, progress);
+				}
+				catch(Error | RuntimeException e)
+				{
+					//Every file must put a result or the consumer of the Stream waits for it forever
+					LOG.error("File {} could not be ingested", file.getPath(), e);
+					progress.fileFinished(false);
+					ingestedFile = new IngestedFile<>(file, null, new ApiRuntimeException("Ingesting " + file.getName() 
+							+ " failed", e), 0);
+					error = e instanceof Error ? (Error) e : null;
+				}
+				
+				try
+				{
+					results.put(ingestedFile);
+				}
+				catch(InterruptedException e)
+				{
+					//The Stream was closed
+				}
+				
+				if(error != null)
+				{
+					throw error;
+				}
+			});
+		}
+		
+		executor.shutdown();
+		
+		Iterator<IngestedFile<O>> resultIterator = new Iterator<>()
+		{
+			private int remaining = files.size();
+			
+			@Override
+			public boolean hasNext()
+			{
+				return this.remaining > 0;
+			}
+
+			@Override
+			public IngestedFile<O> next()
+			{
+				if(this.remaining == 0)
+				{
+					throw new NoSuchElementException();
+				}
+				
+				try
+				{
+					IngestedFile<O> ingestedFile = results.take();
+					this.remaining--;
+					return ingestedFile;
+				}
+				catch(InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					throw new ApiRuntimeException("File ingestion was interrupted", e);
+				}
+			}
+		};
+		
+		return StreamSupport.stream(Spliterators.spliterator(resultIterator, files.size(), Spliterator.NONNULL), false)
+				.onClose(executor::shutdownNow);
+	}
+	
+	/**
+	 * Parse the matching files already in a directory and then keep watching it, parsing each new or 
+	 * rewritten file once it has gone unchanged for the settle time. Close the returned watch to stop
+	 * 
+	 * @param <O> The type of the parsed contents
+	 * @param directory The directory to watch
+	 * @param glob A glob matched against the file name, or null for every file
+	 * @param parserFactory Creates the parser for each file
+	 * @param listener Receives the result of each file as it finishes
+	 * @return The running watch
+	 * @throws IOException If the directory could not be watched
+	 */
+	public <O> DirectoryWatch watch(Path directory, String glob, FileParserFactory<O> parserFactory, 
+			FileIngestionListener<O> listener) throws IOException
+	{
+		IngestionProgress progress = new IngestionProgress();
+		
+		return new DirectoryWatch(directory, createMatcher(glob), getSettleMillis(), createExecutor(), progress, 
+				file -> ingestFile(file, parserFactory, listener, progress));
+	}
+	
+	/**
+	 * Parse a single file, isolating any error to that file
+	 * 
+	 * @param <O> The type of the parsed contents
+	 * @param file The file to parse
+	 * @param parserFactory Creates the parser for the file
+	 * @param listener Receives the result of the file
+	 * @param progress The counts of the batch the file belongs to
+	 * @return The result of the file
+	 */
+	protected <O> IngestedFile<O> ingestFile(File file, FileParserFactory<O> parserFactory, 
+			FileIngestionListener<O> listener, IngestionProgress progress)
+	{
+		progress.fileStarted();
+		notifyListener(() -> listener.onFileStarted(file, progress));
+		
+		long startTime = System.nanoTime();
+		IngestedFile<O> ingestedFile;
+		
+		try
+		{
+			O contents = parserFactory.createParser(file).parseFile();
+			ingestedFile = new IngestedFile<>(file, contents, null, System.nanoTime() - startTime);
+		}
+		catch(FileNotFoundException | RuntimeException e)
+		{
+			LOG.warn("File {} could not be ingested", file.getPath(), e);
+			ingestedFile = new IngestedFile<>(file, null, e, System.nanoTime() - startTime);
+		}
+		
+		progress.fileFinished(ingestedFile.isSuccessful());
+		
+		IngestedFile<O> result = ingestedFile;
+		if(result.isSuccessful())
+		{
+			notifyListener(() -> listener.onFileParsed(result, progress));
+		}
+		else
+		{
+			notifyListener(() -> listener.onFileFailed(result, progress));
+		}
+		
+		return result;
+	}
+	
+	private void notifyListener(Runnable notification)
+	{
+		try
+		{
+			notification.run();
+		}
+		catch(RuntimeException e)
+		{
+			LOG.warn("File ingestion listener failed", e);
+		}
+	}
+	
+	/**
+	 * Create the pool of worker threads for one batch or watch
+	 * 
+	 * @return A pool with one thread per unit of parallelism
+	 */
+	protected ExecutorService createExecutor()
+	{
+		return Executors.newFixedThreadPool(getParallelism(), Thread.ofPlatform().name("file-ingestion-", 0).daemon().factory());
+	}
+	
+	/**
+	 * Create a matcher for file names from a glob
+	 * 
+	 * @param glob A glob such as <code>*.csv</code>, or null for every file
+	 * @return The matcher
+	 */
+	protected static PathMatcher createMatcher(String glob)
+	{
+		return FileSystems.getDefault().getPathMatcher("glob:" + (glob == null || glob.isBlank() ? "*" : glob));
+	}
+
+	/**
+	 * The number of files parsed at the same time
+	 * 
+	 * @return the parallelism
+	 */
+	public int getParallelism()
+	{
+		return this.parallelism;
+	}
+
+	/**
+	 * Set the number of files parsed at the same time. By default this is the number of processors
+	 *
+	 * @param parallelism the parallelism to set, which must be at least 1
+	 */
+	public void setParallelism(int parallelism)
+	{
+		this.parallelism = Math.max(parallelism, 1);
+	}
+
+	/**
+	 * The time a file must go unchanged before a watch parses it, in milliseconds
+	 * 
+	 * @return the settleMillis
+	 */
+	public long getSettleMillis()
+	{
+		return this.settleMillis;
+	}
+
+	/**
+	 * Set the time a file must go unchanged before a watch parses it, so that files still being 
+	 * copied into the directory are not parsed half written
+	 *
+	 * @param settleMillis the settleMillis to set
+	 */
+	public void setSettleMillis(long settleMillis)
+	{
+		this.settleMillis = Math.max(settleMillis, 0);
+	}
+}
@@ -0,0 +1,39 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+
+/**
+ * Creates the parser for a file found by the {@link FileIngestionService}. Parsers with a File 
+ * constructor can be passed as a constructor reference, such as <code>CSVFileParser::new</code>
+ *
+ * @param <O> The type of the parsed contents
+ * 
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+@FunctionalInterface
+public interface FileParserFactory<O extends Object>
+{
+	/**
+	 * Create and configure a parser for a file
+	 * 
+	 * @param file The file to be parsed
+	 * @return A parser ready to parse the file
+	 * @throws FileNotFoundException If the file could not be found
+	 */
+	public AbstractFileParser<O> createParser(File file) throws FileNotFoundException;
+}
@@ -0,0 +1,35 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+/**
+ * How the bytes of a file are brought into memory by a parser
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public enum FileReadMode
+{
+	/**
+	 * Read the file through a buffered stream
+	 */
+	STREAM,
+	
+	/**
+	 * Map the file into memory with FileChannel.map and scan the mapped bytes directly. This avoids
+	 * copying the file from the kernel into a heap buffer, which helps when the same large file is
+	 * read many times and stays in the page cache
+	 */
+	MEMORY_MAPPED;
+}
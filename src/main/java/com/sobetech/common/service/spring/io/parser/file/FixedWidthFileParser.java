@@ -0,0 +1,137 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * An instance of AbstractTextFileParser for fixed width files, where each field sits at the same 
+ * character positions on every line. The positions come from a FixedWidthLayout.
+ * 
+ * Leading whitespace is part of the first field, so it is not removed from the lines by default. The
+ * header, footer, charset and other options of AbstractTextFileParser all apply
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public class FixedWidthFileParser extends AbstractTextFileParser<List<String[]>>
+{
+	private final FixedWidthLayout layout;
+	
+	/**
+	 * Create a FixedWidthFileParser from a File object
+	 * 
+	 * @param file The File object to parse
+	 * @param layout The columns of each line
+	 * @throws FileNotFoundException If the file is not found
+	 */
+	public FixedWidthFileParser(File file, FixedWidthLayout layout) throws FileNotFoundException
+	{
+		super(file);
+		this.layout = layout;
+		setRemoveLeadingWhitespace(false);
+	}
+
+	/**
+	 * Create a FixedWidthFileParser from a directory and file name
+	 * 
+	 * @param directory The directory of the file
+	 * @param fileName The name of the file in the directory
+	 * @param layout The columns of each line
+	 * @throws FileNotFoundException If the file is not found
+	 */
+	public FixedWidthFileParser(String directory, String fileName, FixedWidthLayout layout) throws FileNotFoundException
+	{
+		super(directory, fileName);
+		this.layout = layout;
+		setRemoveLeadingWhitespace(false);
+	}
+
+	/**
+	 * Create a FixedWidthFileParser from a fully qualified file name
+	 * 
+	 * @param fileName A fully qualified file name
+	 * @param layout The columns of each line
+	 * @throws FileNotFoundException If the file is not found
+	 */
+	public FixedWidthFileParser(String fileName, FixedWidthLayout layout) throws FileNotFoundException
+	{
+		super(fileName);
+		this.layout = layout;
+		setRemoveLeadingWhitespace(false);
+	}
+	
+	/**
+	 * Stream the file one line at a time through a FixedWidthRecord. No field Strings are created, so
+	 * only the fields that are read as Strings cost an allocation
+	 * 
+	 * @param recordConsumer The consumer that will receive the record once for each line in order
+	 * @throws FileNotFoundException If the file is not correctly initialized in this parser
+	 */
+	public void readRecords(Consumer<FixedWidthRecord> recordConsumer) throws FileNotFoundException
+	{
+		FixedWidthRecord record = new FixedWidthRecord(this.layout);
+		parseFile(line -> recordConsumer.accept(record.read(line)));
+	}
+	
+	/**
+	 * The columns of each line
+	 * 
+	 * @return the layout
+	 */
+	public FixedWidthLayout getLayout()
+	{
+		return this.layout;
+	}
+	
+	@Override
+	protected List<Object> getParseSettings()
+	{
+		List<Object> settings = new ArrayList<>(super.getParseSettings());
+		//The layout can still have columns added, so the key holds a snapshot of it rather than the layout
+		settings.add(List.of(List.copyOf(this.layout.getColumnNames()), Arrays.toString(this.layout.copyStarts()), 
+				Arrays.toString(this.layout.copyEnds())));
+		return List.copyOf(settings);
+	}
+
+	/**
+	 * Split each line into the trimmed values of its fields
+	 */
+	@Override
+	protected List<String[]> convertLinesToFile(List<String> stringLines)
+	{
+		List<String[]> records = new ArrayList<>(stringLines.size());
+		FixedWidthRecord record = new FixedWidthRecord(this.layout);
+		
+		for(String line : stringLines)
+		{
+			record.read(line);
+			String[] fields = new String[record.getFieldCount()];
+			
+			for(int field = 0; field < fields.length; field++)
+			{
+				fields[field] = record.getString(field);
+			}
+			
+			records.add(fields);
+		}
+		
+		return records;
+	}
+}
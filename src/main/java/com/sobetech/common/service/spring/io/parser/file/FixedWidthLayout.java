@@ -0,0 +1,176 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The columns of a fixed width file. Each column is a name and a range of character positions in 
+ * the line. The positions are worked out once when the column is added, so a FixedWidthRecord only 
+ * has to look them up for each line
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public class FixedWidthLayout
+{
+	private final List<String> names = new ArrayList<>();
+	
+	private int[] starts = new int[0];
+	
+	private int[] ends = new int[0];
+	
+	/**
+	 * Add a column that starts where the previous column ended
+	 * 
+	 * @param name The name of the column
+	 * @param width The number of characters in the column
+	 * @return This layout
+	 */
+	public FixedWidthLayout addColumn(String name, int width)
+	{
+		return addColumn(name, this.ends.length == 0 ? 0 : this.ends[this.ends.length - 1], width);
+	}
+	
+	/**
+	 * Add a column at a set position, for layouts with gaps or overlapping columns
+	 * 
+	 * @param name The name of the column
+	 * @param start The zero based position of the first character of the column
+	 * @param width The number of characters in the column
+	 * @return This layout
+	 */
+	public FixedWidthLayout addColumn(String name, int start, int width)
+	{
+		if(name == null || name.isBlank())
+		{
+			throw new IllegalArgumentException("A column must have a name");
+		}
+		
+		if(start < 0 || width <= 0)
+		{
+			throw new IllegalArgumentException("Column " + name + " must have a positive width and cannot start before the line");
+		}
+		
+		if(this.names.contains(name))
+		{
+			throw new IllegalArgumentException("There is already a column named " + name);
+		}
+		
+		this.names.add(name);
+		this.starts = Arrays.copyOf(this.starts, this.starts.length + 1);
+		this.ends = Arrays.copyOf(this.ends, this.ends.length + 1);
+		this.starts[this.starts.length - 1] = start;
+		this.ends[this.ends.length - 1] = start + width;
+		
+		return this;
+	}
+	
+	/**
+	 * The number of columns in this layout
+	 * 
+	 * @return The number of columns
+	 */
+	public int size()
+	{
+		return this.names.size();
+	}
+	
+	/**
+	 * The names of the columns in the order they were added
+	 * 
+	 * @return An unmodifiable list of the names
+	 */
+	public List<String> getColumnNames()
+	{
+		return Collections.unmodifiableList(this.names);
+	}
+	
+	/**
+	 * Find the position of a column in this layout
+	 * 
+	 * @param name The name of the column
+	 * @return The position of the column
+	 * @throws IllegalArgumentException If there is no column with this name
+	 */
+	public int getColumnIndex(String name)
+	{
+		int index = this.names.indexOf(name);
+		
+		if(index < 0)
+		{
+			throw new IllegalArgumentException("There is no column named " + name);
+		}
+		
+		return index;
+	}
+	
+	/**
+	 * The position of the first character of a column
+	 * 
+	 * @param column The index of the column
+	 * @return The zero based start of the column
+	 */
+	public int getStart(int column)
+	{
+		return this.starts[column];
+	}
+	
+	/**
+	 * The position after the last character of a column
+	 * 
+	 * @param column The index of the column
+	 * @return The zero based end of the column
+	 */
+	public int getEnd(int column)
+	{
+		return this.ends[column];
+	}
+	
+	/**
+	 * The number of characters a full record covers
+	 * 
+	 * @return The end of the column that ends last
+	 */
+	public int getRecordWidth()
+	{
+		int recordWidth = 0;
+		
+		for(int end : this.ends)
+		{
+			recordWidth = Math.max(recordWidth, end);
+		}
+		
+		return recordWidth;
+	}
+	
+	/**
+	 * A copy of the starts of every column
+	 */
+	int[] copyStarts()
+	{
+		return this.starts.clone();
+	}
+	
+	/**
+	 * A copy of the ends of every column
+	 */
+	int[] copyEnds()
+	{
+		return this.ends.clone();
+	}
+}
@@ -0,0 +1,353 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.math.BigDecimal;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+import com.sobetech.common.service.spring.io.parser.StringParser;
+
+/**
+ * Reads the fields of one fixed width line at a time by the precomputed positions of a 
+ * FixedWidthLayout. A record can be reused for every line of a file, since reading a line only 
+ * keeps a reference to it. Fields are viewed in place: padding is only trimmed from a field when 
+ * it is first used, and numbers are parsed straight from the characters of the line.
+ * 
+ * A line shorter than the layout, such as one with its trailing spaces removed, has empty fields
+ * for the columns past its end
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public class FixedWidthRecord
+{
+	private static final int NOT_TRIMMED = -1;
+	
+	private final FixedWidthLayout layout;
+	
+	private final int[] columnStarts;
+	
+	private final int[] columnEnds;
+	
+	private final int[] fieldStarts;
+	
+	private final int[] fieldEnds;
+	
+	private CharSequence line = "";
+
+	/**
+	 * Create a FixedWidthRecord. Columns added to the layout after this are not seen by the record
+	 * 
+	 * @param layout The columns of each line
+	 */
+	public FixedWidthRecord(FixedWidthLayout layout)
+	{
+		this.layout = layout;
+		this.columnStarts = layout.copyStarts();
+		this.columnEnds = layout.copyEnds();
+		this.fieldStarts = new int[this.columnStarts.length];
+		this.fieldEnds = new int[this.columnStarts.length];
+	}
+	
+	/**
+	 * Point this record at a new line
+	 * 
+	 * @param line The line to read
+	 * @return This record
+	 */
+	public FixedWidthRecord read(CharSequence line)
+	{
+		this.line = line;
+		Arrays.fill(this.fieldStarts, NOT_TRIMMED);
+		return this;
+	}
+	
+	/**
+	 * The line being read
+	 * 
+	 * @return The line
+	 */
+	public CharSequence getLine()
+	{
+		return this.line;
+	}
+	
+	/**
+	 * The layout used to find the fields
+	 * 
+	 * @return The layout
+	 */
+	public FixedWidthLayout getLayout()
+	{
+		return this.layout;
+	}
+	
+	/**
+	 * The number of fields in each record
+	 * 
+	 * @return The number of columns in the layout
+	 */
+	public int getFieldCount()
+	{
+		return this.columnStarts.length;
+	}
+	
+	/**
+	 * The position in the line of the first character of a field after its padding is trimmed
+	 * 
+	 * @param field The index of the field
+	 * @return The start of the field in the line
+	 */
+	public int getFieldStart(int field)
+	{
+		trim(field);
+		return this.fieldStarts[field];
+	}
+	
+	/**
+	 * The number of characters in a field after its padding is trimmed
+	 * 
+	 * @param field The index of the field
+	 * @return The length of the field
+	 */
+	public int getFieldLength(int field)
+	{
+		trim(field);
+		return this.fieldEnds[field] - this.fieldStarts[field];
+	}
+	
+	/**
+	 * Is a field empty or only padding
+	 * 
+	 * @param field The index of the field
+	 * @return <code>true</code> if the field has no characters after trimming
+	 */
+	public boolean isEmpty(int field)
+	{
+		return getFieldLength(field) == 0;
+	}
+	
+	/**
+	 * A view of a trimmed field that shares the characters of the line
+	 * 
+	 * @param field The index of the field
+	 * @return A CharSequence over the field in the line
+	 */
+	public CharSequence getFieldView(int field)
+	{
+		trim(field);
+		return CharBuffer.wrap(this.line, this.fieldStarts[field], this.fieldEnds[field]);
+	}
+	
+	/**
+	 * Create a String for a trimmed field
+	 * 
+	 * @param field The index of the field
+	 * @return The value of the field
+	 */
+	public String getString(int field)
+	{
+		trim(field);
+		return this.line.subSequence(this.fieldStarts[field], this.fieldEnds[field]).toString();
+	}
+	
+	/**
+	 * Parse a field as an int without creating a String
+	 * 
+	 * @param field The index of the field
+	 * @return The value of the field as an int
+	 * @throws NumberFormatException If the field is not an int
+	 */
+	public int getInt(int field)
+	{
+		trim(field);
+		return Integer.parseInt(this.line, this.fieldStarts[field], this.fieldEnds[field], 10);
+	}
+	
+	/**
+	 * Parse a field as a long without creating a String
+	 * 
+	 * @param field The index of the field
+	 * @return The value of the field as a long
+	 * @throws NumberFormatException If the field is not a long
+	 */
+	public long getLong(int field)
+	{
+		trim(field);
+		return Long.parseLong(this.line, this.fieldStarts[field], this.fieldEnds[field], 10);
+	}
+	
+	/**
+	 * Parse a field as a double without creating a String for the usual field sizes
+	 * 
+	 * @param field The index of the field
+	 * @return The value of the field as a double
+	 * @throws NumberFormatException If the field is not a decimal number
+	 */
+	public double getDouble(int field)
+	{
+		trim(field);
+		int start = this.fieldStarts[field];
+		int end = this.fieldEnds[field];
+		
+		if(!isDecimal(this.line, start, end))
+		{
+			throw new NumberFormatException("Field " + field + " is not a number: " + this.line.subSequence(start, end));
+		}
+		
+		return StringParser.findDouble(this.line, this.line.charAt(start) == '+' ? start + 1 : start, end);
+	}
+	
+	/**
+	 * Parse a field of digits with an implied decimal point, as is common in mainframe feeds. With a 
+	 * scale of 2 the field 0012345 is 123.45
+	 * 
+	 * @param field The index of the field
+	 * @param scale The number of digits after the implied decimal point
+	 * @return The value of the field
+	 * @throws NumberFormatException If the field is not a long
+	 */
+	public BigDecimal getDecimal(int field, int scale)
+	{
+		return BigDecimal.valueOf(getLong(field), scale);
+	}
+	
+	/**
+	 * Compare a trimmed field to a value without creating a String
+	 * 
+	 * @param field The index of the field
+	 * @param value The value to compare to
+	 * @return <code>true</code> if the field equals the value
+	 */
+	public boolean fieldEquals(int field, CharSequence value)
+	{
+		trim(field);
+		
+		if(value == null)
+		{
+			return false;
+		}
+		
+		int start = this.fieldStarts[field];
+		int length = this.fieldEnds[field] - start;
+		
+		if(length != value.length())
+		{
+			return false;
+		}
+		
+		for(int index = 0; index < length; index++)
+		{
+			if(this.line.charAt(start + index) != value.charAt(index))
+			{
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Work out where a field starts and ends once its padding is removed, the first time the field is used
+	 */
+	private void trim(int field)
+	{
+		if(field < 0 || field >= this.columnStarts.length)
+		{
+			throw new IndexOutOfBoundsException("Field " + field + " is not in the layout of " + this.columnStarts.length + " columns");
+		}
+		
+		if(this.fieldStarts[field] != NOT_TRIMMED)
+		{
+			return;
+		}
+		
+		int start = Math.min(this.columnStarts[field], this.line.length());
+		int end = Math.min(this.columnEnds[field], this.line.length());
+		
+		while(start < end && this.line.charAt(start) == ' ')
+		{
+			start++;
+		}
+		
+		while(end > start && this.line.charAt(end - 1) == ' ')
+		{
+			end--;
+		}
+		
+		this.fieldStarts[field] = start;
+		this.fieldEnds[field] = end;
+	}
+	
+	/**
+	 * Is a range a whole decimal number, with an optional sign, fraction and exponent
+	 */
+	static boolean isDecimal(CharSequence text, int start, int end)
+	{
+		int index = start;
+		
+		if(index < end && (text.charAt(index) == '-' || text.charAt(index) == '+'))
+		{
+			index++;
+		}
+		
+		int digits = 0;
+		for(; index < end && isDigit(text.charAt(index)); index++)
+		{
+			digits++;
+		}
+		
+		if(index < end && text.charAt(index) == '.')
+		{
+			for(index++; index < end && isDigit(text.charAt(index)); index++)
+			{
+				digits++;
+			}
+		}
+		
+		if(digits == 0)
+		{
+			return false;
+		}
+		
+		if(index < end && (text.charAt(index) == 'e' || text.charAt(index) == 'E'))
+		{
+			index++;
+			
+			if(index < end && (text.charAt(index) == '-' || text.charAt(index) == '+'))
+			{
+				index++;
+			}
+			
+			int exponentStart = index;
+			while(index < end && isDigit(text.charAt(index)))
+			{
+				index++;
+			}
+			
+			if(index == exponentStart)
+			{
+				return false;
+			}
+		}
+		
+		return index == end;
+	}
+	
+	private static boolean isDigit(char character)
+	{
+		return character >= '0' && character <= '9';
+	}
+}
@@ -0,0 +1,107 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.io.File;
+
+/**
+ * The outcome of parsing one file in a batch run by the {@link FileIngestionService}
+ *
+ * @param <O> The type of the parsed contents
+ * 
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public class IngestedFile<O extends Object>
+{
+	private final File file;
+	
+	private final O contents;
+	
+	private final Exception failure;
+	
+	private final long elapsedNanos;
+
+	/**
+	 * Create an IngestedFile
+	 * 
+	 * @param file The file that was parsed
+	 * @param contents The parsed contents or <code>null</code> if the file failed
+	 * @param failure The error that stopped the file being parsed or <code>null</code> if it succeeded
+	 * @param elapsedNanos The time spent parsing the file in nanoseconds
+	 */
+	public IngestedFile(File file, O contents, Exception failure, long elapsedNanos)
+	{
+		this.file = file;
+		this.contents = contents;
+		this.failure = failure;
+		this.elapsedNanos = elapsedNanos;
+	}
+	
+	/**
+	 * Was the file parsed without an error
+	 * 
+	 * @return <code>true</code> if the contents are available
+	 */
+	public boolean isSuccessful()
+	{
+		return this.failure == null;
+	}
+
+	/**
+	 * The file that was parsed
+	 * 
+	 * @return the file
+	 */
+	public File getFile()
+	{
+		return this.file;
+	}
+
+	/**
+	 * The parsed contents of the file
+	 * 
+	 * @return the contents or <code>null</code> if the file failed
+	 */
+	public O getContents()
+	{
+		return this.contents;
+	}
+
+	/**
+	 * The error that stopped the file being parsed
+	 * 
+	 * @return the failure or <code>null</code> if the file was parsed
+	 */
+	public Exception getFailure()
+	{
+		return this.failure;
+	}
+
+	/**
+	 * The time spent parsing the file in nanoseconds
+	 * 
+	 * @return the elapsedNanos
+	 */
+	public long getElapsedNanos()
+	{
+		return this.elapsedNanos;
+	}
+
+	@Override
+	public String toString()
+	{
+		return this.file.getName() + (isSuccessful() ? " parsed" : " failed: " + this.failure.getMessage());
+	}
+}
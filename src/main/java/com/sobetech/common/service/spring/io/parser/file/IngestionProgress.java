@@ -0,0 +1,129 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live counts of the files in a batch or directory watch run by the {@link FileIngestionService}.
+ * The counts are updated by the worker threads as files start and finish
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public class IngestionProgress
+{
+	private final AtomicInteger totalFiles = new AtomicInteger();
+	
+	private final AtomicInteger startedFiles = new AtomicInteger();
+	
+	private final AtomicInteger parsedFiles = new AtomicInteger();
+	
+	private final AtomicInteger failedFiles = new AtomicInteger();
+	
+	/**
+	 * Record files that have been found and are waiting to be parsed
+	 * 
+	 * @param fileCount The number of files found
+	 */
+	protected void addFiles(int fileCount)
+	{
+		this.totalFiles.addAndGet(fileCount);
+	}
+	
+	/**
+	 * Record that a file has started to be parsed
+	 */
+	protected void fileStarted()
+	{
+		this.startedFiles.incrementAndGet();
+	}
+	
+	/**
+	 * Record that a file has finished
+	 * 
+	 * @param successful <code>true</code> if the file was parsed without an error
+	 */
+	protected void fileFinished(boolean successful)
+	{
+		(successful ? this.parsedFiles : this.failedFiles).incrementAndGet();
+	}
+
+	/**
+	 * The number of files found so far
+	 * 
+	 * @return the total number of files
+	 */
+	public int getTotalFiles()
+	{
+		return this.totalFiles.get();
+	}
+
+	/**
+	 * The number of files that were parsed without an error
+	 * 
+	 * @return the parsed files
+	 */
+	public int getParsedFiles()
+	{
+		return this.parsedFiles.get();
+	}
+
+	/**
+	 * The number of files that failed to parse
+	 * 
+	 * @return the failed files
+	 */
+	public int getFailedFiles()
+	{
+		return this.failedFiles.get();
+	}
+	
+	/**
+	 * The number of files that have finished, with or without an error
+	 * 
+	 * @return the completed files
+	 */
+	public int getCompletedFiles()
+	{
+		return getParsedFiles() + getFailedFiles();
+	}
+	
+	/**
+	 * The number of files being parsed right now
+	 * 
+	 * @return the files in progress
+	 */
+	public int getFilesInProgress()
+	{
+		return this.startedFiles.get() - getCompletedFiles();
+	}
+	
+	/**
+	 * The number of files that have been found but not finished
+	 * 
+	 * @return the remaining files
+	 */
+	public int getRemainingFiles()
+	{
+		return getTotalFiles() - getCompletedFiles();
+	}
+
+	@Override
+	public String toString()
+	{
+		return getCompletedFiles() + "/" + getTotalFiles() + " files complete, " + getFailedFiles() + " failed, " 
+				+ getFilesInProgress() + " in progress";
+	}
+}
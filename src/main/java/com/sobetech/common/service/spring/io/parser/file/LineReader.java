@@ -0,0 +1,266 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads lines of text out of a large character buffer. Lines are copied straight out of the buffer
+ * into a String, so a line that fits in the buffer costs a single allocation. Only lines that span 
+ * the end of the buffer are assembled in a StringBuilder
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public class LineReader implements LineSource
+{
+	/**
+	 * The default number of characters held in the read buffer
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+	
+	private final Reader reader;
+	
+	private final LineTerminator lineTerminator;
+	
+	private final char[] buffer;
+	
+	private int position = 0;
+	
+	private int limit = 0;
+	
+	private boolean skipLineFeed = false;
+	
+	private boolean pendingCarriageReturn = false;
+
+	/**
+	 * Create a LineReader that accepts any line terminator and uses the default buffer size
+	 * 
+	 * @param reader The Reader to read lines from
+	 */
+	public LineReader(Reader reader)
+	{
+		this(reader, LineTerminator.ANY, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Create a LineReader
+	 * 
+	 * @param reader The Reader to read lines from
+	 * @param lineTerminator The characters that end a line
+	 * @param bufferSize The number of characters to hold in the read buffer
+	 */
+	public LineReader(Reader reader, LineTerminator lineTerminator, int bufferSize)
+	{
+		if(reader == null)
+		{
+			throw new IllegalArgumentException("Lines cannot be read from a null Reader");
+		}
+		
+		if(bufferSize < 2)
+		{
+			throw new IllegalArgumentException("The buffer must be able to hold at least two characters");
+		}
+		
+		this.reader = reader;
+		this.lineTerminator = lineTerminator == null ? LineTerminator.ANY : lineTerminator;
+		this.buffer = new char[bufferSize];
+	}
+	
+	@Override
+	public String readLine() throws IOException
+	{
+		StringBuilder lineBuilder = null;
+		
+		while(true)
+		{
+			if(this.position >= this.limit && !fill())
+			{
+				//A lone carriage return at the very end of the input is content when only CRLF ends a line
+				if(this.pendingCarriageReturn)
+				{
+					this.pendingCarriageReturn = false;
+					lineBuilder = append(lineBuilder, "\r");
+				}
+				
+				return lineBuilder == null ? null : lineBuilder.toString();
+			}
+			
+			if(this.pendingCarriageReturn)
+			{
+				this.pendingCarriageReturn = false;
+				
+				if(this.buffer[this.position] == '\n')
+				{
+					this.position++;
+					return lineBuilder == null ? "" : lineBuilder.toString();
+				}
+				
+				lineBuilder = append(lineBuilder, "\r");
+			}
+			
+			if(this.skipLineFeed)
+			{
+				this.skipLineFeed = false;
+				
+				if(this.buffer[this.position] == '\n')
+				{
+					this.position++;
+					continue;
+				}
+			}
+			
+			int start = this.position;
+			
+			for(int index = start; index < this.limit; index++)
+			{
+				char character = this.buffer[index];
+				
+				if(character != '\n' && character != '\r')
+				{
+					continue;
+				}
+				
+				switch(this.lineTerminator)
+				{
+					case LF:
+						if(character == '\n')
+						{
+							this.position = index + 1;
+							return toLine(lineBuilder, start, index);
+						}
+						break;
+						
+					case CR:
+						if(character == '\r')
+						{
+							this.position = index + 1;
+							return toLine(lineBuilder, start, index);
+						}
+						break;
+						
+					case CRLF:
+						if(character == '\r')
+						{
+							if(index + 1 == this.limit)
+							{
+								//The line feed, if there is one, is in the next buffer
+								lineBuilder = append(lineBuilder, start, index);
+								this.pendingCarriageReturn = true;
+								this.position = this.limit;
+								break;
+							}
+							
+							if(this.buffer[index + 1] == '\n')
+							{
+								this.position = index + 2;
+								return toLine(lineBuilder, start, index);
+							}
+						}
+						break;
+						
+					default:
+						if(character == '\r')
+						{
+							if(index + 1 == this.limit)
+							{
+								this.skipLineFeed = true;
+							}
+							else if(this.buffer[index + 1] == '\n')
+							{
+								this.position = index + 2;
+								return toLine(lineBuilder, start, index);
+							}
+						}
+						this.position = index + 1;
+						return toLine(lineBuilder, start, index);
+				}
+				
+				if(this.pendingCarriageReturn)
+				{
+					break;
+				}
+			}
+			
+			if(!this.pendingCarriageReturn)
+			{
+				lineBuilder = append(lineBuilder, start, this.limit);
+				this.position = this.limit;
+			}
+		}
+	}
+	
+	@Override
+	public void close() throws IOException
+	{
+		this.reader.close();
+	}
+	
+	/**
+	 * Refill the buffer from the Reader
+	 * 
+	 * @return <code>false</code> if the end of the input has been reached
+	 * @throws IOException If the underlying Reader could not be read
+	 */
+	private boolean fill() throws IOException
+	{
+		int charactersRead;
+		
+		do
+		{
+			charactersRead = this.reader.read(this.buffer, 0, this.buffer.length);
+		}
+		while(charactersRead == 0);
+		
+		if(charactersRead < 0)
+		{
+			return false;
+		}
+		
+		this.position = 0;
+		this.limit = charactersRead;
+		return true;
+	}
+	
+	private String toLine(StringBuilder lineBuilder, int start, int end)
+	{
+		if(lineBuilder == null)
+		{
+			return new String(this.buffer, start, end - start);
+		}
+		
+		return lineBuilder.append(this.buffer, start, end - start).toString();
+	}
+	
+	private StringBuilder append(StringBuilder lineBuilder, int start, int end)
+	{
+		if(lineBuilder == null)
+		{
+			lineBuilder = new StringBuilder(Math.max(end - start, 16) * 2);
+		}
+		
+		return lineBuilder.append(this.buffer, start, end - start);
+	}
+	
+	private StringBuilder append(StringBuilder lineBuilder, String content)
+	{
+		if(lineBuilder == null)
+		{
+			lineBuilder = new StringBuilder();
+		}
+		
+		return lineBuilder.append(content);
+	}
+}
@@ -0,0 +1,44 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A source of lines of text read from a file
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public interface LineSource extends Closeable
+{
+	/**
+	 * Read the next line without its line terminator
+	 * 
+	 * @return The next line or <code>null</code> if the end of the input has been reached
+	 * @throws IOException If the underlying input could not be read
+	 */
+	String readLine() throws IOException;
+	
+	/**
+	 * The position of the first byte of the line last returned by {@link #readLine()}
+	 * 
+	 * @return The byte offset of the line or -1 if this source does not know it
+	 */
+	default long getLineOffset()
+	{
+		return -1;
+	}
+}
@@ -0,0 +1,53 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+/**
+ * One step in the line cleaning pipeline of an {@link AbstractTextFileParser}. Stages run in the 
+ * order they were added, one line at a time, straight after the line is read and before header and 
+ * footer lines are counted
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+@FunctionalInterface
+public interface LineStage
+{
+	/**
+	 * Process a single line
+	 * 
+	 * @param line The line as left by the previous stage
+	 * @return The line to hand to the next stage or <code>null</code> to drop the line
+	 */
+	public String apply(String line);
+	
+	/**
+	 * Clear any state kept between lines. Called before each parse of a file
+	 */
+	public default void reset()
+	{
+	}
+	
+	/**
+	 * Does this stage give the same result for a line no matter which lines came before it. Stages 
+	 * that keep state, such as removing duplicates, stop a parser from splitting the file across 
+	 * threads
+	 * 
+	 * @return <code>true</code> if the stage keeps no state between lines
+	 */
+	public default boolean isStateless()
+	{
+		return true;
+	}
+}
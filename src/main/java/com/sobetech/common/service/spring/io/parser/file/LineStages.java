@@ -0,0 +1,180 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Common stages for the line cleaning pipeline of an {@link AbstractTextFileParser}
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public final class LineStages
+{
+	private LineStages()
+	{
+		//Only static factory methods
+	}
+	
+	/**
+	 * Remove whitespace from both ends of each line
+	 * 
+	 * @return The stage
+	 */
+	public static LineStage trim()
+	{
+		return String::strip;
+	}
+	
+	/**
+	 * Keep only the lines that pass a test
+	 * 
+	 * @param filter The test each line must pass to be kept
+	 * @return The stage
+	 */
+	public static LineStage filter(Predicate<String> filter)
+	{
+		return line -> filter.test(line) ? line : null;
+	}
+	
+	/**
+	 * Drop lines that start with a comment marker, such as <code>#</code> or <code>//</code>. 
+	 * Whitespace in front of the marker is allowed
+	 * 
+	 * @param commentPrefix The marker that starts a comment line
+	 * @return The stage
+	 */
+	public static LineStage skipComments(String commentPrefix)
+	{
+		return line -> {
+			int start = 0;
+			while(start < line.length() && Character.isWhitespace(line.charAt(start)))
+			{
+				start++;
+			}
+			
+			return line.startsWith(commentPrefix, start) ? null : line;
+		};
+	}
+	
+	/**
+	 * Keep only the lines that contain a match for a regular expression. Each line gets its own 
+	 * Matcher, so the stage is safe to use in a parallel parse
+	 * 
+	 * @param pattern The expression to find in each line
+	 * @return The stage
+	 */
+	public static LineStage matching(Pattern pattern)
+	{
+		return line -> pattern.matcher(line).find() ? line : null;
+	}
+	
+	/**
+	 * Drop the lines that contain a match for a regular expression
+	 * 
+	 * @param pattern The expression that marks a line to drop
+	 * @return The stage
+	 */
+	public static LineStage notMatching(Pattern pattern)
+	{
+		return line -> pattern.matcher(line).find() ? null : line;
+	}
+	
+	/**
+	 * Replace every match of a regular expression in each line
+	 * 
+	 * @param pattern The expression to replace
+	 * @param replacement The replacement, which may refer to groups as in {@link Matcher#replaceAll(String)}
+	 * @return The stage
+	 */
+	public static LineStage replaceAll(Pattern pattern, String replacement)
+	{
+		return line -> pattern.matcher(line).replaceAll(replacement);
+	}
+	
+	/**
+	 * Remove an escape character, keeping the character after it as it is. A doubled escape 
+	 * character becomes a single one. Lines without the escape character are returned unchanged 
+	 * without being copied
+	 * 
+	 * @param escapeCharacter The escape character, such as a backslash
+	 * @return The stage
+	 */
+	public static LineStage unescape(char escapeCharacter)
+	{
+		return line -> {
+			int escapeIndex = line.indexOf(escapeCharacter);
+			
+			if(escapeIndex < 0)
+			{
+				return line;
+			}
+			
+			StringBuilder unescaped = new StringBuilder(line.length());
+			unescaped.append(line, 0, escapeIndex);
+			
+			for(int index = escapeIndex; index < line.length(); index++)
+			{
+				char character = line.charAt(index);
+				
+				if(character == escapeCharacter && index + 1 < line.length())
+				{
+					index++;
+					character = line.charAt(index);
+				}
+				
+				unescaped.append(character);
+			}
+			
+			return unescaped.toString();
+		};
+	}
+	
+	/**
+	 * Drop lines that have already been seen in the file, keeping the first of each. The lines seen 
+	 * are held until the next parse, and a parser using this stage always reads on a single thread
+	 * 
+	 * @return The stage
+	 */
+	public static LineStage dedupe()
+	{
+		return new LineStage()
+		{
+			private final Set<String> seenLines = new HashSet<>();
+			
+			@Override
+			public String apply(String line)
+			{
+				return this.seenLines.add(line) ? line : null;
+			}
+
+			@Override
+			public void reset()
+			{
+				this.seenLines.clear();
+			}
+
+			@Override
+			public boolean isStateless()
+			{
+				return false;
+			}
+		};
+	}
+}
@@ -0,0 +1,44 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+/**
+ * The characters that mark the end of a line in a text file
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public enum LineTerminator
+{
+	/**
+	 * A line feed, a carriage return or a carriage return followed by a line feed
+	 */
+	ANY,
+	
+	/**
+	 * Only a line feed ends a line. Carriage returns are treated as content
+	 */
+	LF,
+	
+	/**
+	 * Only a carriage return followed by a line feed ends a line. Lone carriage returns and line
+	 * feeds are treated as content
+	 */
+	CRLF,
+	
+	/**
+	 * Only a carriage return ends a line. Line feeds are treated as content
+	 */
+	CR;
+}
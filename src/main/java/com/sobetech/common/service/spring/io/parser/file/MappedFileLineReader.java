@@ -0,0 +1,299 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads lines of text from a file that has been mapped into memory. The file is mapped one segment
+ * at a time so files larger than 2 GB can be read, and line terminators are found by scanning the
+ * mapped bytes directly without copying the file through a Reader.
+ * 
+ * A mapping is released by the garbage collector once it is no longer referenced, so closing this
+ * reader closes the file but may not immediately unmap the last segment
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public class MappedFileLineReader extends ByteLineReader
+{
+	/**
+	 * The default number of bytes mapped at a time
+	 */
+	public static final long DEFAULT_SEGMENT_SIZE = 256L * 1024 * 1024;
+	
+	private final FileChannel channel;
+	
+	private final long segmentSize;
+	
+	private final long end;
+	
+	private long nextSegmentStart;
+
+	/**
+	 * Create a MappedFileLineReader that maps the default segment size at a time
+	 * 
+	 * @param file The file to read
+	 * @param charset The charset used to decode each line
+	 * @param lineTerminator The characters that end a line
+	 * @throws IOException If the file could not be opened
+	 */
+	public MappedFileLineReader(File file, Charset charset, LineTerminator lineTerminator) throws IOException
+	{
+		this(file, charset, lineTerminator, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * Create a MappedFileLineReader
+	 * 
+	 * @param file The file to read
+	 * @param charset The charset used to decode each line
+	 * @param lineTerminator The characters that end a line
+	 * @param segmentSize The number of bytes mapped at a time. This cannot be more than Integer.MAX_VALUE
+	 * @throws IOException If the file could not be opened
+	 */
+	public MappedFileLineReader(File file, Charset charset, LineTerminator lineTerminator, long segmentSize) 
+			throws IOException
+	{
+		this(file, charset, lineTerminator, 0, Long.MAX_VALUE, segmentSize);
+	}
+
+	/**
+	 * Create a MappedFileLineReader that only reads a range of bytes of the file. The range should 
+	 * start at the beginning of a line and end just after a line terminator
+	 * 
+	 * @param file The file to read
+	 * @param charset The charset used to decode each line
+	 * @param lineTerminator The characters that end a line
+	 * @param start The position of the first byte to read
+	 * @param end The position after the last byte to read. This is limited to the size of the file
+	 * @param segmentSize The number of bytes mapped at a time. This cannot be more than Integer.MAX_VALUE
+	 * @throws IOException If the file could not be opened
+	 * 
+	 * @see #findChunkBoundaries(File, LineTerminator, int)
+	 */
+	public MappedFileLineReader(File file, Charset charset, LineTerminator lineTerminator, long start, long end, 
+			long segmentSize) throws IOException
+	{
+		super(charset, lineTerminator, start);
+		
+		if(segmentSize <= 0 || segmentSize > Integer.MAX_VALUE)
+		{
+			throw new IllegalArgumentException("The segment size must be between 1 and " + Integer.MAX_VALUE);
+		}
+		
+		if(start < 0 || end < start)
+		{
+			throw new IllegalArgumentException("The range " + start + " to " + end + " is not valid");
+		}
+		
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		this.segmentSize = segmentSize;
+		this.end = Math.min(end, this.channel.size());
+		this.nextSegmentStart = start;
+	}
+	
+	/**
+	 * Split a file into ranges of roughly equal size that each start at the beginning of a line. A 
+	 * range will never split a line terminator, so each range can be read on its own by a 
+	 * MappedFileLineReader. A range may be empty if a single line spans more than one range
+	 * 
+	 * @param file The file to split
+	 * @param lineTerminator The characters that end a line
+	 * @param chunkCount The number of ranges to split the file into
+	 * @return The positions where each range starts, followed by the size of the file. Range 
+	 * <code>i</code> starts at index <code>i</code> and ends at index <code>i + 1</code>
+	 * @throws IOException If the file could not be read
+	 */
+	public static long[] findChunkBoundaries(File file, LineTerminator lineTerminator, int chunkCount) 
+			throws IOException
+	{
+		if(chunkCount < 1)
+		{
+			throw new IllegalArgumentException("A file must be split into at least one range");
+		}
+		
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			long size = channel.size();
+			long[] boundaries = new long[chunkCount + 1];
+			boundaries[chunkCount] = size;
+			ByteBuffer window = ByteBuffer.allocate(8 * 1024);
+			
+			for(int index = 1; index < chunkCount; index++)
+			{
+				long target = Math.max(size * index / chunkCount, boundaries[index - 1]);
+				boundaries[index] = findLineStart(channel, target, size, lineTerminator, window);
+			}
+			
+			return boundaries;
+		}
+	}
+	
+	/**
+	 * Find the position just after the last complete line in a range of a file. When any line 
+	 * terminator is accepted, a carriage return that is the last byte of the range is not treated as 
+	 * complete because it may yet be followed by a line feed
+	 * 
+	 * @param file The file to search
+	 * @param lineTerminator The characters that end a line
+	 * @param start The position to search back to
+	 * @param end The position to search back from
+	 * @return The position after the last line terminator in the range or <code>start</code> if the 
+	 * range does not contain a complete line
+	 * @throws IOException If the file could not be read
+	 */
+	public static long findLastLineEnd(File file, LineTerminator lineTerminator, long start, long end) 
+			throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			end = Math.min(end, channel.size());
+			ByteBuffer window = ByteBuffer.allocate(8 * 1024);
+			long windowEnd = end;
+			
+			//The byte after the one being checked, which starts out as the end of the range
+			int next = -1;
+			
+			while(windowEnd > start)
+			{
+				long windowStart = Math.max(start, windowEnd - window.capacity());
+				window.clear();
+				window.limit((int)(windowEnd - windowStart));
+				
+				while(window.hasRemaining() && channel.read(window, windowStart + window.position()) >= 0)
+				{
+					//Keep reading until the window is full
+				}
+				
+				for(int index = window.position() - 1; index >= 0; index--)
+				{
+					byte value = window.get(index);
+					long position = windowStart + index;
+					
+					if(isLineEnd(lineTerminator, value, next, position > start ? previousByte(channel, window, index, position) : -1))
+					{
+						return position + 1;
+					}
+					
+					next = value;
+				}
+				
+				windowEnd = windowStart;
+			}
+			
+			return start;
+		}
+	}
+	
+	private static boolean isLineEnd(LineTerminator lineTerminator, byte value, int next, int previous)
+	{
+		switch(lineTerminator)
+		{
+			case LF:
+				return value == '\n';
+				
+			case CR:
+				return value == '\r';
+				
+			case CRLF:
+				return value == '\n' && previous == '\r';
+				
+			default:
+				return value == '\n' || (value == '\r' && next != -1 && next != '\n');
+		}
+	}
+	
+	private static int previousByte(FileChannel channel, ByteBuffer window, int index, long position) throws IOException
+	{
+		if(index > 0)
+		{
+			return window.get(index - 1);
+		}
+		
+		ByteBuffer single = ByteBuffer.allocate(1);
+		return channel.read(single, position - 1) == 1 ? single.get(0) : -1;
+	}
+	
+	/**
+	 * Find the first position at or after a target position that directly follows a line terminator
+	 */
+	private static long findLineStart(FileChannel channel, long target, long size, LineTerminator lineTerminator, 
+			ByteBuffer window) throws IOException
+	{
+		if(target <= 0)
+		{
+			return 0;
+		}
+		
+		byte endByte = lineTerminator == LineTerminator.CR ? (byte)'\r' : (byte)'\n';
+		
+		//Start one byte early so the byte before the target is known for a CRLF check
+		long position = target - 1;
+		byte previous = 0;
+		
+		while(position < size)
+		{
+			window.clear();
+			int bytesRead = channel.read(window, position);
+			
+			if(bytesRead <= 0)
+			{
+				break;
+			}
+			
+			for(int index = 0; index < bytesRead; index++)
+			{
+				byte value = window.get(index);
+				
+				if(value == endByte && (lineTerminator != LineTerminator.CRLF || previous == '\r'))
+				{
+					return position + index + 1;
+				}
+				
+				previous = value;
+			}
+			
+			position += bytesRead;
+		}
+		
+		return size;
+	}
+
+	@Override
+	protected ByteBuffer nextChunk() throws IOException
+	{
+		if(this.nextSegmentStart >= this.end)
+		{
+			return null;
+		}
+		
+		long size = Math.min(this.segmentSize, this.end - this.nextSegmentStart);
+		ByteBuffer segment = this.channel.map(MapMode.READ_ONLY, this.nextSegmentStart, size);
+		this.nextSegmentStart += size;
+		return segment;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		this.channel.close();
+	}
+}
@@ -0,0 +1,141 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Publishes parse measurements to a Micrometer MeterRegistry. Every meter is tagged with the 
+ * simple class name of the parser, not the file name, so the number of meters does not grow with
+ * the number of files parsed.
+ * 
+ * <ul>
+ * <li><code>{prefix}.duration</code> timer for the whole parse</li>
+ * <li><code>{prefix}.stage</code> timer tagged with <code>stage</code> of read, clean, adjust or convert</li>
+ * <li><code>{prefix}.lines.read</code> counter</li>
+ * <li><code>{prefix}.lines.dropped</code> counter tagged with <code>reason</code> of blank, filtered, 
+ * header, footer or rejected</li>
+ * <li><code>{prefix}.bytes.read</code> counter</li>
+ * </ul>
+ * 
+ * Micrometer is a provided dependency, so it has to be on the classpath of the application to use
+ * this class
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public class MicrometerParserMetrics implements ParserMetrics
+{
+	public static final String DEFAULT_PREFIX = "sobetech.parser";
+	
+	private final MeterRegistry registry;
+	
+	private final String prefix;
+	
+	/**
+	 * Create metrics that publish to a registry with the default meter name prefix
+	 * 
+	 * @param registry The registry to publish to
+	 */
+	public MicrometerParserMetrics(MeterRegistry registry)
+	{
+		this(registry, DEFAULT_PREFIX);
+	}
+	
+	/**
+	 * Create metrics that publish to a registry
+	 * 
+	 * @param registry The registry to publish to
+	 * @param prefix The start of the name of every meter
+	 */
+	public MicrometerParserMetrics(MeterRegistry registry, String prefix)
+	{
+		this.registry = registry;
+		this.prefix = prefix;
+	}
+
+	@Override
+	public void parseCompleted(AbstractTextFileParser<?> parser, ParseStatistics statistics)
+	{
+		String parserName = parser.getClass().getSimpleName();
+		
+		Timer.builder(this.prefix + ".duration")
+				.description("Time to parse a whole file")
+				.tag("parser", parserName)
+				.register(this.registry)
+				.record(statistics.getElapsedNanos(), TimeUnit.NANOSECONDS);
+		
+		for(ParseStage stage : ParseStage.values())
+		{
+			Timer.builder(this.prefix + ".stage")
+					.description("Time spent in each stage of a parse")
+					.tag("parser", parserName)
+					.tag("stage", stage.name().toLowerCase(Locale.ROOT))
+					.register(this.registry)
+					.record(statistics.getStageNanos(stage), TimeUnit.NANOSECONDS);
+		}
+		
+		Counter.builder(this.prefix + ".lines.read")
+				.tag("parser", parserName)
+				.register(this.registry)
+				.increment(statistics.getLinesRead());
+		
+		incrementDropped(parserName, "blank", statistics.getBlankLines());
+		incrementDropped(parserName, "filtered", statistics.getFilteredLines());
+		incrementDropped(parserName, "header", statistics.getHeaderLines());
+		incrementDropped(parserName, "footer", statistics.getFooterLines());
+		incrementDropped(parserName, "rejected", statistics.getRejectedLines());
+		
+		Counter.builder(this.prefix + ".bytes.read")
+				.baseUnit("bytes")
+				.tag("parser", parserName)
+				.register(this.registry)
+				.increment(statistics.getBytesRead());
+	}
+	
+	private void incrementDropped(String parserName, String reason, long lines)
+	{
+		Counter.builder(this.prefix + ".lines.dropped")
+				.description("Lines read from a file but not kept")
+				.tag("parser", parserName)
+				.tag("reason", reason)
+				.register(this.registry)
+				.increment(lines);
+	}
+	
+	/**
+	 * The registry meters are published to
+	 * 
+	 * @return the registry
+	 */
+	public MeterRegistry getRegistry()
+	{
+		return this.registry;
+	}
+	
+	/**
+	 * The start of the name of every meter
+	 * 
+	 * @return the prefix
+	 */
+	public String getPrefix()
+	{
+		return this.prefix;
+	}
+}
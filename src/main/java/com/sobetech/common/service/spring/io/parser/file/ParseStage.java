@@ -0,0 +1,43 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+/**
+ * The stages of a text file parse that are timed separately when a parser has {@link ParserMetrics}
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public enum ParseStage
+{
+	/**
+	 * Reading and decoding lines from the file, including decompression
+	 */
+	READ,
+	
+	/**
+	 * Whitespace and blank line removal and the line stages of the parser
+	 */
+	CLEAN,
+	
+	/**
+	 * adjustForEscapedContent on each kept line
+	 */
+	ADJUST,
+	
+	/**
+	 * convertLinesToFile on the kept lines. Streaming parses have no conversion
+	 */
+	CONVERT;
+}
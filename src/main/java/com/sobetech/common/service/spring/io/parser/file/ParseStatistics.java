@@ -0,0 +1,292 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+/**
+ * The measurements of one parse of a text file. The line and byte counts are exact. Timing every
+ * line would cost more than reading it, so the per line stages are timed on one call in every 
+ * {@link #SAMPLE_INTERVAL} and scaled up by the number of calls. Stage times of a parallel parse are
+ * summed across threads, so together they can be more than the elapsed time
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public class ParseStatistics
+{
+	private static final double NANOS_PER_SECOND = 1_000_000_000d;
+	
+	/**
+	 * One call in this many to a per line stage is timed
+	 */
+	public static final int SAMPLE_INTERVAL = 32;
+	
+	/**
+	 * The time taken by a call to System.nanoTime, which is taken off each timed call since it can be
+	 * as long as the work being timed
+	 */
+	private static final long TIMER_OVERHEAD_NANOS = measureTimerOverhead();
+	
+	private final long[] stageNanos = new long[ParseStage.values().length];
+	
+	private final long[] stageCalls = new long[ParseStage.values().length];
+	
+	private final long[] sampledCalls = new long[ParseStage.values().length];
+	
+	private long linesRead;
+	
+	private long blankLines;
+	
+	private long filteredLines;
+	
+	private long headerLines;
+	
+	private long footerLines;
+	
+	private long rejectedLines;
+	
+	private long bytesRead;
+	
+	private long elapsedNanos;
+	
+	/**
+	 * The time spent in a stage of the parse in nanoseconds, estimated from the timed calls when not
+	 * every call was timed
+	 * 
+	 * @param stage The stage of the parse
+	 * @return The nanoseconds spent in the stage
+	 */
+	public long getStageNanos(ParseStage stage)
+	{
+		int index = stage.ordinal();
+		
+		if(this.sampledCalls[index] == 0)
+		{
+			return 0;
+		}
+		
+		return Math.round((double)this.stageNanos[index] * this.stageCalls[index] / this.sampledCalls[index]);
+	}
+	
+	/**
+	 * The number of lines read from the file, before any were dropped
+	 * 
+	 * @return the linesRead
+	 */
+	public long getLinesRead()
+	{
+		return this.linesRead;
+	}
+
+	/**
+	 * The number of blank lines dropped
+	 * 
+	 * @return the blankLines
+	 */
+	public long getBlankLines()
+	{
+		return this.blankLines;
+	}
+
+	/**
+	 * The number of lines dropped by the line stages of the parser
+	 * 
+	 * @return the filteredLines
+	 */
+	public long getFilteredLines()
+	{
+		return this.filteredLines;
+	}
+
+	/**
+	 * The number of header lines dropped
+	 * 
+	 * @return the headerLines
+	 */
+	public long getHeaderLines()
+	{
+		return this.headerLines;
+	}
+
+	/**
+	 * The number of footer lines dropped
+	 * 
+	 * @return the footerLines
+	 */
+	public long getFooterLines()
+	{
+		return this.footerLines;
+	}
+	
+	/**
+	 * The number of lines rejected by a parser in tolerant mode
+	 * 
+	 * @return the rejectedLines
+	 */
+	public long getRejectedLines()
+	{
+		return this.rejectedLines;
+	}
+	
+	/**
+	 * The total number of lines dropped for any reason
+	 * 
+	 * @return The blank, filtered, header, footer and rejected lines
+	 */
+	public long getLinesDropped()
+	{
+		return this.blankLines + this.filteredLines + this.headerLines + this.footerLines + this.rejectedLines;
+	}
+
+	/**
+	 * The number of bytes read from the file. For a compressed file this is the compressed size
+	 * 
+	 * @return the bytesRead
+	 */
+	public long getBytesRead()
+	{
+		return this.bytesRead;
+	}
+
+	/**
+	 * The time the whole parse took in nanoseconds
+	 * 
+	 * @return the elapsedNanos
+	 */
+	public long getElapsedNanos()
+	{
+		return this.elapsedNanos;
+	}
+	
+	/**
+	 * The average number of bytes read per second
+	 * 
+	 * @return The bytes per second or 0 if no time was recorded
+	 */
+	public double getBytesPerSecond()
+	{
+		return this.elapsedNanos == 0 ? 0 : this.bytesRead * NANOS_PER_SECOND / this.elapsedNanos;
+	}
+	
+	/**
+	 * Count a call to a per line stage
+	 * 
+	 * @return <code>true</code> if this call should be timed and passed to {@link #addSampledNanos}
+	 */
+	boolean isSampled(ParseStage stage)
+	{
+		return this.stageCalls[stage.ordinal()]++ % SAMPLE_INTERVAL == 0;
+	}
+	
+	void addSampledNanos(ParseStage stage, long nanos)
+	{
+		this.stageNanos[stage.ordinal()] += Math.max(nanos - TIMER_OVERHEAD_NANOS, 0);
+		this.sampledCalls[stage.ordinal()]++;
+	}
+	
+	/**
+	 * Add the time of a stage that is only called once, or timed as a whole, without sampling
+	 */
+	void addStageNanos(ParseStage stage, long nanos)
+	{
+		this.stageCalls[stage.ordinal()]++;
+		addSampledNanos(stage, nanos);
+	}
+	
+	void addLineRead()
+	{
+		this.linesRead++;
+	}
+	
+	void addBlankLine()
+	{
+		this.blankLines++;
+	}
+	
+	void addFilteredLine()
+	{
+		this.filteredLines++;
+	}
+	
+	void addRejectedLine()
+	{
+		this.rejectedLines++;
+	}
+	
+	void addHeaderLines(long lines)
+	{
+		this.headerLines += lines;
+	}
+	
+	void addFooterLines(long lines)
+	{
+		this.footerLines += lines;
+	}
+	
+	void addBytesRead(long bytes)
+	{
+		this.bytesRead += bytes;
+	}
+	
+	void setElapsedNanos(long elapsedNanos)
+	{
+		this.elapsedNanos = elapsedNanos;
+	}
+	
+	/**
+	 * Add the measurements of part of a parse made on another thread. Only the elapsed time is not
+	 * added, since it is measured for the whole parse
+	 */
+	synchronized void add(ParseStatistics other)
+	{
+		for(int index = 0; index < this.stageNanos.length; index++)
+		{
+			this.stageNanos[index] += other.stageNanos[index];
+			this.stageCalls[index] += other.stageCalls[index];
+			this.sampledCalls[index] += other.sampledCalls[index];
+		}
+		
+		this.linesRead += other.linesRead;
+		this.blankLines += other.blankLines;
+		this.filteredLines += other.filteredLines;
+		this.headerLines += other.headerLines;
+		this.footerLines += other.footerLines;
+		this.rejectedLines += other.rejectedLines;
+		this.bytesRead += other.bytesRead;
+	}
+
+	/**
+	 * The shortest time seen between two calls to System.nanoTime
+	 */
+	private static long measureTimerOverhead()
+	{
+		long overhead = Long.MAX_VALUE;
+		
+		for(int index = 0; index < 10_000; index++)
+		{
+			long start = System.nanoTime();
+			overhead = Math.min(overhead, System.nanoTime() - start);
+		}
+		
+		return overhead;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%d lines (%d dropped), %d bytes in %.3f s: read %.3f s, clean %.3f s, adjust %.3f s, "
+				+ "convert %.3f s", this.linesRead, getLinesDropped(), this.bytesRead, this.elapsedNanos / NANOS_PER_SECOND, 
+				getStageNanos(ParseStage.READ) / NANOS_PER_SECOND, getStageNanos(ParseStage.CLEAN) / NANOS_PER_SECOND, 
+				getStageNanos(ParseStage.ADJUST) / NANOS_PER_SECOND, getStageNanos(ParseStage.CONVERT) / NANOS_PER_SECOND);
+	}
+}
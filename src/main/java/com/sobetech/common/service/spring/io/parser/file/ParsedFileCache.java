@@ -0,0 +1,453 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongBiFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.sobetech.common.exception.ApiRuntimeException;
+
+/**
+ * A cache of parsed files shared by every parser that reads the same file. An entry is keyed by the 
+ * canonical path of the file, the class of the parser and the settings that change what it returns,
+ * and is only used while the length and last modified time of the file are unchanged.
+ * 
+ * Entries are evicted least recently used first once the estimated size of all of the entries 
+ * passes the maximum weight. When several threads ask for the same file that is not cached, only 
+ * one of them parses it and the others wait for that result.
+ * 
+ * The cached contents are shared by every caller, so they must be treated as read only
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+@Service
+public class ParsedFileCache
+{
+	protected final Logger LOG = LoggerFactory.getLogger(this.getClass());
+	
+	/**
+	 * The default maximum estimated size of all cached contents, in bytes
+	 */
+	public static final long DEFAULT_MAXIMUM_WEIGHT = 256L * 1024 * 1024;
+	
+	/**
+	 * The default estimate of how many bytes of heap the parsed contents use for each byte of the file
+	 */
+	public static final int DEFAULT_BYTES_PER_FILE_BYTE = 3;
+	
+	private final Map<CacheKey, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	
+	private final Map<CacheKey, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+	
+	private final AtomicLong hitCount = new AtomicLong();
+	
+	private final AtomicLong missCount = new AtomicLong();
+	
+	private final AtomicLong evictionCount = new AtomicLong();
+	
+	private long maximumWeight = DEFAULT_MAXIMUM_WEIGHT;
+	
+	private long totalWeight = 0;
+	
+	private ToLongBiFunction<File, Object> weigher = 
+			(file, contents) -> file.length() * DEFAULT_BYTES_PER_FILE_BYTE;
+	
+	/**
+	 * Get the parsed contents of the file of a parser, parsing it only if it is not already cached. 
+	 * The contents are also set on the parser. A parser that is not cacheable is always parsed and 
+	 * its result is not cached. A parser that returns <code>null</code> is cached like any other, so
+	 * the file is not parsed again until it changes
+	 * 
+	 * @param <O> The type of the parsed contents
+	 * @param parser The parser for the file
+	 * @return The parsed contents of the file
+	 * @throws FileNotFoundException If the file of the parser could not be found
+	 */
+	@SuppressWarnings("unchecked")
+	public <O> O parseFile(AbstractFileParser<O> parser) throws FileNotFoundException
+	{
+		if(!parser.isCacheable())
+		{
+			return parser.parseFile();
+		}
+		
+		File file = parser.getFile();
+		CacheKey key = createKey(parser);
+		long length = file.length();
+		long lastModified = file.lastModified();
+		
+		CacheEntry entry = getIfCurrent(key, length, lastModified);
+		if(entry != null)
+		{
+			this.hitCount.incrementAndGet();
+			parser.setFileContents((O)entry.contents);
+			return (O)entry.contents;
+		}
+		
+		CompletableFuture<Object> load = new CompletableFuture<>();
+		CompletableFuture<Object> runningLoad = this.loads.putIfAbsent(key, load);
+		
+		if(runningLoad != null)
+		{
+			this.hitCount.incrementAndGet();
+			Object contents = waitFor(runningLoad);
+			parser.setFileContents((O)contents);
+			return (O)contents;
+		}
+		
+		try
+		{
+			//Another thread may have finished loading between the first check and claiming the load
+			Object contents;
+			entry = getIfCurrent(key, length, lastModified);
+			if(entry != null)
+			{
+				this.hitCount.incrementAndGet();
+				contents = entry.contents;
+				parser.setFileContents((O)contents);
+			}
+			else
+			{
+				this.missCount.incrementAndGet();
+				contents = parser.parseFile();
+				put(key, new CacheEntry(contents, length, lastModified, this.weigher.applyAsLong(file, contents)));
+			}
+			
+			load.complete(contents);
+			return (O)contents;
+		}
+		catch(FileNotFoundException | RuntimeException | Error e)
+		{
+			load.completeExceptionally(e);
+			throw e;
+		}
+		finally
+		{
+			this.loads.remove(key, load);
+		}
+	}
+	
+	/**
+	 * Remove every cached entry for a file
+	 * 
+	 * @param file The file to remove
+	 */
+	public void invalidate(File file)
+	{
+		String path = toCanonicalPath(file);
+		
+		synchronized(this.entries)
+		{
+			Iterator<Map.Entry<CacheKey, CacheEntry>> iterator = this.entries.entrySet().iterator();
+			while(iterator.hasNext())
+			{
+				Map.Entry<CacheKey, CacheEntry> entry = iterator.next();
+				if(entry.getKey().path.equals(path))
+				{
+					this.totalWeight -= entry.getValue().weight;
+					iterator.remove();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Remove every cached entry
+	 */
+	public void invalidateAll()
+	{
+		synchronized(this.entries)
+		{
+			this.entries.clear();
+			this.totalWeight = 0;
+		}
+	}
+	
+	/**
+	 * The number of requests answered from the cache, including requests that waited for another 
+	 * thread to finish parsing the same file
+	 * 
+	 * @return the hitCount
+	 */
+	public long getHitCount()
+	{
+		return this.hitCount.get();
+	}
+	
+	/**
+	 * The number of requests that had to parse the file
+	 * 
+	 * @return the missCount
+	 */
+	public long getMissCount()
+	{
+		return this.missCount.get();
+	}
+	
+	/**
+	 * The number of entries removed to keep the cache under its maximum weight
+	 * 
+	 * @return the evictionCount
+	 */
+	public long getEvictionCount()
+	{
+		return this.evictionCount.get();
+	}
+	
+	/**
+	 * The number of entries in the cache
+	 * 
+	 * @return The number of entries
+	 */
+	public int size()
+	{
+		synchronized(this.entries)
+		{
+			return this.entries.size();
+		}
+	}
+	
+	/**
+	 * The estimated size of all of the cached contents in bytes
+	 * 
+	 * @return the totalWeight
+	 */
+	public long getTotalWeight()
+	{
+		synchronized(this.entries)
+		{
+			return this.totalWeight;
+		}
+	}
+
+	/**
+	 * The maximum estimated size of all of the cached contents in bytes
+	 * 
+	 * @return the maximumWeight
+	 */
+	public long getMaximumWeight()
+	{
+		return this.maximumWeight;
+	}
+
+	/**
+	 * Set the maximum estimated size of all of the cached contents in bytes. Entries are evicted 
+	 * straight away if the cache is now over this size
+	 * 
+	 * @param maximumWeight the maximumWeight to set
+	 */
+	public void setMaximumWeight(long maximumWeight)
+	{
+		synchronized(this.entries)
+		{
+			this.maximumWeight = maximumWeight;
+			evict();
+		}
+	}
+
+	/**
+	 * Set how the size of the parsed contents of a file is estimated. By default this is 
+	 * {@value #DEFAULT_BYTES_PER_FILE_BYTE} times the length of the file
+	 * 
+	 * @param weigher A function of the file and its parsed contents that returns an estimated size in bytes
+	 */
+	public void setWeigher(ToLongBiFunction<File, Object> weigher)
+	{
+		if(weigher == null)
+		{
+			throw new IllegalArgumentException("A cache needs a weigher");
+		}
+		
+		this.weigher = weigher;
+	}
+	
+	/**
+	 * Get the entry for a key if it was parsed from the current version of the file. The entry is 
+	 * returned rather than its contents so that cached <code>null</code> contents are still a hit
+	 */
+	private CacheEntry getIfCurrent(CacheKey key, long length, long lastModified)
+	{
+		synchronized(this.entries)
+		{
+			CacheEntry entry = this.entries.get(key);
+			
+			if(entry == null)
+			{
+				return null;
+			}
+			
+			if(entry.length != length || entry.lastModified != lastModified)
+			{
+				this.entries.remove(key);
+				this.totalWeight -= entry.weight;
+				return null;
+			}
+			
+			return entry;
+		}
+	}
+	
+	private void put(CacheKey key, CacheEntry entry)
+	{
+		synchronized(this.entries)
+		{
+			CacheEntry replaced = this.entries.put(key, entry);
+			if(replaced != null)
+			{
+				this.totalWeight -= replaced.weight;
+			}
+			
+			this.totalWeight += entry.weight;
+			evict();
+		}
+	}
+	
+	/**
+	 * Remove the least recently used entries until the cache is under its maximum weight
+	 */
+	private void evict()
+	{
+		Iterator<Map.Entry<CacheKey, CacheEntry>> iterator = this.entries.entrySet().iterator();
+		
+		while(this.totalWeight > this.maximumWeight && iterator.hasNext())
+		{
+			Map.Entry<CacheKey, CacheEntry> eldest = iterator.next();
+			this.totalWeight -= eldest.getValue().weight;
+			iterator.remove();
+			this.evictionCount.incrementAndGet();
+			LOG.debug("Evicted {} from the parsed file cache", eldest.getKey().path);
+		}
+	}
+	
+	private static Object waitFor(CompletableFuture<Object> load) throws FileNotFoundException
+	{
+		try
+		{
+			return load.join();
+		}
+		catch(CompletionException | CancellationException e)
+		{
+			Throwable cause = e.getCause() == null ? e : e.getCause();
+			
+			if(cause instanceof FileNotFoundException fileNotFoundException)
+			{
+				throw fileNotFoundException;
+			}
+			
+			if(cause instanceof RuntimeException runtimeException)
+			{
+				throw runtimeException;
+			}
+			
+			throw new ApiRuntimeException(cause);
+		}
+	}
+	
+	private static CacheKey createKey(AbstractFileParser<?> parser)
+	{
+		return new CacheKey(toCanonicalPath(parser.getFile()), parser.getClass(), parser.getParseSettings());
+	}
+	
+	private static String toCanonicalPath(File file)
+	{
+		try
+		{
+			return file.getCanonicalPath();
+		}
+		catch(IOException e)
+		{
+			return file.getAbsolutePath();
+		}
+	}
+	
+	/**
+	 * Identifies the parsed contents of a file
+	 */
+	private static class CacheKey
+	{
+		private final String path;
+		
+		private final Class<?> parserType;
+		
+		private final List<Object> settings;
+		
+		private CacheKey(String path, Class<?> parserType, List<Object> settings)
+		{
+			this.path = path;
+			this.parserType = parserType;
+			this.settings = settings;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return 31 * (31 * this.path.hashCode() + this.parserType.hashCode()) + this.settings.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object object)
+		{
+			if(this == object)
+			{
+				return true;
+			}
+			
+			if(!(object instanceof CacheKey other))
+			{
+				return false;
+			}
+			
+			return this.path.equals(other.path) && this.parserType.equals(other.parserType) 
+					&& this.settings.equals(other.settings);
+		}
+	}
+	
+	/**
+	 * The parsed contents of a file and the version of the file they were parsed from
+	 */
+	private static class CacheEntry
+	{
+		private final Object contents;
+		
+		private final long length;
+		
+		private final long lastModified;
+		
+		private final long weight;
+		
+		private CacheEntry(Object contents, long length, long lastModified, long weight)
+		{
+			this.contents = contents;
+			this.length = length;
+			this.lastModified = lastModified;
+			this.weight = weight;
+		}
+	}
+}
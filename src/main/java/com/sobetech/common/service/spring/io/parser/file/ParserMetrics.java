@@ -0,0 +1,34 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+/**
+ * Receives the measurements of each parse made by a text file parser. Set on a parser with
+ * {@link AbstractTextFileParser#setMetrics(ParserMetrics)}; when a parser has no metrics nothing 
+ * is measured. {@link MicrometerParserMetrics} publishes to a Micrometer MeterRegistry
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+@FunctionalInterface
+public interface ParserMetrics
+{
+	/**
+	 * Called once at the end of each successful parse, on the thread that started it
+	 * 
+	 * @param parser The parser that made the parse
+	 * @param statistics The measurements of the parse
+	 */
+	void parseCompleted(AbstractTextFileParser<?> parser, ParseStatistics statistics);
+}
@@ -0,0 +1,33 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+/**
+ * Receives the lines a parser in tolerant mode could not parse. It is called on the parsing thread
+ * as each line is rejected, so it should be quick, such as adding to a list or writing to a log
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ * @see AbstractTextFileParser#setRejectSink(RejectSink)
+ */
+@FunctionalInterface
+public interface RejectSink
+{
+	/**
+	 * Take a rejected line
+	 * 
+	 * @param rejectedLine The line and why it was rejected
+	 */
+	void reject(RejectedLine rejectedLine);
+}
@@ -0,0 +1,99 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+/**
+ * A line of a file that could not be parsed by a parser in tolerant mode, and why
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ * @see AbstractTextFileParser#setRejectSink(RejectSink)
+ */
+public class RejectedLine
+{
+	private final long lineNumber;
+	
+	private final long byteOffset;
+	
+	private final String line;
+	
+	private final RuntimeException cause;
+
+	/**
+	 * Create a RejectedLine
+	 * 
+	 * @param lineNumber The number of the line in the file, starting at 1
+	 * @param byteOffset The position of the first byte of the line or -1 if it is not known
+	 * @param line The line as it was when it was rejected
+	 * @param cause Why the line was rejected
+	 */
+	public RejectedLine(long lineNumber, long byteOffset, String line, RuntimeException cause)
+	{
+		this.lineNumber = lineNumber;
+		this.byteOffset = byteOffset;
+		this.line = line;
+		this.cause = cause;
+	}
+
+	/**
+	 * The number of the line in the file, starting at 1 and counting every line read including blank
+	 * and header lines. In tail mode lines are counted from where the read started
+	 * 
+	 * @return the lineNumber
+	 */
+	public long getLineNumber()
+	{
+		return this.lineNumber;
+	}
+
+	/**
+	 * The position of the first byte of the line. For a gzip file this is the position in the 
+	 * decompressed content
+	 * 
+	 * @return the byteOffset or -1 if it is not known, as for zip archives and charsets that are not
+	 * read a byte at a time
+	 */
+	public long getByteOffset()
+	{
+		return this.byteOffset;
+	}
+
+	/**
+	 * The line as it was when it was rejected. A line rejected by a line stage is as it was read 
+	 * from the file, any other line has already been cleaned
+	 * 
+	 * @return the line
+	 */
+	public String getLine()
+	{
+		return this.line;
+	}
+
+	/**
+	 * Why the line was rejected
+	 * 
+	 * @return the cause
+	 */
+	public RuntimeException getCause()
+	{
+		return this.cause;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "Line " + this.lineNumber + (this.byteOffset < 0 ? "" : " at byte " + this.byteOffset) + ": " 
+				+ this.cause.getMessage();
+	}
+}
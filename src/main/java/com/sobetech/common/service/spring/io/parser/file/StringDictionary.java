@@ -0,0 +1,168 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Assigns an int code to each distinct String in a column. A field is looked up by hashing its
+ * characters in the line, so a String is only created the first time a value is seen
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+class StringDictionary
+{
+	private final List<String> values = new ArrayList<>();
+	
+	private int[] table = new int[64];
+	
+	private long characterCount = 0;
+	
+	StringDictionary()
+	{
+		Arrays.fill(this.table, -1);
+	}
+	
+	/**
+	 * Find the code for a field, adding it to the dictionary if it has not been seen before
+	 * 
+	 * @param tokenizer The tokenizer holding the current line
+	 * @param field The index of the field
+	 * @return The code of the value
+	 */
+	int encode(CSVTokenizer tokenizer, int field)
+	{
+		if(tokenizer.hasEscapedQuotes(field))
+		{
+			return encode(tokenizer.getString(field));
+		}
+		
+		CharSequence line = tokenizer.getLine();
+		int start = tokenizer.getFieldStart(field);
+		int length = tokenizer.getFieldLength(field);
+		
+		int hash = 0;
+		for(int index = start; index < start + length; index++)
+		{
+			hash = 31 * hash + line.charAt(index);
+		}
+		
+		int slot = findSlot(hash, tokenizer, field, null);
+		if(this.table[slot] >= 0)
+		{
+			return this.table[slot];
+		}
+		
+		return add(slot, tokenizer.getString(field));
+	}
+	
+	/**
+	 * Find the code for a String, adding it to the dictionary if it has not been seen before
+	 * 
+	 * @param value The String to encode
+	 * @return The code of the value
+	 */
+	int encode(String value)
+	{
+		int slot = findSlot(value.hashCode(), null, 0, value);
+		if(this.table[slot] >= 0)
+		{
+			return this.table[slot];
+		}
+		
+		return add(slot, value);
+	}
+	
+	String decode(int code)
+	{
+		return this.values.get(code);
+	}
+	
+	List<String> getValues()
+	{
+		return Collections.unmodifiableList(this.values);
+	}
+	
+	/**
+	 * An estimate of the heap used by the distinct Strings and the lookup table
+	 */
+	long getEstimatedBytes()
+	{
+		long stringBytes = this.values.size() * (long)(ColumnarCSVFile.STRING_OVERHEAD_BYTES + ColumnarCSVFile.REFERENCE_BYTES);
+		return stringBytes + this.characterCount + (long)this.table.length * Integer.BYTES;
+	}
+	
+	private int findSlot(int hash, CSVTokenizer tokenizer, int field, String value)
+	{
+		int mask = this.table.length - 1;
+		int slot = mix(hash) & mask;
+		
+		while(this.table[slot] >= 0)
+		{
+			String existing = this.values.get(this.table[slot]);
+			
+			if(existing.hashCode() == hash 
+					&& (value != null ? existing.equals(value) : tokenizer.fieldEquals(field, existing)))
+			{
+				return slot;
+			}
+			
+			slot = (slot + 1) & mask;
+		}
+		
+		return slot;
+	}
+	
+	private int add(int slot, String value)
+	{
+		int code = this.values.size();
+		this.values.add(value);
+		this.table[slot] = code;
+		this.characterCount += value.length();
+		
+		//Keep the table at most half full so probes stay short
+		if(this.values.size() * 2 > this.table.length)
+		{
+			rehash();
+		}
+		
+		return code;
+	}
+	
+	private void rehash()
+	{
+		this.table = new int[this.table.length * 2];
+		Arrays.fill(this.table, -1);
+		int mask = this.table.length - 1;
+		
+		for(int code = 0; code < this.values.size(); code++)
+		{
+			int slot = mix(this.values.get(code).hashCode()) & mask;
+			while(this.table[slot] >= 0)
+			{
+				slot = (slot + 1) & mask;
+			}
+			this.table[slot] = code;
+		}
+	}
+	
+	private static int mix(int hash)
+	{
+		return hash ^ (hash >>> 16);
+	}
+}
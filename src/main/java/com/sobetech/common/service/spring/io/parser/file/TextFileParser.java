@@ -62,6 +62,16 @@ public class TextFileParser extends AbstractTextFileParser<TextFile>
 		super(fileName);
 	}
 
+	/**
+	 * Reject lines that a TextLine cannot be made from, since a failure in 
+	 * {@link #convertLinesToFile(List)} would stop the whole parse
+	 */
+	@Override
+	protected void checkLine(String line)
+	{
+		new TextLine(line);
+	}
+
 	@Override
 	protected TextFile convertLinesToFile(List<String> stringLines)
 	{
@@ -0,0 +1,157 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Reads the lines of every file entry in a zip archive, one entry after another. Each entry is read
+ * on its own, so the last line of an entry is never joined to the first line of the next
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public class ZipFileLineSource implements LineSource
+{
+	private final ZipFile zipFile;
+	
+	private final Enumeration<? extends ZipEntry> entries;
+	
+	private final Charset charset;
+	
+	private final LineTerminator lineTerminator;
+	
+	private final int bufferSize;
+	
+	private LineSource entryReader;
+
+	/**
+	 * Create a ZipFileLineSource
+	 * 
+	 * @param file The zip archive to read
+	 * @param charset The charset used to decode each entry
+	 * @param lineTerminator The characters that end a line
+	 * @param bufferSize The number of characters, or bytes for charsets that are read a byte at a 
+	 * time, to hold in the read buffer
+	 * @throws IOException If the archive could not be opened
+	 */
+	public ZipFileLineSource(File file, Charset charset, LineTerminator lineTerminator, int bufferSize) throws IOException
+	{
+		this.zipFile = new ZipFile(file);
+		this.entries = this.zipFile.entries();
+		this.charset = charset;
+		this.lineTerminator = lineTerminator;
+		this.bufferSize = bufferSize;
+	}
+
+	@Override
+	public String readLine() throws IOException
+	{
+		while(true)
+		{
+			if(this.entryReader != null)
+			{
+				String line = this.entryReader.readLine();
+				
+				if(line != null)
+				{
+					return line;
+				}
+				
+				this.entryReader.close();
+				this.entryReader = null;
+			}
+			
+			ZipEntry entry = nextFileEntry(this.entries);
+			
+			if(entry == null)
+			{
+				return null;
+			}
+			
+			this.entryReader = openEntry(this.zipFile, entry, this.charset, this.lineTerminator, this.bufferSize);
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			if(this.entryReader != null)
+			{
+				this.entryReader.close();
+			}
+		}
+		finally
+		{
+			this.zipFile.close();
+		}
+	}
+	
+	/**
+	 * Open a reader over a single entry of an archive. The entry is scanned a byte at a time when the 
+	 * charset allows it
+	 * 
+	 * @param zipFile The archive
+	 * @param entry The entry to read
+	 * @param charset The charset used to decode the entry
+	 * @param lineTerminator The characters that end a line
+	 * @param bufferSize The number of characters, or bytes for charsets that are read a byte at a 
+	 * time, to hold in the read buffer
+	 * @return A reader positioned at the start of the entry
+	 * @throws IOException If the entry could not be opened
+	 */
+	public static LineSource openEntry(ZipFile zipFile, ZipEntry entry, Charset charset, LineTerminator lineTerminator, 
+			int bufferSize) throws IOException
+	{
+		InputStream entryStream = zipFile.getInputStream(entry);
+		
+		if(ByteLineReader.supportsCharset(charset))
+		{
+			return new ChannelLineReader(Channels.newChannel(entryStream), charset, lineTerminator, bufferSize);
+		}
+		
+		return new LineReader(new InputStreamReader(entryStream, charset), lineTerminator, bufferSize);
+	}
+	
+	/**
+	 * Skip past any directories to the next entry that holds a file
+	 * 
+	 * @param entries The entries of the archive
+	 * @return The next file entry or <code>null</code> if there are none left
+	 */
+	public static ZipEntry nextFileEntry(Enumeration<? extends ZipEntry> entries)
+	{
+		while(entries.hasMoreElements())
+		{
+			ZipEntry entry = entries.nextElement();
+			
+			if(!entry.isDirectory())
+			{
+				return entry;
+			}
+		}
+		
+		return null;
+	}
+}
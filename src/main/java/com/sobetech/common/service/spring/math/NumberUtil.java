@@ -13,6 +13,7 @@ package com.sobetech.common.service.spring.math;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -408,4 +409,65 @@ public class NumberUtil
 		int middle2 = numbers.get(size / 2);
 		return (middle1 + middle2) / 2.0;
     }
+    
+    /**
+     * Find the median from an array of ints. The array is not changed
+     * 
+     * @param numbers An array of ints
+     * @return The median of this array
+     */
+    public double calculateMedian(int[] numbers)
+    {
+        if (numbers == null || numbers.length == 0) 
+        {
+            throw new IllegalArgumentException("Array must not be empty");
+        }
+        
+        int[] sorted = Arrays.copyOf(numbers, numbers.length);
+        Arrays.sort(sorted);
+        
+        int size = sorted.length;
+        if (size % 2 == 1) 
+        {
+            return sorted[size / 2];
+        }
+        
+        return ((long)sorted[size / 2 - 1] + sorted[size / 2]) / 2.0;
+    }
+    
+    /**
+     * Find the median from an array of doubles. NaN values are ignored and the array is not changed
+     * 
+     * @param numbers An array of doubles
+     * @return The median of this array
+     */
+    public double calculateMedian(double[] numbers)
+    {
+        if (numbers == null) 
+        {
+            throw new IllegalArgumentException("Array must not be empty");
+        }
+        
+        double[] sorted = Arrays.copyOf(numbers, numbers.length);
+        Arrays.sort(sorted);
+        
+        //Arrays.sort puts NaN values at the end
+        int size = sorted.length;
+        while (size > 0 && Double.isNaN(sorted[size - 1])) 
+        {
+            size--;
+        }
+        
+        if (size == 0) 
+        {
+            throw new IllegalArgumentException("Array must not be empty");
+        }
+        
+        if (size % 2 == 1) 
+        {
+            return sorted[size / 2];
+        }
+        
+        return (sorted[size / 2 - 1] + sorted[size / 2]) / 2.0;
+    }
 }
\ No newline at end of file
@@ -90,4 +90,123 @@ public class Statistics
         BigDecimal averageSquaredVariance = sumOfSquaredVariances.divide(new BigDecimal(values.size() - 1), MathContext.DECIMAL64);
         return StrictMath.sqrt(averageSquaredVariance.floatValue());
     }
-}
\ No newline at end of file
+    
+    /**
+     * Computes the mean of an array of double values with compensated summation so the result does
+     * not drift on large arrays. NaN values, such as empty fields in a ColumnarCSVFile, are skipped
+     * 
+     * @param values The values to compute the mean from
+     * @return The mean of the values or Double.NaN if the array is <code>null</code> or has no values
+     */
+    public static double getMean(double[] values)
+    {
+        if(values == null) return Double.NaN;
+        double sum = 0;
+        double compensation = 0;
+        int count = 0;
+        for(double value : values)
+        {
+            if(Double.isNaN(value)) continue;
+            double total = sum + value;
+            if(Math.abs(sum) >= Math.abs(value))
+            {
+                compensation += (sum - total) + value;
+            }
+            else
+            {
+                compensation += (value - total) + sum;
+            }
+            sum = total;
+            count++;
+        }
+        return count == 0 ? Double.NaN : (sum + compensation) / count;
+    }
+    
+    /**
+     * Computes the mean of an array of int values. The sum is kept as a long so it cannot overflow
+     * 
+     * @param values The values to compute the mean from
+     * @return The mean of the values or Double.NaN if the array is <code>null</code> or empty
+     */
+    public static double getMean(int[] values)
+    {
+        if(values == null || values.length == 0) return Double.NaN;
+        long sum = 0;
+        for(int value : values)
+        {
+            sum += value;
+        }
+        return (double)sum / values.length;
+    }
+    
+    /**
+     * Computes the mean of an array of long values with a MathContext.DECIMAL64 level of precision
+     * 
+     * @param values The values to compute the mean from
+     * @return The mean of the values or Double.NaN if the array is <code>null</code> or empty
+     */
+    public static double getMean(long[] values)
+    {
+        if(values == null || values.length == 0) return Double.NaN;
+        long sum = 0;
+        BigDecimal overflow = BigDecimal.ZERO;
+        for(long value : values)
+        {
+            long total = sum + value;
+            //Move the running sum into a BigDecimal only when it is about to overflow
+            if(((sum ^ total) & (value ^ total)) < 0)
+            {
+                overflow = overflow.add(BigDecimal.valueOf(sum));
+                total = value;
+            }
+            sum = total;
+        }
+        return overflow.add(BigDecimal.valueOf(sum)).divide(new BigDecimal(values.length), MathContext.DECIMAL64).doubleValue();
+    }
+    
+    /**
+     * Computes the standard deviation of the full population in an array of double values in a 
+     * single pass with Welford's method. NaN values are skipped
+     * 
+     * @param values The full population of values to compute the standard deviation from
+     * @return The standard deviation of the values or Double.NaN if the array is <code>null</code> or 
+     * has no values
+     */
+    public static double getPopulationStandardDeviation(double[] values)
+    {
+        double[] moments = getCountAndSumOfSquaredVariances(values);
+        return moments[0] == 0 ? Double.NaN : StrictMath.sqrt(moments[1] / moments[0]);
+    }
+    
+    /**
+     * Computes the standard deviation of a sample in an array of double values in a single pass with
+     * Welford's method. NaN values are skipped
+     * 
+     * @param values The sample population of values to compute the standard deviation from
+     * @return The standard deviation of the values or Double.NaN if the array has fewer than two values
+     */
+    public static double getSampleStandardDeviation(double[] values)
+    {
+        double[] moments = getCountAndSumOfSquaredVariances(values);
+        return moments[0] < 2 ? Double.NaN : StrictMath.sqrt(moments[1] / (moments[0] - 1));
+    }
+    
+    private static double[] getCountAndSumOfSquaredVariances(double[] values)
+    {
+        double count = 0;
+        double mean = 0;
+        double sumOfSquaredVariances = 0;
+        if(values != null)
+        {
+            for(double value : values)
+            {
+                if(Double.isNaN(value)) continue;
+                count++;
+                double delta = value - mean;
+                mean += delta / count;
+                sumOfSquaredVariances += delta * (value - mean);
+            }
+        }
+        return new double[] { count, sumOfSquaredVariances };
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.sql;
+
+/**
+ * What a batched write did and how fast it went
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public class BatchResult
+{
+	private final long rowsWritten;
+	
+	private final long rowsAffected;
+	
+	private final long batches;
+	
+	private final long elapsedNanos;
+	
+	/**
+	 * Create the result of a batched write
+	 * 
+	 * @param rowsWritten The number of rows sent to the database
+	 * @param rowsAffected The number of rows the database reported as changed
+	 * @param batches The number of batches executed
+	 * @param elapsedNanos The time the write took in nanoseconds
+	 */
+	public BatchResult(long rowsWritten, long rowsAffected, long batches, long elapsedNanos)
+	{
+		this.rowsWritten = rowsWritten;
+		this.rowsAffected = rowsAffected;
+		this.batches = batches;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * The number of rows sent to the database
+	 * 
+	 * @return the rowsWritten
+	 */
+	public long getRowsWritten()
+	{
+		return this.rowsWritten;
+	}
+
+	/**
+	 * The number of rows the database reported as changed. Drivers that do not report the count 
+	 * for a batch leave its rows out of this
+	 * 
+	 * @return the rowsAffected
+	 */
+	public long getRowsAffected()
+	{
+		return this.rowsAffected;
+	}
+
+	/**
+	 * The number of batches executed
+	 * 
+	 * @return the batches
+	 */
+	public long getBatches()
+	{
+		return this.batches;
+	}
+
+	/**
+	 * The time the write took, including committing it
+	 * 
+	 * @return the elapsedNanos
+	 */
+	public long getElapsedNanos()
+	{
+		return this.elapsedNanos;
+	}
+	
+	/**
+	 * The number of rows written per second
+	 * 
+	 * @return The rows per second or 0 if no time was measured
+	 */
+	public double getRowsPerSecond()
+	{
+		return this.elapsedNanos <= 0 ? 0 : this.rowsWritten * 1_000_000_000.0 / this.elapsedNanos;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("%d rows (%d affected) in %d batches, %.3f s at %.0f rows/s", this.rowsWritten, 
+				this.rowsAffected, this.batches, this.elapsedNanos / 1_000_000_000.0, getRowsPerSecond());
+	}
+}
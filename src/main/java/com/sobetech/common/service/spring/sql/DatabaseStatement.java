@@ -12,15 +12,37 @@
 package com.sobetech.common.service.spring.sql;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import javax.sql.DataSource;
+
+import com.sobetech.common.exception.ApiRuntimeException;
 import com.sobetech.common.model.sql.DatabaseConfiguration;
 
 /**
- * A class used to create SQL statements
+ * A class used to create SQL statements. Connections come from the DataSource set on the statement
+ * or, if there is none, from the {@link SimpleConnectionPool} shared by every statement with the 
+ * same driver, URL, user name and password
  * 
  * @author John Murray
  * 
@@ -30,8 +52,44 @@ import com.sobetech.common.model.sql.DatabaseConfiguration;
  */
 public abstract class DatabaseStatement<C extends DatabaseConfiguration>
 {
+    /**
+     * The default number of rows sent to the database in each batch
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    
+    /**
+     * The most placeholders put in one multi-row INSERT, which keeps it under the limits of 
+     * databases such as SQL Server
+     */
+    private static final int MULTI_ROW_PARAMETER_LIMIT = 2000;
+    
+    /**
+     * The default number of asynchronous queries that can run at once against one database
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_QUERIES = SimpleConnectionPool.DEFAULT_MAXIMUM_SIZE;
+    
+    private static final Executor VIRTUAL_THREAD_EXECUTOR = runnable -> Thread.ofVirtual().name("database-statement").start(runnable);
+    
+    private static final Map<String, QueryPermits> QUERY_PERMITS = new ConcurrentHashMap<>();
+    
+    /**
+     * The start of an INSERT up to the opening parenthesis of its VALUES
+     */
+    private static final Pattern INSERT_VALUES = Pattern.compile("^\\s*INSERT\\s+INTO\\s+.+?\\bVALUES\\s*(?=\\()", 
+    		Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    
     private C configuration;
     
+    private DataSource dataSource;
+    
+    private int fetchSize = 0;
+    
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    
+    private boolean multiRowInsert = false;
+    
+    private Executor asyncExecutor;
+    
     /**
      * Default constructor
      */
@@ -60,16 +118,12 @@ public abstract class DatabaseStatement<C extends DatabaseConfiguration>
      */
     protected void runQuery(String sql) throws SQLException
     {
-        if(this.configuration.getDriverClassName() == null)
-            throw new SQLException("Queries cannot be run with a null driver class name");
         Connection connection = null;
         Statement statement = null;
         ResultSet resultSet = null;
         try
         {
-            Class.forName(this.configuration.getDriverClassName());
-            connection = DriverManager.getConnection(this.configuration.getURLString(), 
-            		this.configuration.getUsername(), this.configuration.getPassword());   
+            connection = getConnection();
             
             if(!connection.isClosed())
             {
@@ -77,6 +131,7 @@ public abstract class DatabaseStatement<C extends DatabaseConfiguration>
             	
             	if(!statement.isClosed())
             	{
+            		applyFetchSize(statement);
             		resultSet = statement.executeQuery(sql);
                     processResultSet(resultSet);
             	}
@@ -90,10 +145,6 @@ public abstract class DatabaseStatement<C extends DatabaseConfiguration>
         		throw new SQLException("Query cannot be run on a closed connection");
         	}
         }
-        catch(ClassNotFoundException e)
-        {
-            throw new SQLException(this.configuration.getDriverClassName() + " was not found in the classpath");
-        }
         catch(SQLException rethrow)
         {
             throw rethrow;
@@ -120,6 +171,459 @@ public abstract class DatabaseStatement<C extends DatabaseConfiguration>
         }
     }
     
+    /**
+     * Run this parameterized SQL query. The SQL is prepared once for each pooled connection and the
+     * parameters are bound to its <code>?</code> placeholders in order, so the database can reuse 
+     * its plan for every value instead of parsing SQL with the values written into it
+     * 
+     * @param sql The SQL to run with a <code>?</code> placeholder for each parameter
+     * @param parameters The values to bind to the placeholders. A <code>null</code> is bound as SQL
+     * NULL
+     * @throws SQLException If an exception occurs when the query is run
+     */
+    protected void runQuery(String sql, Object... parameters) throws SQLException
+    {
+        try(Connection connection = getConnection(); 
+        		PreparedStatement statement = connection.prepareStatement(sql))
+        {
+            setParameters(statement, parameters);
+            applyFetchSize(statement);
+            
+            try(ResultSet resultSet = statement.executeQuery())
+            {
+                processResultSet(resultSet);
+            }
+        }
+    }
+    
+    /**
+     * Run a parameterized SQL query and map every row into a list
+     * 
+     * @param <T> The type of object each row is mapped to
+     * @param sql The SQL to run with a <code>?</code> placeholder for each parameter
+     * @param rowMapper The mapper called once for each row
+     * @param parameters The values to bind to the placeholders
+     * @return The mapped rows in the order they were returned
+     * @throws SQLException If an exception occurs when the query is run or a row is mapped
+     */
+    protected <T> List<T> queryForList(String sql, RowMapper<T> rowMapper, Object... parameters) throws SQLException
+    {
+        List<T> rows = new ArrayList<>();
+        
+        try(Connection connection = getConnection(); 
+        		PreparedStatement statement = prepareForwardOnly(connection, sql, parameters);
+        		ResultSet resultSet = statement.executeQuery())
+        {
+            long rowNumber = 0;
+            
+            while(resultSet.next())
+                rows.add(rowMapper.mapRow(resultSet, ++rowNumber));
+        }
+        
+        return rows;
+    }
+    
+    /**
+     * Run a parameterized SQL query and map its rows one at a time as the returned stream is 
+     * consumed. The rows are read through a forward only, read only cursor in batches of the fetch 
+     * size, so a result of any size is processed in constant memory as long as the driver honours 
+     * the fetch size.
+     * <p>
+     * The connection, statement and ResultSet stay open until the stream is closed or runs out of
+     * rows, so the stream should be used in a try-with-resources block. When the fetch size is set
+     * and the connection is in auto commit mode, auto commit is turned off until the stream is 
+     * closed, because drivers such as PostgreSQL only use a cursor inside a transaction. MySQL only 
+     * streams with a fetch size of Integer.MIN_VALUE
+     * 
+     * @param <T> The type of object each row is mapped to
+     * @param sql The SQL to run with a <code>?</code> placeholder for each parameter
+     * @param rowMapper The mapper called once for each row as it is consumed
+     * @param parameters The values to bind to the placeholders
+     * @return A lazy stream of the mapped rows. A failure while reading or mapping a row is thrown as
+     * an ApiRuntimeException with the SQLException as its cause
+     * @throws SQLException If an exception occurs when the query is run
+     * 
+     * @see #setFetchSize(int)
+     */
+    protected <T> Stream<T> queryForStream(String sql, RowMapper<T> rowMapper, Object... parameters) throws SQLException
+    {
+        QueryResources resources = new QueryResources();
+        
+        try
+        {
+            resources.connection = getConnection();
+            
+            if(this.fetchSize > 0 && resources.connection.getAutoCommit())
+            {
+                resources.connection.setAutoCommit(false);
+                resources.autoCommitChanged = true;
+            }
+            
+            resources.statement = prepareForwardOnly(resources.connection, sql, parameters);
+            resources.resultSet = resources.statement.executeQuery();
+        }
+        catch(SQLException | RuntimeException e)
+        {
+            resources.close(e);
+            throw e;
+        }
+        
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED)
+        {
+            private long rowNumber = 0;
+            
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action)
+            {
+                try
+                {
+                    if(resources.isClosed() || !resources.resultSet.next())
+                    {
+                        resources.close();
+                        return false;
+                    }
+                    
+                    action.accept(rowMapper.mapRow(resources.resultSet, ++this.rowNumber));
+                    return true;
+                }
+                catch(SQLException e)
+                {
+                    ApiRuntimeException failure = new ApiRuntimeException("Reading row " + (this.rowNumber + 1) 
+                    		+ " of the query failed", e);
+                    resources.close(failure);
+                    throw failure;
+                }
+            }
+        };
+        
+        return StreamSupport.stream(rows, false).onClose(resources::close);
+    }
+    
+    /**
+     * Prepare a parameterized query with a forward only, read only cursor and the fetch size of 
+     * this statement
+     */
+    private PreparedStatement prepareForwardOnly(Connection connection, String sql, Object... parameters) 
+    		throws SQLException
+    {
+        PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, 
+        		ResultSet.CONCUR_READ_ONLY);
+        
+        try
+        {
+            setParameters(statement, parameters);
+            applyFetchSize(statement);
+            return statement;
+        }
+        catch(SQLException | RuntimeException e)
+        {
+            statement.close();
+            throw e;
+        }
+    }
+    
+    private void applyFetchSize(Statement statement) throws SQLException
+    {
+        if(this.fetchSize != 0)
+            statement.setFetchSize(this.fetchSize);
+    }
+    
+    /**
+     * Bind values to the placeholders of a prepared statement in order
+     * 
+     * @param statement The statement to bind the values to
+     * @param parameters The values to bind. A <code>null</code> is bound as SQL NULL
+     * @throws SQLException If a value cannot be bound
+     */
+    protected static void setParameters(PreparedStatement statement, Object... parameters) throws SQLException
+    {
+        setParameters(statement, 0, parameters);
+    }
+    
+    /**
+     * Bind values to the placeholders of a prepared statement in order, starting after a number of 
+     * placeholders that are already bound
+     */
+    private static void setParameters(PreparedStatement statement, int offset, Object... parameters) throws SQLException
+    {
+        if(parameters == null)
+            return;
+        
+        for(int i = 0; i < parameters.length; i++)
+        {
+            if(parameters[i] == null)
+                statement.setNull(offset + i + 1, Types.NULL);
+            else
+                statement.setObject(offset + i + 1, parameters[i]);
+        }
+    }
+    
+    /**
+     * Write rows with a parameterized INSERT, UPDATE or DELETE. The rows are bound to the statement 
+     * and sent to the database in batches of the batch size, all in one transaction that is rolled 
+     * back if any row fails, so either every row is written or none are.
+     * <p>
+     * The transaction is only committed or rolled back here when the connection was in auto commit 
+     * mode. A connection that already has auto commit turned off, such as one from a DataSource 
+     * joined to a transaction the caller manages, is left for the caller to commit or roll back.
+     * <p>
+     * When multi-row inserts are turned on and the SQL is a plain <code>INSERT INTO ... VALUES 
+     * (...)</code>, the rows are instead sent as INSERTs with many VALUES rows each, which is much 
+     * faster on databases that parse every statement in a batch separately. Oracle does not support
+     * them, so they are not used there
+     * 
+     * @param sql The SQL to run for each row with a <code>?</code> placeholder for each value
+     * @param rows The values of each row in the order of the placeholders
+     * @return How many rows were written and how fast
+     * @throws SQLException If a row cannot be written, after the transaction is rolled back if it was 
+     * started here
+     * 
+     * @see #setBatchSize(int)
+     * @see #setMultiRowInsert(boolean)
+     */
+    protected BatchResult executeBatch(String sql, Stream<Object[]> rows) throws SQLException
+    {
+        long start = System.nanoTime();
+        
+        try(Connection connection = getConnection())
+        {
+            boolean autoCommitChanged = false;
+            BatchWriter writer = null;
+            Exception failure = null;
+            
+            try
+            {
+                if(connection.getAutoCommit())
+                {
+                    connection.setAutoCommit(false);
+                    autoCommitChanged = true;
+                }
+                
+                writer = new BatchWriter(connection, sql);
+                Iterator<Object[]> rowIterator = rows.iterator();
+                
+                while(rowIterator.hasNext())
+                    writer.write(rowIterator.next());
+                
+                writer.finish();
+                
+                if(autoCommitChanged)
+                    connection.commit();
+            }
+            catch(SQLException | RuntimeException e)
+            {
+                failure = e;
+                
+                try
+                {
+                    if(autoCommitChanged)
+                        connection.rollback();
+                }
+                catch(SQLException rollbackException)
+                {
+                    e.addSuppressed(rollbackException);
+                }
+                
+                throw e;
+            }
+            finally
+            {
+                SQLException cleanupFailure = null;
+                
+                try
+                {
+                    if(writer != null)
+                        writer.close();
+                }
+                catch(SQLException e)
+                {
+                    cleanupFailure = e;
+                }
+                
+                try
+                {
+                    if(autoCommitChanged)
+                        connection.setAutoCommit(true);
+                }
+                catch(SQLException e)
+                {
+                    cleanupFailure = QueryResources.addFailure(cleanupFailure, e);
+                }
+                
+                // A failure while cleaning up must not hide the one that made the batch fail
+                if(cleanupFailure != null && failure != null)
+                    failure.addSuppressed(cleanupFailure);
+                else if(cleanupFailure != null)
+                    throw cleanupFailure;
+            }
+            
+            return new BatchResult(writer.rowsWritten, writer.rowsAffected, writer.batches, System.nanoTime() - start);
+        }
+    }
+    
+    /**
+     * Run a parameterized SQL query without blocking the calling thread. The query runs on a 
+     * virtual thread, or the executor set on this statement, once fewer than the maximum number of 
+     * asynchronous queries are running against the same database, and 
+     * {@link #processResultSet(ResultSet)} is called on that thread
+     * 
+     * @param sql The SQL to run with a <code>?</code> placeholder for each parameter
+     * @param parameters The values to bind to the placeholders
+     * @return A future that completes when the ResultSet has been processed, or completes 
+     * exceptionally with the SQLException if the query fails
+     * 
+     * @see #setMaxConcurrentQueries(DatabaseConfiguration, int)
+     */
+    protected CompletableFuture<Void> runQueryAsync(String sql, Object... parameters)
+    {
+        return supplyAsync(() -> 
+        {
+            runQuery(sql, parameters);
+            return null;
+        });
+    }
+    
+    /**
+     * Run a parameterized SQL query and map every row into a list without blocking the calling 
+     * thread. Several of these can be started at once and joined, so independent queries run 
+     * concurrently up to the limit for the database
+     * 
+     * @param <T> The type of object each row is mapped to
+     * @param sql The SQL to run with a <code>?</code> placeholder for each parameter
+     * @param rowMapper The mapper called once for each row
+     * @param parameters The values to bind to the placeholders
+     * @return A future of the mapped rows, or that completes exceptionally with the SQLException if 
+     * the query fails
+     * 
+     * @see #runQueryAsync(String, Object...)
+     */
+    protected <T> CompletableFuture<List<T>> queryForListAsync(String sql, RowMapper<T> rowMapper, Object... parameters)
+    {
+        return supplyAsync(() -> queryForList(sql, rowMapper, parameters));
+    }
+    
+    /**
+     * Write rows with a parameterized statement in batches without blocking the calling thread
+     * 
+     * @param sql The SQL to run for each row with a <code>?</code> placeholder for each value
+     * @param rows The values of each row in the order of the placeholders
+     * @return A future of how many rows were written and how fast, or that completes exceptionally 
+     * with the SQLException if the write fails
+     * 
+     * @see #executeBatch(String, Stream)
+     */
+    protected CompletableFuture<BatchResult> executeBatchAsync(String sql, Stream<Object[]> rows)
+    {
+        return supplyAsync(() -> executeBatch(sql, rows));
+    }
+    
+    /**
+     * Run some database work on the async executor once a permit for the database is free
+     */
+    private <T> CompletableFuture<T> supplyAsync(DatabaseWork<T> work)
+    {
+        Semaphore permits = this.configuration == null ? null : getQueryPermits(this.configuration);
+        Executor executor = this.asyncExecutor == null ? VIRTUAL_THREAD_EXECUTOR : this.asyncExecutor;
+        CompletableFuture<T> future = new CompletableFuture<>();
+        
+        executor.execute(() -> 
+        {
+            try
+            {
+                if(permits != null)
+                    permits.acquire();
+            }
+            catch(InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                future.completeExceptionally(e);
+                return;
+            }
+            
+            try
+            {
+                future.complete(work.run());
+            }
+            catch(Throwable t)
+            {
+                future.completeExceptionally(t);
+            }
+            finally
+            {
+                if(permits != null)
+                    permits.release();
+            }
+        });
+        
+        return future;
+    }
+    
+    private static Semaphore getQueryPermits(DatabaseConfiguration configuration)
+    {
+        return QUERY_PERMITS.computeIfAbsent(SimpleConnectionPool.configurationKey(configuration), 
+        		key -> new QueryPermits(DEFAULT_MAX_CONCURRENT_QUERIES));
+    }
+    
+    /**
+     * Set how many asynchronous queries can run at once against the database of a configuration. 
+     * Every configuration with the same driver, URL, user name and password shares the limit. Queries
+     * that are already running or waiting keep the limit they started with. The shared connection 
+     * pool for the database should be at least this large or queries will wait for connections 
+     * instead
+     * 
+     * @param configuration The configuration of the database
+     * @param maxConcurrentQueries The number of queries that can run at once
+     */
+    public static void setMaxConcurrentQueries(DatabaseConfiguration configuration, int maxConcurrentQueries)
+    {
+        QUERY_PERMITS.put(SimpleConnectionPool.configurationKey(configuration), 
+        		new QueryPermits(Math.max(maxConcurrentQueries, 1)));
+    }
+    
+    /**
+     * Get how many asynchronous queries can run at once against the database of a configuration
+     * 
+     * @param configuration The configuration of the database
+     * @return The number of queries that can run at once
+     */
+    public static int getMaxConcurrentQueries(DatabaseConfiguration configuration)
+    {
+        QueryPermits permits = QUERY_PERMITS.get(SimpleConnectionPool.configurationKey(configuration));
+        return permits == null ? DEFAULT_MAX_CONCURRENT_QUERIES : permits.limit;
+    }
+    
+    /**
+     * Whether the database of a connection supports INSERTs with more than one VALUES row
+     * 
+     * @param connection The connection to the database
+     * @return <code>false</code> for Oracle, otherwise <code>true</code>
+     * @throws SQLException If the database cannot be identified
+     */
+    protected boolean supportsMultiRowInsert(Connection connection) throws SQLException
+    {
+        String productName = connection.getMetaData().getDatabaseProductName();
+        return productName == null || !productName.toLowerCase(Locale.ROOT).contains("oracle");
+    }
+    
+    /**
+     * Get a connection to run a statement on. Closing it returns it to the pool it came from
+     * 
+     * @return A connection from the DataSource of this statement or the shared pool for its 
+     * configuration
+     * @throws SQLException If a connection cannot be made
+     */
+    protected Connection getConnection() throws SQLException
+    {
+        if(this.dataSource != null)
+            return this.dataSource.getConnection();
+        
+        if(this.configuration == null)
+            throw new SQLException("Queries cannot be run without a configuration or a DataSource");
+        if(this.configuration.getDriverClassName() == null)
+            throw new SQLException("Queries cannot be run with a null driver class name");
+        return SimpleConnectionPool.forConfiguration(this.configuration).getConnection();
+    }
+    
     /**
      * Process a ResultSet that was returned by the database
      * 
@@ -147,4 +651,459 @@ public abstract class DatabaseStatement<C extends DatabaseConfiguration>
     {
         this.configuration = configuration;
     }
+
+    /**
+     * Get the DataSource connections are taken from
+     * 
+     * @return The DataSource or <code>null</code> if the shared pool for the configuration is used
+     */
+    public DataSource getDataSource()
+    {
+        return this.dataSource;
+    }
+
+    /**
+     * Set the DataSource connections are taken from, such as an application server pool or a 
+     * {@link SimpleConnectionPool} with its own settings
+     * 
+     * @param dataSource The DataSource to use or <code>null</code> to use the shared pool for the 
+     * configuration
+     */
+    public void setDataSource(DataSource dataSource)
+    {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Get the number of rows fetched from the database at a time
+     * 
+     * @return The fetch size or 0 if the driver's default is used
+     */
+    public int getFetchSize()
+    {
+        return this.fetchSize;
+    }
+
+    /**
+     * Set the number of rows fetched from the database at a time by every query this statement runs.
+     * Some drivers read the whole result into memory unless this is set
+     * 
+     * @param fetchSize The fetch size or 0 to use the driver's default
+     */
+    public void setFetchSize(int fetchSize)
+    {
+        this.fetchSize = fetchSize;
+    }
+    
+    /**
+     * Get the number of rows sent to the database in each batch
+     * 
+     * @return The batch size
+     */
+    public int getBatchSize()
+    {
+        return this.batchSize;
+    }
+
+    /**
+     * Set the number of rows sent to the database in each batch by {@link #executeBatch(String, Stream)}
+     * 
+     * @param batchSize The batch size
+     */
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = Math.max(batchSize, 1);
+    }
+
+    /**
+     * Get whether batched INSERTs are rewritten into INSERTs with many VALUES rows
+     * 
+     * @return <code>true</code> if multi-row inserts are used where the database supports them
+     */
+    public boolean isMultiRowInsert()
+    {
+        return this.multiRowInsert;
+    }
+
+    /**
+     * Set whether batched INSERTs are rewritten into INSERTs with many VALUES rows where the database
+     * supports them. MySQL drivers can do this themselves with <code>rewriteBatchedStatements</code>
+     * 
+     * @param multiRowInsert <code>true</code> to use multi-row inserts
+     */
+    public void setMultiRowInsert(boolean multiRowInsert)
+    {
+        this.multiRowInsert = multiRowInsert;
+    }
+    
+    /**
+     * Get the executor asynchronous queries run on
+     * 
+     * @return The executor or <code>null</code> if each query runs on a new virtual thread
+     */
+    public Executor getAsyncExecutor()
+    {
+        return this.asyncExecutor;
+    }
+
+    /**
+     * Set the executor asynchronous queries run on
+     * 
+     * @param asyncExecutor The executor or <code>null</code> to run each query on a new virtual thread
+     */
+    public void setAsyncExecutor(Executor asyncExecutor)
+    {
+        this.asyncExecutor = asyncExecutor;
+    }
+    
+    /**
+     * The fair semaphore that limits the asynchronous queries against one database
+     */
+    private static final class QueryPermits extends Semaphore
+    {
+        private static final long serialVersionUID = 5873190245862148417L;
+        
+        private final int limit;
+        
+        private QueryPermits(int limit)
+        {
+            super(limit, true);
+            this.limit = limit;
+        }
+    }
+    
+    /**
+     * Database work run by an asynchronous query
+     */
+    @FunctionalInterface
+    private interface DatabaseWork<T>
+    {
+        T run() throws SQLException;
+    }
+    
+    /**
+     * Binds rows to a statement and executes them in batches, joining them into multi-row INSERTs 
+     * when that is turned on and possible
+     */
+    private final class BatchWriter
+    {
+        private final Connection connection;
+        
+        private final PreparedStatement statement;
+        
+        private final String insertPrefix;
+        
+        private final String valuesRow;
+        
+        private final int parametersPerRow;
+        
+        private final int rowsPerStatement;
+        
+        private final Object[][] pendingRows;
+        
+        private int pendingRowCount = 0;
+        
+        private int rowsInBatch = 0;
+        
+        private long rowsWritten = 0;
+        
+        private long rowsAffected = 0;
+        
+        private long batches = 0;
+        
+        private BatchWriter(Connection connection, String sql) throws SQLException
+        {
+            this.connection = connection;
+            int valuesStart = multiRowInsert ? findValuesRow(sql) : -1;
+            int placeholders = valuesStart < 0 ? 0 : countPlaceholders(sql, valuesStart);
+            int rowsPerInsert = placeholders == 0 ? 1 : Math.min(batchSize, MULTI_ROW_PARAMETER_LIMIT / placeholders);
+            
+            if(rowsPerInsert > 1 && supportsMultiRowInsert(connection))
+            {
+                this.insertPrefix = sql.substring(0, valuesStart);
+                this.valuesRow = sql.substring(valuesStart, sql.lastIndexOf(')') + 1);
+                this.parametersPerRow = placeholders;
+                this.rowsPerStatement = rowsPerInsert;
+                this.pendingRows = new Object[rowsPerInsert][];
+                this.statement = connection.prepareStatement(multiRowSql(rowsPerInsert));
+            }
+            else
+            {
+                this.insertPrefix = null;
+                this.valuesRow = null;
+                this.parametersPerRow = 0;
+                this.rowsPerStatement = 1;
+                this.pendingRows = null;
+                this.statement = connection.prepareStatement(sql);
+            }
+        }
+        
+        private void write(Object[] row) throws SQLException
+        {
+            if(this.rowsPerStatement == 1)
+            {
+                setParameters(this.statement, row);
+                addBatch(1);
+                return;
+            }
+            
+            if(row == null || row.length != this.parametersPerRow)
+                throw new SQLException("Row " + (this.rowsWritten + this.pendingRowCount + 1) + " has " 
+                		+ (row == null ? 0 : row.length) + " values for " + this.parametersPerRow + " placeholders");
+            
+            this.pendingRows[this.pendingRowCount++] = row;
+            
+            if(this.pendingRowCount == this.rowsPerStatement)
+            {
+                bindPendingRows(this.statement);
+                addBatch(this.rowsPerStatement);
+            }
+        }
+        
+        /**
+         * Execute what is left in the batch and any rows too few to fill a multi-row INSERT. The 
+         * INSERT for the leftover rows is marked as not poolable since its SQL is only used once, so 
+         * it does not push statements that are used again out of the pool's statement cache
+         */
+        private void finish() throws SQLException
+        {
+            executeBatch();
+            
+            if(this.pendingRowCount == 0)
+                return;
+            
+            int remainingRows = this.pendingRowCount;
+            
+            try(PreparedStatement remainder = this.connection.prepareStatement(multiRowSql(remainingRows)))
+            {
+                remainder.setPoolable(false);
+                bindPendingRows(remainder);
+                this.rowsAffected += Math.max(remainder.executeUpdate(), 0);
+                this.rowsWritten += remainingRows;
+                this.batches++;
+            }
+        }
+        
+        private void addBatch(int rows) throws SQLException
+        {
+            this.statement.addBatch();
+            this.rowsInBatch += rows;
+            
+            if(this.rowsInBatch >= batchSize)
+                executeBatch();
+        }
+        
+        private void executeBatch() throws SQLException
+        {
+            if(this.rowsInBatch == 0)
+                return;
+            
+            for(int updateCount : this.statement.executeBatch())
+            {
+                if(updateCount > 0)
+                    this.rowsAffected += updateCount;
+            }
+            
+            this.rowsWritten += this.rowsInBatch;
+            this.rowsInBatch = 0;
+            this.batches++;
+        }
+        
+        private void bindPendingRows(PreparedStatement target) throws SQLException
+        {
+            for(int i = 0; i < this.pendingRowCount; i++)
+            {
+                setParameters(target, i * this.parametersPerRow, this.pendingRows[i]);
+                this.pendingRows[i] = null;
+            }
+            
+            this.pendingRowCount = 0;
+        }
+        
+        private String multiRowSql(int rows)
+        {
+            StringBuilder sql = new StringBuilder(this.insertPrefix.length() + rows * (this.valuesRow.length() + 1));
+            sql.append(this.insertPrefix);
+            
+            for(int i = 0; i < rows; i++)
+            {
+                if(i > 0)
+                    sql.append(',');
+                sql.append(this.valuesRow);
+            }
+            
+            return sql.toString();
+        }
+        
+        private void close() throws SQLException
+        {
+            this.statement.close();
+        }
+    }
+    
+    /**
+     * Find the VALUES row of a plain <code>INSERT INTO ... VALUES (...)</code> with nothing after it
+     * but a semicolon
+     * 
+     * @return The index of the opening parenthesis of the row or -1 if the SQL is anything else
+     */
+    private static int findValuesRow(String sql)
+    {
+        Matcher matcher = INSERT_VALUES.matcher(sql);
+        
+        if(!matcher.find())
+            return -1;
+        
+        int start = matcher.end();
+        int depth = 0;
+        boolean quoted = false;
+        
+        for(int i = start; i < sql.length(); i++)
+        {
+            char c = sql.charAt(i);
+            
+            if(c == '\'')
+                quoted = !quoted;
+            else if(!quoted && c == '(')
+                depth++;
+            else if(!quoted && c == ')' && --depth == 0)
+                return sql.substring(i + 1).replace(';', ' ').isBlank() ? start : -1;
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Count the placeholders outside of quotes from an index to the end of some SQL
+     */
+    private static int countPlaceholders(String sql, int start)
+    {
+        int placeholders = 0;
+        boolean quoted = false;
+        
+        for(int i = start; i < sql.length(); i++)
+        {
+            char c = sql.charAt(i);
+            
+            if(c == '\'')
+                quoted = !quoted;
+            else if(!quoted && c == '?')
+                placeholders++;
+        }
+        
+        return placeholders;
+    }
+    
+    /**
+     * The connection, statement and ResultSet of a streaming query, closed together when the stream
+     * is closed or runs out of rows
+     */
+    private static final class QueryResources
+    {
+        private Connection connection;
+        
+        private PreparedStatement statement;
+        
+        private ResultSet resultSet;
+        
+        private boolean autoCommitChanged = false;
+        
+        private boolean closed = false;
+        
+        private boolean isClosed()
+        {
+            return this.closed;
+        }
+        
+        /**
+         * Close everything, throwing the first failure
+         */
+        private void close()
+        {
+            SQLException failure = closeAll();
+            
+            if(failure != null)
+                throw new ApiRuntimeException("Closing the query failed", failure);
+        }
+        
+        /**
+         * Close everything, adding any failures to an exception that is already being thrown
+         */
+        private void close(Exception failure)
+        {
+            SQLException closeFailure = closeAll();
+            
+            if(closeFailure != null)
+                failure.addSuppressed(closeFailure);
+        }
+        
+        /**
+         * Close everything that was opened, even if closing one of them fails
+         * 
+         * @return The first failure with any others suppressed by it, or <code>null</code>
+         */
+        private SQLException closeAll()
+        {
+            if(this.closed)
+                return null;
+            this.closed = true;
+            
+            SQLException failure = null;
+            
+            try
+            {
+                if(this.resultSet != null)
+                    this.resultSet.close();
+            }
+            catch(SQLException e)
+            {
+                failure = e;
+            }
+            
+            try
+            {
+                if(this.statement != null)
+                    this.statement.close();
+            }
+            catch(SQLException e)
+            {
+                failure = addFailure(failure, e);
+            }
+            
+            if(this.connection == null)
+                return failure;
+            
+            try
+            {
+                if(this.autoCommitChanged)
+                {
+                    this.connection.rollback();
+                    this.connection.setAutoCommit(true);
+                }
+            }
+            catch(SQLException e)
+            {
+                failure = addFailure(failure, e);
+            }
+            
+            try
+            {
+                this.connection.close();
+            }
+            catch(SQLException e)
+            {
+                failure = addFailure(failure, e);
+            }
+            
+            return failure;
+        }
+        
+        private static SQLException addFailure(SQLException failure, SQLException e)
+        {
+            if(failure == null)
+                return e;
+            failure.addSuppressed(e);
+            return failure;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.sql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a ResultSet to an object
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ * @param <T> The type of object each row is mapped to
+ */
+@FunctionalInterface
+public interface RowMapper<T>
+{
+	/**
+	 * Map the current row of a ResultSet. The ResultSet should not be moved to another row
+	 * 
+	 * @param resultSet The ResultSet positioned on the row to map
+	 * @param rowNumber The number of the row, starting at 1
+	 * @return The object for the row
+	 * @throws SQLException If there is an issue accessing the data in the row
+	 */
+	T mapRow(ResultSet resultSet, long rowNumber) throws SQLException;
+}
@@ -0,0 +1,1524 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.sql;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sobetech.common.exception.ApiRuntimeException;
+import com.sobetech.common.model.sql.DatabaseConfiguration;
+
+/**
+ * A small DataSource that keeps the connections to one database open between queries so that each
+ * query does not pay for a new connection and login. Connections are handed out most recently used
+ * first, checked with {@link Connection#isValid(int)} when they are borrowed, and closed by a 
+ * background thread once they have been idle for longer than the idle timeout. Closing a borrowed 
+ * connection returns it to the pool, rolling back any open transaction and undoing changes to its
+ * auto commit, read only, isolation, catalog and schema settings. Statements are not closed for the
+ * caller when a connection is returned, except for the cached prepared statements below.
+ * <p>
+ * Each connection keeps a least recently used cache of the statements made with 
+ * {@link Connection#prepareStatement(String)}, or with an explicit forward only, read only cursor, 
+ * keyed by their SQL, so running the same SQL again on the connection skips preparing it on the 
+ * server. Closing a cached statement clears its parameters and batch and puts it back in the cache
+ * instead of closing it. A statement that is still open when its connection is returned is put back
+ * for the caller.
+ * <p>
+ * {@link #forConfiguration(DatabaseConfiguration)} shares one pool between every configuration with
+ * the same driver, URL, user name and password, which is how DatabaseStatement gets its connections 
+ * unless it is given another DataSource. Closing a shared pool removes it, so the next configuration
+ * that asks for it gets a new one.
+ * 
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+public class SimpleConnectionPool implements DataSource, AutoCloseable
+{
+	/**
+	 * The default largest number of connections that can be open at once
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 10;
+	
+	/**
+	 * The default number of milliseconds a connection can sit idle before it is closed
+	 */
+	public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+	
+	/**
+	 * The default number of milliseconds to wait for a connection when all of them are in use
+	 */
+	public static final long DEFAULT_BORROW_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+	
+	/**
+	 * The default number of seconds the database has to answer when a connection is validated
+	 */
+	public static final int DEFAULT_VALIDATION_TIMEOUT_SECONDS = 5;
+	
+	/**
+	 * The default number of prepared statements cached for each connection
+	 */
+	public static final int DEFAULT_STATEMENT_CACHE_SIZE = 32;
+	
+	/**
+	 * Statement settings that are put back to how they were when a cached statement is returned
+	 */
+	private static final Set<String> RESETTABLE_STATEMENT_SETTINGS = Set.of("setFetchSize", "setMaxRows", 
+			"setQueryTimeout");
+	
+	/**
+	 * Statement settings that keep a statement from being cached again once they are changed
+	 */
+	private static final Set<String> UNCACHEABLE_STATEMENT_SETTINGS = Set.of("setFetchDirection", "setMaxFieldSize", 
+			"setEscapeProcessing", "setPoolable", "setCursorName", "setLargeMaxRows", "closeOnCompletion");
+	
+	/**
+	 * A connection that was returned this recently is not validated again when it is borrowed
+	 */
+	private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+	
+	private static final Map<String, SimpleConnectionPool> SHARED_POOLS = new ConcurrentHashMap<>();
+	
+	protected final Logger LOG = LoggerFactory.getLogger(this.getClass());
+	
+	private final String url;
+	
+	private final String username;
+	
+	private final String password;
+	
+	private final String sharedKey;
+	
+	private final ReentrantLock lock = new ReentrantLock();
+	
+	private final Condition connectionAvailable = this.lock.newCondition();
+	
+	private final ArrayDeque<PooledConnection> idleConnections = new ArrayDeque<>();
+	
+	private final ScheduledExecutorService evictor;
+	
+	private ScheduledFuture<?> evictionTask;
+	
+	private volatile int minimumSize = 0;
+	
+	private volatile int maximumSize = DEFAULT_MAXIMUM_SIZE;
+	
+	private volatile long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+	
+	private volatile long borrowTimeoutMillis = DEFAULT_BORROW_TIMEOUT_MILLIS;
+	
+	private volatile int validationTimeoutSeconds = DEFAULT_VALIDATION_TIMEOUT_SECONDS;
+	
+	private volatile boolean validateOnBorrow = true;
+	
+	private volatile int statementCacheSize = DEFAULT_STATEMENT_CACHE_SIZE;
+	
+	private final LongAdder statementCacheHits = new LongAdder();
+	
+	private final LongAdder statementCacheMisses = new LongAdder();
+	
+	private boolean closed = false;
+	
+	private int totalConnections = 0;
+	
+	private int waitingThreads = 0;
+	
+	private long connectionsCreated = 0;
+	
+	private long connectionsDestroyed = 0;
+	
+	private long borrowCount = 0;
+	
+	private long borrowWaitNanos = 0;
+	
+	private long borrowTimeouts = 0;
+	
+	private long validationFailures = 0;
+	
+	/**
+	 * Create a pool for the database in a configuration
+	 * 
+	 * @param configuration The configuration of the database to connect to
+	 * @throws SQLException If the configuration is not valid or its driver is not in the classpath
+	 */
+	public SimpleConnectionPool(DatabaseConfiguration configuration) throws SQLException
+	{
+		if(configuration == null || !configuration.isValid())
+		{
+			throw new SQLException("The Information passed to form a connection was invalid or null");
+		}
+		
+		if(configuration.getDriverClassName() == null)
+		{
+			throw new SQLException("Connections cannot be made with a null driver class name");
+		}
+		
+		try
+		{
+			Class.forName(configuration.getDriverClassName());
+		}
+		catch(ClassNotFoundException e)
+		{
+			throw new SQLException(configuration.getDriverClassName() + " was not found in the classpath", e);
+		}
+		
+		this.url = configuration.getURLString();
+		this.username = configuration.getUsername();
+		this.password = configuration.getPassword();
+		this.sharedKey = configurationKey(configuration);
+		this.evictor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("connection-pool-evictor")
+				.daemon().factory());
+		scheduleEviction();
+	}
+	
+	/**
+	 * Get the pool shared by every configuration with the same driver, URL, user name and password, 
+	 * creating it the first time it is needed or after the last one was closed
+	 * 
+	 * @param configuration The configuration of the database to connect to
+	 * @return The shared pool for the database
+	 * @throws SQLException If the configuration is not valid or its driver is not in the classpath
+	 */
+	public static SimpleConnectionPool forConfiguration(DatabaseConfiguration configuration) throws SQLException
+	{
+		if(configuration == null || !configuration.isValid())
+		{
+			throw new SQLException("The Information passed to form a connection was invalid or null");
+		}
+		
+		String key = configurationKey(configuration);
+		SimpleConnectionPool pool = SHARED_POOLS.get(key);
+		
+		if(pool != null && !pool.isClosed())
+		{
+			return pool;
+		}
+		
+		synchronized(SHARED_POOLS)
+		{
+			pool = SHARED_POOLS.get(key);
+			
+			if(pool == null || pool.isClosed())
+			{
+				pool = new SimpleConnectionPool(configuration);
+				SHARED_POOLS.put(key, pool);
+			}
+			
+			return pool;
+		}
+	}
+	
+	/**
+	 * The key that configurations for the same database and login share. The password is only kept 
+	 * as a hash so it does not show up in the key
+	 */
+	static String configurationKey(DatabaseConfiguration configuration)
+	{
+		return configuration.getDriverClassName() + '|' + configuration.getURLString() + '|' 
+				+ configuration.getUsername() + '|' + hashPassword(configuration.getPassword());
+	}
+	
+	/**
+	 * Get the SHA-256 hash of a password as hex
+	 */
+	private static String hashPassword(String password)
+	{
+		if(password == null)
+		{
+			return "";
+		}
+		
+		try
+		{
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(digest.digest(password.getBytes(StandardCharsets.UTF_8)));
+		}
+		catch(NoSuchAlgorithmException e)
+		{
+			throw new ApiRuntimeException("SHA-256 is not available", e);
+		}
+	}
+	
+	/**
+	 * Close every shared pool. A configuration that is used again afterwards gets a new pool
+	 */
+	public static void closeSharedPools()
+	{
+		synchronized(SHARED_POOLS)
+		{
+			new ArrayList<>(SHARED_POOLS.values()).forEach(SimpleConnectionPool::close);
+			SHARED_POOLS.clear();
+		}
+	}
+	
+	/**
+	 * Borrow a connection, opening a new one if none are idle and the pool is not full, or waiting 
+	 * for one to be returned if it is. The connection goes back to the pool when it is closed
+	 * 
+	 * @return A connection that has been validated
+	 * @throws SQLException If the pool is closed, a new connection cannot be opened or none is 
+	 * returned before the borrow timeout
+	 */
+	@Override
+	public Connection getConnection() throws SQLException
+	{
+		long start = System.nanoTime();
+		long remainingNanos = TimeUnit.MILLISECONDS.toNanos(this.borrowTimeoutMillis);
+		
+		while(true)
+		{
+			PooledConnection idleConnection = null;
+			this.lock.lock();
+			
+			try
+			{
+				while(!this.closed && this.idleConnections.isEmpty() && this.totalConnections >= this.maximumSize)
+				{
+					if(remainingNanos <= 0)
+					{
+						this.borrowTimeouts++;
+						throw new SQLTransientConnectionException("No connection to " + this.url 
+								+ " was available after " + this.borrowTimeoutMillis + " ms with all " 
+								+ this.totalConnections + " in use");
+					}
+					
+					this.waitingThreads++;
+					
+					try
+					{
+						remainingNanos = this.connectionAvailable.awaitNanos(remainingNanos);
+					}
+					catch(InterruptedException e)
+					{
+						Thread.currentThread().interrupt();
+						throw new SQLTransientConnectionException("Interrupted while waiting for a connection", e);
+					}
+					finally
+					{
+						this.waitingThreads--;
+					}
+				}
+				
+				if(this.closed)
+				{
+					throw new SQLException("The connection pool for " + this.url + " is closed");
+				}
+				
+				idleConnection = this.idleConnections.pollLast();
+				
+				if(idleConnection == null)
+				{
+					this.totalConnections++;
+				}
+			}
+			finally
+			{
+				this.lock.unlock();
+			}
+			
+			PooledConnection pooledConnection = idleConnection == null ? openConnection() : validate(idleConnection);
+			
+			if(pooledConnection != null)
+			{
+				recordBorrow(System.nanoTime() - start);
+				return pooledConnection.borrow();
+			}
+		}
+	}
+	
+	/**
+	 * Connections with another user name are not supported, a pool only has one login
+	 */
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException("A SimpleConnectionPool only connects as " + this.username);
+	}
+	
+	/**
+	 * Close the idle connections and stop handing out new ones. Connections that are borrowed are 
+	 * closed when they are returned. A shared pool stops being shared
+	 */
+	@Override
+	public void close()
+	{
+		SHARED_POOLS.remove(this.sharedKey, this);
+
+		List<PooledConnection> connectionsToClose;
+		this.lock.lock();
+		
+		try
+		{
+			this.closed = true;
+			connectionsToClose = new ArrayList<>(this.idleConnections);
+			this.idleConnections.clear();
+			this.connectionAvailable.signalAll();
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+		
+		this.evictor.shutdownNow();
+		connectionsToClose.forEach(this::destroy);
+	}
+	
+	/**
+	 * Open a new physical connection for a slot that has already been counted in the total
+	 */
+	private PooledConnection openConnection() throws SQLException
+	{
+		Connection connection = null;
+		
+		try
+		{
+			connection = DriverManager.getConnection(this.url, this.username, this.password);
+			PooledConnection pooledConnection = new PooledConnection(connection);
+			
+			this.lock.lock();
+			
+			try
+			{
+				this.connectionsCreated++;
+			}
+			finally
+			{
+				this.lock.unlock();
+			}
+			
+			return pooledConnection;
+		}
+		catch(SQLException | RuntimeException e)
+		{
+			if(connection != null)
+			{
+				try
+				{
+					connection.close();
+				}
+				catch(SQLException closeException)
+				{
+					e.addSuppressed(closeException);
+				}
+			}
+			
+			releaseSlot(false);
+			throw e;
+		}
+	}
+	
+	/**
+	 * Check an idle connection before it is borrowed
+	 * 
+	 * @return The connection or <code>null</code> if it was not valid and has been closed
+	 */
+	private PooledConnection validate(PooledConnection pooledConnection)
+	{
+		if(!this.validateOnBorrow || System.nanoTime() - pooledConnection.returnedNanos < VALIDATION_BYPASS_NANOS)
+		{
+			return pooledConnection;
+		}
+		
+		try
+		{
+			if(pooledConnection.connection.isValid(this.validationTimeoutSeconds))
+			{
+				return pooledConnection;
+			}
+		}
+		catch(SQLException e)
+		{
+			LOG.debug("Validation of a connection to {} failed", this.url, e);
+		}
+		
+		this.lock.lock();
+		
+		try
+		{
+			this.validationFailures++;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+		
+		destroy(pooledConnection);
+		return null;
+	}
+	
+	/**
+	 * Put a connection that was closed by its borrower back in the pool
+	 */
+	private void release(PooledConnection pooledConnection)
+	{
+		if(!pooledConnection.reset())
+		{
+			destroy(pooledConnection);
+			return;
+		}
+		
+		this.lock.lock();
+		
+		try
+		{
+			if(!this.closed)
+			{
+				pooledConnection.returnedNanos = System.nanoTime();
+				this.idleConnections.addLast(pooledConnection);
+				this.connectionAvailable.signal();
+				return;
+			}
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+		
+		destroy(pooledConnection);
+	}
+	
+	/**
+	 * Close a physical connection and free its slot in the pool
+	 */
+	private void destroy(PooledConnection pooledConnection)
+	{
+		try
+		{
+			pooledConnection.connection.close();
+		}
+		catch(SQLException e)
+		{
+			LOG.debug("Closing a connection to {} failed", this.url, e);
+		}
+		
+		releaseSlot(true);
+	}
+	
+	/**
+	 * Free a slot in the pool, either because its connection was closed or because it never opened
+	 */
+	private void releaseSlot(boolean destroyed)
+	{
+		this.lock.lock();
+		
+		try
+		{
+			this.totalConnections--;
+			
+			if(destroyed)
+			{
+				this.connectionsDestroyed++;
+			}
+			
+			this.connectionAvailable.signal();
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+	
+	private void recordBorrow(long waitNanos)
+	{
+		this.lock.lock();
+		
+		try
+		{
+			this.borrowCount++;
+			this.borrowWaitNanos += waitNanos;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * Run the eviction every half of the idle timeout, but no more than once a second, replacing the
+	 * schedule for the previous timeout
+	 */
+	private synchronized void scheduleEviction()
+	{
+		if(this.evictionTask != null)
+		{
+			this.evictionTask.cancel(false);
+		}
+		
+		long periodMillis = Math.max(this.idleTimeoutMillis / 2, 1000);
+		this.evictionTask = this.evictor.scheduleWithFixedDelay(() -> 
+		{
+			try
+			{
+				evictIdleConnections();
+			}
+			catch(RuntimeException e)
+			{
+				LOG.warn("Eviction of idle connections to {} failed", this.url, e);
+			}
+		}, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Close the connections that have been idle for longer than the idle timeout, oldest first, and 
+	 * then open connections until the pool is back to its minimum size
+	 */
+	void evictIdleConnections()
+	{
+		List<PooledConnection> connectionsToClose = new ArrayList<>();
+		long idleCutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(this.idleTimeoutMillis);
+		int connectionsToOpen;
+		this.lock.lock();
+		
+		try
+		{
+			Iterator<PooledConnection> oldestFirst = this.idleConnections.iterator();
+			int remaining = this.totalConnections;
+			
+			while(oldestFirst.hasNext() && remaining > this.minimumSize)
+			{
+				PooledConnection pooledConnection = oldestFirst.next();
+				
+				if(pooledConnection.returnedNanos - idleCutoff > 0)
+				{
+					break;
+				}
+				
+				oldestFirst.remove();
+				connectionsToClose.add(pooledConnection);
+				remaining--;
+			}
+			
+			connectionsToOpen = this.closed ? 0 : Math.max(this.minimumSize - remaining, 0);
+			this.totalConnections += connectionsToOpen;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+		
+		connectionsToClose.forEach(this::destroy);
+		
+		for(int i = 0; i < connectionsToOpen; i++)
+		{
+			try
+			{
+				release(openConnection());
+			}
+			catch(SQLException e)
+			{
+				LOG.warn("Opening a connection to {} to keep the minimum pool size failed", this.url, e);
+				
+				for(int j = i + 1; j < connectionsToOpen; j++)
+				{
+					releaseSlot(false);
+				}
+				
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Whether the pool has been closed
+	 * 
+	 * @return true if the pool no longer hands out connections
+	 */
+	public boolean isClosed()
+	{
+		this.lock.lock();
+		
+		try
+		{
+			return this.closed;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * The number of connections that are open, whether borrowed or idle
+	 * 
+	 * @return the totalConnections
+	 */
+	public int getTotalConnections()
+	{
+		this.lock.lock();
+		
+		try
+		{
+			return this.totalConnections;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * The number of open connections waiting to be borrowed
+	 * 
+	 * @return the idle connections
+	 */
+	public int getIdleConnections()
+	{
+		this.lock.lock();
+		
+		try
+		{
+			return this.idleConnections.size();
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * The number of connections that are borrowed
+	 * 
+	 * @return the active connections
+	 */
+	public int getActiveConnections()
+	{
+		this.lock.lock();
+		
+		try
+		{
+			return this.totalConnections - this.idleConnections.size();
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * The number of threads waiting for a connection to be returned
+	 * 
+	 * @return the waitingThreads
+	 */
+	public int getWaitingThreads()
+	{
+		this.lock.lock();
+		
+		try
+		{
+			return this.waitingThreads;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * The number of physical connections opened by this pool
+	 * 
+	 * @return the connectionsCreated
+	 */
+	public long getConnectionsCreated()
+	{
+		this.lock.lock();
+		
+		try
+		{
+			return this.connectionsCreated;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * The number of physical connections closed by this pool
+	 * 
+	 * @return the connectionsDestroyed
+	 */
+	public long getConnectionsDestroyed()
+	{
+		this.lock.lock();
+		
+		try
+		{
+			return this.connectionsDestroyed;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * The number of connections that have been borrowed
+	 * 
+	 * @return the borrowCount
+	 */
+	public long getBorrowCount()
+	{
+		this.lock.lock();
+		
+		try
+		{
+			return this.borrowCount;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * The total time spent getting the borrowed connections, including opening and validating them
+	 * 
+	 * @return the borrowWaitNanos
+	 */
+	public long getBorrowWaitNanos()
+	{
+		this.lock.lock();
+		
+		try
+		{
+			return this.borrowWaitNanos;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * The number of borrows that gave up because every connection stayed in use
+	 * 
+	 * @return the borrowTimeouts
+	 */
+	public long getBorrowTimeouts()
+	{
+		this.lock.lock();
+		
+		try
+		{
+			return this.borrowTimeouts;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * The number of idle connections that were closed because they failed validation
+	 * 
+	 * @return the validationFailures
+	 */
+	public long getValidationFailures()
+	{
+		this.lock.lock();
+		
+		try
+		{
+			return this.validationFailures;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * The number of prepared statements that were taken from a connection's cache
+	 * 
+	 * @return the statementCacheHits
+	 */
+	public long getStatementCacheHits()
+	{
+		return this.statementCacheHits.sum();
+	}
+	
+	/**
+	 * The number of prepared statements that had to be prepared because they were not in the cache
+	 * of their connection
+	 * 
+	 * @return the statementCacheMisses
+	 */
+	public long getStatementCacheMisses()
+	{
+		return this.statementCacheMisses.sum();
+	}
+
+	/**
+	 * The number of connections kept open even when they are idle
+	 * 
+	 * @return the minimumSize
+	 */
+	public int getMinimumSize()
+	{
+		return this.minimumSize;
+	}
+
+	/**
+	 * Set the number of connections kept open even when they are idle. They are opened in the 
+	 * background rather than by this call
+	 * 
+	 * @param minimumSize the minimumSize to set
+	 */
+	public void setMinimumSize(int minimumSize)
+	{
+		this.minimumSize = Math.max(minimumSize, 0);
+		
+		if(this.minimumSize > 0 && !this.evictor.isShutdown())
+		{
+			this.evictor.execute(this::evictIdleConnections);
+		}
+	}
+
+	/**
+	 * The largest number of connections that can be open at once
+	 * 
+	 * @return the maximumSize
+	 */
+	public int getMaximumSize()
+	{
+		return this.maximumSize;
+	}
+
+	/**
+	 * Set the largest number of connections that can be open at once. The default is 
+	 * {@value #DEFAULT_MAXIMUM_SIZE}
+	 * 
+	 * @param maximumSize the maximumSize to set
+	 */
+	public void setMaximumSize(int maximumSize)
+	{
+		this.maximumSize = Math.max(maximumSize, 1);
+	}
+
+	/**
+	 * The number of milliseconds a connection can sit idle before it is closed
+	 * 
+	 * @return the idleTimeoutMillis
+	 */
+	public long getIdleTimeoutMillis()
+	{
+		return this.idleTimeoutMillis;
+	}
+
+	/**
+	 * Set the number of milliseconds a connection can sit idle before it is closed. Idle connections
+	 * are checked every half of this time, so a connection may stay open for up to one and a half 
+	 * times as long
+	 * 
+	 * @param idleTimeoutMillis the idleTimeoutMillis to set
+	 */
+	public void setIdleTimeoutMillis(long idleTimeoutMillis)
+	{
+		this.idleTimeoutMillis = Math.max(idleTimeoutMillis, 1000);
+		
+		if(!this.evictor.isShutdown())
+		{
+			scheduleEviction();
+		}
+	}
+
+	/**
+	 * The number of milliseconds to wait for a connection when all of them are in use
+	 * 
+	 * @return the borrowTimeoutMillis
+	 */
+	public long getBorrowTimeoutMillis()
+	{
+		return this.borrowTimeoutMillis;
+	}
+
+	/**
+	 * Set the number of milliseconds to wait for a connection when all of them are in use
+	 * 
+	 * @param borrowTimeoutMillis the borrowTimeoutMillis to set
+	 */
+	public void setBorrowTimeoutMillis(long borrowTimeoutMillis)
+	{
+		this.borrowTimeoutMillis = Math.max(borrowTimeoutMillis, 0);
+	}
+
+	/**
+	 * The number of seconds the database has to answer when a connection is validated
+	 * 
+	 * @return the validationTimeoutSeconds
+	 */
+	public int getValidationTimeoutSeconds()
+	{
+		return this.validationTimeoutSeconds;
+	}
+
+	/**
+	 * Set the number of seconds the database has to answer when a connection is validated
+	 * 
+	 * @param validationTimeoutSeconds the validationTimeoutSeconds to set
+	 */
+	public void setValidationTimeoutSeconds(int validationTimeoutSeconds)
+	{
+		this.validationTimeoutSeconds = Math.max(validationTimeoutSeconds, 1);
+	}
+
+	/**
+	 * Whether idle connections are validated before they are borrowed
+	 * 
+	 * @return the validateOnBorrow
+	 */
+	public boolean isValidateOnBorrow()
+	{
+		return this.validateOnBorrow;
+	}
+
+	/**
+	 * Set whether idle connections are validated before they are borrowed. A connection returned in 
+	 * the last half second is never validated again
+	 * 
+	 * @param validateOnBorrow the validateOnBorrow to set
+	 */
+	public void setValidateOnBorrow(boolean validateOnBorrow)
+	{
+		this.validateOnBorrow = validateOnBorrow;
+	}
+
+	/**
+	 * The number of prepared statements cached for each connection
+	 * 
+	 * @return the statementCacheSize
+	 */
+	public int getStatementCacheSize()
+	{
+		return this.statementCacheSize;
+	}
+
+	/**
+	 * Set the number of prepared statements cached for each connection. The default is 
+	 * {@value #DEFAULT_STATEMENT_CACHE_SIZE}
+	 * 
+	 * @param statementCacheSize the statementCacheSize to set or 0 to not cache statements
+	 */
+	public void setStatementCacheSize(int statementCacheSize)
+	{
+		this.statementCacheSize = Math.max(statementCacheSize, 0);
+	}
+
+	@Override
+	public PrintWriter getLogWriter() throws SQLException
+	{
+		return DriverManager.getLogWriter();
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) throws SQLException
+	{
+		DriverManager.setLogWriter(out);
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) throws SQLException
+	{
+		DriverManager.setLoginTimeout(seconds);
+	}
+
+	@Override
+	public int getLoginTimeout() throws SQLException
+	{
+		return DriverManager.getLoginTimeout();
+	}
+
+	@Override
+	public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException
+	{
+		throw new SQLFeatureNotSupportedException("A SimpleConnectionPool does not use java.util.logging");
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException
+	{
+		if(iface.isInstance(this))
+		{
+			return iface.cast(this);
+		}
+		
+		throw new SQLException("A SimpleConnectionPool is not a " + iface.getName());
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException
+	{
+		return iface.isInstance(this);
+	}
+	
+	@Override
+	public String toString()
+	{
+		this.lock.lock();
+		
+		try
+		{
+			return "SimpleConnectionPool[" + this.url + " total=" + this.totalConnections + " idle=" 
+					+ this.idleConnections.size() + " waiting=" + this.waitingThreads + " borrowed=" 
+					+ this.borrowCount + " created=" + this.connectionsCreated + "]";
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * A physical connection held by the pool. Each borrow hands out a new proxy so that a borrower 
+	 * that keeps its connection after closing it cannot use it once someone else has borrowed it
+	 */
+	private final class PooledConnection
+	{
+		private final Connection connection;
+		
+		private final boolean autoCommit;
+		
+		private final boolean readOnly;
+		
+		private final int transactionIsolation;
+		
+		private final String catalog;
+		
+		private final String schema;
+		
+		private volatile long returnedNanos;
+		
+		private boolean dirty = false;
+		
+		/**
+		 * The statements that are not in use, least recently returned first
+		 */
+		private final LinkedHashMap<String, PreparedStatement> statementCache = new LinkedHashMap<>();
+		
+		private PooledConnection(Connection connection) throws SQLException
+		{
+			this.connection = connection;
+			this.autoCommit = connection.getAutoCommit();
+			this.readOnly = connection.isReadOnly();
+			this.transactionIsolation = connection.getTransactionIsolation();
+			this.catalog = connection.getCatalog();
+			this.schema = connection.getSchema();
+		}
+		
+		private Connection borrow()
+		{
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), 
+					new Class<?>[] {Connection.class}, new BorrowedConnection(this));
+		}
+		
+		/**
+		 * Take the statement for some SQL out of the cache, or prepare it if it is not there or is 
+		 * already in use
+		 */
+		private PreparedStatement checkOut(String sql) throws SQLException
+		{
+			PreparedStatement statement;
+			
+			synchronized(this.statementCache)
+			{
+				statement = this.statementCache.remove(sql);
+			}
+			
+			if(statement != null)
+			{
+				statementCacheHits.increment();
+				return statement;
+			}
+			
+			statementCacheMisses.increment();
+			return this.connection.prepareStatement(sql);
+		}
+		
+		/**
+		 * Put a statement back in the cache, closing the least recently used statements if the cache
+		 * is full
+		 */
+		private void checkIn(String sql, PreparedStatement statement)
+		{
+			List<PreparedStatement> statementsToClose = new ArrayList<>();
+			
+			synchronized(this.statementCache)
+			{
+				PreparedStatement previous = this.statementCache.put(sql, statement);
+				
+				if(previous != null)
+				{
+					statementsToClose.add(previous);
+				}
+				
+				Iterator<PreparedStatement> leastRecentlyUsed = this.statementCache.values().iterator();
+				
+				while(this.statementCache.size() > statementCacheSize && leastRecentlyUsed.hasNext())
+				{
+					statementsToClose.add(leastRecentlyUsed.next());
+					leastRecentlyUsed.remove();
+				}
+			}
+			
+			statementsToClose.forEach(this::closeStatement);
+		}
+		
+		private void closeStatement(PreparedStatement statement)
+		{
+			try
+			{
+				statement.close();
+			}
+			catch(SQLException e)
+			{
+				LOG.debug("Closing a cached statement on {} failed", url, e);
+			}
+		}
+		
+		/**
+		 * Undo what the borrower changed on the connection
+		 * 
+		 * @return <code>false</code> if the connection cannot be used again
+		 */
+		private boolean reset()
+		{
+			try
+			{
+				if(this.connection.isClosed())
+				{
+					return false;
+				}
+				
+				if(!this.connection.getAutoCommit())
+				{
+					this.connection.rollback();
+				}
+				
+				if(this.dirty)
+				{
+					this.connection.setAutoCommit(this.autoCommit);
+					this.connection.setReadOnly(this.readOnly);
+					this.connection.setTransactionIsolation(this.transactionIsolation);
+					this.connection.setCatalog(this.catalog);
+					this.connection.setSchema(this.schema);
+					this.dirty = false;
+				}
+				
+				this.connection.clearWarnings();
+				return true;
+			}
+			catch(SQLException e)
+			{
+				LOG.debug("Resetting a returned connection to {} failed", url, e);
+				return false;
+			}
+		}
+	}
+	
+	/**
+	 * The connection a borrower sees. Closing it returns the physical connection to the pool
+	 */
+	private final class BorrowedConnection implements InvocationHandler
+	{
+		private PooledConnection pooledConnection;
+		
+		private final List<CachedStatement> openStatements = new ArrayList<>(2);
+		
+		private BorrowedConnection(PooledConnection pooledConnection)
+		{
+			this.pooledConnection = pooledConnection;
+		}
+		
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+		{
+			PooledConnection current = this.pooledConnection;
+			
+			switch(method.getName())
+			{
+				case "close":
+					if(current != null)
+					{
+						closeOpenStatements();
+						this.pooledConnection = null;
+						release(current);
+					}
+					return null;
+				case "prepareStatement":
+					if(current != null && statementCacheSize > 0 && isDefaultCursor(args))
+					{
+						return prepareCached(current, (Connection) proxy, (String) args[0]);
+					}
+					break;
+				case "isClosed":
+					return current == null;
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Pooled " + (current == null ? "closed connection" : current.connection.toString());
+				case "setAutoCommit":
+				case "setReadOnly":
+				case "setTransactionIsolation":
+				case "setCatalog":
+				case "setSchema":
+					if(current != null)
+					{
+						current.dirty = true;
+					}
+					break;
+				default:
+					break;
+			}
+			
+			if(current == null)
+			{
+				throw new SQLException("The connection has been closed and returned to the pool");
+			}
+			
+			try
+			{
+				return method.invoke(current.connection, args);
+			}
+			catch(InvocationTargetException e)
+			{
+				throw e.getCause();
+			}
+		}
+		
+		/**
+		 * Whether the arguments to prepareStatement ask for nothing but the default forward only, 
+		 * read only cursor, so the statement can be shared with the one argument version
+		 */
+		private boolean isDefaultCursor(Object[] args)
+		{
+			return args.length == 1 || (args.length == 3 && args[1].equals(ResultSet.TYPE_FORWARD_ONLY) 
+					&& args[2].equals(ResultSet.CONCUR_READ_ONLY));
+		}
+		
+		private PreparedStatement prepareCached(PooledConnection current, Connection proxy, String sql) throws SQLException
+		{
+			CachedStatement cachedStatement = new CachedStatement(this, current, proxy, sql, current.checkOut(sql));
+			
+			synchronized(this.openStatements)
+			{
+				this.openStatements.add(cachedStatement);
+			}
+			
+			return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), 
+					new Class<?>[] {PreparedStatement.class}, cachedStatement);
+		}
+		
+		private void statementClosed(CachedStatement cachedStatement)
+		{
+			synchronized(this.openStatements)
+			{
+				this.openStatements.remove(cachedStatement);
+			}
+		}
+		
+		private void closeOpenStatements()
+		{
+			List<CachedStatement> statementsToClose;
+			
+			synchronized(this.openStatements)
+			{
+				statementsToClose = new ArrayList<>(this.openStatements);
+			}
+			
+			statementsToClose.forEach(CachedStatement::close);
+		}
+	}
+	
+	/**
+	 * The prepared statement a borrower sees for a statement from the cache. Closing it puts the 
+	 * statement back in the cache
+	 */
+	private final class CachedStatement implements InvocationHandler
+	{
+		private final BorrowedConnection borrower;
+		
+		private final PooledConnection owner;
+		
+		private final Connection connectionProxy;
+		
+		private final String sql;
+		
+		private final PreparedStatement statement;
+		
+		private final int fetchSize;
+		
+		private final int maxRows;
+		
+		private final int queryTimeout;
+		
+		private ResultSet lastResultSet;
+		
+		private boolean settingsChanged = false;
+		
+		private boolean cacheable = true;
+		
+		private boolean closed = false;
+		
+		private CachedStatement(BorrowedConnection borrower, PooledConnection owner, Connection connectionProxy, 
+				String sql, PreparedStatement statement) throws SQLException
+		{
+			this.borrower = borrower;
+			this.owner = owner;
+			this.connectionProxy = connectionProxy;
+			this.sql = sql;
+			this.statement = statement;
+			this.fetchSize = statement.getFetchSize();
+			this.maxRows = statement.getMaxRows();
+			this.queryTimeout = statement.getQueryTimeout();
+		}
+		
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+		{
+			String methodName = method.getName();
+			
+			switch(methodName)
+			{
+				case "close":
+					close();
+					return null;
+				case "isClosed":
+					return this.closed || this.statement.isClosed();
+				case "getConnection":
+					return this.connectionProxy;
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Cached " + this.statement.toString();
+				default:
+					break;
+			}
+			
+			if(this.closed)
+			{
+				throw new SQLException("The statement has been closed");
+			}
+			
+			if(RESETTABLE_STATEMENT_SETTINGS.contains(methodName))
+			{
+				this.settingsChanged = true;
+			}
+			else if(UNCACHEABLE_STATEMENT_SETTINGS.contains(methodName))
+			{
+				this.cacheable = false;
+			}
+			
+			Object result;
+			
+			try
+			{
+				result = method.invoke(this.statement, args);
+			}
+			catch(InvocationTargetException e)
+			{
+				throw e.getCause();
+			}
+			
+			if(result instanceof ResultSet resultSet)
+			{
+				this.lastResultSet = resultSet;
+			}
+			
+			return result;
+		}
+		
+		/**
+		 * Put the statement back the way it was prepared and return it to the cache, or close it if 
+		 * that cannot be done
+		 */
+		private void close()
+		{
+			if(this.closed)
+			{
+				return;
+			}
+			
+			this.closed = true;
+			this.borrower.statementClosed(this);
+			
+			try
+			{
+				if(this.cacheable && !this.statement.isClosed())
+				{
+					if(this.lastResultSet != null)
+					{
+						this.lastResultSet.close();
+					}
+					
+					this.statement.clearParameters();
+					this.statement.clearBatch();
+					this.statement.clearWarnings();
+					
+					if(this.settingsChanged)
+					{
+						this.statement.setFetchSize(this.fetchSize);
+						this.statement.setMaxRows(this.maxRows);
+						this.statement.setQueryTimeout(this.queryTimeout);
+					}
+					
+					this.owner.checkIn(this.sql, this.statement);
+					return;
+				}
+			}
+			catch(SQLException e)
+			{
+				LOG.debug("Resetting a cached statement on {} failed", url, e);
+			}
+			
+			this.owner.closeStatement(this.statement);
+		}
+	}
+}
@@ -0,0 +1,181 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tailing a growing file with {@link AbstractTextFileParser#parseAppendedLines()}
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+class AppendedLinesParseTest
+{
+	@TempDir
+	File directory;
+	
+	@Test
+	void returnsOnlyTheCompleteLinesAddedSinceTheLastCall() throws IOException
+	{
+		File file = write("HEADER\nfirst\nsecond\npart");
+		StringLineFileParser parser = createParser(file);
+		parser.setHeaderLinesToIgnore(1);
+		
+		assertEquals(List.of("first", "second"), parser.parseAppendedLines());
+		assertTrue(parser.isFullReparse());
+		
+		assertEquals(List.of(), parser.parseAppendedLines());
+		assertFalse(parser.isFullReparse());
+		
+		//A carriage return may still be followed by a line feed, so its line waits for the next call
+		append(file, "ial\nthird\r");
+		assertEquals(List.of("partial"), parser.parseAppendedLines());
+		
+		append(file, "\nfourth\n");
+		assertEquals(List.of("third", "fourth"), parser.parseAppendedLines());
+		assertFalse(parser.isFullReparse());
+	}
+	
+	@Test
+	void skipsHeaderLinesWrittenAcrossSeveralCalls() throws IOException
+	{
+		File file = write("HEADER 1\n");
+		StringLineFileParser parser = createParser(file);
+		parser.setHeaderLinesToIgnore(2);
+		
+		assertEquals(List.of(), parser.parseAppendedLines());
+		assertEquals(1, parser.getCheckpoint().getHeaderLinesRemaining());
+		
+		append(file, "HEADER 2\nfirst\n");
+		assertEquals(List.of("first"), parser.parseAppendedLines());
+		assertEquals(0, parser.getCheckpoint().getHeaderLinesRemaining());
+	}
+	
+	@Test
+	void resumesFromASavedCheckpoint() throws IOException
+	{
+		File file = write("first\nsecond\n");
+		StringLineFileParser parser = createParser(file);
+		parser.parseAppendedLines();
+		FileCheckpoint saved = parser.getCheckpoint();
+		
+		append(file, "third\n");
+		
+		//As if the checkpoint had been stored and the process restarted
+		StringLineFileParser restarted = createParser(file);
+		restarted.setCheckpoint(new FileCheckpoint(saved.getPosition(), saved.getFileKey(), saved.getSize(), 
+				saved.getLastModified(), saved.getChecksum(), saved.getHeaderLinesRemaining()));
+		
+		assertEquals(List.of("third"), restarted.parseAppendedLines());
+		assertFalse(restarted.isFullReparse());
+		assertEquals(file.length(), restarted.getCheckpoint().getPosition());
+	}
+	
+	@Test
+	void reparsesATruncatedFile() throws IOException
+	{
+		File file = write("first\nsecond\nthird\n");
+		StringLineFileParser parser = createParser(file);
+		parser.parseAppendedLines();
+		
+		Files.writeString(file.toPath(), "new\n", StandardOpenOption.TRUNCATE_EXISTING);
+		
+		assertEquals(List.of("new"), parser.parseAppendedLines());
+		assertTrue(parser.isFullReparse());
+	}
+	
+	@Test
+	void reparsesAReplacedFile() throws IOException
+	{
+		File file = write("first\nsecond\n");
+		StringLineFileParser parser = createParser(file);
+		parser.parseAppendedLines();
+		
+		//A new file with the same name, longer than the position reached in the old one
+		Files.delete(file.toPath());
+		write("other\nlines\nand more\n");
+		
+		assertEquals(List.of("other", "lines", "and more"), parser.parseAppendedLines());
+		assertTrue(parser.isFullReparse());
+	}
+	
+	@Test
+	void reparsesAFileRewrittenInPlace() throws IOException
+	{
+		File file = write("first\nsecond\n");
+		StringLineFileParser parser = createParser(file);
+		parser.parseAppendedLines();
+		
+		//Same file, but the bytes that were already consumed are different
+		Files.writeString(file.toPath(), "FIRST\nSECOND\nthird\n", StandardOpenOption.TRUNCATE_EXISTING);
+		
+		assertEquals(List.of("FIRST", "SECOND", "third"), parser.parseAppendedLines());
+		assertTrue(parser.isFullReparse());
+	}
+	
+	@Test
+	void alwaysReparsesACompressedFile() throws IOException
+	{
+		File file = new File(this.directory, "tail.txt.gz");
+		
+		try(GZIPOutputStream gzip = new GZIPOutputStream(new FileOutputStream(file)))
+		{
+			gzip.write("first\nsecond\n".getBytes(StandardCharsets.UTF_8));
+		}
+		
+		StringLineFileParser parser = createParser(file);
+		
+		for(int call = 0; call < 2; call++)
+		{
+			assertEquals(List.of("first", "second"), parser.parseAppendedLines());
+			assertTrue(parser.isFullReparse());
+		}
+	}
+	
+	private File write(String contents) throws IOException
+	{
+		File file = new File(this.directory, "tail.txt");
+		Files.writeString(file.toPath(), contents, StandardCharsets.UTF_8);
+		
+		return file;
+	}
+	
+	private static void append(File file, String contents) throws IOException
+	{
+		Files.writeString(file.toPath(), contents, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+	}
+	
+	private static StringLineFileParser createParser(File file) throws IOException
+	{
+		StringLineFileParser parser = new StringLineFileParser(file);
+		parser.setCharset(StandardCharsets.UTF_8);
+		
+		return parser;
+	}
+}
@@ -0,0 +1,268 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sobetech.common.exception.ApiRuntimeException;
+
+/**
+ * Writes records with a BinaryRecordFileWriter and reads them back with a BinaryRecordFileParser in
+ * every read mode
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+class BinaryRecordFileParserTest
+{
+	private static final int[] BUFFER_SIZES = {4, 7, 100, AbstractBinaryFileParser.DEFAULT_BUFFER_SIZE};
+	
+	@TempDir
+	File directory;
+	
+	@Test
+	void roundTripsFixedSizeRecords() throws IOException
+	{
+		List<Long> records = new ArrayList<>();
+		Random random = new Random(16);
+		
+		for(int index = 0; index < 5000; index++)
+		{
+			records.add(random.nextLong());
+		}
+		
+		for(ByteOrder byteOrder : new ByteOrder[] {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN})
+		{
+			BinaryRecordFormat format = BinaryRecordFormat.fixedSize(Long.BYTES);
+			format.setByteOrder(byteOrder);
+			File file = write(format, new LongCodec(), records);
+			assertEquals(records.size() * (long)Long.BYTES, file.length());
+			
+			for(FileReadMode readMode : FileReadMode.values())
+			{
+				for(int bufferSize : BUFFER_SIZES)
+				{
+					assertEquals(records, parse(file, format, new LongCodec(), readMode, bufferSize), 
+							byteOrder + " " + readMode + " with a buffer of " + bufferSize);
+				}
+			}
+		}
+	}
+	
+	@Test
+	void roundTripsLengthPrefixedRecords() throws IOException
+	{
+		List<String> records = new ArrayList<>();
+		Random random = new Random(16);
+		
+		for(int index = 0; index < 2000; index++)
+		{
+			//Include empty records and records larger than the default buffer
+			int length = index % 500 == 0 ? 200_000 : random.nextInt(40);
+			records.add("r\u00e9c".repeat(length / 3));
+		}
+		
+		BinaryRecordFormat format = BinaryRecordFormat.lengthPrefixed();
+		format.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+		File file = write(format, new StringCodec(), records);
+		
+		for(FileReadMode readMode : FileReadMode.values())
+		{
+			for(int bufferSize : BUFFER_SIZES)
+			{
+				assertEquals(records, parse(file, format, new StringCodec(), readMode, bufferSize), 
+						readMode + " with a buffer of " + bufferSize);
+			}
+		}
+	}
+	
+	@Test
+	void streamsRecordsToAConsumer() throws IOException
+	{
+		List<String> records = List.of("first", "", "third");
+		BinaryRecordFormat format = BinaryRecordFormat.lengthPrefixed();
+		File file = write(format, new StringCodec(), records);
+		
+		for(FileReadMode readMode : FileReadMode.values())
+		{
+			BinaryRecordFileParser<String> parser = new BinaryRecordFileParser<>(file, format, new StringCodec());
+			parser.setReadMode(readMode);
+			List<String> streamed = new ArrayList<>();
+			parser.parseFile(streamed::add);
+			
+			assertEquals(records, streamed, readMode.toString());
+		}
+	}
+	
+	@Test
+	void appendsToAnExistingFile() throws IOException
+	{
+		BinaryRecordFormat format = BinaryRecordFormat.lengthPrefixed();
+		File file = write(format, new StringCodec(), List.of("one", "two"));
+		
+		try(BinaryRecordFileWriter<String> writer = new BinaryRecordFileWriter<>(file, format, new StringCodec(), true))
+		{
+			writer.write("three");
+		}
+		
+		assertEquals(List.of("one", "two", "three"), parse(file, format, new StringCodec(), FileReadMode.STREAM, 
+				AbstractBinaryFileParser.DEFAULT_BUFFER_SIZE));
+	}
+	
+	@Test
+	void rejectsARecordOfTheWrongSize() throws IOException
+	{
+		File file = new File(this.directory, "wrong.bin");
+		
+		try(BinaryRecordFileWriter<String> writer = new BinaryRecordFileWriter<>(file, BinaryRecordFormat.fixedSize(4), 
+				new StringCodec()))
+		{
+			assertThrows(IllegalArgumentException.class, () -> writer.write("five!"));
+			writer.write("four");
+			assertEquals(1, writer.getRecordCount());
+		}
+		
+		assertEquals(4, file.length());
+	}
+	
+	@Test
+	void dropsARecordWhoseEncoderFails() throws IOException
+	{
+		File file = new File(this.directory, "failed.bin");
+		BinaryRecordFormat format = BinaryRecordFormat.lengthPrefixed();
+		BinaryRecordEncoder<String> encoder = (record, recordBytes) -> 
+		{
+			recordBytes.put(record.getBytes(StandardCharsets.UTF_8));
+			
+			if(record.startsWith("bad"))
+			{
+				throw new IllegalStateException("Could not encode " + record);
+			}
+		};
+		
+		try(BinaryRecordFileWriter<String> writer = new BinaryRecordFileWriter<>(file, format, encoder))
+		{
+			writer.write("good");
+			assertThrows(IllegalStateException.class, () -> writer.write("bad record"));
+			writer.write("also good");
+			assertEquals(2, writer.getRecordCount());
+		}
+		
+		assertEquals(List.of("good", "also good"), parse(file, format, new StringCodec(), FileReadMode.STREAM, 
+				AbstractBinaryFileParser.DEFAULT_BUFFER_SIZE));
+	}
+	
+	@Test
+	void parseSettingsFollowChangesToTheFormat() throws IOException
+	{
+		BinaryRecordFormat format = BinaryRecordFormat.fixedSize(Long.BYTES);
+		File file = write(format, new LongCodec(), List.of(1L, 2L));
+		BinaryRecordFileParser<Long> parser = new BinaryRecordFileParser<>(file, format, new LongCodec());
+		List<Object> settings = parser.getParseSettings();
+		
+		format.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+		assertNotEquals(settings, parser.getParseSettings());
+		
+		settings = parser.getParseSettings();
+		parser.setCompression(CompressionType.GZIP);
+		assertNotEquals(settings, parser.getParseSettings());
+	}
+	
+	@Test
+	void failsOnATruncatedFile() throws IOException
+	{
+		BinaryRecordFormat format = BinaryRecordFormat.lengthPrefixed();
+		File file = write(format, new StringCodec(), List.of("complete", "cut short"));
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 3));
+		
+		for(FileReadMode readMode : FileReadMode.values())
+		{
+			assertThrows(ApiRuntimeException.class, () -> parse(file, format, new StringCodec(), readMode, 
+					AbstractBinaryFileParser.DEFAULT_BUFFER_SIZE));
+		}
+	}
+	
+	private <R> File write(BinaryRecordFormat format, BinaryRecordEncoder<R> encoder, List<R> records) throws IOException
+	{
+		File file = new File(this.directory, "records.bin");
+		
+		try(BinaryRecordFileWriter<R> writer = new BinaryRecordFileWriter<>(file, format, encoder))
+		{
+			writer.writeAll(records);
+			assertEquals(records.size(), writer.getRecordCount());
+		}
+		
+		return file;
+	}
+	
+	private static <R> List<R> parse(File file, BinaryRecordFormat format, BinaryRecordCodec<R> codec, 
+			FileReadMode readMode, int bufferSize) throws IOException
+	{
+		BinaryRecordFileParser<R> parser = new BinaryRecordFileParser<>(file, format, codec);
+		parser.setReadMode(readMode);
+		parser.setBufferSize(bufferSize);
+		
+		return parser.parseFile();
+	}
+	
+	private static class LongCodec implements BinaryRecordCodec<Long>, BinaryRecordEncoder<Long>
+	{
+		@Override
+		public Long decode(ByteBuffer recordBytes)
+		{
+			return recordBytes.getLong();
+		}
+		
+		@Override
+		public void encode(Long record, ByteBuffer recordBytes)
+		{
+			recordBytes.putLong(record);
+		}
+	}
+	
+	private static class StringCodec implements BinaryRecordCodec<String>, BinaryRecordEncoder<String>
+	{
+		@Override
+		public String decode(ByteBuffer recordBytes)
+		{
+			byte[] bytes = new byte[recordBytes.remaining()];
+			recordBytes.get(bytes);
+			
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+		
+		@Override
+		public void encode(String record, ByteBuffer recordBytes)
+		{
+			recordBytes.put(record.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+}
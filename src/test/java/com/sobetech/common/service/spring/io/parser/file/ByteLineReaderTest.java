@@ -0,0 +1,224 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that the byte based line readers split lines exactly like LineReader for every line 
+ * terminator, wherever the chunk boundaries fall
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+class ByteLineReaderTest
+{
+	private static final String[] SAMPLES = {
+			"",
+			"a",
+			"a\n",
+			"a\r",
+			"a\r\n",
+			"\n",
+			"\r",
+			"\r\n",
+			"\n\r",
+			"\r\r\n\n",
+			"one\ntwo\r\nthree\rfour",
+			"trailing carriage return\r",
+			"caf\u00e9\r\n\u20ac uro\n\u00e9\r\u20ac",
+			"  padded line  \r\n\t\r\n",
+			"x".repeat(300) + "\r\n" + "y".repeat(700) + "\r" + "z".repeat(5)
+	};
+	
+	private static final String[] ALPHABET = {"a", "b", "z", "\u00e9", "\u20ac", ",", " ", "\r", "\n", "\r\n"};
+	
+	@TempDir
+	Path directory;
+	
+	@Test
+	void matchesLineReaderForEverySampleAndChunkSize() throws IOException
+	{
+		for(String sample : SAMPLES)
+		{
+			checkAllReaders(sample);
+		}
+	}
+	
+	@Test
+	void matchesLineReaderForRandomText() throws IOException
+	{
+		Random random = new Random(19);
+		
+		for(int iteration = 0; iteration < 200; iteration++)
+		{
+			StringBuilder text = new StringBuilder();
+			int pieces = random.nextInt(60);
+			
+			for(int piece = 0; piece < pieces; piece++)
+			{
+				text.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+			}
+			
+			checkAllReaders(text.toString());
+		}
+	}
+	
+	@Test
+	void reportsTheByteOffsetOfEachLine() throws IOException
+	{
+		String text = "caf\u00e9\r\nsecond\nthird\rlast";
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		List<Long> offsets = new ArrayList<>();
+		
+		try(ChunkedLineReader reader = new ChunkedLineReader(bytes, LineTerminator.ANY, 3, false))
+		{
+			while(reader.readLine() != null)
+			{
+				offsets.add(reader.getLineOffset());
+			}
+		}
+		
+		assertEquals(List.of(0L, 7L, 14L, 20L), offsets);
+	}
+	
+	@Test
+	void supportsOnlySingleByteLineTerminatorCharsets()
+	{
+		assertTrue(ByteLineReader.supportsCharset(StandardCharsets.UTF_8));
+		assertTrue(ByteLineReader.supportsCharset(StandardCharsets.ISO_8859_1));
+		assertFalse(ByteLineReader.supportsCharset(StandardCharsets.UTF_16));
+	}
+	
+	/**
+	 * Read the text with every byte based reader, for every line terminator and a range of chunk 
+	 * sizes, and compare the lines with those LineReader reads
+	 */
+	private void checkAllReaders(String text) throws IOException
+	{
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		File file = Files.write(this.directory.resolve("lines.txt"), bytes).toFile();
+		
+		for(LineTerminator lineTerminator : LineTerminator.values())
+		{
+			List<String> expected = readLines(new LineReader(new StringReader(text), lineTerminator, 2));
+			String description = lineTerminator + " " + text.replace("\r", "\\r").replace("\n", "\\n");
+			
+			for(int chunkSize = 1; chunkSize <= 17; chunkSize++)
+			{
+				String chunkDescription = description + " in chunks of " + chunkSize;
+				
+				assertEquals(expected, readLines(new ChunkedLineReader(bytes, lineTerminator, chunkSize, false)), 
+						"heap " + chunkDescription);
+				assertEquals(expected, readLines(new ChunkedLineReader(bytes, lineTerminator, chunkSize, true)), 
+						"direct " + chunkDescription);
+				assertEquals(expected, readLines(new ChannelLineReader(file, StandardCharsets.UTF_8, lineTerminator, 
+						chunkSize)), "file channel " + chunkDescription);
+				assertEquals(expected, readLines(new ChannelLineReader(Channels.newChannel(
+						new ByteArrayInputStream(bytes)), StandardCharsets.UTF_8, lineTerminator, chunkSize)), 
+						"stream channel " + chunkDescription);
+				assertEquals(expected, readLines(new MappedFileLineReader(file, StandardCharsets.UTF_8, lineTerminator, 
+						chunkSize)), "mapped " + chunkDescription);
+			}
+			
+			assertEquals(expected, readLines(new ChannelLineReader(file, StandardCharsets.UTF_8, lineTerminator)), 
+					"file channel " + description);
+			assertEquals(expected, readLines(new MappedFileLineReader(file, StandardCharsets.UTF_8, lineTerminator)), 
+					"mapped " + description);
+		}
+	}
+	
+	private static List<String> readLines(LineSource lineSource) throws IOException
+	{
+		List<String> lines = new ArrayList<>();
+		
+		try(LineSource source = lineSource)
+		{
+			String line;
+			
+			while((line = source.readLine()) != null)
+			{
+				lines.add(line);
+			}
+		}
+		
+		return lines;
+	}
+	
+	/**
+	 * Hands out the bytes in chunks of a fixed size, in buffers that do not start at index 0 of 
+	 * their backing array or memory
+	 */
+	private static class ChunkedLineReader extends ByteLineReader
+	{
+		private final byte[] bytes;
+		
+		private final int chunkSize;
+		
+		private final boolean direct;
+		
+		private int position = 0;
+		
+		private ChunkedLineReader(byte[] bytes, LineTerminator lineTerminator, int chunkSize, boolean direct)
+		{
+			super(StandardCharsets.UTF_8, lineTerminator);
+			this.bytes = bytes;
+			this.chunkSize = chunkSize;
+			this.direct = direct;
+		}
+		
+		@Override
+		protected ByteBuffer nextChunk()
+		{
+			if(this.position >= this.bytes.length)
+			{
+				return null;
+			}
+			
+			int length = Math.min(this.chunkSize, this.bytes.length - this.position);
+			ByteBuffer chunk = this.direct ? ByteBuffer.allocateDirect(length + 2) : ByteBuffer.allocate(length + 2);
+			chunk.position(2);
+			chunk.put(this.bytes, this.position, length);
+			chunk.flip();
+			chunk.position(2);
+			this.position += length;
+			
+			return this.direct ? chunk : chunk.slice();
+		}
+		
+		@Override
+		public void close()
+		{
+			//Nothing to release
+		}
+	}
+}
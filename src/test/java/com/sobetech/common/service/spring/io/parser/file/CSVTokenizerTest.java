@@ -0,0 +1,76 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Parsing numbers out of the fields of a {@link CSVTokenizer}
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+class CSVTokenizerTest
+{
+	@Test
+	void parsesDoublesAsTheJdkDoes()
+	{
+		CSVTokenizer tokenizer = new CSVTokenizer();
+		Random random = new Random(5);
+		
+		for(int index = 0; index < 100_000; index++)
+		{
+			double value = index % 2 == 0 ? Double.longBitsToDouble(random.nextLong()) : random.nextGaussian() * 1e6;
+			
+			if(Double.isFinite(value))
+			{
+				String field = index % 3 == 0 ? Double.toString(value) : String.format("%.6f", value);
+				tokenizer.tokenize("a," + field + ",b");
+				
+				assertEquals(Double.parseDouble(field), tokenizer.getDouble(1), field);
+			}
+		}
+	}
+	
+	@Test
+	void parsesDoublesThatAreNotPlainDecimals()
+	{
+		CSVTokenizer tokenizer = new CSVTokenizer();
+		
+		for(String field : new String[] {"+1.5", ".5", "5.", "1e-320", "NaN", "-Infinity", " 7 ", "0x1p3", "\"3.25\""})
+		{
+			tokenizer.tokenize("a," + field + ",b");
+			
+			assertEquals(Double.parseDouble(tokenizer.getString(1)), tokenizer.getDouble(1), field);
+		}
+	}
+	
+	@Test
+	void rejectsAFieldThatIsNotADouble()
+	{
+		CSVTokenizer tokenizer = new CSVTokenizer();
+		
+		for(String field : new String[] {"abc", "1e", "", "-"})
+		{
+			tokenizer.tokenize(field + ",b");
+			
+			assertThrows(NumberFormatException.class, () -> tokenizer.getDouble(0));
+		}
+	}
+}
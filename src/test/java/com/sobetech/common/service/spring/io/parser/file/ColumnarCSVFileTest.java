@@ -0,0 +1,100 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Adding rows to a ColumnarCSVFile, including rows that cannot be loaded
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+class ColumnarCSVFileTest
+{
+	private final CSVTokenizer tokenizer = new CSVTokenizer();
+	
+	private ColumnarCSVFile file;
+	
+	@BeforeEach
+	void createFile()
+	{
+		CSVColumnSchema schema = new CSVColumnSchema()
+				.addIntColumn("id", 0)
+				.addDoubleColumn("price", 1)
+				.addLongColumn("count", 2)
+				.addDateColumn("day", 3)
+				.addStringColumn("name", 4);
+		this.file = new ColumnarCSVFile(schema);
+	}
+	
+	@Test
+	void loadsEachColumnIntoItsArray()
+	{
+		addRow("1,2.5,30000000000,2024-05-01,apple");
+		addRow("2,,7,,pear");
+		addRow("3,0.25,8,2024-05-03,apple");
+		this.file.trimToSize();
+		
+		assertEquals(3, this.file.getRowCount());
+		assertEquals(3, this.file.getIntColumn("id")[2]);
+		assertEquals(30000000000L, this.file.getLongColumn("count")[0]);
+		assertTrue(Double.isNaN(this.file.getDoubleColumn("price")[1]));
+		assertTrue(this.file.isMissing("price", 1));
+		assertTrue(this.file.isMissing("day", 1));
+		assertFalse(this.file.isMissing("price", 2));
+		assertEquals(LocalDate.of(2024, 5, 3), this.file.getDate("day", 2));
+		assertEquals("apple", this.file.getString("name", 2));
+		assertEquals(2, this.file.getStringDictionary("name").size());
+	}
+	
+	@Test
+	void rejectedRowDoesNotChangeTheNextRow()
+	{
+		addRow("1,2.5,3,2024-05-01,apple");
+		
+		//The empty price is seen before the count fails
+		assertThrows(IllegalArgumentException.class, () -> addRow("2,,not a number,,pear"));
+		assertEquals(1, this.file.getRowCount());
+		
+		addRow("3,4.5,6,2024-05-03,plum");
+		
+		assertEquals(2, this.file.getRowCount());
+		assertFalse(this.file.isMissing("price", 1));
+		assertFalse(this.file.isMissing("day", 1));
+		assertEquals(4.5, this.file.getDoubleColumn("price")[1]);
+		assertEquals(3, this.file.getIntColumn("id")[1]);
+		assertEquals(2, this.file.getStringDictionary("name").size());
+	}
+	
+	@Test
+	void rejectsARowWithTooFewFields()
+	{
+		assertThrows(IllegalArgumentException.class, () -> addRow("1,2.5"));
+		assertEquals(0, this.file.getRowCount());
+	}
+	
+	private void addRow(String line)
+	{
+		this.file.addRow(this.tokenizer.tokenize(line));
+	}
+}
@@ -0,0 +1,199 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that a parallel {@link AbstractTextFileParser#parseFile()} returns exactly the lines that 
+ * {@link AbstractTextFileParser#scanFileLines()} reads on one thread, for random files large enough 
+ * to be split into several chunks
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+class ParallelParseTest
+{
+	private static final String[] WORDS = {"alpha", "b\u00e9ta", "\u20ac12.50", "x", "", "  ", "\t", "a,b", "z\u00fcrich"};
+	
+	private static final String[] ANY_TERMINATORS = {"\n", "\r\n", "\r"};
+	
+	@TempDir
+	File directory;
+	
+	@Test
+	void matchesASingleThreadedParse() throws IOException
+	{
+		Random random = new Random(4);
+		
+		for(int round = 0; round < 8; round++)
+		{
+			LineTerminator lineTerminator = LineTerminator.values()[round % LineTerminator.values().length];
+			File file = new File(this.directory, "lines.txt");
+			Files.writeString(file.toPath(), randomLines(random, 200_000 + random.nextInt(100_000), lineTerminator), 
+					StandardCharsets.UTF_8);
+			
+			StringLineFileParser sequential = createParser(file, lineTerminator, 1);
+			StringLineFileParser parallel = createParser(file, lineTerminator, 4);
+			randomizeSettings(random, sequential, parallel);
+			
+			assertTrue(parallel.isParallelParse());
+			assertEquals(sequential.scanFileLines(), parallel.parseFile(), "round " + round + " with " + lineTerminator 
+					+ ", " + parallel.getHeaderLinesToIgnore() + " header and " + parallel.getFooterLinesToIgnore() 
+					+ " footer lines");
+		}
+	}
+	
+	@Test
+	void countsHeaderAndFooterLinesAcrossChunks() throws IOException
+	{
+		Random random = new Random(40);
+		File file = new File(this.directory, "lines.txt");
+		String contents = randomLines(random, 250_000, LineTerminator.LF);
+		Files.writeString(file.toPath(), contents, StandardCharsets.UTF_8);
+		int lineCount = contents.split("\n", -1).length - 1;
+		
+		//Headers and footers longer than a chunk, and ones that together cover the whole file
+		for(int[] headerAndFooter : new int[][] {{100_000, 0}, {0, 100_000}, {100_000, 100_000}, {lineCount / 2, lineCount / 2}, 
+				{lineCount, 0}, {lineCount + 10, 5}})
+		{
+			StringLineFileParser sequential = createParser(file, LineTerminator.LF, 1);
+			StringLineFileParser parallel = createParser(file, LineTerminator.LF, 4);
+			
+			for(StringLineFileParser parser : List.of(sequential, parallel))
+			{
+				parser.setRemoveBlankLines(false);
+				parser.setHeaderLinesToIgnore(headerAndFooter[0]);
+				parser.setFooterLinesToIgnore(headerAndFooter[1]);
+			}
+			
+			assertEquals(sequential.scanFileLines(), parallel.parseFile(), 
+					headerAndFooter[0] + " header and " + headerAndFooter[1] + " footer lines");
+		}
+	}
+	
+	@Test
+	void joinsZipEntriesInArchiveOrder() throws IOException
+	{
+		Random random = new Random(41);
+		File file = new File(this.directory, "lines.zip");
+		
+		try(ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file)))
+		{
+			zip.putNextEntry(new ZipEntry("nested/"));
+			zip.closeEntry();
+			
+			for(int entry = 0; entry < 6; entry++)
+			{
+				zip.putNextEntry(new ZipEntry("nested/part" + entry + ".txt"));
+				String lines = randomLines(random, entry == 3 ? 0 : random.nextInt(40_000), LineTerminator.ANY);
+				
+				//Leave the last line of some entries without a terminator
+				zip.write((entry % 2 == 0 ? lines + "unterminated " + entry : lines).getBytes(StandardCharsets.UTF_8));
+				zip.closeEntry();
+			}
+		}
+		
+		for(int[] headerAndFooter : new int[][] {{0, 0}, {3, 2}, {25_000, 10_000}})
+		{
+			StringLineFileParser sequential = createParser(file, LineTerminator.ANY, 1);
+			StringLineFileParser parallel = createParser(file, LineTerminator.ANY, 3);
+			
+			for(StringLineFileParser parser : List.of(sequential, parallel))
+			{
+				parser.setHeaderLinesToIgnore(headerAndFooter[0]);
+				parser.setFooterLinesToIgnore(headerAndFooter[1]);
+			}
+			
+			assertTrue(parallel.isParallelParse());
+			assertEquals(sequential.scanFileLines(), parallel.parseFile(), 
+					headerAndFooter[0] + " header and " + headerAndFooter[1] + " footer lines");
+		}
+	}
+	
+	private static StringLineFileParser createParser(File file, LineTerminator lineTerminator, int parallelism) 
+			throws IOException
+	{
+		StringLineFileParser parser = new StringLineFileParser(file);
+		parser.setCharset(StandardCharsets.UTF_8);
+		parser.setLineTerminator(lineTerminator);
+		parser.setParallelism(parallelism);
+		
+		return parser;
+	}
+	
+	/**
+	 * Give both parsers the same random whitespace, header and footer settings
+	 */
+	private static void randomizeSettings(Random random, StringLineFileParser... parsers)
+	{
+		boolean removeBlankLines = random.nextBoolean();
+		boolean removeLeadingWhitespace = random.nextBoolean();
+		boolean removeTrailingWhitespace = random.nextBoolean();
+		int headerLines = random.nextInt(4) == 0 ? 0 : random.nextInt(150_000);
+		int footerLines = random.nextInt(4) == 0 ? 0 : random.nextInt(150_000);
+		
+		for(StringLineFileParser parser : parsers)
+		{
+			parser.setRemoveBlankLines(removeBlankLines);
+			parser.setRemoveLeadingWhitespace(removeLeadingWhitespace);
+			parser.setRemoveTrailingWhitespace(removeTrailingWhitespace);
+			parser.setHeaderLinesToIgnore(headerLines);
+			parser.setFooterLinesToIgnore(footerLines);
+		}
+	}
+	
+	/**
+	 * Lines of random words, including blank lines and lines with leading and trailing whitespace. 
+	 * With {@link LineTerminator#ANY} every kind of terminator is mixed together
+	 */
+	private static String randomLines(Random random, int lineCount, LineTerminator lineTerminator)
+	{
+		StringBuilder lines = new StringBuilder();
+		
+		for(int line = 0; line < lineCount; line++)
+		{
+			int wordCount = random.nextInt(8);
+			
+			for(int word = 0; word < wordCount; word++)
+			{
+				lines.append(word == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+			}
+			
+			lines.append(switch(lineTerminator)
+			{
+				case LF -> "\n";
+				case CRLF -> "\r\n";
+				case CR -> "\r";
+				case ANY -> ANY_TERMINATORS[random.nextInt(ANY_TERMINATORS.length)];
+			});
+		}
+		
+		return lines.toString();
+	}
+}
@@ -0,0 +1,122 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Hits, misses and invalidation of the {@link ParsedFileCache}
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+class ParsedFileCacheTest
+{
+	@TempDir
+	File directory;
+	
+	@Test
+	void parsesAFileOnceWhileItIsUnchanged() throws IOException
+	{
+		File file = write("a.txt", "first");
+		ParsedFileCache cache = new ParsedFileCache();
+		AtomicInteger parses = new AtomicInteger();
+		
+		String contents = cache.parseFile(new CountingParser(file, parses, false));
+		
+		assertSame(contents, cache.parseFile(new CountingParser(file, parses, false)));
+		assertEquals(1, parses.get());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+	
+	@Test
+	void parsesAFileAgainAfterItChanges() throws IOException
+	{
+		File file = write("a.txt", "first");
+		ParsedFileCache cache = new ParsedFileCache();
+		AtomicInteger parses = new AtomicInteger();
+		cache.parseFile(new CountingParser(file, parses, false));
+		
+		write("a.txt", "second, and longer");
+		
+		assertEquals("second, and longer", cache.parseFile(new CountingParser(file, parses, false)));
+		assertEquals(2, parses.get());
+		assertEquals(1, cache.size());
+	}
+	
+	@Test
+	void cachesNullContents() throws IOException
+	{
+		File file = write("empty.txt", "");
+		ParsedFileCache cache = new ParsedFileCache();
+		AtomicInteger parses = new AtomicInteger();
+		
+		assertNull(cache.parseFile(new CountingParser(file, parses, true)));
+		assertNull(cache.parseFile(new CountingParser(file, parses, true)));
+		assertEquals(1, parses.get());
+		assertEquals(1, cache.getHitCount());
+	}
+	
+	private File write(String name, String contents) throws IOException
+	{
+		File file = new File(this.directory, name);
+		Files.writeString(file.toPath(), contents);
+		
+		return file;
+	}
+	
+	private static class CountingParser extends AbstractFileParser<String>
+	{
+		private final AtomicInteger parses;
+		
+		private final boolean returnsNull;
+		
+		private CountingParser(File file, AtomicInteger parses, boolean returnsNull) throws FileNotFoundException
+		{
+			super(file);
+			this.parses = parses;
+			this.returnsNull = returnsNull;
+		}
+		
+		@Override
+		public String parseFile() throws FileNotFoundException
+		{
+			this.parses.incrementAndGet();
+			
+			try
+			{
+				String contents = this.returnsNull ? null : Files.readString(getFile().toPath());
+				setFileContents(contents);
+				
+				return contents;
+			}
+			catch(IOException e)
+			{
+				throw new FileNotFoundException(e.getMessage());
+			}
+		}
+	}
+}
@@ -0,0 +1,266 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.io.parser.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sobetech.common.exception.TooManyRejectsException;
+
+/**
+ * Parsing in tolerant mode, where lines that cannot be parsed are sent to a {@link RejectSink} 
+ * instead of stopping the parse
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+class TolerantParseTest
+{
+	@TempDir
+	File directory;
+	
+	@Test
+	void rejectsBadLinesAndKeepsTheRest() throws IOException
+	{
+		TestFile testFile = new TestFile();
+		testFile.addSkippedLine("id,name,price\n");
+		
+		for(int row = 0; row < 300; row++)
+		{
+			if(row % 50 == 7)
+			{
+				testFile.addBadLine(row + ",\"unclosed,1\n");
+			}
+			else if(row % 50 == 31)
+			{
+				testFile.addBadLine(row + ",two fields\r\n");
+			}
+			else if(row % 50 == 40)
+			{
+				//Blank lines are dropped before they are checked and still count as lines
+				testFile.addSkippedLine("\n");
+			}
+			else
+			{
+				testFile.addGoodLine(row + ",\u00e9t\u00e9 \u20ac," + row + ".5\n");
+			}
+		}
+		
+		testFile.addSkippedLine("TOTAL\n");
+		File file = testFile.write();
+		
+		for(FileReadMode readMode : FileReadMode.values())
+		{
+			CSVFileParser parser = createParser(file);
+			parser.setReadMode(readMode);
+			parser.setHeaderLinesToIgnore(1);
+			parser.setFooterLinesToIgnore(1);
+			List<RejectedLine> rejectedLines = new ArrayList<>();
+			parser.setRejectSink(rejectedLines::add);
+			
+			List<String> keptLines = new ArrayList<>();
+			parser.parseFile(keptLines::add);
+			
+			assertEquals(testFile.goodLines, keptLines, readMode.toString());
+			assertEquals(testFile.badLineNumbers, rejectedLines.stream().map(RejectedLine::getLineNumber).toList(), 
+					readMode.toString());
+			assertEquals(testFile.badLines.size(), parser.getRejectedLineCount());
+			
+			for(int index = 0; index < rejectedLines.size(); index++)
+			{
+				RejectedLine rejectedLine = rejectedLines.get(index);
+				
+				assertEquals(testFile.badLines.get(index), rejectedLine.getLine());
+				assertEquals(testFile.badLineOffsets.get(index).longValue(), rejectedLine.getByteOffset(), 
+						"offset of line " + rejectedLine.getLineNumber());
+				assertTrue(rejectedLine.getCause() instanceof IllegalArgumentException);
+			}
+			
+			rejectedLines.clear();
+			parser.parseFile();
+			
+			assertEquals(testFile.badLines.size(), rejectedLines.size(), readMode.toString());
+		}
+	}
+	
+	@Test
+	void stopsAfterTheMaximumNumberOfRejects() throws IOException
+	{
+		File file = write("1,a,x\n2\n3,c,x\n4\n5\n6\n7,g,x\n8\n");
+		CSVFileParser parser = createParser(file);
+		List<RejectedLine> rejectedLines = new ArrayList<>();
+		parser.setRejectSink(rejectedLines::add);
+		parser.setMaxRejects(3);
+		
+		TooManyRejectsException abort = assertThrows(TooManyRejectsException.class, () -> parser.parseFile());
+		
+		assertEquals(4, abort.getRejectedLines());
+		assertEquals(6, abort.getLinesProcessed());
+		assertEquals(4, parser.getRejectedLineCount());
+		assertEquals(List.of(2L, 4L, 5L, 6L), rejectedLines.stream().map(RejectedLine::getLineNumber).toList());
+	}
+	
+	@Test
+	void stopsEarlyWhenTheRejectRatioIsPassed() throws IOException
+	{
+		StringBuilder contents = new StringBuilder();
+		for(int row = 0; row < 10_000; row++)
+		{
+			contents.append(row % 10 == 0 ? "bad\n" : row + ",good,x\n");
+		}
+		
+		CSVFileParser parser = createParser(write(contents.toString()));
+		parser.setRejectSink(rejectedLine -> {});
+		parser.setMaxRejectRatio(0.05);
+		parser.setRejectRatioMinimumLines(100);
+		
+		TooManyRejectsException abort = assertThrows(TooManyRejectsException.class, () -> parser.parseFile());
+		
+		//Stopped at the first rejected line once enough lines had been seen, not at the end of the file
+		assertEquals(101, abort.getLinesProcessed());
+		assertEquals(11, abort.getRejectedLines());
+	}
+	
+	@Test
+	void checksTheRejectRatioAtTheEndOfASmallFile() throws IOException
+	{
+		CSVFileParser parser = createParser(write("1,a,x\n2,b,x\nbad\n4,d,x\n5,e,x\n"));
+		parser.setRejectSink(rejectedLine -> {});
+		parser.setMaxRejectRatio(0.1);
+		
+		TooManyRejectsException abort = assertThrows(TooManyRejectsException.class, () -> parser.parseFile());
+		
+		assertEquals(5, abort.getLinesProcessed());
+		assertEquals(1, abort.getRejectedLines());
+		
+		parser.setMaxRejectRatio(0.2);
+		parser.parseFile();
+		
+		assertEquals(1, parser.getRejectedLineCount());
+	}
+	
+	@Test
+	void rejectsARowThatCannotBeLoadedIntoColumns() throws IOException
+	{
+		CSVFileParser parser = createParser(write("1,2.5,apple\n2,,pear\n3,not a price,plum\n4,4.5,\n"));
+		List<RejectedLine> rejectedLines = new ArrayList<>();
+		parser.setRejectSink(rejectedLines::add);
+		
+		ColumnarCSVFile columns = parser.parseColumns(new CSVColumnSchema()
+				.addIntColumn("id", 0)
+				.addDoubleColumn("price", 1)
+				.addStringColumn("name", 2));
+		
+		assertEquals(1, rejectedLines.size());
+		assertEquals(3, rejectedLines.get(0).getLineNumber());
+		assertEquals("3,not a price,plum", rejectedLines.get(0).getLine());
+		
+		assertEquals(3, columns.getRowCount());
+		assertTrue(Arrays.equals(new int[] {1, 2, 4}, columns.getIntColumn("id")));
+		assertTrue(columns.isMissing("price", 1));
+		assertEquals(4.5, columns.getDoubleColumn("price")[2]);
+		assertEquals("", columns.getString("name", 2));
+	}
+	
+	@Test
+	void stopsAtTheFirstBadLineWithoutASink() throws IOException
+	{
+		CSVFileParser parser = createParser(write("1,\"a\n2,b\n"));
+		
+		assertThrows(RuntimeException.class, () -> parser.parseColumns(new CSVColumnSchema()
+				.addIntColumn("id", 0)
+				.addStringColumn("name", 1)));
+	}
+	
+	private File write(String contents) throws IOException
+	{
+		File file = new File(this.directory, "rows.csv");
+		Files.writeString(file.toPath(), contents, StandardCharsets.UTF_8);
+		
+		return file;
+	}
+	
+	private static CSVFileParser createParser(File file) throws IOException
+	{
+		CSVFileParser parser = new CSVFileParser(file);
+		parser.setCharset(StandardCharsets.UTF_8);
+		parser.setExpectedFieldCount(3);
+		
+		return parser;
+	}
+	
+	/**
+	 * Builds the contents of a file while recording the line number and byte offset of each line 
+	 * that should be rejected
+	 */
+	private class TestFile
+	{
+		private final StringBuilder contents = new StringBuilder();
+		
+		private final List<String> goodLines = new ArrayList<>();
+		
+		private final List<String> badLines = new ArrayList<>();
+		
+		private final List<Long> badLineNumbers = new ArrayList<>();
+		
+		private final List<Long> badLineOffsets = new ArrayList<>();
+		
+		private long lineNumber = 0;
+		
+		private long offset = 0;
+		
+		private void addSkippedLine(String line)
+		{
+			add(line);
+		}
+		
+		private void addGoodLine(String line)
+		{
+			this.goodLines.add(line.strip());
+			add(line);
+		}
+		
+		private void addBadLine(String line)
+		{
+			this.badLines.add(line.strip());
+			this.badLineNumbers.add(this.lineNumber + 1);
+			this.badLineOffsets.add(this.offset);
+			add(line);
+		}
+		
+		private void add(String line)
+		{
+			this.contents.append(line);
+			this.lineNumber++;
+			this.offset += line.getBytes(StandardCharsets.UTF_8).length;
+		}
+		
+		private File write() throws IOException
+		{
+			return TolerantParseTest.this.write(this.contents.toString());
+		}
+	}
+}
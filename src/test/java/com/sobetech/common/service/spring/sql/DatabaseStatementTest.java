@@ -0,0 +1,286 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.sql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sobetech.common.model.sql.DatabaseConfiguration;
+import com.sobetech.common.service.spring.sql.FakeDriver.FakeDatabase;
+
+/**
+ * Batched writes with {@link DatabaseStatement#executeBatch(String, Stream)}, with and without 
+ * rewriting INSERTs into multi-row INSERTs
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+class DatabaseStatementTest
+{
+	private static final String INSERT = "INSERT INTO t (a, b) VALUES (?, ?)";
+	
+	private static final String INSERT_PREFIX = "INSERT INTO t (a, b) VALUES ";
+	
+	private FakeDatabase database;
+	
+	private SimpleConnectionPool pool;
+	
+	private InsertStatement statement;
+	
+	@BeforeEach
+	void createStatement() throws SQLException
+	{
+		this.database = FakeDriver.newDatabase();
+		DatabaseConfiguration configuration = this.database.configuration("secret");
+		this.pool = new SimpleConnectionPool(configuration);
+		this.statement = new InsertStatement(configuration);
+		this.statement.setDataSource(this.pool);
+	}
+	
+	@AfterEach
+	void closePool()
+	{
+		this.pool.close();
+	}
+	
+	@Test
+	void batchesRowsWhenMultiRowInsertIsOff() throws SQLException
+	{
+		this.statement.setBatchSize(300);
+		BatchResult result = this.statement.executeBatch(INSERT, rows(2500));
+		
+		assertEquals(List.of(INSERT), this.database.preparedSql);
+		assertEquals(9, this.database.batchesExecuted.get());
+		assertEquals(1, this.database.commits.get());
+		assertEquals(values(2500), this.database.committedValues);
+		assertEquals(2500, result.getRowsWritten());
+		assertEquals(9, result.getBatches());
+	}
+	
+	@Test
+	void rewritesPlainInsertsIntoMultiRowInserts() throws SQLException
+	{
+		this.statement.setMultiRowInsert(true);
+		this.statement.setBatchSize(300);
+		BatchResult result = this.statement.executeBatch(INSERT, rows(2500));
+		
+		assertEquals(List.of(multiRowInsert(300), multiRowInsert(100)), this.database.preparedSql);
+		assertEquals(8, this.database.batchesExecuted.get());
+		assertEquals(1, this.database.commits.get());
+		assertEquals(values(2500), this.database.committedValues);
+		assertEquals(2500, result.getRowsWritten());
+		assertEquals(2500, result.getRowsAffected());
+		assertEquals(9, result.getBatches());
+	}
+	
+	@Test
+	void keepsTheLeftoverInsertOutOfTheStatementCache() throws SQLException
+	{
+		this.statement.setMultiRowInsert(true);
+		this.statement.setBatchSize(300);
+		this.statement.executeBatch(INSERT, rows(2500));
+		
+		assertEquals(List.of(multiRowInsert(100)), this.database.unpoolableSql);
+	}
+	
+	@Test
+	void limitsTheParametersOfEachInsert() throws SQLException
+	{
+		this.statement.setMultiRowInsert(true);
+		String insert = "INSERT INTO t (a, b, c) VALUES (?, ?, ?)";
+		Stream<Object[]> rows = IntStream.range(0, 1000).mapToObj(row -> new Object[] {row, row, row});
+		this.statement.executeBatch(insert, rows);
+		
+		//2000 parameters at most, so 666 rows of 3
+		String valuesRow = "(?, ?, ?)";
+		assertEquals(List.of("INSERT INTO t (a, b, c) VALUES " + String.join(",", Collections.nCopies(666, valuesRow)), 
+				"INSERT INTO t (a, b, c) VALUES " + String.join(",", Collections.nCopies(334, valuesRow))), 
+				this.database.preparedSql);
+		assertEquals(3000, this.database.committedValues.size());
+	}
+	
+	@Test
+	void ignoresParenthesesInQuotedValues() throws SQLException
+	{
+		this.statement.setMultiRowInsert(true);
+		String insert = "INSERT INTO t (a, b, c) VALUES (?, ?, ')?')";
+		this.statement.executeBatch(insert, rows(5));
+		
+		String lastSql = this.database.preparedSql.get(this.database.preparedSql.size() - 1);
+		assertEquals("INSERT INTO t (a, b, c) VALUES " + String.join(",", Collections.nCopies(5, "(?, ?, ')?')")), lastSql);
+		assertEquals(values(5), this.database.committedValues);
+	}
+	
+	@Test
+	void batchesSqlThatCannotBeRewritten() throws SQLException
+	{
+		this.statement.setMultiRowInsert(true);
+		String upsert = INSERT + " ON CONFLICT (a) DO NOTHING";
+		this.statement.executeBatch(upsert, rows(10));
+		
+		assertEquals(List.of(upsert), this.database.preparedSql);
+		assertEquals(values(10), this.database.committedValues);
+	}
+	
+	@Test
+	void batchesInsertsOnOracle() throws SQLException
+	{
+		this.database.productName = "Oracle";
+		this.statement.setMultiRowInsert(true);
+		this.statement.executeBatch(INSERT, rows(10));
+		
+		assertEquals(List.of(INSERT), this.database.preparedSql);
+		assertEquals(values(10), this.database.committedValues);
+	}
+	
+	@Test
+	void rejectsARowWithTheWrongNumberOfValues() throws SQLException
+	{
+		this.statement.setMultiRowInsert(true);
+		Stream<Object[]> rows = Stream.of(new Object[] {1, "a"}, new Object[] {2});
+		
+		assertThrows(SQLException.class, () -> this.statement.executeBatch(INSERT, rows));
+		assertTrue(this.database.committedValues.isEmpty());
+	}
+	
+	@Test
+	void rollsBackEveryRowWhenOneFails() throws SQLException
+	{
+		this.database.failingValue = "v777";
+		this.statement.setMultiRowInsert(true);
+		
+		SQLException failure = assertThrows(SQLException.class, () -> this.statement.executeBatch(INSERT, rows(2500)));
+		
+		assertEquals("The value v777 could not be bound", failure.getMessage());
+		assertEquals(0, this.database.commits.get());
+		assertTrue(this.database.rollbacks.get() >= 1);
+		assertTrue(this.database.committedValues.isEmpty());
+	}
+	
+	@Test
+	void keepsTheBatchFailureWhenAutoCommitCannotBeRestored() throws SQLException
+	{
+		this.database.failingValue = "v777";
+		this.database.failAutoCommit = true;
+		
+		SQLException failure = assertThrows(SQLException.class, () -> this.statement.executeBatch(INSERT, rows(2500)));
+		
+		assertEquals("The value v777 could not be bound", failure.getMessage());
+		assertEquals(1, failure.getSuppressed().length);
+		assertEquals("Auto commit could not be turned on", failure.getSuppressed()[0].getMessage());
+	}
+	
+	@Test
+	void leavesATransactionItDidNotStartToTheCaller() throws SQLException
+	{
+		try(Connection connection = this.pool.getConnection())
+		{
+			connection.setAutoCommit(false);
+			this.statement.setDataSource(joinedTo(connection));
+			this.statement.executeBatch(INSERT, rows(10));
+			
+			assertEquals(0, this.database.commits.get());
+			assertFalse(connection.getAutoCommit());
+			assertTrue(this.database.committedValues.isEmpty());
+			
+			connection.commit();
+			assertEquals(values(10), this.database.committedValues);
+		}
+	}
+	
+	@Test
+	void leavesTheRollbackOfATransactionItDidNotStartToTheCaller() throws SQLException
+	{
+		this.database.failingValue = "v7";
+		
+		try(Connection connection = this.pool.getConnection())
+		{
+			connection.setAutoCommit(false);
+			this.statement.setDataSource(joinedTo(connection));
+			
+			assertThrows(SQLException.class, () -> this.statement.executeBatch(INSERT, rows(10)));
+			assertEquals(0, this.database.rollbacks.get());
+			assertFalse(connection.getAutoCommit());
+		}
+	}
+	
+	/**
+	 * A DataSource that always hands out the same connection and leaves it open, as one joined to a 
+	 * transaction managed by the caller does
+	 */
+	private static DataSource joinedTo(Connection connection)
+	{
+		Connection unclosable = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), 
+				new Class<?>[] {Connection.class}, (proxy, method, args) -> 
+				method.getName().equals("close") ? null : method.invoke(connection, args));
+		
+		return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), 
+				new Class<?>[] {DataSource.class}, (proxy, method, args) -> 
+				method.getName().equals("getConnection") ? unclosable : null);
+	}
+	
+	private static Stream<Object[]> rows(int count)
+	{
+		return IntStream.range(0, count).mapToObj(row -> new Object[] {row, row % 5 == 0 ? null : "v" + row});
+	}
+	
+	/**
+	 * The values of the rows in the order they are bound
+	 */
+	private static List<Object> values(int count)
+	{
+		List<Object> values = new ArrayList<>();
+		rows(count).forEach(row -> values.addAll(Arrays.asList(row)));
+		
+		return values;
+	}
+	
+	private static String multiRowInsert(int rows)
+	{
+		return INSERT_PREFIX + String.join(",", Collections.nCopies(rows, "(?, ?)"));
+	}
+	
+	private static class InsertStatement extends DatabaseStatement<DatabaseConfiguration>
+	{
+		private InsertStatement(DatabaseConfiguration configuration)
+		{
+			super(configuration);
+		}
+		
+		@Override
+		public void processResultSet(ResultSet resultSet)
+		{
+			//Only writes are run
+		}
+	}
+}
@@ -0,0 +1,449 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.sql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import com.sobetech.common.model.sql.DatabaseConfiguration;
+
+/**
+ * An in memory JDBC driver for tests. Each database records the connections opened and closed, the
+ * SQL prepared and the values written, so tests can check what reached the driver
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+class FakeDriver implements Driver
+{
+	private static final String URL_PREFIX = "jdbc:fake:";
+	
+	private static final Map<String, FakeDatabase> DATABASES = new ConcurrentHashMap<>();
+	
+	static
+	{
+		try
+		{
+			DriverManager.registerDriver(new FakeDriver());
+		}
+		catch(SQLException e)
+		{
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+	
+	/**
+	 * Create a database that no other test shares
+	 * 
+	 * @return The new database
+	 */
+	static FakeDatabase newDatabase()
+	{
+		FakeDatabase database = new FakeDatabase(URL_PREFIX + UUID.randomUUID());
+		DATABASES.put(database.url, database);
+		
+		return database;
+	}
+	
+	@Override
+	public Connection connect(String url, Properties info) throws SQLException
+	{
+		if(!acceptsURL(url))
+		{
+			return null;
+		}
+		
+		FakeDatabase database = DATABASES.get(url);
+		
+		if(database == null)
+		{
+			throw new SQLException("No database at " + url);
+		}
+		
+		return database.openConnection();
+	}
+
+	@Override
+	public boolean acceptsURL(String url)
+	{
+		return url != null && url.startsWith(URL_PREFIX);
+	}
+
+	@Override
+	public DriverPropertyInfo[] getPropertyInfo(String url, Properties info)
+	{
+		return new DriverPropertyInfo[0];
+	}
+
+	@Override
+	public int getMajorVersion()
+	{
+		return 1;
+	}
+
+	@Override
+	public int getMinorVersion()
+	{
+		return 0;
+	}
+
+	@Override
+	public boolean jdbcCompliant()
+	{
+		return false;
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException
+	{
+		throw new SQLFeatureNotSupportedException();
+	}
+	
+	/**
+	 * The value a proxy method returns when a test does not care about it
+	 */
+	private static Object defaultValue(Class<?> returnType)
+	{
+		if(returnType == boolean.class)
+		{
+			return false;
+		}
+		else if(returnType == int.class)
+		{
+			return 0;
+		}
+		else if(returnType == long.class)
+		{
+			return 0L;
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * One database and everything that was done to it
+	 */
+	static class FakeDatabase
+	{
+		final String url;
+		
+		final AtomicInteger connectionsOpened = new AtomicInteger();
+		
+		final AtomicInteger connectionsClosed = new AtomicInteger();
+		
+		final AtomicInteger statementsPrepared = new AtomicInteger();
+		
+		final AtomicInteger commits = new AtomicInteger();
+		
+		final AtomicInteger rollbacks = new AtomicInteger();
+		
+		final AtomicInteger batchesExecuted = new AtomicInteger();
+		
+		/**
+		 * The SQL of each statement prepared, in order
+		 */
+		final List<String> preparedSql = Collections.synchronizedList(new ArrayList<>());
+		
+		/**
+		 * The SQL of each statement marked as not poolable
+		 */
+		final List<String> unpoolableSql = Collections.synchronizedList(new ArrayList<>());
+		
+		/**
+		 * The values of every committed write, in the order they were bound
+		 */
+		final List<Object> committedValues = Collections.synchronizedList(new ArrayList<>());
+		
+		volatile boolean valid = true;
+		
+		volatile String productName = "PostgreSQL";
+		
+		/**
+		 * Binding this value to a statement fails
+		 */
+		volatile Object failingValue;
+		
+		/**
+		 * Turning auto commit back on fails
+		 */
+		volatile boolean failAutoCommit = false;
+		
+		private FakeDatabase(String url)
+		{
+			this.url = url;
+		}
+		
+		/**
+		 * A configuration that connects to this database
+		 * 
+		 * @param password The password of the configuration
+		 * @return The configuration
+		 */
+		DatabaseConfiguration configuration(String password)
+		{
+			String databaseUrl = this.url;
+			
+			return new DatabaseConfiguration()
+			{
+				@Override
+				public String getDriverClassName()
+				{
+					return FakeDriver.class.getName();
+				}
+				
+				@Override
+				public String getURLString()
+				{
+					return databaseUrl;
+				}
+				
+				@Override
+				public String getUsername()
+				{
+					return "tester";
+				}
+				
+				@Override
+				public String getPassword()
+				{
+					return password;
+				}
+				
+				@Override
+				public boolean isValid()
+				{
+					return true;
+				}
+			};
+		}
+		
+		private Connection openConnection()
+		{
+			this.connectionsOpened.incrementAndGet();
+			
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), 
+					new Class<?>[] {Connection.class}, new FakeConnection(this));
+		}
+	}
+	
+	private static class FakeConnection implements InvocationHandler
+	{
+		private final FakeDatabase database;
+		
+		private final List<Object> uncommittedValues = new ArrayList<>();
+		
+		private boolean autoCommit = true;
+		
+		private boolean readOnly = false;
+		
+		private int transactionIsolation = Connection.TRANSACTION_READ_COMMITTED;
+		
+		private boolean closed = false;
+		
+		private FakeConnection(FakeDatabase database)
+		{
+			this.database = database;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+		{
+			switch(method.getName())
+			{
+				case "getAutoCommit":
+					return this.autoCommit;
+				case "setAutoCommit":
+					if((Boolean) args[0] && this.database.failAutoCommit)
+					{
+						throw new SQLException("Auto commit could not be turned on");
+					}
+					this.autoCommit = (Boolean) args[0];
+					return null;
+				case "isReadOnly":
+					return this.readOnly;
+				case "setReadOnly":
+					this.readOnly = (Boolean) args[0];
+					return null;
+				case "getTransactionIsolation":
+					return this.transactionIsolation;
+				case "setTransactionIsolation":
+					this.transactionIsolation = (Integer) args[0];
+					return null;
+				case "commit":
+					this.database.commits.incrementAndGet();
+					this.database.committedValues.addAll(this.uncommittedValues);
+					this.uncommittedValues.clear();
+					return null;
+				case "rollback":
+					this.database.rollbacks.incrementAndGet();
+					this.uncommittedValues.clear();
+					return null;
+				case "isValid":
+					return this.database.valid;
+				case "isClosed":
+					return this.closed;
+				case "close":
+					if(!this.closed)
+					{
+						this.closed = true;
+						this.database.connectionsClosed.incrementAndGet();
+					}
+					return null;
+				case "getMetaData":
+					return Proxy.newProxyInstance(DatabaseMetaData.class.getClassLoader(), 
+							new Class<?>[] {DatabaseMetaData.class}, (metaData, metaDataMethod, metaDataArgs) -> 
+							metaDataMethod.getName().equals("getDatabaseProductName") ? this.database.productName 
+									: defaultValue(metaDataMethod.getReturnType()));
+				case "prepareStatement":
+					this.database.statementsPrepared.incrementAndGet();
+					this.database.preparedSql.add((String) args[0]);
+					return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), 
+							new Class<?>[] {PreparedStatement.class}, new FakeStatement(this, (String) args[0]));
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Fake connection to " + this.database.url;
+				default:
+					return defaultValue(method.getReturnType());
+			}
+		}
+		
+		private void write(List<Object> values)
+		{
+			if(this.autoCommit)
+			{
+				this.database.committedValues.addAll(values);
+			}
+			else
+			{
+				this.uncommittedValues.addAll(values);
+			}
+		}
+	}
+	
+	private static class FakeStatement implements InvocationHandler
+	{
+		private final FakeConnection connection;
+		
+		private final String sql;
+		
+		private final Map<Integer, Object> parameters = new TreeMap<>();
+		
+		private final List<List<Object>> batch = new ArrayList<>();
+		
+		private boolean closed = false;
+		
+		private FakeStatement(FakeConnection connection, String sql)
+		{
+			this.connection = connection;
+			this.sql = sql;
+		}
+		
+		/**
+		 * The number of VALUES rows in the SQL of this statement
+		 */
+		private int rowsPerStatement()
+		{
+			return this.sql.split("\\),\\s*\\(", -1).length;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+		{
+			switch(method.getName())
+			{
+				case "setObject":
+					if(args[1] != null && args[1].equals(this.connection.database.failingValue))
+					{
+						throw new SQLException("The value " + args[1] + " could not be bound");
+					}
+					this.parameters.put((Integer) args[0], args[1]);
+					return null;
+				case "setNull":
+					this.parameters.put((Integer) args[0], null);
+					return null;
+				case "clearParameters":
+					this.parameters.clear();
+					return null;
+				case "addBatch":
+					this.batch.add(new ArrayList<>(this.parameters.values()));
+					this.parameters.clear();
+					return null;
+				case "clearBatch":
+					this.batch.clear();
+					return null;
+				case "executeBatch":
+					this.connection.database.batchesExecuted.incrementAndGet();
+					int[] updateCounts = new int[this.batch.size()];
+					
+					for(int index = 0; index < this.batch.size(); index++)
+					{
+						this.connection.write(this.batch.get(index));
+						updateCounts[index] = rowsPerStatement();
+					}
+					
+					this.batch.clear();
+					return updateCounts;
+				case "executeUpdate":
+					this.connection.write(new ArrayList<>(this.parameters.values()));
+					this.parameters.clear();
+					return rowsPerStatement();
+				case "executeQuery":
+					return Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class}, 
+							(resultSet, resultSetMethod, resultSetArgs) -> defaultValue(resultSetMethod.getReturnType()));
+				case "setPoolable":
+					if(!(Boolean) args[0])
+					{
+						this.connection.database.unpoolableSql.add(this.sql);
+					}
+					return null;
+				case "isClosed":
+					return this.closed;
+				case "close":
+					this.closed = true;
+					return null;
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Fake statement " + this.sql;
+				default:
+					return defaultValue(method.getReturnType());
+			}
+		}
+	}
+}
@@ -0,0 +1,339 @@
+/**
+ *  Created by Sobetech Holdings LLC
+ *
+ *  Copyright © 2024 Sobetech Holdings LLC, All Rights Reserved
+ *
+ *  This software is supplied under the terms of a license agreement or
+ *  nondisclosure agreement with Sobetech Holdings LLC, or one of its
+ *  affiliates, and may not be used, disseminated, or distributed except
+ *  in accordance with the terms of that agreement.
+ *
+ */
+package com.sobetech.common.service.spring.sql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sobetech.common.service.spring.sql.FakeDriver.FakeDatabase;
+
+/**
+ * Borrowing, returning, validating and evicting connections and caching their statements
+ *
+ * @author John Murray
+ *
+ * @since 1.1.3
+ *
+ */
+class SimpleConnectionPoolTest
+{
+	private FakeDatabase database;
+	
+	private SimpleConnectionPool pool;
+	
+	@BeforeEach
+	void createPool() throws SQLException
+	{
+		this.database = FakeDriver.newDatabase();
+		this.pool = new SimpleConnectionPool(this.database.configuration("secret"));
+	}
+	
+	@AfterEach
+	void closePool()
+	{
+		this.pool.close();
+	}
+	
+	@Test
+	void reusesReturnedConnections() throws SQLException
+	{
+		for(int borrow = 0; borrow < 50; borrow++)
+		{
+			try(Connection connection = this.pool.getConnection())
+			{
+				assertFalse(connection.isClosed());
+			}
+		}
+		
+		assertEquals(1, this.database.connectionsOpened.get());
+		assertEquals(50, this.pool.getBorrowCount());
+		assertEquals(1, this.pool.getIdleConnections());
+		assertEquals(0, this.pool.getActiveConnections());
+	}
+	
+	@Test
+	void closedConnectionCannotBeUsed() throws SQLException
+	{
+		Connection connection = this.pool.getConnection();
+		connection.close();
+		connection.close();
+		
+		assertTrue(connection.isClosed());
+		assertThrows(SQLException.class, () -> connection.prepareStatement("SELECT 1"));
+		assertEquals(1, this.pool.getIdleConnections());
+	}
+	
+	@Test
+	void timesOutWhenEveryConnectionIsBorrowed() throws SQLException
+	{
+		this.pool.setMaximumSize(2);
+		this.pool.setBorrowTimeoutMillis(100);
+		Connection first = this.pool.getConnection();
+		Connection second = this.pool.getConnection();
+		
+		long start = System.nanoTime();
+		assertThrows(SQLTransientConnectionException.class, () -> this.pool.getConnection());
+		
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+		assertEquals(1, this.pool.getBorrowTimeouts());
+		assertEquals(2, this.pool.getTotalConnections());
+		
+		first.close();
+		second.close();
+		
+		this.pool.getConnection().close();
+		assertEquals(2, this.database.connectionsOpened.get());
+	}
+	
+	@Test
+	void handsAReturnedConnectionToAWaitingBorrower() throws Exception
+	{
+		this.pool.setMaximumSize(1);
+		this.pool.setBorrowTimeoutMillis(TimeUnit.SECONDS.toMillis(10));
+		Connection borrowed = this.pool.getConnection();
+		
+		CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> 
+		{
+			try(Connection connection = this.pool.getConnection())
+			{
+				return !connection.isClosed();
+			}
+			catch(SQLException e)
+			{
+				throw new IllegalStateException(e);
+			}
+		});
+		
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		
+		while(this.pool.getWaitingThreads() == 0 && System.nanoTime() < deadline)
+		{
+			Thread.sleep(5);
+		}
+		
+		assertEquals(1, this.pool.getWaitingThreads());
+		borrowed.close();
+		
+		assertTrue(waiter.get(5, TimeUnit.SECONDS));
+		assertEquals(1, this.database.connectionsOpened.get());
+	}
+	
+	@Test
+	void resetsTheSettingsOfAReturnedConnection() throws SQLException
+	{
+		try(Connection connection = this.pool.getConnection())
+		{
+			connection.setAutoCommit(false);
+			connection.setReadOnly(true);
+			connection.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+		}
+		
+		assertEquals(1, this.database.rollbacks.get());
+		
+		try(Connection connection = this.pool.getConnection())
+		{
+			assertTrue(connection.getAutoCommit());
+			assertFalse(connection.isReadOnly());
+			assertEquals(Connection.TRANSACTION_READ_COMMITTED, connection.getTransactionIsolation());
+		}
+		
+		assertEquals(1, this.database.connectionsOpened.get());
+	}
+	
+	@Test
+	void replacesAConnectionThatFailsValidation() throws Exception
+	{
+		this.pool.getConnection().close();
+		
+		//Connections returned in the last half second are not validated again
+		Thread.sleep(600);
+		this.database.valid = false;
+		
+		try(Connection connection = this.pool.getConnection())
+		{
+			assertFalse(connection.isClosed());
+		}
+		
+		assertEquals(1, this.pool.getValidationFailures());
+		assertEquals(2, this.database.connectionsOpened.get());
+		assertEquals(1, this.database.connectionsClosed.get());
+	}
+	
+	@Test
+	void evictsIdleConnectionsDownToTheMinimum() throws Exception
+	{
+		this.pool.setIdleTimeoutMillis(1000);
+		this.pool.setMinimumSize(1);
+		List<Connection> connections = new ArrayList<>();
+		
+		for(int borrow = 0; borrow < 3; borrow++)
+		{
+			connections.add(this.pool.getConnection());
+		}
+		
+		for(Connection connection : connections)
+		{
+			connection.close();
+		}
+		
+		assertEquals(3, this.pool.getTotalConnections());
+		Thread.sleep(1100);
+		this.pool.evictIdleConnections();
+		
+		assertEquals(1, this.pool.getTotalConnections());
+		assertEquals(2, this.pool.getConnectionsDestroyed());
+		assertEquals(2, this.database.connectionsClosed.get());
+	}
+	
+	@Test
+	void opensConnectionsUpToTheMinimum() throws Exception
+	{
+		this.pool.setMinimumSize(2);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		
+		while(this.pool.getTotalConnections() < 2 && System.nanoTime() < deadline)
+		{
+			Thread.sleep(5);
+		}
+		
+		assertEquals(2, this.pool.getIdleConnections());
+		assertEquals(2, this.database.connectionsOpened.get());
+	}
+	
+	@Test
+	void closingThePoolClosesIdleAndReturnedConnections() throws SQLException
+	{
+		Connection idle = this.pool.getConnection();
+		Connection borrowed = this.pool.getConnection();
+		idle.close();
+		
+		this.pool.close();
+		assertEquals(1, this.database.connectionsClosed.get());
+		
+		borrowed.close();
+		assertEquals(2, this.database.connectionsClosed.get());
+		assertTrue(this.pool.isClosed());
+		assertThrows(SQLException.class, () -> this.pool.getConnection());
+	}
+	
+	@Test
+	void reusesCachedStatements() throws SQLException
+	{
+		for(int borrow = 0; borrow < 10; borrow++)
+		{
+			try(Connection connection = this.pool.getConnection(); 
+					PreparedStatement statement = connection.prepareStatement("SELECT * FROM t WHERE a = ?"))
+			{
+				statement.setObject(1, borrow);
+				statement.executeQuery().close();
+			}
+		}
+		
+		assertEquals(1, this.database.statementsPrepared.get());
+		assertEquals(9, this.pool.getStatementCacheHits());
+		assertEquals(1, this.pool.getStatementCacheMisses());
+	}
+	
+	@Test
+	void preparesAnotherStatementWhileTheCachedOneIsOpen() throws SQLException
+	{
+		try(Connection connection = this.pool.getConnection())
+		{
+			PreparedStatement first = connection.prepareStatement("SELECT 1");
+			PreparedStatement second = connection.prepareStatement("SELECT 1");
+			
+			assertNotSame(first, second);
+			assertEquals(2, this.database.statementsPrepared.get());
+			assertSame(connection, first.getConnection());
+			
+			first.close();
+			second.close();
+			assertThrows(SQLException.class, () -> first.setFetchSize(10));
+		}
+	}
+	
+	@Test
+	void evictsTheLeastRecentlyUsedStatement() throws SQLException
+	{
+		this.pool.setStatementCacheSize(2);
+		
+		try(Connection connection = this.pool.getConnection())
+		{
+			connection.prepareStatement("SELECT 1").close();
+			connection.prepareStatement("SELECT 2").close();
+			connection.prepareStatement("SELECT 1").close();
+			connection.prepareStatement("SELECT 3").close();
+			assertEquals(3, this.database.statementsPrepared.get());
+			
+			connection.prepareStatement("SELECT 1").close();
+			assertEquals(3, this.database.statementsPrepared.get());
+			
+			connection.prepareStatement("SELECT 2").close();
+			assertEquals(4, this.database.statementsPrepared.get());
+		}
+	}
+	
+	@Test
+	void doesNotCacheAStatementThatIsNotPoolable() throws SQLException
+	{
+		try(Connection connection = this.pool.getConnection())
+		{
+			try(PreparedStatement statement = connection.prepareStatement("SELECT 1"))
+			{
+				statement.setPoolable(false);
+			}
+			
+			connection.prepareStatement("SELECT 1").close();
+		}
+		
+		assertEquals(2, this.database.statementsPrepared.get());
+	}
+	
+	@Test
+	void sharesPoolsBetweenConfigurationsWithTheSameLogin() throws SQLException
+	{
+		SimpleConnectionPool shared = SimpleConnectionPool.forConfiguration(this.database.configuration("secret"));
+		
+		try
+		{
+			assertSame(shared, SimpleConnectionPool.forConfiguration(this.database.configuration("secret")));
+			assertNotSame(shared, SimpleConnectionPool.forConfiguration(this.database.configuration("other")));
+			
+			shared.close();
+			SimpleConnectionPool replacement = SimpleConnectionPool.forConfiguration(this.database.configuration("secret"));
+			
+			assertNotSame(shared, replacement);
+			assertFalse(replacement.isClosed());
+		}
+		finally
+		{
+			SimpleConnectionPool.closeSharedPools();
+		}
+	}
+}